@@ -0,0 +1,124 @@
+/*
+ * BenchmarkData.java
+ * 
+ * 1.0
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.util.ArrayList;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.LogManager;
+
+/**
+ * Creates the data used by the benchmarks: update logs
+ * as they are gossiped between {@link ReplicationManager}s
+ * and {@link ReplicationManager}s running on a
+ * {@link LoopbackCommunicator}.
+ * 
+ * @author sosterwalder
+ *
+ */
+final class BenchmarkData {
+
+	/**
+	 * Not to be instantiated.
+	 */
+	private BenchmarkData() {
+	}
+
+	/**
+	 * Creates an update log of the given size. The updates
+	 * are issued round robin by all {@link ReplicationManager}s,
+	 * each of them depending on all the previous ones, so
+	 * applying them in the order of the log never has to
+	 * wait for an update.
+	 * 
+	 * @param replicas		the number of {@link ReplicationManager}s
+	 * @param logSize		the number of records
+	 * @return				the records, in causal order
+	 */
+	static ArrayList<LogRecord> createLog(int replicas, int logSize) {
+		ArrayList<LogRecord> log = new ArrayList<LogRecord>(logSize);
+		VectorClock timestamp = new VectorClock(replicas);
+		for (int i = 0; i < logSize; i++) {
+			int origin = i % replicas;
+
+			ActionMessage msg = new ActionMessage();
+			msg.setOperation(ActionMessage.Operation.INSERT);
+			msg.setUserId(i % 100);
+			msg.setTitle("Gossip");
+			msg.setBody(String.format("This is some nice message :D number %d", i));
+			msg.setTimestamp(timestamp.copy());
+
+			timestamp.increment(origin);
+			LogRecord record = new LogRecord();
+			record.setReplicationManagerId(origin);
+			record.setTimestamp(timestamp.copy());
+			record.setMessage(msg);
+			log.add(record);
+		}
+		return log;
+	}
+
+	/**
+	 * Creates a gossip message holding the given log
+	 * and the replica time stamp of its sender.
+	 * 
+	 * @param log			the log as created by createLog()
+	 * @param replicas		the number of {@link ReplicationManager}s
+	 * @return				the gossip message
+	 */
+	static GossipMessage createGossip(ArrayList<LogRecord> log, int replicas) {
+		GossipMessage gossip = new GossipMessage();
+		gossip.setTimestamp(log.isEmpty() ? new VectorClock(replicas) : log.get(log.size() - 1).getTimestamp().copy());
+		gossip.setLogRecords(log);
+		return gossip;
+	}
+
+	/**
+	 * Creates the {@link ReplicationManager} of rank 0 out
+	 * of the given number of them, nothing gets logged.
+	 * The neighbor 0 of it is the one of rank 1.
+	 * 
+	 * @param replicas		the number of {@link ReplicationManager}s
+	 * @return				the replication manager
+	 */
+	static ReplicationManager createReplicationManager(int replicas) {
+		// The logger of a RM is set up by its constructor,
+		// disable logging before it logs anything at all
+		LogManager.getLoggerRepository().setThreshold(Level.OFF);
+
+		ReplicationManager rm = new ReplicationManager(LoopbackCommunicator.create(2 * replicas)[0]);
+
+		// Every RM of rank 0 adds an appender to
+		// the same logger, don't let them pile up
+		LogManager.getLogger(ReplicationManager.class.getName() + ".0").removeAllAppenders();
+		return rm;
+	}
+}
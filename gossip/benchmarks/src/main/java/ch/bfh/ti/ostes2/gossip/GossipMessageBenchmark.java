@@ -0,0 +1,144 @@
+/*
+ * GossipMessageBenchmark.java
+ * 
+ * 1.0
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures encoding and decoding a {@link GossipMessage}
+ * with both codecs of the {@link Wire}: JAVA, i.e. Java
+ * serialization as done by P2P-MPI and the
+ * {@link LoopbackCommunicator} for OBJECT buffers, and
+ * BINARY, i.e. the {@link WireCodec}.
+ * 
+ * @author sosterwalder
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GossipMessageBenchmark {
+	@Param({ "3", "8", "32" })
+	public int				replicas;
+
+	@Param({ "100", "1000", "10000" })
+	public int				logSize;
+
+	private GossipMessage	gossip		= null;
+	private byte[]			serialized	= null; // JAVA
+	private byte[]			frame		= null; // BINARY
+
+	/**
+	 * Creates the gossip message and
+	 * encodes it with both codecs.
+	 * 
+	 * @throws IOException
+	 */
+	@Setup
+	public void setup() throws IOException {
+		gossip = BenchmarkData.createGossip(BenchmarkData.createLog(replicas, logSize), replicas);
+		serialized = this.javaEncode();
+		frame = WireCodec.encode(gossip);
+	}
+
+	/**
+	 * Serializes the gossip message.
+	 * 
+	 * @return		the serialized message
+	 * @throws IOException
+	 */
+	@Benchmark
+	public byte[] javaEncode() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(new Object[] { gossip });
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Deserializes the gossip message.
+	 * 
+	 * @return		the deserialized message
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	@Benchmark
+	public Object javaDecode() throws IOException, ClassNotFoundException {
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized));
+		try {
+			return ((Object[]) in.readObject())[0];
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Encodes the gossip message as frame.
+	 * 
+	 * @return		the frame
+	 */
+	@Benchmark
+	public byte[] binaryEncode() {
+		return WireCodec.encode(gossip);
+	}
+
+	/**
+	 * Decodes the gossip message from its frame.
+	 * 
+	 * @return		the decoded message
+	 */
+	@Benchmark
+	public Message binaryDecode() {
+		return WireCodec.decode(frame);
+	}
+}
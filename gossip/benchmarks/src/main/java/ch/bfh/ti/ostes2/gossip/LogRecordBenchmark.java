@@ -0,0 +1,98 @@
+/*
+ * LogRecordBenchmark.java
+ * 
+ * 1.0
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures sorting an update log in the order
+ * of {@link LogRecord}, i.e. the order in which
+ * stable updates get applied.
+ * 
+ * @author sosterwalder
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogRecordBenchmark {
+	@Param({ "3", "8", "32" })
+	public int						replicas;
+
+	@Param({ "100", "1000", "10000" })
+	public int						logSize;
+
+	private ArrayList<LogRecord>	shuffled	= null;
+	private ArrayList<LogRecord>	log			= null; // Sorted by the benchmark
+
+	/**
+	 * Creates the log in random order.
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		shuffled = BenchmarkData.createLog(replicas, logSize);
+		Collections.shuffle(shuffled, new Random(42));
+		log = new ArrayList<LogRecord>(logSize);
+	}
+
+	/**
+	 * Sorts a copy of the log in random order,
+	 * the copying is part of the measurement.
+	 * 
+	 * @return		the sorted log
+	 */
+	@Benchmark
+	public ArrayList<LogRecord> sort() {
+		log.clear();
+		log.addAll(shuffled);
+		Collections.sort(log);
+		return log;
+	}
+}
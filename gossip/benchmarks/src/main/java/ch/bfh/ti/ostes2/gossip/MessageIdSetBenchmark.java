@@ -0,0 +1,177 @@
+/*
+ * MessageIdSetBenchmark.java
+ * 
+ * 1.0
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures looking up message IDs in a {@link MessageIdSet}
+ * against a linear scan of a list, which is how the
+ * {@link ReplicationManager} looked up scheduled and
+ * executed updates before, and adding and removing IDs.
+ * 
+ * Half of the looked up IDs are contained, like for a
+ * gossip message which is partly known already.
+ * 
+ * @author sosterwalder
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageIdSetBenchmark {
+
+	/**
+	 * The same IDs in a {@link MessageIdSet}
+	 * and in a list.
+	 */
+	@State(Scope.Thread)
+	public static class Filled {
+		@Param({ "1000", "5000", "20000", "50000" })
+		public int					size;
+
+		MessageIdSet				set			= null;
+		ArrayList<UUID>				list		= null;
+		UUID[]						lookups		= null;
+		int							index		= 0;
+
+		/**
+		 * Fills the set and the list and creates the
+		 * IDs to look up, every second one is contained.
+		 */
+		@Setup(Level.Trial)
+		public void setup() {
+			set = new MessageIdSet();
+			list = new ArrayList<UUID>(size);
+			lookups = new UUID[size];
+			for (int i = 0; i < size; i++) {
+				UUID id = UUID.randomUUID();
+				set.add(id);
+				list.add(id);
+				lookups[i] = i % 2 == 0 ? id : UUID.randomUUID();
+			}
+		}
+
+		/**
+		 * Returns the next ID to look up.
+		 * 
+		 * @return		the ID
+		 */
+		UUID next() {
+			if (++index == size) {
+				index = 0;
+			}
+			return lookups[index];
+		}
+	}
+
+	/**
+	 * The IDs to add to an empty {@link MessageIdSet}.
+	 */
+	@State(Scope.Thread)
+	public static class Ids {
+		@Param({ "1000", "5000", "20000", "50000" })
+		public int					size;
+
+		UUID[]						ids			= null;
+
+		/**
+		 * Creates the IDs, they are never changed.
+		 */
+		@Setup(Level.Trial)
+		public void setup() {
+			ids = new UUID[size];
+			for (int i = 0; i < size; i++) {
+				ids[i] = UUID.randomUUID();
+			}
+		}
+	}
+
+	/**
+	 * Looks up an ID in the {@link MessageIdSet}.
+	 * 
+	 * @param state		the set and the IDs
+	 * @return			the result of the lookup
+	 */
+	@Benchmark
+	public boolean contains(Filled state) {
+		return state.set.contains(state.next());
+	}
+
+	/**
+	 * Looks up an ID by scanning the list.
+	 * 
+	 * @param state		the list and the IDs
+	 * @return			the result of the lookup
+	 */
+	@Benchmark
+	public boolean linearScan(Filled state) {
+		return state.list.contains(state.next());
+	}
+
+	/**
+	 * Adds all the IDs to a new {@link MessageIdSet},
+	 * growing it from its default capacity, and
+	 * removes them again.
+	 * 
+	 * @param state		the IDs
+	 * @return			the set
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public MessageIdSet addAndRemove(Ids state) {
+		MessageIdSet set = new MessageIdSet();
+		for (int i = 0; i < state.ids.length; i++) {
+			set.add(state.ids[i]);
+		}
+		for (int i = 0; i < state.ids.length; i++) {
+			set.remove(state.ids[i]);
+		}
+		return set;
+	}
+}
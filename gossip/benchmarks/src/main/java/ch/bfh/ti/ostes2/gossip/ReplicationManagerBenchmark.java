@@ -0,0 +1,218 @@
+/*
+ * ReplicationManagerBenchmark.java
+ * 
+ * 1.0
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the handling of updates by a {@link ReplicationManager}:
+ * looking up if an update is scheduled or executed already,
+ * applying updates and processing a whole gossip message.
+ * 
+ * The benchmarks call the package-private methods of the
+ * {@link ReplicationManager} directly, nothing gets sent.
+ * Applying updates and processing gossip change the state,
+ * so every invocation gets a new {@link ReplicationManager}
+ * and measures the whole log at once.
+ * 
+ * @author sosterwalder
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReplicationManagerBenchmark {
+
+	/**
+	 * A {@link ReplicationManager} which applied
+	 * the whole log, so every update of it is
+	 * scheduled and executed.
+	 */
+	@State(Scope.Thread)
+	public static class Applied {
+		@Param({ "3", "8", "32" })
+		public int					replicas;
+
+		@Param({ "100", "1000", "10000" })
+		public int					logSize;
+
+		ReplicationManager			rm			= null;
+		UUID[]						known		= null;
+		UUID[]						unknown		= null;
+		int							index		= 0;
+
+		/**
+		 * Creates the replication manager
+		 * and processes the log.
+		 */
+		@Setup(Level.Trial)
+		public void setup() {
+			ArrayList<LogRecord> log = BenchmarkData.createLog(replicas, logSize);
+			rm = BenchmarkData.createReplicationManager(replicas);
+			rm.processGossip(0, BenchmarkData.createGossip(log, replicas));
+
+			known = new UUID[logSize];
+			unknown = new UUID[logSize];
+			for (int i = 0; i < logSize; i++) {
+				known[i] = log.get(i).getMessage().getId();
+				unknown[i] = UUID.randomUUID();
+			}
+		}
+
+		/**
+		 * Returns the index of the next ID to look up.
+		 * 
+		 * @return		the index
+		 */
+		int next() {
+			if (++index == logSize) {
+				index = 0;
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * A new {@link ReplicationManager} and the
+	 * log to apply respectively to gossip to it.
+	 */
+	@State(Scope.Thread)
+	public static class Empty {
+		@Param({ "3", "8", "32" })
+		public int					replicas;
+
+		@Param({ "100", "1000", "10000" })
+		public int					logSize;
+
+		ArrayList<LogRecord>		log			= null;
+		GossipMessage				gossip		= null;
+		ReplicationManager			rm			= null;
+
+		/**
+		 * Creates the log, it is never changed.
+		 */
+		@Setup(Level.Trial)
+		public void setupLog() {
+			log = BenchmarkData.createLog(replicas, logSize);
+			gossip = BenchmarkData.createGossip(log, replicas);
+		}
+
+		/**
+		 * Creates the replication manager.
+		 */
+		@Setup(Level.Invocation)
+		public void setupReplicationManager() {
+			rm = BenchmarkData.createReplicationManager(replicas);
+		}
+	}
+
+	/**
+	 * Looks up a scheduled update.
+	 * 
+	 * @param state		the replication manager
+	 * @return			the result of the lookup
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public boolean isScheduled(Applied state) {
+		return state.rm.isScheduled(state.known[state.next()]);
+	}
+
+	/**
+	 * Looks up an executed update.
+	 * 
+	 * @param state		the replication manager
+	 * @return			the result of the lookup
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public boolean hasBeenExecuted(Applied state) {
+		return state.rm.hasBeenExecuted(state.known[state.next()]);
+	}
+
+	/**
+	 * Looks up an unknown update, like
+	 * for every newly gossiped record.
+	 * 
+	 * @param state		the replication manager
+	 * @return			the result of the lookup
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public boolean hasBeenExecutedMiss(Applied state) {
+		return state.rm.hasBeenExecuted(state.unknown[state.next()]);
+	}
+
+	/**
+	 * Applies the whole log in order.
+	 * 
+	 * @param state		the replication manager and the log
+	 * @return			the replication manager
+	 */
+	@Benchmark
+	public ReplicationManager applyMessage(Empty state) {
+		for (int i = 0; i < state.log.size(); i++) {
+			state.rm.applyMessage(state.log.get(i));
+		}
+		return state.rm;
+	}
+
+	/**
+	 * Processes a gossip message holding the whole
+	 * log, i.e. merges the records into the update
+	 * log, applies them and cleans the update log.
+	 * 
+	 * @param state		the replication manager and the log
+	 * @return			the replication manager
+	 */
+	@Benchmark
+	public ReplicationManager processGossip(Empty state) {
+		state.rm.processGossip(0, state.gossip);
+		return state.rm;
+	}
+}
@@ -0,0 +1,191 @@
+/*
+ * ValueStoreBenchmark.java
+ * 
+ * 1.0
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the queries of the newest messages of all users
+ * and of a single user using the indexes of the {@link ValueStore},
+ * compared to scanning all messages, searching messages by
+ * their text and the cost of keeping the indexes up to date
+ * when a message gets replaced.
+ * 
+ * The messages belong to 100 users round robin, the body of
+ * every message contains its number.
+ * 
+ * @author sosterwalder
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueStoreBenchmark {
+	// Number of messages a query asks for
+	private static final int	LIMIT		= 20;
+
+	@Param({ "1000", "10000", "100000" })
+	public int					storeSize;
+
+	private ValueStore					store		= null;
+	private ArrayList<ActionMessage>	inserted	= null; // In the order of insertion
+	private int							index		= 0;
+
+	/**
+	 * Creates the store.
+	 */
+	@Setup
+	public void setup() {
+		store = new ValueStore();
+		inserted = new ArrayList<ActionMessage>(storeSize);
+		for (LogRecord record : BenchmarkData.createLog(3, storeSize)) {
+			ActionMessage msg = (ActionMessage) record.getMessage();
+			store.put(msg);
+			inserted.add(msg);
+		}
+	}
+
+	/**
+	 * Returns the index of the next message
+	 * respectively user to query.
+	 * 
+	 * @return		the index
+	 */
+	private int next() {
+		if (++index == storeSize) {
+			index = 0;
+		}
+		return index;
+	}
+
+	/**
+	 * Queries the newest messages of all users.
+	 * 
+	 * @return		the messages
+	 */
+	@Benchmark
+	public ArrayList<ActionMessage> latest() {
+		return store.getLatest(LIMIT);
+	}
+
+	/**
+	 * Queries the newest messages of a user.
+	 * 
+	 * @return		the messages
+	 */
+	@Benchmark
+	public ArrayList<ActionMessage> latestOfUser() {
+		return store.getLatestOfUser(this.next() % 100, LIMIT);
+	}
+
+	/**
+	 * Queries the newest messages of a user
+	 * by scanning all messages, newest first.
+	 * 
+	 * @return		the messages
+	 */
+	@Benchmark
+	public ArrayList<ActionMessage> latestOfUserScan() {
+		int userId = this.next() % 100;
+		ArrayList<ActionMessage> latest = new ArrayList<ActionMessage>(LIMIT);
+		for (int i = inserted.size() - 1; i >= 0 && latest.size() < LIMIT; i--) {
+			if (inserted.get(i).getUserId() == userId) {
+				latest.add(inserted.get(i));
+			}
+		}
+		return latest;
+	}
+
+	/**
+	 * Searches the message containing a number,
+	 * i.e. a term of a single message.
+	 * 
+	 * @return		the messages
+	 */
+	@Benchmark
+	public ArrayList<ActionMessage> search() {
+		return store.search(String.format("number %d", this.next()), false, LIMIT);
+	}
+
+	/**
+	 * Searches the messages containing a term
+	 * of every message.
+	 * 
+	 * @return		the messages
+	 */
+	@Benchmark
+	public ArrayList<ActionMessage> searchCommon() {
+		return store.search("nice", false, LIMIT);
+	}
+
+	/**
+	 * Searches the messages containing a term starting
+	 * with a prefix, the number without its last digit,
+	 * which about ten numbers do.
+	 * 
+	 * @return		the messages
+	 */
+	@Benchmark
+	public ArrayList<ActionMessage> searchPrefix() {
+		return store.search(String.format("number %d", this.next() / 10), true, LIMIT);
+	}
+
+	/**
+	 * Replaces a message by a changed copy,
+	 * like applying an UPDATE.
+	 * 
+	 * @return		the store
+	 */
+	@Benchmark
+	public ValueStore replace() {
+		int i = this.next();
+		ActionMessage copy = store.get(inserted.get(i).getId()).copy();
+		copy.setTitle("Updated");
+		store.put(copy);
+		return store;
+	}
+}
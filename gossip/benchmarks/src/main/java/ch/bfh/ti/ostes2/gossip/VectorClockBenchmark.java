@@ -0,0 +1,126 @@
+/*
+ * VectorClockBenchmark.java
+ * 
+ * 1.0
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time stamp operations of {@link VectorClock},
+ * which are done for every update, query and record of a
+ * gossip message.
+ * 
+ * @author sosterwalder
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorClockBenchmark {
+	@Param({ "3", "8", "32" })
+	public int			replicas;
+
+	private VectorClock	timestamp	= null;
+	private VectorClock	ahead		= null; // Larger or equal in every component
+	private VectorClock	scratch		= null;
+
+	/**
+	 * Creates the time stamps.
+	 */
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		timestamp = new VectorClock(replicas);
+		ahead = new VectorClock(replicas);
+		for (int i = 0; i < replicas; i++) {
+			timestamp.set(i, random.nextInt(1000));
+			ahead.set(i, timestamp.get(i) + random.nextInt(2));
+		}
+		scratch = new VectorClock(replicas);
+	}
+
+	/**
+	 * Copies a time stamp.
+	 * 
+	 * @return		the copy
+	 */
+	@Benchmark
+	public VectorClock copy() {
+		return timestamp.copy();
+	}
+
+	/**
+	 * Merges a time stamp into another one.
+	 * 
+	 * @return		if the time stamp changed
+	 */
+	@Benchmark
+	public boolean merge() {
+		scratch.set(timestamp);
+		return scratch.merge(ahead);
+	}
+
+	/**
+	 * Checks if a time stamp is smaller or equal
+	 * than another one, e.g. if an update is stable.
+	 * 
+	 * @return		the result of the check
+	 */
+	@Benchmark
+	public boolean isSmallerOrEqualThan() {
+		return timestamp.isSmallerOrEqualThan(ahead);
+	}
+
+	/**
+	 * Compares two time stamps.
+	 * 
+	 * @return		the ordering
+	 */
+	@Benchmark
+	public VectorClock.Ordering compare() {
+		return timestamp.compare(ahead);
+	}
+}
@@ -0,0 +1,295 @@
+/*
+ * WriteAheadLogBenchmark.java
+ * 
+ * 1.0
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures appending to the {@link WriteAheadLog} and how
+ * long recovering takes, both for replaying the log alone
+ * and for rebuilding a {@link ReplicationManager}, from the
+ * log as well as from a {@link Snapshot}.
+ * 
+ * Every record is written like an accepted update, i.e. as
+ * RECORD entry followed by an APPLY entry. The logs live in
+ * temporary directories, which get deleted afterwards.
+ * Recovering does not append anything, so the same log is
+ * recovered by every invocation.
+ * 
+ * @author sosterwalder
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriteAheadLogBenchmark {
+	// The number of RMs the records are issued by
+	private static final int	REPLICAS	= 2;
+
+	/**
+	 * An empty log, appended to
+	 * during an iteration.
+	 */
+	@State(Scope.Thread)
+	public static class Empty {
+		@Param({ "1", "256" })
+		public int					syncBatch;
+
+		ArrayList<LogRecord>		records		= null;
+		File						directory	= null;
+		WriteAheadLog				wal			= null;
+		int							index		= 0;
+
+		/**
+		 * Creates the records, they are
+		 * appended over and over again.
+		 */
+		@Setup(Level.Trial)
+		public void setupRecords() {
+			records = BenchmarkData.createLog(REPLICAS, 1024);
+		}
+
+		/**
+		 * Creates the log, synced only by the batch.
+		 * 
+		 * @throws IOException
+		 */
+		@Setup(Level.Iteration)
+		public void setupLog() throws IOException {
+			directory = Files.createTempDirectory("wal-bench").toFile();
+			wal = new WriteAheadLog(directory, WriteAheadLog.DEFAULT_SEGMENT_SIZE, Long.MAX_VALUE, syncBatch);
+			wal.recover(null);
+		}
+
+		/**
+		 * Closes and deletes the log.
+		 */
+		@TearDown(Level.Iteration)
+		public void tearDownLog() {
+			wal.close();
+			delete(directory);
+		}
+
+		/**
+		 * Returns the next record to append.
+		 * 
+		 * @return		the record
+		 */
+		LogRecord next() {
+			if (++index == records.size()) {
+				index = 0;
+			}
+			return records.get(index);
+		}
+	}
+
+	/**
+	 * A log of the given number of records and
+	 * a snapshot of the same records, taken by a
+	 * {@link ReplicationManager} which recovered
+	 * from the log.
+	 */
+	@State(Scope.Thread)
+	public static class Written {
+		@Param({ "100000", "1000000" })
+		public int					records;
+
+		File						logDirectory		= null;
+		File						snapshotDirectory	= null;
+
+		/**
+		 * Writes the log and the snapshot.
+		 * 
+		 * @throws IOException
+		 */
+		@Setup(Level.Trial)
+		public void setup() throws IOException {
+			logDirectory = Files.createTempDirectory("wal-bench").toFile();
+			WriteAheadLog wal = new WriteAheadLog(logDirectory, WriteAheadLog.DEFAULT_SEGMENT_SIZE, Long.MAX_VALUE, MainRunner.WAL_SYNC_BATCH);
+			wal.recover(null);
+			for (LogRecord record : BenchmarkData.createLog(REPLICAS, records)) {
+				wal.appendRecord(record);
+				wal.appendApply(record.getMessage().getId());
+				if (wal.isSyncDue(0)) {
+					wal.sync();
+				}
+			}
+			wal.close();
+
+			// A copy of the log, replaced
+			// by the snapshot of it
+			snapshotDirectory = Files.createTempDirectory("wal-bench").toFile();
+			for (File file : logDirectory.listFiles()) {
+				Files.copy(file.toPath(), new File(snapshotDirectory, file.getName()).toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			ReplicationManager rm = BenchmarkData.createReplicationManager(REPLICAS);
+			rm.recover(new WriteAheadLog(snapshotDirectory, WriteAheadLog.DEFAULT_SEGMENT_SIZE, 0, 1));
+			if (!rm.takeSnapshot()) {
+				throw new IllegalStateException("Could not take a snapshot of " + snapshotDirectory);
+			}
+			rm.closeLog();
+		}
+
+		/**
+		 * Deletes the log and the snapshot.
+		 */
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			delete(logDirectory);
+			delete(snapshotDirectory);
+		}
+	}
+
+	/**
+	 * Counts the replayed records.
+	 */
+	private static class CountingReplay implements WriteAheadLog.Replay {
+		long						records		= 0;
+
+		@Override
+		public void record(LogRecord record) {
+			records++;
+		}
+
+		@Override
+		public void apply(UUID messageId) {
+		}
+
+		@Override
+		public void replicaTimestamp(VectorClock timestamp) {
+		}
+	}
+
+	/**
+	 * Appends a record and its APPLY entry,
+	 * syncing them if the batch is full.
+	 * 
+	 * @param state		the log
+	 * @return			the log
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public WriteAheadLog append(Empty state) {
+		LogRecord record = state.next();
+		state.wal.appendRecord(record);
+		state.wal.appendApply(record.getMessage().getId());
+		if (state.wal.isSyncDue(0)) {
+			state.wal.sync();
+		}
+		return state.wal;
+	}
+
+	/**
+	 * Reads the whole log, without
+	 * rebuilding anything.
+	 * 
+	 * @param state		the log
+	 * @return			the number of replayed records
+	 * @throws IOException
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public long replay(Written state) throws IOException {
+		CountingReplay replay = new CountingReplay();
+		new WriteAheadLog(state.logDirectory, WriteAheadLog.DEFAULT_SEGMENT_SIZE, 0, 1).recover(replay);
+		return replay.records;
+	}
+
+	/**
+	 * Rebuilds a {@link ReplicationManager} from the
+	 * whole log, its neighbours and front ends are
+	 * not running.
+	 * 
+	 * @param state		the log
+	 * @return			the replication manager
+	 * @throws IOException
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public ReplicationManager recover(Written state) throws IOException {
+		ReplicationManager rm = BenchmarkData.createReplicationManager(REPLICAS);
+		rm.recover(new WriteAheadLog(state.logDirectory, WriteAheadLog.DEFAULT_SEGMENT_SIZE, 0, 1));
+		return rm;
+	}
+
+	/**
+	 * Rebuilds a {@link ReplicationManager} from
+	 * the snapshot and the empty log behind it.
+	 * 
+	 * @param state		the snapshot
+	 * @return			the replication manager
+	 * @throws IOException
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public ReplicationManager recoverFromSnapshot(Written state) throws IOException {
+		ReplicationManager rm = BenchmarkData.createReplicationManager(REPLICAS);
+		rm.recover(new WriteAheadLog(state.snapshotDirectory, WriteAheadLog.DEFAULT_SEGMENT_SIZE, 0, 1));
+		return rm;
+	}
+
+	/**
+	 * Deletes the given directory
+	 * and the files within it.
+	 * 
+	 * @param directory		the directory to delete
+	 */
+	private static void delete(File directory) {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+}
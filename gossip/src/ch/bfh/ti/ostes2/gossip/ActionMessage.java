@@ -1,9 +1,9 @@
 /*
  * ActionMessage.java
  * 
- * 1.3
+ * 1.8
  * 
- * 2014-01-22
+ * 2026-10-18
  *
  * The MIT License (MIT)
 * 
@@ -47,12 +47,31 @@ public class ActionMessage implements Serializable, Message {
 		INSERT, UPDATE, DELETE
 	}
 	private static final long serialVersionUID = 2479571943630888851L;
-	private UUID id = UUID.randomUUID();
-	private int timestamp[] = null;
+	private UUID id = null;
+	private VectorClock timestamp = null;
 	private int userId	= Integer.MAX_VALUE;
 	private String title = "";
 	private String body = "";
 	private Operation operation = null;
+	private UUID targetId = null; // Null for the own ID
+	private UUID requestId = null; // Only set for answers
+
+	/**
+	 * Constructor
+	 */
+	public ActionMessage() {
+		this(UUID.randomUUID());
+	}
+	
+	/**
+	 * Constructor for an existing {@link ActionMessage},
+	 * e.g. when decoding it.
+	 * 
+	 * @param id		the unique ID of the message
+	 */
+	ActionMessage(UUID id) {
+		this.id = id;
+	}
 
 	/* (non-Javadoc)
 	 * @see ch.bfh.ti.ostes2.gossip.Message#getId()
@@ -64,17 +83,61 @@ public class ActionMessage implements Serializable, Message {
 	/* (non-Javadoc)
 	 * @see ch.bfh.ti.ostes2.gossip.Message#getTimestamp()
 	 */
-	public int[] getTimestamp() {
+	public VectorClock getTimestamp() {
 		return timestamp;
 	}
 
 	/* (non-Javadoc)
-	 * @see ch.bfh.ti.ostes2.gossip.Message#setTimestamp(int[])
+	 * @see ch.bfh.ti.ostes2.gossip.Message#setTimestamp(ch.bfh.ti.ostes2.gossip.VectorClock)
 	 */
-	public void setTimestamp(int timestamp[]) {
+	public void setTimestamp(VectorClock timestamp) {
 		this.timestamp = timestamp;
 	}
 	
+	/**
+	 * Returns the ID of the message the operation
+	 * applies to. An UPDATE or DELETE has an ID of
+	 * its own, so it is executed only once like any
+	 * other update, and targets the ID of the
+	 * message it changes. An INSERT targets itself.
+	 * 
+	 * @return			the ID of the target message
+	 */
+	public UUID getTargetId() {
+		return targetId == null ? id : targetId;
+	}
+	
+	/**
+	 * Sets the ID of the message the
+	 * operation applies to.
+	 * 
+	 * @param targetId	the ID of the target message
+	 */
+	public void setTargetId(UUID targetId) {
+		this.targetId = targetId;
+	}
+	
+	/**
+	 * Returns the ID of the update this
+	 * {@link ActionMessage} answers.
+	 * 
+	 * @return			the ID of the update or null
+	 * 					if this is no answer
+	 */
+	public UUID getRequestId() {
+		return requestId;
+	}
+	
+	/**
+	 * Sets the ID of the update this
+	 * {@link ActionMessage} answers.
+	 * 
+	 * @param requestId	the ID of the update
+	 */
+	public void setRequestId(UUID requestId) {
+		this.requestId = requestId;
+	}
+	
 	/**
 	 * Returns the title of the {@link ActionMessage}.
 	 * 
@@ -159,6 +222,25 @@ public class ActionMessage implements Serializable, Message {
 		this.operation = operation;
 	}
 	
+	/**
+	 * Returns a copy of the {@link ActionMessage}
+	 * with the same ID, e.g. for changing it while
+	 * the original may still be read elsewhere.
+	 * 
+	 * @return			the copy of the message
+	 */
+	public ActionMessage copy() {
+		ActionMessage copy = new ActionMessage(this.id);
+		copy.timestamp = this.timestamp == null ? null : this.timestamp.copy();
+		copy.userId = this.userId;
+		copy.title = this.title;
+		copy.body = this.body;
+		copy.operation = this.operation;
+		copy.targetId = this.targetId;
+		copy.requestId = this.requestId;
+		return copy;
+	}
+	
 	/**
 	 * Applies the attributes user-id, title
 	 * and body from given {@link ActionMessage}.
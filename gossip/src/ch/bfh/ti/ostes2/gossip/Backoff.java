@@ -0,0 +1,100 @@
+/*
+ * Backoff.java
+ * 
+ * 1.0
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An adaptive backoff for loops which poll
+ * for work, e.g. the loop of a {@link ReplicationManager}.
+ * 
+ * While the loop stays idle the backoff first spins,
+ * then yields the processor and finally parks the
+ * thread for a doubling time up to a maximum. As soon
+ * as there is work again the backoff gets reset, so
+ * arriving messages are handled without delay under load
+ * while an idle process hardly uses any processor time.
+ * 
+ * @author sosterwalder
+ *
+ */
+public class Backoff {
+	public static final int		SPINS				= 100;
+	public static final int		YIELDS				= 10;
+	public static final long	MIN_PARK_NANOS		= 1000L;
+
+	private long				maxParkNanos		= 0;
+	private long				parkNanos			= MIN_PARK_NANOS;
+	private int					idleRounds			= 0;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param maxParkNanos	the maximal time to park
+	 * 						the thread in nanoseconds
+	 */
+	public Backoff(long maxParkNanos) {
+		this.maxParkNanos = Math.max(maxParkNanos, MIN_PARK_NANOS);
+	}
+
+	/**
+	 * Backs off after an idle round of the loop,
+	 * the longer the loop is idle the longer
+	 * the thread gets parked.
+	 * 
+	 * @param deadlineNanos		the time in nanoseconds until
+	 * 							the next thing has to be done,
+	 * 							the thread is never parked
+	 * 							for longer than this
+	 */
+	public void idle(long deadlineNanos) {
+		if (idleRounds < SPINS) {
+			idleRounds++;
+		}
+		else if (idleRounds < SPINS + YIELDS) {
+			idleRounds++;
+			Thread.yield();
+		}
+		else if (deadlineNanos > 0) {
+			LockSupport.parkNanos(Math.min(parkNanos, deadlineNanos));
+			parkNanos = Math.min(parkNanos * 2, maxParkNanos);
+		}
+	}
+
+	/**
+	 * Resets the backoff after the
+	 * loop did some work.
+	 */
+	public void reset() {
+		idleRounds = 0;
+		parkNanos = MIN_PARK_NANOS;
+	}
+}
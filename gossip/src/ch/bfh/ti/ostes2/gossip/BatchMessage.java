@@ -0,0 +1,113 @@
+/*
+ * BatchMessage.java
+ * 
+ * 1.0
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.UUID;
+
+
+/**
+ * This class acts as container for several
+ * {@link ActionMessage}s sent at once, either
+ * as updates from a {@link Frontend} to a
+ * {@link ReplicationManager} or as the answers
+ * to them, so the overhead of a send is paid
+ * once per batch instead of once per update.
+ * 
+ * @author sosterwalder
+ *
+ */
+public class BatchMessage implements Serializable, Message {
+	private static final long 		serialVersionUID = 5243082916347181503L;
+	private UUID id = null;
+	private VectorClock timestamp = null;
+	private ArrayList<ActionMessage>	messages = null;
+
+	/**
+	 * Constructor
+	 */
+	public BatchMessage() {
+		this(UUID.randomUUID());
+	}
+	
+	/**
+	 * Constructor for an existing {@link BatchMessage},
+	 * e.g. when decoding it.
+	 * 
+	 * @param id		the unique ID of the message
+	 */
+	BatchMessage(UUID id) {
+		this.id = id;
+	}
+	
+	/* (non-Javadoc)
+	 * @see ch.bfh.ti.ostes2.gossip.Message#getId()
+	 */
+	public UUID getId() {
+		return id;
+	}
+
+	/* (non-Javadoc)
+	 * @see ch.bfh.ti.ostes2.gossip.Message#getTimestamp()
+	 */
+	public VectorClock getTimestamp() {
+		return timestamp;
+	}
+
+	/* (non-Javadoc)
+	 * @see ch.bfh.ti.ostes2.gossip.Message#setTimestamp(ch.bfh.ti.ostes2.gossip.VectorClock)
+	 */
+	public void setTimestamp(VectorClock timestamp) {
+		this.timestamp = timestamp;
+	}
+	
+	/**
+	 * Returns the messages of this batch,
+	 * in the order they were added.
+	 * 
+	 * @return		an array list containing
+	 * 				the messages
+	 */
+	public ArrayList<ActionMessage> getMessages() {
+		return messages;
+	}
+
+	/**
+	 * Sets the messages of this batch.
+	 * 
+	 * @param messages		the messages, in the order
+	 * 						they should be handled
+	 */
+	public void setMessages(ArrayList<ActionMessage> messages) {
+		this.messages = messages;
+	}
+}
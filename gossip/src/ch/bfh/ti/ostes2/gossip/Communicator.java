@@ -0,0 +1,126 @@
+/*
+ * Communicator.java
+ * 
+ * 1.0
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+/**
+ * This interface represents the part of a P2P-MPI
+ * communicator (IntraComm) used by the gossip
+ * architecture: the rank and size of the processes
+ * as well as non-blocking sending and receiving.
+ * 
+ * It allows running the {@link ReplicationManager}s
+ * and {@link Frontend}s either on P2P-MPI, using the
+ * {@link MpiCommunicator}, or within a single JVM,
+ * using the {@link LoopbackCommunicator}.
+ * 
+ * The method names follow the ones of P2P-MPI.
+ * 
+ * @author sosterwalder
+ *
+ */
+public interface Communicator {
+	/**
+	 * The types of the buffers which can be
+	 * sent and received.
+	 */
+	public enum Datatype {
+		OBJECT, BYTE
+	}
+	
+	/**
+	 * A non-blocking send or receive.
+	 */
+	public interface Request {
+		/**
+		 * Checks if the send or receive completed.
+		 * 
+		 * @return		true if it completed,
+		 * 				otherwise false
+		 */
+		boolean Test();
+		
+		/**
+		 * Blocks until the send or receive completed.
+		 */
+		void Wait();
+	}
+	
+	/**
+	 * Returns the rank of the current process.
+	 * 
+	 * @return		the rank
+	 */
+	int Rank();
+	
+	/**
+	 * Returns the number of processes.
+	 * 
+	 * @return		the number of processes
+	 */
+	int Size();
+	
+	/**
+	 * Starts sending the given buffer.
+	 * 
+	 * @param buffer		the buffer to send, an Object[]
+	 * 						or a byte[] depending on the datatype
+	 * @param offset		the offset within the buffer
+	 * @param count			the number of elements to send
+	 * @param datatype		the type of the buffer
+	 * @param destination	the rank of the receiving process
+	 * @param tag			the tag from {@link Utils}
+	 * @return				the request of the send
+	 */
+	Request Isend(Object buffer, int offset, int count, Datatype datatype, int destination, int tag);
+	
+	/**
+	 * Starts receiving into the given buffer.
+	 * 
+	 * @param buffer		the buffer to receive into, an Object[]
+	 * 						or a byte[] depending on the datatype
+	 * @param offset		the offset within the buffer
+	 * @param count			the maximal number of elements to receive
+	 * @param datatype		the type of the buffer
+	 * @param source		the rank of the sending process
+	 * @param tag			the tag from {@link Utils}
+	 * @return				the request of the receive
+	 */
+	Request Irecv(Object buffer, int offset, int count, Datatype datatype, int source, int tag);
+	
+	/**
+	 * Checks if any of the given requests completed.
+	 * 
+	 * @param requests		the requests to check
+	 * @return				the index of a completed request
+	 * 						or -1 if none completed
+	 */
+	int Testany(Request[] requests);
+}
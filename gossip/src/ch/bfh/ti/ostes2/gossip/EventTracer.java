@@ -0,0 +1,186 @@
+/*
+ * EventTracer.java
+ * 
+ * 1.0
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Records protocol events of a {@link ReplicationManager}
+ * or a {@link Frontend} as fixed-size binary records within
+ * a preallocated ring buffer, so complete traces can be
+ * taken without formatting any text. Once the buffer is
+ * full, the oldest records get overwritten.
+ * 
+ * A record looks as follows:
+ * 
+ * 	[nanos: 8][event: 4][rank: 4][peer: 4][value: 4][id: 16]
+ * 
+ * where nanos is the monotonic time of the event, peer the
+ * rank of the other process (or -1) and value an additional
+ * number depending on the event, e.g. the number of records
+ * within a gossip message.
+ * 
+ * The records get dumped to a file when the process stops
+ * and are decoded by the {@link TraceDecoder}. A tracer is
+ * used by a single thread only.
+ * 
+ * @author sosterwalder
+ *
+ */
+public class EventTracer {
+	/**
+	 * The traced events.
+	 */
+	public enum Event {
+		GOSSIP_SENT, GOSSIP_RECEIVED,
+		UPDATE_SENT, UPDATE_RECEIVED, UPDATE_ANSWERED, UPDATE_APPLIED,
+		QUERY_SENT, QUERY_RECEIVED, QUERY_QUEUED, QUERY_EXECUTED, QUERY_ANSWERED,
+		LOG_CLEANED, STATE_REQUESTED, STATE_SENT, STATE_INSTALLED
+	}
+
+	public static final int			MAGIC			= 0x54524345; // "TRCE"
+	public static final int			VERSION			= 1;
+	public static final int			RECORD_SIZE		= 40;
+	public static final int			HEADER_SIZE		= 40;
+	// A tracer which records nothing
+	public static final EventTracer	DISABLED		= new EventTracer(0, 0);
+
+	private int						rank			= 0;
+	private int						capacity		= 0;
+	private ByteBuffer				buffer			= null;
+	private long					recorded		= 0;
+	private long					startMillis		= 0; // Wall-clock time at startNanos
+	private long					startNanos		= 0;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param rank			the rank of the traced process
+	 * @param capacity		the number of records kept, 0 for
+	 * 						a tracer which records nothing
+	 */
+	public EventTracer(int rank, int capacity) {
+		this.rank = rank;
+		this.capacity = capacity;
+		this.buffer = ByteBuffer.allocate(capacity * RECORD_SIZE);
+		this.startMillis = System.currentTimeMillis();
+		this.startNanos = System.nanoTime();
+	}
+
+	/**
+	 * Returns if events are recorded.
+	 * 
+	 * @return		true if the tracer records
+	 * 				events, otherwise false
+	 */
+	public boolean isEnabled() {
+		return capacity > 0;
+	}
+
+	/**
+	 * Returns the number of events recorded
+	 * so far, including the overwritten ones.
+	 * 
+	 * @return		the number of events
+	 */
+	public long getRecorded() {
+		return recorded;
+	}
+
+	/**
+	 * Records the given event.
+	 * 
+	 * @param event		the event
+	 * @param peer		the rank of the other process,
+	 * 					-1 if there is none
+	 * @param id		the ID of the concerned message,
+	 * 					may be null
+	 * @param value		an additional number
+	 */
+	public void record(Event event, int peer, UUID id, int value) {
+		if (capacity == 0) {
+			return;
+		}
+
+		int position = (int) (recorded % capacity) * RECORD_SIZE;
+		buffer.putLong(position, System.nanoTime());
+		buffer.putInt(position + 8, event.ordinal());
+		buffer.putInt(position + 12, rank);
+		buffer.putInt(position + 16, peer);
+		buffer.putInt(position + 20, value);
+		buffer.putLong(position + 24, id == null ? 0 : id.getMostSignificantBits());
+		buffer.putLong(position + 32, id == null ? 0 : id.getLeastSignificantBits());
+		recorded++;
+	}
+
+	/**
+	 * Writes the kept records, oldest first, to the
+	 * given file behind a header holding the rank, the
+	 * number of records and the wall-clock time of the
+	 * start of the tracer.
+	 * 
+	 * @param file			the file to write
+	 * @return				the number of written records
+	 * @throws IOException
+	 */
+	public int dump(File file) throws IOException {
+		int count = (int) Math.min(recorded, capacity);
+		int first = (int) ((recorded - count) % Math.max(1, capacity));
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(rank);
+			out.writeInt(count);
+			out.writeLong(recorded);
+			out.writeLong(startMillis);
+			out.writeLong(startNanos);
+
+			// The ring wraps around
+			// at the end of the buffer
+			byte[] records = buffer.array();
+			int head = Math.min(count, capacity - first);
+			out.write(records, first * RECORD_SIZE, head * RECORD_SIZE);
+			out.write(records, 0, (count - head) * RECORD_SIZE);
+		}
+		finally {
+			out.close();
+		}
+		return count;
+	}
+}
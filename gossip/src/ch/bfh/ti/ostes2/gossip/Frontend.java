@@ -1,9 +1,9 @@
 /*
  * Frontend.java
  * 
- * 1.8
+ * 1.21
  * 
- * 2014-01-22
+ * 2026-10-18
  *
  * The MIT License (MIT)
 * 
@@ -30,13 +30,12 @@
 
 package ch.bfh.ti.ostes2.gossip;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Random;
-
-import p2pmpi.mpi.MPI;
-import p2pmpi.mpi.IntraComm;
-import p2pmpi.mpi.Request;
+import java.util.UUID;
 
 import org.apache.log4j.ConsoleAppender;
 import org.apache.log4j.Level;
@@ -51,11 +50,32 @@ import org.apache.log4j.SimpleLayout;
  * and so on) to a available {@link ReplicationManager}.
  * 
  * As this is only a simulation, the {@link Frontend}
- * picks randomly a available {@link ReplicationManager},
- * posts randomly messages and sends randomly queries.
+ * posts, updates and deletes randomly messages and sends
+ * randomly queries. The {@link ReplicationManager} of every
+ * request is picked by a {@link ReplicaSelector}, from the
+ * latencies and time stamps of the answers so far.
+ * 
+ * Updates may be sent in batches: the updates for a
+ * {@link ReplicationManager} are collected until either
+ * the batch size or its size in bytes is reached or the
+ * first of them waited for the linger time, and get sent
+ * as a single {@link BatchMessage} then.
+ * 
+ * Every answer of a {@link ReplicationManager} carries the
+ * ID of its request. The requests are kept in a table until
+ * their answer arrives, so any number of them may be
+ * outstanding per replication manager and answers may
+ * arrive in any order. The answered request is handed to
+ * the {@link AnswerListener}, if there is one.
  * 
- * The updating and deleting of messages is not yet
- * implemented.  
+ * Queries may be hedged: a query which got no answer
+ * within the given percentile of the latencies of the
+ * recent queries is sent to a second replication manager
+ * as well. The first answer completes the query, the
+ * other one gets ignored. The time stamp of an answer
+ * by the second replication manager is not merged, as
+ * the later updates would wait for its updates at the
+ * replication managers the FE usually sends to.
  * 
  * For each communication category (updating and querying)
  * the tags from {@link Utils} are used to distinct them.
@@ -64,29 +84,92 @@ import org.apache.log4j.SimpleLayout;
  *
  */
 public class Frontend {
+	/**
+	 * A request waiting for its answer.
+	 */
+	private static class Outstanding {
+		Message						request				= null;
+		int							replicaManagerId	= 0; // Index of the RM it was sent to
+		long						sentNanos			= 0;
+		int							hedgeId				= -1; // Index of the second RM, -1 if not hedged
+		long						hedgeSentNanos		= 0;
+		boolean						completed			= false;
+	}
+	
+	/**
+	 * Gets notified about every answered request.
+	 */
+	public interface AnswerListener {
+		/**
+		 * Called when the answer to the
+		 * given request arrived.
+		 * 
+		 * @param request		the answered update or query
+		 * @param answer		the answer
+		 */
+		void answered(Message request, Message answer);
+	}
+	
+	// Number of answered queries the hedge delay is calculated from
+	public static final int			HEDGE_WINDOW = 256;
+	// Number of the last sent messages kept for the record
+	public static final int			SENT_MESSAGES_LIMIT = 1024;
+	
 	private Logger 					logger = null;	
-	private IntraComm 				comm = null;
+	private Communicator			comm = null;
 	private int						size = 0;
 	private int 					rank = 0;
-	private int[]					timestamp = null;
+	private VectorClock				timestamp = null;
 	private int[]					replicaManagerIds = null;
-	private ArrayList<LogRecord>	sentMessages = null; 
-	private ActionMessage[]			answerBuffer = null;
-	private Request[]				updateAnswers = null;
-	private QueryMessage[]			queryBuffer = null;
-	private Request[]				queryAnswers = null;
+	private ArrayDeque<LogRecord>	sentMessages = null; // The last SENT_MESSAGES_LIMIT ones
+	private Wire					wire = null;
+	private Mailbox[]				updateAnswers = null;
+	private Mailbox[]				queryAnswers = null;
+	private HashMap<UUID, Outstanding>	outstandingRequests = null; // Unanswered updates and queries by ID
+	private ReplicaSelector			selector = null;
+	private ArrayList<ActionMessage>[]	batches = null; // Unsent updates by RM
+	private long[]					batchStartNanos = null; // When the first unsent update was added
+	private int[]					batchBytes = null; // Estimated size of the unsent updates
+	private int						batchSize = 1; // 1 if batching is disabled
+	private long					batchLingerNanos = 0;
+	private int						maxBatchBytes = Wire.DEFAULT_MAX_MESSAGE_SIZE;
+	private ArrayDeque<Outstanding>	unhedgedQueries = null; // In the order of sending
+	private double					hedgePercentile = 0; // 0 if hedging is disabled
+	private long					minHedgeDelayNanos = 0;
+	private long					hedgeDelayNanos = Long.MAX_VALUE; // Until enough latencies are known
+	private LatencyHistogram		queryLatencies = null; // Of the current window
+	private AnswerListener			answerListener = null;
+	private EventTracer				tracer = EventTracer.DISABLED;
+	private Metrics					metrics = null;
+	private Metrics.Counter			updatesSent = null;
+	private Metrics.Counter			updatesAnswered = null;
+	private Metrics.Counter			batchesSent = null;
+	private Metrics.Counter			queriesSent = null;
+	private Metrics.Counter			queriesAnswered = null;
+	private Metrics.Counter			queriesHedged = null;
+	private Metrics.Counter			hedgesWon = null;
+	private Metrics.Value			hedgeDelay = null; // In microseconds
+	private Metrics.Value			sentMessagesSize = null;
+	private Metrics.Value			requestsOutstanding = null;
+	private Metrics.Value[]			replicaLatencies = null; // In microseconds, by RM
+	private Metrics.Value[]			replicaOutstanding = null; // By RM
+	private long					metricsNanos = 0; // When the metrics were published
 	
 	/**
 	 * Constructor
+	 * 
+	 * @param comm		the communicator of the process
 	 */
-	public Frontend() {
-		this.setupLogger();
-		
-		comm = MPI.COMM_WORLD;
+	public Frontend(Communicator comm) {
+		this.comm = comm;
 		size = comm.Size();
 		rank = comm.Rank();
+		this.setupLogger();
+		
+		wire = new Wire(comm);
 		this.initializeBuffers();
 		this.initializeReplicaManagers();
+		this.initializeMetrics();
 		
 		logger.info(
 			String.format(
@@ -111,40 +194,157 @@ public class Frontend {
 	}
 
 	/**
-	 * Posts the given message (which is a string)
-	 * to some random {@link ReplicationManager}.
+	 * Sets the codec used for communicating
+	 * with {@link ReplicationManager}s.
 	 * 
-	 * @param message		which will be sent
+	 * @param codec				the codec to use
+	 * @param maxMessageSize	the maximal size of an encoded message
 	 */
-	public void postMessage(String message) {
-		// Pick a random replica manager
-		// This gives a random integer between 0 (inclusive) and 
-		// replicaManagerIds (exclusive)
-		Random r = new Random();
-		int replicaManagerId = r.nextInt(replicaManagerIds.length);
-		
-		// Prepare message and send to some replica manager
-		ActionMessage[] msg = new ActionMessage[1];
-		msg[0] = new ActionMessage();
-		msg[0].setTimestamp(timestamp);
-		msg[0].setTitle(message);
-		msg[0].setUserId(rank);
-		msg[0].setOperation(ActionMessage.Operation.INSERT);
-		comm.Isend(msg, 0, msg.length, MPI.OBJECT, replicaManagerIds[replicaManagerId], Utils.UPDATE_TAG);
-		
-		// Keep the message for the record
-		LogRecord log = new LogRecord();
-		log.setMessage(msg[0]);
-		log.setReplicationManagerId(replicaManagerIds[replicaManagerId]);
-		log.setTimestamp(timestamp);
-		sentMessages.add(log);
-		
+	public void setCodec(Wire.Codec codec, int maxMessageSize) {
+		wire.setCodec(codec, maxMessageSize);
+		maxBatchBytes = maxMessageSize;
 		logger.info(
 			String.format(
-				"FE %d: Sending message (ID: %s) to RM %d", rank, msg[0].getId(), replicaManagerIds[replicaManagerId]
+				"FE %d: Set codec to %s", rank, codec.toString()
 			)
 		);
 	}
+
+	/**
+	 * Sets up how the {@link ReplicationManager}
+	 * of a request gets picked.
+	 * 
+	 * @param policy		the policy of the {@link ReplicaSelector}
+	 * @param sticky		true to keep sending to the same
+	 * 						replication manager, if possible
+	 */
+	public void setReplicaSelection(ReplicaSelector.Policy policy, boolean sticky) {
+		selector = new ReplicaSelector(replicaManagerIds.length, policy, sticky, new Random());
+		logger.info(
+			String.format(
+				"FE %d: Set replica selection to %s%s", rank, policy, sticky ? ", sticky" : ""
+			)
+		);
+	}
+
+	/**
+	 * Sets up the hedging of queries. A query is sent to a
+	 * second {@link ReplicationManager} if it got no answer
+	 * within the given percentile of the latencies of the
+	 * last HEDGE_WINDOW queries, which is checked by
+	 * hedgeQueries(). No query is hedged until the latencies
+	 * of the first HEDGE_WINDOW queries are known.
+	 * 
+	 * @param percentile		the percentile, e.g. 95.0,
+	 * 							0 to disable hedging
+	 * @param minDelayNanos		the minimal time in nanoseconds
+	 * 							before hedging a query
+	 */
+	public void setHedging(double percentile, long minDelayNanos) {
+		if (percentile < 0 || percentile >= 100 || minDelayNanos < 0) {
+			throw new IllegalArgumentException(
+				String.format(
+					"Invalid hedging: percentile %.1f, minimal delay of %d ns", percentile, minDelayNanos
+				)
+			);
+		}
+		this.hedgePercentile = percentile;
+		this.minHedgeDelayNanos = minDelayNanos;
+		logger.info(
+			String.format(
+				"FE %d: Set hedging to percentile %.1f, minimal delay of %d ns", rank, percentile, minDelayNanos
+			)
+		);
+	}
+
+	/**
+	 * Sets up the batching of updates. A batch is sent
+	 * as soon as it holds the given number of updates or
+	 * its first update waited for the given time, which
+	 * is checked by flushBatches().
+	 * 
+	 * @param batchSize		the maximal number of updates
+	 * 						per batch, 1 to disable batching
+	 * @param lingerNanos	the maximal time in nanoseconds an
+	 * 						update waits for its batch, 0 to
+	 * 						send it with the next flushBatches()
+	 */
+	public void setBatching(int batchSize, long lingerNanos) {
+		if (batchSize < 1 || lingerNanos < 0) {
+			throw new IllegalArgumentException(
+				String.format(
+					"Invalid batching: %d updates, linger of %d ns", batchSize, lingerNanos
+				)
+			);
+		}
+		this.batchSize = batchSize;
+		this.batchLingerNanos = lingerNanos;
+		logger.info(
+			String.format(
+				"FE %d: Set batching to %d updates, linger of %d ns", rank, batchSize, lingerNanos
+			)
+		);
+	}
+
+	/**
+	 * Returns the {@link Metrics} of
+	 * this {@link Frontend}.
+	 * 
+	 * @return			the metrics
+	 */
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Sets the {@link EventTracer} which records
+	 * the protocol events of this {@link Frontend}.
+	 * 
+	 * @param tracer		the tracer to use
+	 */
+	public void setEventTracer(EventTracer tracer) {
+		this.tracer = tracer;
+	}
+
+	/**
+	 * Sets the listener which gets notified
+	 * about every answered request.
+	 * 
+	 * @param answerListener	the listener, may be null
+	 */
+	public void setAnswerListener(AnswerListener answerListener) {
+		this.answerListener = answerListener;
+	}
+
+	/**
+	 * Posts the given message (which is a string)
+	 * to some random {@link ReplicationManager}.
+	 * 
+	 * @param message		which will be sent
+	 * @return				the sent message
+	 */
+	public ActionMessage postMessage(String message) {
+		return this.postMessage(rank, message, "");
+	}
+	
+	/**
+	 * Posts a message with the given attributes
+	 * to some random {@link ReplicationManager}.
+	 * 
+	 * @param userId		the id of the posting user
+	 * @param title			the title of the message
+	 * @param body			the body of the message
+	 * @return				the sent message
+	 */
+	public ActionMessage postMessage(int userId, String title, String body) {
+		ActionMessage msg = new ActionMessage();
+		msg.setTitle(title);
+		msg.setBody(body);
+		msg.setUserId(userId);
+		msg.setOperation(ActionMessage.Operation.INSERT);
+		this.sendUpdate(msg);
+		return msg;
+	}
 	
 	/**
 	 * Sends an update-request for the given
@@ -154,18 +354,32 @@ public class Frontend {
 	 * @param msg		the {@link ActionMessage} which
 	 * 					should get updated
 	 * @param message	the new value of the message
+	 * @return			the sent update
 	 */
-	public void updateMessage(ActionMessage msg, String message) {
-		/*
-		 * TODO: Implement
-		 * 
-		 * - Pick randomly some message from sentMessages
-		 * - Copy it to a new object
-		 * - Change the message-string
-		 * - Send it to some RM using the 
-		 *   ActionMessage.Operation.UPDATE operation
-		 * - Save it to the sentMessages-Log
-		 */
+	public ActionMessage updateMessage(ActionMessage msg, String message) {
+		return this.updateMessage(msg, message, msg.getBody());
+	}
+	
+	/**
+	 * Sends an update-request for the given
+	 * {@link ActionMessage} to an available
+	 * {@link ReplicationManager}.
+	 * 
+	 * @param msg		the {@link ActionMessage} which
+	 * 					should get updated
+	 * @param title		the new title of the message
+	 * @param body		the new body of the message
+	 * @return			the sent update
+	 */
+	public ActionMessage updateMessage(ActionMessage msg, String title, String body) {
+		ActionMessage update = new ActionMessage();
+		update.setTargetId(msg.getTargetId());
+		update.setUserId(msg.getUserId());
+		update.setTitle(title);
+		update.setBody(body);
+		update.setOperation(ActionMessage.Operation.UPDATE);
+		this.sendUpdate(update);
+		return update;
 	}
 	
 	/**
@@ -175,17 +389,15 @@ public class Frontend {
 	 * 
 	 * @param msg		the {@link ActionMessage} which
 	 * 					should get deleted
+	 * @return			the sent delete
 	 */
-	public void deleteMessage(ActionMessage msg) {
-		/*
-		 * TODO: Implement
-		 * 
-		 * - Pick randomly some message from sentMessages
-		 * - Copy it to a new object
-		 * - Send it to some RM using the 
-		 *   ActionMessage.Operation.DELETE operation
-		 * - Save it to the sentMessages-Log
-		 */
+	public ActionMessage deleteMessage(ActionMessage msg) {
+		ActionMessage delete = new ActionMessage();
+		delete.setTargetId(msg.getTargetId());
+		delete.setUserId(msg.getUserId());
+		delete.setOperation(ActionMessage.Operation.DELETE);
+		this.sendUpdate(delete);
+		return delete;
 	}
 
 	/**
@@ -195,32 +407,140 @@ public class Frontend {
 	 * time stamps of all available 
 	 * replication managers known to the
 	 * queried replication manager.
+	 * 
+	 * @return			the sent query
 	 */
-	public void query() {
-		// Get a random replica manager
-		Random r = new Random();
-		int replicaManagerId = r.nextInt(replicaManagerIds.length);
+	public QueryMessage query() {
+		return this.sendQuery(new QueryMessage());
+	}
+	
+	/**
+	 * Queries the message with the given ID.
+	 * The answer holds the message, if it
+	 * exists, as its only result.
+	 * 
+	 * @param id		the ID of the message
+	 * @return			the sent query
+	 */
+	public QueryMessage queryMessage(UUID id) {
+		QueryMessage msg = new QueryMessage();
+		msg.setKind(QueryMessage.Kind.BY_ID);
+		msg.setTargetId(id);
+		return this.sendQuery(msg);
+	}
+	
+	/**
+	 * Queries the newest messages of the given user.
+	 * The answer holds them as its results, newest first.
+	 * 
+	 * @param userId	the ID of the user
+	 * @param limit		the maximal number of messages,
+	 * 					at most QueryMessage.MAX_LIMIT
+	 * @return			the sent query
+	 */
+	public QueryMessage queryMessagesOfUser(int userId, int limit) {
+		QueryMessage msg = new QueryMessage();
+		msg.setKind(QueryMessage.Kind.BY_USER);
+		msg.setUserId(userId);
+		msg.setLimit(this.checkLimit(limit));
+		return this.sendQuery(msg);
+	}
+	
+	/**
+	 * Queries the newest messages of all users.
+	 * The answer holds them as its results, newest first.
+	 * 
+	 * @param limit		the maximal number of messages,
+	 * 					at most QueryMessage.MAX_LIMIT
+	 * @return			the sent query
+	 */
+	public QueryMessage queryLatestMessages(int limit) {
+		QueryMessage msg = new QueryMessage();
+		msg.setKind(QueryMessage.Kind.LATEST);
+		msg.setLimit(this.checkLimit(limit));
+		return this.sendQuery(msg);
+	}
+	
+	/**
+	 * Searches the newest messages whose title or body
+	 * contain all the terms of the given text. A term is
+	 * a run of letters or digits, regardless of the case.
+	 * The answer holds the messages as its results,
+	 * newest first.
+	 * 
+	 * @param text		the text to search for
+	 * @param prefix	whether the last term of the text
+	 * 					is a prefix, e.g. while typing
+	 * @param limit		the maximal number of messages,
+	 * 					at most QueryMessage.MAX_LIMIT
+	 * @return			the sent query
+	 */
+	public QueryMessage searchMessages(String text, boolean prefix, int limit) {
+		QueryMessage msg = new QueryMessage();
+		msg.setKind(prefix ? QueryMessage.Kind.PREFIX : QueryMessage.Kind.SEARCH);
+		msg.setText(text);
+		msg.setLimit(this.checkLimit(limit));
+		return this.sendQuery(msg);
+	}
+	
+	/**
+	 * Checks the maximal number of
+	 * messages a query asks for.
+	 * 
+	 * @param limit		the maximal number of messages
+	 * @return			the checked number
+	 */
+	private int checkLimit(int limit) {
+		if (limit < 1 || limit > QueryMessage.MAX_LIMIT) {
+			throw new IllegalArgumentException(
+				String.format(
+					"Invalid limit %d, must be between 1 and %d", limit, QueryMessage.MAX_LIMIT
+				)
+			);
+		}
+		return limit;
+	}
+	
+	/**
+	 * Sends the given query to the {@link ReplicationManager}
+	 * most likely to answer it immediately.
+	 * 
+	 * @param msg		the query to send
+	 * @return			the sent query
+	 */
+	private QueryMessage sendQuery(QueryMessage msg) {
+		// Get the replica manager most likely to
+		// answer the query immediately
+		VectorClock prev = timestamp.copy();
+		int replicaManagerId = selector.select(prev);
 		
 		// Set up query-message and send it
-		// to some replica manager
-		QueryMessage[] msg = new QueryMessage[1];
-		msg[0] = new QueryMessage();
-		msg[0].setTimestamp(timestamp);
-		msg[0].setFrontendId(rank);
-		comm.Isend(msg, 0, msg.length, MPI.OBJECT, replicaManagerIds[replicaManagerId], Utils.QUERY_TAG);
+		// to this replica manager
+		msg.setTimestamp(prev);
+		msg.setFrontendId(rank);
+		Outstanding outstanding = this.addOutstanding(msg, replicaManagerId);
+		if (hedgePercentile > 0 && hedgeDelayNanos != Long.MAX_VALUE) {
+			unhedgedQueries.add(outstanding);
+		}
+		wire.send(msg, replicaManagerIds[replicaManagerId], Utils.QUERY_TAG);
+		tracer.record(EventTracer.Event.QUERY_SENT, replicaManagerIds[replicaManagerId], msg.getId(), 0);
+		queriesSent.increment();
 		
 		// Keep the query for the record
 		LogRecord log = new LogRecord();
-		log.setMessage(msg[0]);
+		log.setMessage(msg);
 		log.setReplicationManagerId(replicaManagerIds[replicaManagerId]);
-		log.setTimestamp(timestamp);
-		sentMessages.add(log);
+		log.setTimestamp(prev);
+		this.keepSentMessage(log);
 		
-		logger.info(
-			String.format(
-				"FE %d: Sending query (ID: %s) to RM %d", rank, msg[0].getId(), replicaManagerIds[replicaManagerId]
-			)
-		);
+		if (logger.isInfoEnabled()) {
+			logger.info(
+				String.format(
+					"FE %d: Sending %s query (ID: %s) to RM %d", rank, msg.getKind(), msg.getId(), replicaManagerIds[replicaManagerId]
+				)
+			);
+		}
+		return msg;
 	}
 	
 	
@@ -228,42 +548,31 @@ public class Frontend {
 	 * Listens to all available {@link ReplicationManager}s for
 	 * possible answers for sent update-requests using
 	 * the UPATE-tag from {@link Utils}.
+	 * 
+	 * @return		the number of received answers
 	 */
-	public void listenToUpdateAnswers() {
+	public int listenToUpdateAnswers() {
+		if (updateAnswers == null) {
+			updateAnswers = this.openMailboxes(Utils.UPDATE_TAG);
+		}
+		
+		int received = 0;
 		for (int replicaManagerId = 0; replicaManagerId < replicaManagerIds.length; replicaManagerId++) {
-			// If there's no answer yet for
-			// current replication manager
-			if (updateAnswers[replicaManagerId] == null) {
-				// Set up new buffer for reception
-				updateAnswers[replicaManagerId] = comm.Irecv(answerBuffer, 0, 1, MPI.OBJECT, replicaManagerIds[replicaManagerId], Utils.UPDATE_TAG);
-				logger.trace(
-					String.format(
-						"FE %d: Listening to RM %d", rank, replicaManagerIds[replicaManagerId]
-					)
-				);
+			Message answer = updateAnswers[replicaManagerId].poll();
+			// There seems to be an answer or a batch of
+			// them from current replication manager
+			if (answer instanceof BatchMessage) {
+				for (ActionMessage batched : ((BatchMessage) answer).getMessages()) {
+					this.receiveUpdateAnswer(replicaManagerId, batched);
+					received++;
+				}
+			}
+			else if (answer != null) {
+				this.receiveUpdateAnswer(replicaManagerId, (ActionMessage) answer);
+				received++;
 			}
 			else {
-				// There seems to be an answer from current
-				// replication manager
-				if (updateAnswers[replicaManagerId].Test() != null) {
-					logger.info(
-						String.format(
-							"FE %d: Got answer from RM %d: %s", rank, replicaManagerIds[replicaManagerId], Arrays.toString(answerBuffer[0].getTimestamp())
-						)
-					);
-					
-					// Merge the time stamp from the replication manager
-					// with the own time stamp
-					this.timestamp = Utils.mergeTimestamps(answerBuffer[0].getTimestamp(), this.timestamp);
-					logger.debug(
-						String.format(
-							"FE %d: Merged time stamp from RM %d: %s", rank, replicaManagerIds[replicaManagerId], Arrays.toString(this.timestamp)
-						)
-					);
-					// Re-initialize listening to update-answers
-					updateAnswers[replicaManagerId] = comm.Irecv(answerBuffer, 0, 1, MPI.OBJECT, replicaManagerIds[replicaManagerId], Utils.UPDATE_TAG);
-				}
-				else {
+				if (logger.isTraceEnabled()) {
 					logger.trace(
 						String.format(
 							"FE %d: Still listening to RM %d", rank, replicaManagerIds[replicaManagerId]
@@ -271,56 +580,161 @@ public class Frontend {
 					);
 				}
 			}
-		}		
+		}
+		
+		return received;
+	}
+	
+	/**
+	 * Sends the queries which got no answer within
+	 * the hedge delay to a second {@link ReplicationManager}.
+	 * 
+	 * @param now		the current time as given
+	 * 					by System.nanoTime()
+	 * @return			the number of hedged queries
+	 */
+	public int hedgeQueries(long now) {
+		int hedged = 0;
+		Outstanding outstanding = null;
+		while ((outstanding = unhedgedQueries.peek()) != null) {
+			if (!outstanding.completed && now - outstanding.sentNanos < hedgeDelayNanos) {
+				break;
+			}
+			unhedgedQueries.poll();
+			if (!outstanding.completed && this.hedgeQuery(outstanding)) {
+				hedged++;
+			}
+		}
+		return hedged;
+	}
+	
+	/**
+	 * Returns the time until the next query
+	 * has to be hedged.
+	 * 
+	 * @param now		the current time as given
+	 * 					by System.nanoTime()
+	 * @return			the time in nanoseconds, Long.MAX_VALUE
+	 * 					if there are no queries to hedge
+	 */
+	public long nanosToNextHedge(long now) {
+		Outstanding outstanding = unhedgedQueries.peek();
+		if (outstanding == null) {
+			return Long.MAX_VALUE;
+		}
+		return Math.max(0, outstanding.sentNanos + hedgeDelayNanos - now);
+	}
+	
+	/**
+	 * Sends the batches of updates whose first
+	 * update waited for the linger time.
+	 * 
+	 * @param now		the current time as given
+	 * 					by System.nanoTime()
+	 * @return			the number of sent batches
+	 */
+	public int flushBatches(long now) {
+		if (batchSize <= 1) {
+			return 0;
+		}
+		
+		int flushed = 0;
+		for (int i = 0; i < batches.length; i++) {
+			if (!batches[i].isEmpty() && now - batchStartNanos[i] >= batchLingerNanos) {
+				this.flushBatch(i);
+				flushed++;
+			}
+		}
+		return flushed;
+	}
+	
+	/**
+	 * Returns the time until the next batch
+	 * of updates has to be sent.
+	 * 
+	 * @param now		the current time as given
+	 * 					by System.nanoTime()
+	 * @return			the time in nanoseconds, 0 if a batch
+	 * 					is due, Long.MAX_VALUE if there
+	 * 					are no unsent updates
+	 */
+	public long nanosToNextFlush(long now) {
+		long nanos = Long.MAX_VALUE;
+		if (batchSize <= 1) {
+			return nanos;
+		}
+		
+		for (int i = 0; i < batches.length; i++) {
+			if (!batches[i].isEmpty()) {
+				nanos = Math.min(nanos, Math.max(0, batchStartNanos[i] + batchLingerNanos - now));
+			}
+		}
+		return nanos;
 	}
 	
 	/**
 	 * Listens to all available {@link ReplicationManager}s for
 	 * possible answers for sent query-requests using
 	 * the QUERY-tag from {@link Utils}.
+	 * 
+	 * @return		the number of received answers
 	 */
-	public void listenToQueryAnswers() {
+	public int listenToQueryAnswers() {
+		if (queryAnswers == null) {
+			queryAnswers = this.openMailboxes(Utils.QUERY_TAG);
+		}
+		
+		int received = 0;
 		for (int replicaManagerId = 0; replicaManagerId < replicaManagerIds.length; replicaManagerId++) {
-			// If there's no answer yet for
-			// current replication manager
-			if (queryAnswers[replicaManagerId] == null) {
-				// Set up new buffer for reception
-				queryAnswers[replicaManagerId] = comm.Irecv(queryBuffer, 0, 1, MPI.OBJECT, replicaManagerIds[replicaManagerId], Utils.QUERY_TAG);
-				logger.trace(
-					String.format(
-						"FE %d: Listening to RM %d", rank, replicaManagerIds[replicaManagerId]
-					)
-				);
-			}
-			else {
-				// There seems to be an answer from current
-				// replication manager
-				if (queryAnswers[replicaManagerId].Test() != null) {
+			QueryMessage answer = (QueryMessage) queryAnswers[replicaManagerId].poll();
+			// There seems to be an answer from current
+			// replication manager
+			if (answer != null) {
+				received++;
+				tracer.record(EventTracer.Event.QUERY_ANSWERED, replicaManagerIds[replicaManagerId], answer.getId(), 0);
+				// The answer of a hedged query which
+				// got answered already is ignored, its
+				// time stamp only tells the selector
+				// how far the replication manager is
+				selector.advertised(replicaManagerId, answer.getTimestamp());
+				Outstanding outstanding = this.completeRequest(answer.getRequestId(), replicaManagerId, answer);
+				if (outstanding == null) {
+					continue;
+				}
+				queriesAnswered.increment();
+				if (logger.isInfoEnabled()) {
 					logger.info(
 						String.format(
-							"FE %d: Got query-answer from RM %d: %s", rank, replicaManagerIds[replicaManagerId], Arrays.toString(queryBuffer[0].getTimestamp())
+							"FE %d: Got query-answer from RM %d with %d messages: %s", rank, replicaManagerIds[replicaManagerId], answer.getResults() == null ? 0 : answer.getResults().size(), answer.getTimestamp()
 						)
 					);
-					
-					// Set the component-wise maximum
-					// from the time stamp returned by the current replication
-					// manager and the own time stamp.
-					this.timestamp = Utils.getMaximizedTimestamp(queryBuffer[0].getTimestamp(), this.timestamp);
-					
-					// Some literature recommends merging
-					// the time stamps although. So, at
-					// first this was implemented
-					// this.timestamp = Utils.mergeTimestamps(queryBuffer[0].getTimestamp(), this.timestamp);
-					
+				}
+				
+				// Set the component-wise maximum
+				// from the time stamp returned by the current replication
+				// manager and the own time stamp. Not for the second RM
+				// of a hedged query: it may hold updates the RMs sent
+				// to otherwise have not got yet, the later updates
+				// of this FE would be held back until they arrive.
+				if (replicaManagerId != outstanding.hedgeId) {
+					this.timestamp.merge(answer.getTimestamp());
+				}
+				
+				// Some literature recommends merging
+				// the time stamps although. So, at
+				// first this was implemented
+				// this.timestamp.merge(answer.getTimestamp());
+				
+				if (logger.isDebugEnabled()) {
 					logger.debug(
 						String.format(
-							"FE %d: Merged time stamp from RM %d: %s", rank, replicaManagerIds[replicaManagerId], Arrays.toString(this.timestamp)
+							"FE %d: Merged time stamp from RM %d: %s", rank, replicaManagerIds[replicaManagerId], this.timestamp
 						)
 					);
-					// Re-initialize listening to query-answers
-					queryAnswers[replicaManagerId] = comm.Irecv(queryBuffer, 0, 1, MPI.OBJECT, replicaManagerIds[replicaManagerId], Utils.QUERY_TAG);
 				}
-				else {
+			}
+			else {
+				if (logger.isTraceEnabled()) {
 					logger.trace(
 						String.format(
 							"FE %d: Still listening to query-answers from RM %d", rank, replicaManagerIds[replicaManagerId]
@@ -328,18 +742,35 @@ public class Frontend {
 					);
 				}
 			}
-		}		
+		}
+		
+		return received;
 	}
 
 	/**
-	 * Returns all yet sent messages.
+	 * Returns the last SENT_MESSAGES_LIMIT
+	 * sent messages, the oldest first.
 	 * 
 	 * @return		sent messages
 	 */
-	public ArrayList<LogRecord> getSentMessages() {
+	public Collection<LogRecord> getSentMessages() {
 		return sentMessages;
 	}
 	
+	/**
+	 * Keeps the given sent message for the record,
+	 * dropping the oldest one if SENT_MESSAGES_LIMIT
+	 * messages are kept already.
+	 * 
+	 * @param log		the sent message
+	 */
+	private void keepSentMessage(LogRecord log) {
+		if (sentMessages.size() == SENT_MESSAGES_LIMIT) {
+			sentMessages.poll();
+		}
+		sentMessages.add(log);
+	}
+	
 	/**
 	 * Convenience method for printing all
 	 * sent messages within the configured
@@ -348,12 +779,282 @@ public class Frontend {
 	public void printSentMessages() {
 
 		for (LogRecord msg : this.sentMessages) {
+			if (logger.isDebugEnabled()) {
+				logger.debug(
+					String.format(
+						"FE %d - sent messages:	To RM: %d; TS: %s; UUID: %s", rank, msg.getReplicationManagerId(), msg.getTimestamp(), msg.getMessage().getId()
+					)
+				);	
+			}
+		}
+	}
+	
+	/**
+	 * Sends the given update (an INSERT, UPDATE
+	 * or DELETE) to the {@link ReplicationManager} picked
+	 * by the selector and keeps it for the record.
+	 * 
+	 * @param msg		the update to send
+	 */
+	private void sendUpdate(ActionMessage msg) {
+		// Pick a replica manager, any of them
+		// accepts an update immediately
+		int replicaManagerId = selector.select(null);
+		
+		// Send the message with the own time stamp
+		// to some replica manager or add it to
+		// the batch for the replica manager
+		VectorClock prev = timestamp.copy();
+		msg.setTimestamp(prev);
+		this.addOutstanding(msg, replicaManagerId);
+		if (batchSize > 1) {
+			this.addToBatch(replicaManagerIds[replicaManagerId], msg);
+		}
+		else {
+			wire.send(msg, replicaManagerIds[replicaManagerId], Utils.UPDATE_TAG);
+			tracer.record(EventTracer.Event.UPDATE_SENT, replicaManagerIds[replicaManagerId], msg.getId(), 0);
+			updatesSent.increment();
+		}
+		
+		// Keep the message for the record
+		LogRecord log = new LogRecord();
+		log.setMessage(msg);
+		log.setReplicationManagerId(replicaManagerIds[replicaManagerId]);
+		log.setTimestamp(prev);
+		this.keepSentMessage(log);
+		
+		if (logger.isInfoEnabled()) {
+			logger.info(
+				String.format(
+					"FE %d: Sending %s (ID: %s) of message %s to RM %d", rank, msg.getOperation(), msg.getId(), msg.getTargetId(), replicaManagerIds[replicaManagerId]
+				)
+			);
+		}
+	}
+	
+	/**
+	 * Adds the given update to the batch for the given
+	 * {@link ReplicationManager} and sends the batch
+	 * if it is full.
+	 * 
+	 * @param replicaManagerRank	the rank of the replication manager
+	 * @param msg					the update to add
+	 */
+	private void addToBatch(int replicaManagerRank, ActionMessage msg) {
+		// Send the batch first if the update would
+		// not fit into a message together with it
+		int bytes = estimateSize(msg);
+		if (!batches[replicaManagerRank].isEmpty() && batchBytes[replicaManagerRank] + bytes > maxBatchBytes) {
+			this.flushBatch(replicaManagerRank);
+		}
+		
+		if (batches[replicaManagerRank].isEmpty()) {
+			batchStartNanos[replicaManagerRank] = System.nanoTime();
+		}
+		batches[replicaManagerRank].add(msg);
+		batchBytes[replicaManagerRank] += bytes;
+		if (batches[replicaManagerRank].size() >= batchSize) {
+			this.flushBatch(replicaManagerRank);
+		}
+	}
+	
+	/**
+	 * Sends the batch for the given {@link ReplicationManager},
+	 * a batch holding a single update is sent as the
+	 * update itself.
+	 * 
+	 * @param replicaManagerRank	the rank of the replication manager
+	 */
+	private void flushBatch(int replicaManagerRank) {
+		ArrayList<ActionMessage> messages = batches[replicaManagerRank];
+		batches[replicaManagerRank] = new ArrayList<ActionMessage>();
+		batchBytes[replicaManagerRank] = 0;
+		
+		if (messages.size() == 1) {
+			wire.send(messages.get(0), replicaManagerRank, Utils.UPDATE_TAG);
+		}
+		else {
+			BatchMessage batch = new BatchMessage();
+			batch.setTimestamp(timestamp.copy());
+			batch.setMessages(messages);
+			wire.send(batch, replicaManagerRank, Utils.UPDATE_TAG);
+			batchesSent.increment();
+		}
+		for (ActionMessage msg : messages) {
+			tracer.record(EventTracer.Event.UPDATE_SENT, replicaManagerRank, msg.getId(), 0);
+			updatesSent.increment();
+		}
+		
+		if (logger.isInfoEnabled()) {
+			logger.info(
+				String.format(
+					"FE %d: Sending batch of %d updates to RM %d", rank, messages.size(), replicaManagerRank
+				)
+			);
+		}
+	}
+	
+	/**
+	 * Estimates the size of the given update when
+	 * encoded, assuming up to three bytes per character.
+	 * 
+	 * @param msg		the update
+	 * @return			the estimated size in bytes
+	 */
+	private static int estimateSize(ActionMessage msg) {
+		int characters = (msg.getTitle() == null ? 0 : msg.getTitle().length())
+			+ (msg.getBody() == null ? 0 : msg.getBody().length());
+		return 64 + 5 * msg.getTimestamp().size() + 3 * characters;
+	}
+	
+	/**
+	 * Handles the answer to an update which arrived
+	 * from the given {@link ReplicationManager}.
+	 * 
+	 * @param replicaManagerId	the index of the replication manager
+	 * @param answer			the answer
+	 */
+	private void receiveUpdateAnswer(int replicaManagerId, ActionMessage answer) {
+		tracer.record(EventTracer.Event.UPDATE_ANSWERED, replicaManagerIds[replicaManagerId], answer.getId(), 0);
+		updatesAnswered.increment();
+		this.completeRequest(answer.getRequestId(), replicaManagerId, answer);
+		selector.acknowledged(replicaManagerId, answer.getTimestamp());
+		if (logger.isInfoEnabled()) {
+			logger.info(
+				String.format(
+					"FE %d: Got answer from RM %d: %s", rank, replicaManagerIds[replicaManagerId], answer.getTimestamp()
+				)
+			);
+		}
+		
+		// Merge the time stamp from the replication manager
+		// with the own time stamp
+		this.timestamp.merge(answer.getTimestamp());
+		if (logger.isDebugEnabled()) {
 			logger.debug(
 				String.format(
-					"FE %d - sent messages:	To RM: %d; TS: %s; UUID: %s", rank, msg.getReplicationManagerId(), Arrays.toString(msg.getTimestamp()), msg.getMessage().getId()
+					"FE %d: Merged time stamp from RM %d: %s", rank, replicaManagerIds[replicaManagerId], this.timestamp
 				)
-			);	
+			);
+		}
+	}
+	
+	/**
+	 * Sends the given query to a second {@link ReplicationManager}.
+	 * 
+	 * @param outstanding	the outstanding query
+	 * @return				true if it got sent, false if
+	 * 						there is no other replication manager
+	 */
+	private boolean hedgeQuery(Outstanding outstanding) {
+		QueryMessage msg = (QueryMessage) outstanding.request;
+		int replicaManagerId = selector.select(msg.getTimestamp(), outstanding.replicaManagerId);
+		if (replicaManagerId < 0) {
+			return false;
+		}
+		
+		// The second RM answers with the
+		// ID of the query as well
+		outstanding.hedgeId = replicaManagerId;
+		outstanding.hedgeSentNanos = System.nanoTime();
+		selector.sent(replicaManagerId);
+		wire.send(msg, replicaManagerIds[replicaManagerId], Utils.QUERY_TAG);
+		tracer.record(EventTracer.Event.QUERY_SENT, replicaManagerIds[replicaManagerId], msg.getId(), 0);
+		queriesHedged.increment();
+		
+		if (logger.isInfoEnabled()) {
+			logger.info(
+				String.format(
+					"FE %d: Hedging query (ID: %s) to RM %d after %d us", rank, msg.getId(), replicaManagerIds[replicaManagerId], (outstanding.hedgeSentNanos - outstanding.sentNanos) / 1000
+				)
+			);
+		}
+		return true;
+	}
+	
+	/**
+	 * Records the latency of an answered query and
+	 * recalculates the hedge delay at the end of
+	 * a window.
+	 * 
+	 * @param latencyNanos		the latency in nanoseconds
+	 */
+	private void recordQueryLatency(long latencyNanos) {
+		queryLatencies.record(latencyNanos);
+		if (queryLatencies.getCount() >= HEDGE_WINDOW) {
+			hedgeDelayNanos = Math.max(minHedgeDelayNanos, queryLatencies.getValueAtPercentile(hedgePercentile));
+			queryLatencies = new LatencyHistogram();
+		}
+	}
+	
+	/**
+	 * Removes the request with the given ID from the
+	 * outstanding requests and hands it and its answer
+	 * to the listener, if there is one.
+	 * 
+	 * @param requestId			the ID of the answered request
+	 * @param replicaManagerId	the index of the answering
+	 * 							replication manager
+	 * @param answer			the answer
+	 * @return					the request if it was outstanding,
+	 * 							null if it is unknown or got
+	 * 							answered already
+	 */
+	private Outstanding completeRequest(UUID requestId, int replicaManagerId, Message answer) {
+		Outstanding outstanding = requestId == null ? null : outstandingRequests.remove(requestId);
+		if (outstanding == null) {
+			if (logger.isDebugEnabled()) {
+				logger.debug(
+					String.format(
+						"FE %d: Got answer %s to unknown request %s", rank, answer.getId(), requestId
+					)
+				);
+			}
+			return null;
+		}
+		
+		outstanding.completed = true;
+		long now = System.nanoTime();
+		if (outstanding.hedgeId >= 0 && replicaManagerId == outstanding.hedgeId) {
+			// The second RM won, the answer
+			// of the first one is not needed
+			selector.answered(outstanding.hedgeId, now - outstanding.hedgeSentNanos);
+			selector.cancelled(outstanding.replicaManagerId);
+			hedgesWon.increment();
+		}
+		else {
+			selector.answered(outstanding.replicaManagerId, now - outstanding.sentNanos);
+			if (outstanding.hedgeId >= 0) {
+				selector.cancelled(outstanding.hedgeId);
+			}
 		}
+		if (hedgePercentile > 0 && outstanding.request instanceof QueryMessage) {
+			this.recordQueryLatency(now - outstanding.sentNanos);
+		}
+		
+		if (answerListener != null) {
+			answerListener.answered(outstanding.request, answer);
+		}
+		return outstanding;
+	}
+	
+	/**
+	 * Adds the given request to the outstanding
+	 * requests and tells the selector about it.
+	 * 
+	 * @param request			the request
+	 * @param replicaManagerId	the index of the replication manager
+	 * 							the request gets sent to
+	 * @return					the outstanding request
+	 */
+	private Outstanding addOutstanding(Message request, int replicaManagerId) {
+		Outstanding outstanding = new Outstanding();
+		outstanding.request = request;
+		outstanding.replicaManagerId = replicaManagerId;
+		outstanding.sentNanos = System.nanoTime();
+		outstandingRequests.put(request.getId(), outstanding);
+		selector.sent(replicaManagerId);
+		return outstanding;
 	}
 	
 	/**
@@ -365,7 +1066,9 @@ public class Frontend {
 		SimpleLayout layout = new SimpleLayout();
 		ConsoleAppender consoleAppender = new ConsoleAppender( layout );
 		
-		logger = LogManager.getLogger(ReplicationManager.class.getName());
+		// One logger per FE, several of them
+		// may run within the same JVM
+		logger = LogManager.getLogger(Frontend.class.getName() + "." + rank);
 		logger.addAppender(consoleAppender);
 		// Set a default level, this can
 		// get overridden later on although
@@ -379,25 +1082,102 @@ public class Frontend {
 	 * is only a simulation at the moment.
 	 */
 	private void initializeReplicaManagers() {
-		// Always take the RM with the least distant
-		// ID assuming we have always n RM and n FE.
-		// E.g.: Size is 6, FE-ID is 6, then
-		// RM-ID = FE-ID - (Size / 2) = 3
+		// Every FE may use every RM assuming we have
+		// always n RM and n FE, the RM having the
+		// ranks 0 to n - 1.
+		// E.g.: Size is 6, then the RM-IDs are 0, 1, 2
+		for (int i = 0; i < replicaManagerIds.length; i++) {
+			replicaManagerIds[i] = i;
+		}
+		selector = new ReplicaSelector(replicaManagerIds.length, ReplicaSelector.Policy.POWER_OF_TWO, true, new Random());
+	}
+	
+	/**
+	 * Opens a {@link Mailbox} for each available
+	 * {@link ReplicationManager} using the given tag.
+	 * The mailboxes are opened lazily so that
+	 * the codec can be set after construction.
+	 * 
+	 * @param tag		the tag from {@link Utils}
+	 * @return			the mailboxes, in the order
+	 * 					of the replication managers
+	 */
+	private Mailbox[] openMailboxes(int tag) {
+		Mailbox[] mailboxes = new Mailbox[replicaManagerIds.length];
+		for (int i = 0; i < replicaManagerIds.length; i++) {
+			mailboxes[i] = wire.open(replicaManagerIds[i], tag);
+		}
+		return mailboxes;
+	}
+	
+	/**
+	 * Registers the metrics. They are read by
+	 * other threads as well, e.g. by JMX, so the
+	 * state of the FE is published as values by
+	 * publishMetrics() instead of being read by
+	 * gauges.
+	 */
+	private void initializeMetrics() {
+		metrics = new Metrics(String.format("FE %d", rank));
+		metricsNanos = System.nanoTime() - ReplicationManager.METRICS_INTERVAL;
+		updatesSent = metrics.counter("updates.sent");
+		updatesAnswered = metrics.counter("updates.answered");
+		batchesSent = metrics.counter("batches.sent");
+		queriesSent = metrics.counter("queries.sent");
+		queriesAnswered = metrics.counter("queries.answered");
+		queriesHedged = metrics.counter("queries.hedged");
+		hedgesWon = metrics.counter("queries.hedges_won");
+		hedgeDelay = metrics.value("queries.hedge_delay_us");
+		sentMessagesSize = metrics.value("sent_messages.size");
+		requestsOutstanding = metrics.value("requests.outstanding");
+		replicaLatencies = new Metrics.Value[replicaManagerIds.length];
+		replicaOutstanding = new Metrics.Value[replicaManagerIds.length];
 		for (int i = 0; i < replicaManagerIds.length; i++) {
-			replicaManagerIds[i] = rank - (size / 2);
+			replicaLatencies[i] = metrics.value(String.format("replica.%d.latency_us", replicaManagerIds[i]));
+			replicaOutstanding[i] = metrics.value(String.format("replica.%d.outstanding", replicaManagerIds[i]));
+		}
+	}
+	
+	/**
+	 * Publishes the state of the FE read by the
+	 * {@link Metrics}, at most every METRICS_INTERVAL
+	 * of the {@link ReplicationManager}. Called by the
+	 * thread of the FE, so the state is never read
+	 * by other threads.
+	 * 
+	 * @param nowNanos		the current time
+	 */
+	public void publishMetrics(long nowNanos) {
+		if (nowNanos - metricsNanos < ReplicationManager.METRICS_INTERVAL) {
+			return;
+		}
+		metricsNanos = nowNanos;
+		
+		hedgeDelay.set(hedgeDelayNanos == Long.MAX_VALUE ? 0 : hedgeDelayNanos / 1000);
+		sentMessagesSize.set(sentMessages.size());
+		requestsOutstanding.set(outstandingRequests.size());
+		for (int i = 0; i < replicaManagerIds.length; i++) {
+			replicaLatencies[i].set(selector.getLatency(i) / 1000);
+			replicaOutstanding[i].set(selector.getOutstanding(i));
 		}
 	}
 	
 	/**
 	 * Initializes all the needed buffers.
 	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
 	private void initializeBuffers() {
-		timestamp = new int[size / 2];
+		timestamp = new VectorClock(size / 2);
 		replicaManagerIds = new int[size / 2];
-		sentMessages = new ArrayList<LogRecord>();
-		updateAnswers = new Request[replicaManagerIds.length];
-		answerBuffer = new ActionMessage[replicaManagerIds.length];
-		queryAnswers = new Request[replicaManagerIds.length];
-		queryBuffer = new QueryMessage[replicaManagerIds.length];
+		sentMessages = new ArrayDeque<LogRecord>(SENT_MESSAGES_LIMIT);
+		outstandingRequests = new HashMap<UUID, Outstanding>();
+		unhedgedQueries = new ArrayDeque<Outstanding>();
+		queryLatencies = new LatencyHistogram();
+		batches = new ArrayList[size / 2];
+		batchStartNanos = new long[size / 2];
+		batchBytes = new int[size / 2];
+		for (int i = 0; i < size / 2; i++) {
+			batches[i] = new ArrayList<ActionMessage>();
+		}
 	}
 }
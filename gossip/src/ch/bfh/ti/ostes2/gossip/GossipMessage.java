@@ -1,9 +1,9 @@
 /*
  * GossipMessage.java
  * 
- * 1.1
+ * 1.3
  * 
- * 2014-01-22
+ * 2026-10-18
  *
  * The MIT License (MIT)
 * 
@@ -45,9 +45,26 @@ import java.util.UUID;
  */
 public class GossipMessage implements Serializable, Message {
 	private static final long 		serialVersionUID = -1072189410074226816L;
-	private UUID id = UUID.randomUUID();
-	private int timestamp[] = null;
+	private UUID id = null;
+	private VectorClock timestamp = null;
 	private ArrayList<LogRecord>	logRecords = null;
+
+	/**
+	 * Constructor
+	 */
+	public GossipMessage() {
+		this(UUID.randomUUID());
+	}
+	
+	/**
+	 * Constructor for an existing {@link GossipMessage},
+	 * e.g. when decoding it.
+	 * 
+	 * @param id		the unique ID of the message
+	 */
+	GossipMessage(UUID id) {
+		this.id = id;
+	}
 	
 	/* (non-Javadoc)
 	 * @see ch.bfh.ti.ostes2.gossip.Message#getId()
@@ -59,14 +76,14 @@ public class GossipMessage implements Serializable, Message {
 	/* (non-Javadoc)
 	 * @see ch.bfh.ti.ostes2.gossip.Message#getTimestamp()
 	 */
-	public int[] getTimestamp() {
+	public VectorClock getTimestamp() {
 		return timestamp;
 	}
 
 	/* (non-Javadoc)
-	 * @see ch.bfh.ti.ostes2.gossip.Message#setTimestamp(int[])
+	 * @see ch.bfh.ti.ostes2.gossip.Message#setTimestamp(ch.bfh.ti.ostes2.gossip.VectorClock)
 	 */
-	public void setTimestamp(int timestamp[]) {
+	public void setTimestamp(VectorClock timestamp) {
 		this.timestamp = timestamp;
 	}
 	
@@ -0,0 +1,201 @@
+/*
+ * HoldBackQueue.java
+ * 
+ * 1.1
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+
+/**
+ * A queue holding back items (e.g. queries or updates)
+ * until the time stamp they depend on is smaller or
+ * equal than a given time stamp, usually the valueTS
+ * of a {@link ReplicationManager}.
+ * 
+ * Each waiting item is kept in the bucket of the
+ * first component which blocks it, ordered by the value
+ * of that component. When the time stamp advances only
+ * the heads of the buckets have to be checked, so waiting
+ * items cost nothing as long as nothing changes and
+ * only the unblocked ones get touched otherwise.
+ * 
+ * Items which are not blocked anymore can be taken
+ * using poll(), either in the order they got ready or
+ * in the order given by a {@link Comparator}.
+ * 
+ * @author sosterwalder
+ *
+ * @param <T>	the type of the held back items
+ */
+public abstract class HoldBackQueue<T> {
+	private PriorityQueue<T>[]	buckets		= null;
+	private Queue<T>			ready		= null;
+	private int					waiting		= 0;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param size			the number of components
+	 * 						of the time stamps
+	 * @param readyOrder	the order in which ready items
+	 * 						are returned, null for the order
+	 * 						in which they got ready
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public HoldBackQueue(int size, Comparator<? super T> readyOrder) {
+		buckets = new PriorityQueue[size];
+		for (int i = 0; i < size; i++) {
+			buckets[i] = new PriorityQueue<T>(11, new ComponentOrder(i));
+		}
+
+		if (readyOrder == null) {
+			ready = new ArrayDeque<T>();
+		}
+		else {
+			ready = new PriorityQueue<T>(11, readyOrder);
+		}
+	}
+
+	/**
+	 * Returns the time stamp the given item
+	 * depends on, e.g. the prev time stamp
+	 * of an update.
+	 * 
+	 * @param item		the held back item
+	 * @return			the time stamp it depends on
+	 */
+	protected abstract VectorClock getDependency(T item);
+
+	/**
+	 * Adds the given item. It is ready immediately
+	 * if its dependency is smaller or equal than the
+	 * given time stamp, otherwise it waits.
+	 * 
+	 * @param item		the item to add
+	 * @param current	the current time stamp
+	 * @return			true if the item is ready,
+	 * 					false if it waits
+	 */
+	public boolean add(T item, VectorClock current) {
+		int component = this.getDependency(item).firstLargerComponent(current);
+		if (component < 0) {
+			ready.add(item);
+			return true;
+		}
+
+		buckets[component].add(item);
+		waiting++;
+		return false;
+	}
+
+	/**
+	 * Releases the items which got unblocked
+	 * after the given time stamp advanced.
+	 * 
+	 * @param current	the current time stamp
+	 * @return			the number of items which
+	 * 					got ready
+	 */
+	public int release(VectorClock current) {
+		int released = 0;
+		for (int i = 0; i < buckets.length; i++) {
+			PriorityQueue<T> bucket = buckets[i];
+			while (!bucket.isEmpty() && this.getDependency(bucket.peek()).get(i) <= current.get(i)) {
+				T item = bucket.poll();
+				waiting--;
+				// The item may still be blocked
+				// by a later component
+				if (this.add(item, current)) {
+					released++;
+				}
+			}
+		}
+		return released;
+	}
+
+	/**
+	 * Returns and removes the next ready item.
+	 * 
+	 * @return			the next ready item or null
+	 * 					if there is none
+	 */
+	public T poll() {
+		return ready.poll();
+	}
+
+	/**
+	 * Returns the number of items which
+	 * are still blocked.
+	 * 
+	 * @return			the number of waiting items
+	 */
+	public int getWaiting() {
+		return waiting;
+	}
+
+	/**
+	 * Returns the number of items which
+	 * are ready but not taken yet.
+	 * 
+	 * @return			the number of ready items
+	 */
+	public int getReady() {
+		return ready.size();
+	}
+
+	/**
+	 * Orders items of a bucket by the value
+	 * of the component the bucket stands for.
+	 */
+	private class ComponentOrder implements Comparator<T> {
+		private int component = 0;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param component		the index of the component
+		 */
+		ComponentOrder(int component) {
+			this.component = component;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.Comparator#compare(java.lang.Object, java.lang.Object)
+		 */
+		@Override
+		public int compare(T itemOne, T itemTwo) {
+			int valueOne = getDependency(itemOne).get(component);
+			int valueTwo = getDependency(itemTwo).get(component);
+			return valueOne < valueTwo ? -1 : (valueOne == valueTwo ? 0 : 1);
+		}
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * LatencyHistogram.java
+ * 
+ * 1.0
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+/**
+ * A distribution of latencies in nanoseconds with a
+ * bounded relative error, in the manner of HdrHistogram.
+ * 
+ * Values below 2^SUB_BUCKET_BITS are counted exactly.
+ * Above, every power of two is divided into 2^(SUB_BUCKET_BITS - 1)
+ * linear sub-buckets, so a value and the bucket it is
+ * counted in differ by less than 1 / 2^(SUB_BUCKET_BITS - 1),
+ * i.e. about 1.6%, from a nanosecond up to hours. The
+ * buckets are allocated once, recording a value costs a
+ * few shifts and no allocation.
+ * 
+ * A histogram is used by a single thread only.
+ * 
+ * @author sosterwalder
+ *
+ */
+public class LatencyHistogram {
+	public static final int		SUB_BUCKET_BITS		= 7;
+
+	private static final int	SUB_BUCKETS			= 1 << SUB_BUCKET_BITS;
+	private static final int	HALF_SUB_BUCKETS	= SUB_BUCKETS / 2;
+
+	private long[]				counts				= new long[HALF_SUB_BUCKETS * (64 - SUB_BUCKET_BITS + 2)];
+	private long				count				= 0;
+	private long				sum					= 0;
+	private long				min					= Long.MAX_VALUE;
+	private long				max					= 0;
+
+	/**
+	 * Records the given value.
+	 * 
+	 * @param value		the value, negative
+	 * 					values count as 0
+	 */
+	public void record(long value) {
+		value = Math.max(0, value);
+		counts[getIndex(value)]++;
+		count++;
+		sum += value;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	/**
+	 * Returns the number of recorded values.
+	 * 
+	 * @return		the count
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the mean of the recorded values.
+	 * 
+	 * @return		the mean, 0 if there are none
+	 */
+	public double getMean() {
+		return count == 0 ? 0 : (double) sum / count;
+	}
+
+	/**
+	 * Returns the smallest recorded value.
+	 * 
+	 * @return		the minimum, 0 if there are none
+	 */
+	public long getMin() {
+		return count == 0 ? 0 : min;
+	}
+
+	/**
+	 * Returns the largest recorded value.
+	 * 
+	 * @return		the maximum, 0 if there are none
+	 */
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * Returns the value at the given percentile,
+	 * i.e. the largest value counted within the
+	 * same bucket as the value below which the
+	 * given percentage of the values are.
+	 * 
+	 * @param percentile		the percentile, e.g. 99.9
+	 * @return					the value, 0 if there
+	 * 							are no values
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100.0d * count));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(max, getHighestValue(i));
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Adds the values of the given histogram
+	 * to this one.
+	 * 
+	 * @param other		the histogram to add
+	 */
+	public void add(LatencyHistogram other) {
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] += other.counts[i];
+		}
+		count += other.count;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	/**
+	 * Returns the index of the bucket
+	 * counting the given value.
+	 * 
+	 * @param value		the value
+	 * @return			the index
+	 */
+	private static int getIndex(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		// Keep the SUB_BUCKET_BITS most significant bits,
+		// the top one of them is always set
+		int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return HALF_SUB_BUCKETS * shift + (int) (value >>> shift);
+	}
+
+	/**
+	 * Returns the largest value counted
+	 * within the bucket of the given index.
+	 * 
+	 * @param index		the index
+	 * @return			the largest value
+	 */
+	private static long getHighestValue(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int shift = index / HALF_SUB_BUCKETS - 1;
+		long subBucket = index % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+		return ((subBucket + 1) << shift) - 1;
+	}
+}
@@ -1,9 +1,9 @@
 /*
  * LogRecord.java
  * 
- * 1.2
+ * 1.4
  * 
- * 2014-01-22
+ * 2026-10-18
  *
  * The MIT License (MIT)
 * 
@@ -50,7 +50,7 @@ import java.io.Serializable;
 public class LogRecord implements Serializable, Comparable<LogRecord> {
 	private static final long serialVersionUID = 5086244161314321504L;
 	private int replicationManagerId = Integer.MAX_VALUE;
-	private int[] timestamp = null;
+	private VectorClock timestamp = null;
 	private Message message = null;
 	
 	/**
@@ -79,7 +79,7 @@ public class LogRecord implements Serializable, Comparable<LogRecord> {
 	 * 
 	 * @return		the time stamp
 	 */
-	public int[] getTimestamp() {
+	public VectorClock getTimestamp() {
 		return timestamp;
 	}
 	
@@ -89,7 +89,7 @@ public class LogRecord implements Serializable, Comparable<LogRecord> {
 	 * 
 	 * @param timestamp		the time stamp
 	 */
-	public void setTimestamp(int[] timestamp) {
+	public void setTimestamp(VectorClock timestamp) {
 		this.timestamp = timestamp;
 	}
 	
@@ -115,17 +115,60 @@ public class LogRecord implements Serializable, Comparable<LogRecord> {
 
 	/* (non-Javadoc)
 	 * @see java.lang.Comparable#compareTo(java.lang.Object)
+	 * 
+	 * Orders the records by the sum of the components
+	 * of their time stamps, so a record always comes
+	 * after the ones it causally depends on. Concurrent
+	 * records with the same sum are ordered by the id of
+	 * their {@link ReplicationManager} and then by their
+	 * time stamps and message ids, which gives the same
+	 * (total) order on every {@link ReplicationManager}.
 	 */
 	@Override
     public int compareTo(LogRecord logRecord) {
-    	final int BEFORE = -1;
-        final int AFTER = 1;
-        
-        if (Utils.isSmallerOrEqualThan(this.timestamp, logRecord.timestamp)) {
-        	return BEFORE;
-        }
-        else {
-        	return AFTER;
-        }
+		int result = compare(this.getTimestampSum(), logRecord.getTimestampSum());
+		if (result != 0) {
+			return result;
+		}
+		
+		result = compare(this.replicationManagerId, logRecord.replicationManagerId);
+		if (result != 0) {
+			return result;
+		}
+		
+		for (int i = 0; i < this.timestamp.size(); i++) {
+			result = compare(this.timestamp.get(i), logRecord.timestamp.get(i));
+			if (result != 0) {
+				return result;
+			}
+		}
+		
+		return this.message.getId().compareTo(logRecord.message.getId());
     }
-}
\ No newline at end of file
+	
+	/**
+	 * Returns the sum of the components
+	 * of the time stamp.
+	 * 
+	 * @return		the sum of the components
+	 */
+	private long getTimestampSum() {
+		long sum = 0;
+		for (int i = 0; i < this.timestamp.size(); i++) {
+			sum += this.timestamp.get(i);
+		}
+		return sum;
+	}
+	
+	/**
+	 * Compares the given values.
+	 * 
+	 * @param valueOne	the first value
+	 * @param valueTwo	the second value
+	 * @return			-1, 0 or 1 if the first value is
+	 * 					smaller, equal or larger
+	 */
+	private static int compare(long valueOne, long valueTwo) {
+		return valueOne < valueTwo ? -1 : (valueOne == valueTwo ? 0 : 1);
+	}
+}
@@ -0,0 +1,194 @@
+/*
+ * LoopbackCommunicator.java
+ * 
+ * 1.1
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * This class implements the {@link Communicator} for
+ * processes running as threads within a single JVM,
+ * so no P2P-MPI installation is needed, e.g. for
+ * simulations with many processes or benchmarks.
+ * 
+ * Every process has an inbox with a lock-free queue
+ * per sending process and tag. Sends copy the buffer
+ * into the queue of the receiving process and complete
+ * immediately, receives complete as soon as a message
+ * is in the matching queue. Like with P2P-MPI, processes
+ * do not share any objects: OBJECT buffers get serialized
+ * and BYTE buffers get copied.
+ * 
+ * Wildcards for the source or tag of a receive
+ * are not supported.
+ * 
+ * @author sosterwalder
+ *
+ */
+public class LoopbackCommunicator implements Communicator {
+	private int										rank		= 0;
+	private ConcurrentMap<Long, Queue<byte[]>>[]	inboxes		= null; // Shared by all processes
+
+	/**
+	 * Constructor
+	 * 
+	 * @param rank		the rank of the process
+	 * @param inboxes	the inboxes of all processes
+	 */
+	private LoopbackCommunicator(int rank, ConcurrentMap<Long, Queue<byte[]>>[] inboxes) {
+		this.rank = rank;
+		this.inboxes = inboxes;
+	}
+
+	/**
+	 * Creates connected communicators for
+	 * the given number of processes.
+	 * 
+	 * @param size		the number of processes
+	 * @return			the communicators, indexed
+	 * 					by the rank of the processes
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public static LoopbackCommunicator[] create(int size) {
+		ConcurrentMap<Long, Queue<byte[]>>[] inboxes = new ConcurrentMap[size];
+		for (int i = 0; i < size; i++) {
+			inboxes[i] = new ConcurrentHashMap<Long, Queue<byte[]>>();
+		}
+
+		LoopbackCommunicator[] comms = new LoopbackCommunicator[size];
+		for (int i = 0; i < size; i++) {
+			comms[i] = new LoopbackCommunicator(i, inboxes);
+		}
+		return comms;
+	}
+
+	/* (non-Javadoc)
+	 * @see ch.bfh.ti.ostes2.gossip.Communicator#Rank()
+	 */
+	@Override
+	public int Rank() {
+		return rank;
+	}
+
+	/* (non-Javadoc)
+	 * @see ch.bfh.ti.ostes2.gossip.Communicator#Size()
+	 */
+	@Override
+	public int Size() {
+		return inboxes.length;
+	}
+
+	/* (non-Javadoc)
+	 * @see ch.bfh.ti.ostes2.gossip.Communicator#Isend(java.lang.Object, int, int, ch.bfh.ti.ostes2.gossip.Communicator.Datatype, int, int)
+	 */
+	@Override
+	public Request Isend(Object buffer, int offset, int count, Datatype datatype, int destination, int tag) {
+		this.queue(destination, rank, tag).add(QueuedReceive.pack(buffer, offset, count, datatype));
+		return Completed.INSTANCE;
+	}
+
+	/* (non-Javadoc)
+	 * @see ch.bfh.ti.ostes2.gossip.Communicator#Irecv(java.lang.Object, int, int, ch.bfh.ti.ostes2.gossip.Communicator.Datatype, int, int)
+	 */
+	@Override
+	public Request Irecv(Object buffer, int offset, int count, Datatype datatype, int source, int tag) {
+		return new QueuedReceive(this.queue(rank, source, tag), buffer, offset, count, datatype);
+	}
+
+	/* (non-Javadoc)
+	 * @see ch.bfh.ti.ostes2.gossip.Communicator#Testany(ch.bfh.ti.ostes2.gossip.Communicator.Request[])
+	 */
+	@Override
+	public int Testany(Request[] requests) {
+		for (int i = 0; i < requests.length; i++) {
+			if (requests[i].Test()) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the queue of the given receiving process
+	 * for messages from the given sending process
+	 * with the given tag.
+	 * 
+	 * @param destination	the rank of the receiving process
+	 * @param source		the rank of the sending process
+	 * @param tag			the tag
+	 * @return				the queue
+	 */
+	private Queue<byte[]> queue(int destination, int source, int tag) {
+		if (source < 0 || source >= inboxes.length || destination < 0 || destination >= inboxes.length || tag < 0) {
+			throw new IllegalArgumentException(
+				String.format(
+					"Invalid source %d, destination %d or tag %d", source, destination, tag
+				)
+			);
+		}
+
+		Long key = Long.valueOf(((long) source << 32) | tag);
+		Queue<byte[]> queue = inboxes[destination].get(key);
+		if (queue == null) {
+			queue = new ConcurrentLinkedQueue<byte[]>();
+			Queue<byte[]> existing = inboxes[destination].putIfAbsent(key, queue);
+			if (existing != null) {
+				queue = existing;
+			}
+		}
+		return queue;
+	}
+
+	/**
+	 * A request which completed already,
+	 * used for all sends.
+	 */
+	private static class Completed implements Request {
+		static final Completed INSTANCE = new Completed();
+
+		/* (non-Javadoc)
+		 * @see ch.bfh.ti.ostes2.gossip.Communicator.Request#Test()
+		 */
+		@Override
+		public boolean Test() {
+			return true;
+		}
+
+		/* (non-Javadoc)
+		 * @see ch.bfh.ti.ostes2.gossip.Communicator.Request#Wait()
+		 */
+		@Override
+		public void Wait() {
+		}
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * Mailbox.java
+ * 
+ * 1.3
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+/**
+ * This class receives {@link Message}s from one
+ * process with one tag. It keeps a receive
+ * posted and an own buffer, so {@link Mailbox}es for
+ * different processes do not overwrite each other.
+ * 
+ * Mailboxes get opened using a {@link Wire}.
+ * 
+ * @author sosterwalder
+ * 
+ */
+public class Mailbox {
+	private Communicator	comm 			= null;
+	private int				source			= 0;
+	private int				tag				= 0;
+	private Wire.Codec		codec			= null;
+	private Object[]		objectBuffer	= null;
+	private byte[]			byteBuffer		= null;
+	private Communicator.Request	request	= null;
+	private volatile long	bytesReceived	= 0;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param comm				the communicator to receive with
+	 * @param source			the rank of the sending process
+	 * @param tag				the tag from {@link Utils}
+	 * @param codec				the codec of the {@link Wire}
+	 * @param maxMessageSize	the size of the receive buffer
+	 * 							for the BINARY codec
+	 */
+	Mailbox(Communicator comm, int source, int tag, Wire.Codec codec, int maxMessageSize) {
+		this.comm = comm;
+		this.source = source;
+		this.tag = tag;
+		this.codec = codec;
+
+		if (codec == Wire.Codec.BINARY) {
+			byteBuffer = new byte[maxMessageSize];
+		}
+		else {
+			objectBuffer = new Object[1];
+		}
+	}
+
+	/**
+	 * Returns the rank of the process
+	 * this {@link Mailbox} receives from.
+	 * 
+	 * @return		the rank of the sending process
+	 */
+	public int getSource() {
+		return source;
+	}
+
+	/**
+	 * Returns the number of bytes received so far.
+	 * Only the BINARY codec knows the size of a
+	 * message, nothing gets counted for the JAVA codec.
+	 * 
+	 * @return		the number of received bytes
+	 */
+	public long getBytesReceived() {
+		return bytesReceived;
+	}
+
+	/**
+	 * Returns the posted receive, posts it
+	 * if this did not happen yet.
+	 * 
+	 * The request can be waited for together with
+	 * the ones of other {@link Mailbox}es, e.g. using
+	 * Communicator.Testany(). Once it completed, the
+	 * message has to be taken using receive().
+	 * 
+	 * @return		the request of the receive
+	 */
+	public Communicator.Request getRequest() {
+		if (request == null) {
+			this.listen();
+		}
+		return request;
+	}
+
+	/**
+	 * Checks if a {@link Message} arrived. Posts
+	 * the receive if this did not happen yet and
+	 * re-posts it after a message arrived.
+	 * 
+	 * @return		the arrived message or
+	 * 				null if there is none
+	 */
+	public Message poll() {
+		if (request == null) {
+			this.listen();
+		}
+
+		if (!request.Test()) {
+			return null;
+		}
+
+		return this.receive();
+	}
+
+	/**
+	 * Returns the {@link Message} of the completed
+	 * receive and re-posts it. Must only be called
+	 * after the request returned by getRequest()
+	 * completed.
+	 * 
+	 * @return		the arrived message
+	 */
+	public Message receive() {
+		Message msg = null;
+		if (codec == Wire.Codec.BINARY) {
+			msg = WireCodec.decode(byteBuffer);
+			bytesReceived += WireCodec.getFrameSize(byteBuffer);
+		}
+		else {
+			msg = (Message) objectBuffer[0];
+			objectBuffer[0] = null;
+		}
+
+		this.listen();
+		return msg;
+	}
+
+	/**
+	 * Posts the receive.
+	 */
+	private void listen() {
+		if (codec == Wire.Codec.BINARY) {
+			request = comm.Irecv(byteBuffer, 0, byteBuffer.length, Communicator.Datatype.BYTE, source, tag);
+		}
+		else {
+			request = comm.Irecv(objectBuffer, 0, 1, Communicator.Datatype.OBJECT, source, tag);
+		}
+	}
+}
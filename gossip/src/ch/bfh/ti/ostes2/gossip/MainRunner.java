@@ -1,9 +1,9 @@
 /*
  * MainRunner.java
  * 
- * 2.1
+ * 2.17
  * 
- * 2014-01-22
+ * 2026-10-18
  *
  * The MIT License (MIT)
 * 
@@ -30,13 +30,17 @@
 
 package ch.bfh.ti.ostes2.gossip;
 
+import java.io.File;
 import java.io.IOException;
-import java.util.Date;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.Properties;
+import java.util.Random;
+
+import javax.management.JMException;
 
 import org.apache.log4j.Level;
 
-import p2pmpi.mpi.IntraComm;
 import p2pmpi.mpi.MPI;
 import p2pmpi.p2p.message.UpdateMessage;
 
@@ -63,16 +67,92 @@ import p2pmpi.p2p.message.UpdateMessage;
  */
 class MainRunner
 {
+	/**
+	 * The communicators the processes can use.
+	 */
+	public enum CommunicatorType {
+		MPI, LOOPBACK, SOCKET
+	}
+	
 	// Overall running time in seconds
 	public static final double RUNNING_TIME = 60.0d;
 	// When to send gossip messages in seconds
 	public static final double GOSSIP_TIME = 5.0d;
 	// When to send update messages in seconds
 	public static final double UPDATE_TIME = 15.0d;
+	// Duration of a tick of the timers in seconds
+	public static final double TIMER_TICK = 0.001d;
+	// Number of ticks per turn of the timer wheel
+	public static final int TIMER_TICKS = 512;
+	// Maximal time an idle RM sleeps in seconds
+	public static final double MAX_IDLE_TIME = 0.001d;
 	// Default log level for RM
 	public static final Level RM_LOG_LEVEL = Level.DEBUG;
 	// Default log level for FE
 	public static final Level FE_LOG_LEVEL = Level.DEBUG;
+	// Default codec for messages
+	public static final Wire.Codec CODEC = Wire.Codec.JAVA;
+	// Default maximal size of an encoded message in bytes
+	public static final int MAX_MESSAGE_SIZE = Wire.DEFAULT_MAX_MESSAGE_SIZE;
+	// Maximal number of updates per batch sent by a FE, 1 if disabled
+	public static final int BATCH_SIZE = 1;
+	// Maximal time an update waits for its batch in seconds
+	public static final double BATCH_LINGER = 0.002d;
+	// Policy for picking the RM of a request of a FE
+	public static final ReplicaSelector.Policy REPLICA_SELECTION = ReplicaSelector.Policy.POWER_OF_TWO;
+	// Whether a FE keeps sending to the same RM, if possible
+	public static final boolean REPLICA_SELECTION_STICKY = true;
+	// Percentile of the query latencies after which a FE hedges a query, 0 if disabled
+	public static final double HEDGING_PERCENTILE = 0.0d;
+	// Minimal time before a FE hedges a query in seconds
+	public static final double HEDGING_MIN_DELAY = 0.001d;
+	// Default communicator
+	public static final CommunicatorType COMMUNICATOR = CommunicatorType.MPI;
+	// Default number of processes when running within a single JVM
+	public static final int LOOPBACK_SIZE = 4;
+	// Default addresses of the processes when using sockets
+	public static final String SOCKET_PEERS = "localhost:7000, localhost:7001, localhost:7002, localhost:7003";
+	// Default directory of the write-ahead logs, empty if disabled
+	public static final String WAL_DIRECTORY = "";
+	// Default size of a segment of the write-ahead log in bytes
+	public static final int WAL_SEGMENT_SIZE = WriteAheadLog.DEFAULT_SEGMENT_SIZE;
+	// Maximal time an entry of the write-ahead log waits for a sync in seconds
+	public static final double WAL_SYNC_INTERVAL = 0.005d;
+	// Number of entries of the write-ahead log synced at once at most
+	public static final int WAL_SYNC_BATCH = 256;
+	// When to take snapshots of the RM in seconds, 0 if disabled
+	public static final double SNAPSHOT_TIME = 30.0d;
+	// Number of updates a RM has to be behind for a state transfer, 0 if disabled
+	public static final int STATE_THRESHOLD = 0;
+	// Number of messages and records per chunk of a state transfer
+	public static final int STATE_CHUNK_SIZE = 1000;
+	// Number of chunks of a state transfer being sent at once
+	public static final int STATE_WINDOW = 4;
+	// Number of queries whose results a RM caches, 0 if disabled
+	public static final int QUERY_CACHE_SIZE = 64;
+	// Default directory of the event traces, empty if disabled
+	public static final String TRACE_DIRECTORY = "";
+	// Default number of events kept per process
+	public static final int TRACE_CAPACITY = 65536;
+	// Whether to expose the metrics by JMX
+	public static final boolean METRICS_JMX = false;
+	// Default directory of the metrics CSV files, empty if disabled
+	public static final String METRICS_CSV_DIRECTORY = "";
+	// When to write the metrics to the CSV files in seconds
+	public static final double METRICS_CSV_INTERVAL = 1.0d;
+	// Target number of requests per second of every FE, 0 if disabled
+	public static final double WORKLOAD_RATE = 0.0d;
+	// Number of simulated clients of every FE
+	public static final int WORKLOAD_CLIENTS = 10;
+	// Weights of reads, writes, updates and deletes
+	public static final int WORKLOAD_MIX_READ = 50;
+	public static final int WORKLOAD_MIX_WRITE = 30;
+	public static final int WORKLOAD_MIX_UPDATE = 15;
+	public static final int WORKLOAD_MIX_DELETE = 5;
+	// Size of the bodies of written messages in characters
+	public static final int WORKLOAD_PAYLOAD_SIZE = 256;
+	// Distribution of the size of the bodies
+	public static final Workload.PayloadDistribution WORKLOAD_PAYLOAD_DISTRIBUTION = Workload.PayloadDistribution.EXPONENTIAL;
 	// Name of the configuration file
 	public static final String CONFIG_FILE =  "/config.properties";
 	
@@ -81,8 +161,43 @@ class MainRunner
 	private double runningTime = RUNNING_TIME;
 	private double gossipTime = GOSSIP_TIME;
 	private double updateTime = UPDATE_TIME;
+	private double maxIdleTime = MAX_IDLE_TIME;
+	private double timerTick = TIMER_TICK;
 	private Level rmLogLevel = RM_LOG_LEVEL;
 	private Level feLogLevel = FE_LOG_LEVEL;
+	private Wire.Codec codec = CODEC;
+	private int maxMessageSize = MAX_MESSAGE_SIZE;
+	private int batchSize = BATCH_SIZE;
+	private double batchLinger = BATCH_LINGER;
+	private ReplicaSelector.Policy replicaSelection = REPLICA_SELECTION;
+	private boolean replicaSelectionSticky = REPLICA_SELECTION_STICKY;
+	private double hedgingPercentile = HEDGING_PERCENTILE;
+	private double hedgingMinDelay = HEDGING_MIN_DELAY;
+	private CommunicatorType communicatorType = COMMUNICATOR;
+	private int loopbackSize = LOOPBACK_SIZE;
+	private String socketPeers = SOCKET_PEERS;
+	private String walDirectory = WAL_DIRECTORY;
+	private int walSegmentSize = WAL_SEGMENT_SIZE;
+	private double walSyncInterval = WAL_SYNC_INTERVAL;
+	private int walSyncBatch = WAL_SYNC_BATCH;
+	private double snapshotTime = SNAPSHOT_TIME;
+	private int stateThreshold = STATE_THRESHOLD;
+	private int stateChunkSize = STATE_CHUNK_SIZE;
+	private int stateWindow = STATE_WINDOW;
+	private int queryCacheSize = QUERY_CACHE_SIZE;
+	private String traceDirectory = TRACE_DIRECTORY;
+	private int traceCapacity = TRACE_CAPACITY;
+	private boolean metricsJmx = METRICS_JMX;
+	private String metricsCsvDirectory = METRICS_CSV_DIRECTORY;
+	private double metricsCsvInterval = METRICS_CSV_INTERVAL;
+	private double workloadRate = WORKLOAD_RATE;
+	private int workloadClients = WORKLOAD_CLIENTS;
+	private int workloadMixRead = WORKLOAD_MIX_READ;
+	private int workloadMixWrite = WORKLOAD_MIX_WRITE;
+	private int workloadMixUpdate = WORKLOAD_MIX_UPDATE;
+	private int workloadMixDelete = WORKLOAD_MIX_DELETE;
+	private int workloadPayloadSize = WORKLOAD_PAYLOAD_SIZE;
+	private Workload.PayloadDistribution workloadPayloadDistribution = WORKLOAD_PAYLOAD_DISTRIBUTION;
 	
 	
 	/**
@@ -179,6 +294,33 @@ class MainRunner
 		return this.updateTime;
 	}
 	
+	/**
+	 * Returns the currently
+	 * defined maximal time (in seconds)
+	 * an idle {@link ReplicationManager}
+	 * sleeps before checking for
+	 * messages again.
+	 * 
+	 * @return		the maximal idle time
+	 * 				in seconds
+	 */
+	public double getMaxIdleTime() {
+		return this.maxIdleTime;
+	}
+	
+	/**
+	 * Returns the currently
+	 * defined duration (in seconds)
+	 * of a tick of the timers, timers
+	 * fire at most one tick late.
+	 * 
+	 * @return		the duration of a tick
+	 * 				in seconds
+	 */
+	public double getTimerTick() {
+		return this.timerTick;
+	}
+	
     /**
      * Returns the current set
      * log level for {@link ReplicationManager}s.
@@ -221,21 +363,431 @@ class MainRunner
 		this.feLogLevel = feLogLevel;
 	}
 
+	/**
+	 * Returns the codec used for
+	 * sending and receiving messages.
+	 * 
+	 * @return		the codec
+	 */
+	public Wire.Codec getCodec() {
+		return codec;
+	}
+	
+	/**
+	 * Returns the maximal size of an
+	 * encoded message in bytes.
+	 * 
+	 * @return		the maximal message size
+	 */
+	public int getMaxMessageSize() {
+		return maxMessageSize;
+	}
+
+	/**
+	 * Returns the maximal number of updates
+	 * per batch sent by a {@link Frontend}.
+	 * 
+	 * @return		the batch size, 1 if
+	 * 				batching is disabled
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Returns the maximal time an update
+	 * waits for its batch in seconds.
+	 * 
+	 * @return		the linger time
+	 */
+	public double getBatchLinger() {
+		return batchLinger;
+	}
+
+	/**
+	 * Returns the policy for picking the
+	 * {@link ReplicationManager} of a request.
+	 * 
+	 * @return		the policy
+	 */
+	public ReplicaSelector.Policy getReplicaSelection() {
+		return replicaSelection;
+	}
+
+	/**
+	 * Tells whether a {@link Frontend} keeps sending
+	 * to the same {@link ReplicationManager}, as long
+	 * as it can answer immediately.
+	 * 
+	 * @return		true if the selection is sticky
+	 */
+	public boolean isReplicaSelectionSticky() {
+		return replicaSelectionSticky;
+	}
+
+	/**
+	 * Returns the percentile of the query latencies
+	 * after which a {@link Frontend} hedges a query.
+	 * 
+	 * @return		the percentile, 0 if
+	 * 				hedging is disabled
+	 */
+	public double getHedgingPercentile() {
+		return hedgingPercentile;
+	}
+
+	/**
+	 * Returns the minimal time before a {@link Frontend}
+	 * hedges a query in seconds.
+	 * 
+	 * @return		the minimal delay
+	 */
+	public double getHedgingMinDelay() {
+		return hedgingMinDelay;
+	}
+
+	/**
+	 * Returns the communicator
+	 * the processes use.
+	 * 
+	 * @return		the communicator type
+	 */
+	public CommunicatorType getCommunicatorType() {
+		return communicatorType;
+	}
+	
+	/**
+	 * Returns the number of processes
+	 * when running all of them within
+	 * a single JVM.
+	 * 
+	 * @return		the number of processes
+	 */
+	public int getLoopbackSize() {
+		return loopbackSize;
+	}
+
+	/**
+	 * Returns the addresses of all processes
+	 * when using sockets, indexed by their rank.
+	 * 
+	 * @return		the addresses of the processes
+	 */
+	public InetSocketAddress[] getSocketPeers() {
+		return SocketCommunicator.parsePeers(socketPeers);
+	}
+
+	/**
+	 * Returns the write-ahead log of the {@link ReplicationManager}
+	 * with the given rank, if write-ahead logs are enabled.
+	 * Every {@link ReplicationManager} has its own directory
+	 * within the configured one.
+	 * 
+	 * @param rank	the rank of the {@link ReplicationManager}
+	 * @return		the write-ahead log or null
+	 * 				if it is disabled
+	 */
+	public WriteAheadLog getWriteAheadLog(int rank) {
+		if (walDirectory.length() == 0) {
+			return null;
+		}
+		return new WriteAheadLog(
+			new File(walDirectory, String.format("rm-%d", rank)),
+			walSegmentSize,
+			(long) (1e9d * walSyncInterval),
+			walSyncBatch
+		);
+	}
+
+	/**
+	 * Returns when to take snapshots of
+	 * {@link ReplicationManager}s in seconds.
+	 * 
+	 * @return		the snapshot time or 0
+	 * 				if snapshots are disabled
+	 */
+	public double getSnapshotTime() {
+		return snapshotTime;
+	}
+
+	/**
+	 * Returns the number of updates a
+	 * {@link ReplicationManager} has to be behind
+	 * a neighbor for requesting its whole state.
+	 * 
+	 * @return		the threshold or 0 if state
+	 * 				transfers are disabled
+	 */
+	public int getStateThreshold() {
+		return stateThreshold;
+	}
+
+	/**
+	 * Returns the number of messages and records
+	 * per chunk of a state transfer.
+	 * 
+	 * @return		the chunk size
+	 */
+	public int getStateChunkSize() {
+		return stateChunkSize;
+	}
+
+	/**
+	 * Returns the number of chunks of a
+	 * state transfer being sent at once.
+	 * 
+	 * @return		the window
+	 */
+	public int getStateWindow() {
+		return stateWindow;
+	}
+
+	/**
+	 * Returns the number of queries whose results
+	 * a {@link ReplicationManager} caches.
+	 * 
+	 * @return		the number of queries
+	 */
+	public int getQueryCacheSize() {
+		return queryCacheSize;
+	}
+
+	/**
+	 * Returns the {@link EventTracer} of the
+	 * process with the given rank.
+	 * 
+	 * @param rank		the rank of the process
+	 * @return			the tracer, it records nothing
+	 * 					if tracing is disabled
+	 */
+	public EventTracer getEventTracer(int rank) {
+		if (traceDirectory.length() == 0) {
+			return EventTracer.DISABLED;
+		}
+		return new EventTracer(rank, traceCapacity);
+	}
+
+	/**
+	 * Returns the {@link Workload} driving the given
+	 * {@link Frontend}, if the workload is enabled.
+	 * 
+	 * @param fe		the frontend
+	 * @param rank		the rank of the frontend
+	 * @return			the workload or null if
+	 * 					it is disabled
+	 */
+	public Workload getWorkload(Frontend fe, int rank) {
+		if (workloadRate <= 0) {
+			return null;
+		}
+		Workload workload = new Workload(fe, rank, workloadRate, workloadClients);
+		workload.setMix(workloadMixRead, workloadMixWrite, workloadMixUpdate, workloadMixDelete);
+		// Leave room for the rest of the message
+		workload.setPayload(workloadPayloadSize, workloadPayloadDistribution, maxMessageSize / 2);
+		return workload;
+	}
+
+	/**
+	 * Exposes the given {@link Metrics} by JMX and writes
+	 * them periodically to metrics-<rank>.csv within the
+	 * CSV directory, as configured.
+	 * 
+	 * @param rank			the rank of the process
+	 * @param type			the type of the process, e.g.
+	 * 						ReplicationManager
+	 * @param metrics		the metrics of the process
+	 * @param timers		the timers of the process
+	 * @param startNanos	the start of the process
+	 * @return				the writer of the CSV file or
+	 * 						null if there is none
+	 */
+	private MetricsCsvWriter exposeMetrics(int rank, String type, Metrics metrics, TimerWheel timers, long startNanos) {
+		if (metricsJmx) {
+			try {
+				MetricsMBean.register(metrics, type, rank);
+			}
+			catch (JMException ex) {
+				System.out.println(
+					String.format(
+						"%d: Could not register metrics by JMX: %s", rank, ex
+					)
+				);
+			}
+		}
+		
+		if (metricsCsvDirectory.length() == 0) {
+			return null;
+		}
+		File file = new File(metricsCsvDirectory, String.format("metrics-%d.csv", rank));
+		try {
+			file.getParentFile().mkdirs();
+			final MetricsCsvWriter csv = new MetricsCsvWriter(file, metrics, startNanos);
+			timers.schedulePeriodic(
+				"metrics",
+				(long) (1e9d * metricsCsvInterval),
+				new TimerWheel.Task() {
+					@Override
+					public void run(long latenessNanos) {
+						try {
+							csv.write(System.nanoTime());
+						}
+						catch (IOException ex) {
+							throw new IllegalStateException("Could not write metrics", ex);
+						}
+					}
+				}
+			);
+			return csv;
+		}
+		catch (IOException ex) {
+			System.out.println(
+				String.format(
+					"%d: Could not write metrics to %s: %s", rank, file, ex
+				)
+			);
+			return null;
+		}
+	}
+	
+	/**
+	 * Writes the last row of metrics and closes
+	 * the given CSV file (if there is one).
+	 * 
+	 * @param csv			the writer of the CSV file,
+	 * 						may be null
+	 * @throws IOException
+	 */
+	private void closeMetrics(MetricsCsvWriter csv) throws IOException {
+		if (csv == null) {
+			return;
+		}
+		csv.write(System.nanoTime());
+		csv.close();
+	}
+
+	/**
+	 * Writes the events recorded by the given
+	 * {@link EventTracer} to the trace directory,
+	 * the file is named trace-<rank>.bin.
+	 * 
+	 * @param rank		the rank of the process
+	 * @param tracer	the tracer of the process
+	 */
+	private void dumpTrace(int rank, EventTracer tracer) {
+		if (!tracer.isEnabled()) {
+			return;
+		}
+		
+		File file = new File(traceDirectory, String.format("trace-%d.bin", rank));
+		try {
+			file.getParentFile().mkdirs();
+			int events = tracer.dump(file);
+			System.out.println(
+				String.format(
+					"%d: Wrote %d of %d trace events to %s", rank, events, tracer.getRecorded(), file
+				)
+			);
+		}
+		catch (IOException ex) {
+			System.out.println(
+				String.format(
+					"%d: Could not write trace to %s: %s", rank, file, ex
+				)
+			);
+		}
+	}
+
 	/**
 	 * The main entry point of the
 	 * application.
 	 * 
+	 * Runs either as one of the P2P-MPI processes,
+	 * as one of the processes connected by sockets
+	 * or, if configured, runs all processes as
+	 * threads within the current JVM.
+	 * 
 	 * @param args		possibly set
-	 * 					(command line) arguments
+	 * 					(command line) arguments,
+	 * 					the rank of the process when
+	 * 					using sockets
+	 * @throws IOException
 	 */
-	public static void main(String args[])
+	public static void main(String args[]) throws IOException
     {
     	MainRunner mr = new MainRunner();
     	mr.parseConfig();
-        
-        MPI.Init(args);
-        IntraComm comm = MPI.COMM_WORLD;
- 
+    	
+    	if (mr.getCommunicatorType() == CommunicatorType.LOOPBACK) {
+    		runLoopback(mr.getLoopbackSize());
+    	}
+    	else if (mr.getCommunicatorType() == CommunicatorType.SOCKET) {
+    		if (args.length < 1) {
+    			throw new IllegalArgumentException("The rank of the process is missing");
+    		}
+    		SocketCommunicator comm = new SocketCommunicator(Integer.parseInt(args[0]), mr.getSocketPeers());
+    		try {
+    			mr.run(comm);
+    		} finally {
+    			comm.close();
+    		}
+    	}
+    	else {
+    		MPI.Init(args);
+    		mr.run(new MpiCommunicator(MPI.COMM_WORLD));
+    		MPI.Finalize();
+    	}
+    }
+	
+	/**
+	 * Runs the given number of processes as
+	 * threads within the current JVM, connected
+	 * by {@link LoopbackCommunicator}s. Returns
+	 * as soon as all processes stopped.
+	 * 
+	 * @param size		the number of processes
+	 */
+	private static void runLoopback(int size) {
+		LoopbackCommunicator[] comms = LoopbackCommunicator.create(size);
+		Thread[] threads = new Thread[size];
+		for (int i = 0; i < size; i++) {
+			final Communicator comm = comms[i];
+			threads[i] = new Thread(
+				new Runnable() {
+					@Override
+					public void run() {
+						MainRunner mr = new MainRunner();
+						mr.parseConfig();
+						try {
+							mr.run(comm);
+						} catch (IOException ex) {
+							throw new IllegalStateException(ex);
+						}
+					}
+				},
+				String.format("rank-%d", i)
+			);
+			threads[i].start();
+		}
+		
+		for (Thread thread : threads) {
+			try {
+				thread.join();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Runs the current process, either as
+	 * {@link ReplicationManager} or as {@link Frontend},
+	 * until the running time is over.
+	 * 
+	 * @param comm		the communicator of the process
+	 * @throws IOException
+	 */
+	public void run(Communicator comm) throws IOException {
         int rank = comm.Rank();
         int size = comm.Size();
 
@@ -243,103 +795,245 @@ class MainRunner
         // to act as a replication manager
         // when its rank is below the
         // half of the available
-        // P2P-MPI processes
-        mr.setIsRm((rank < (size / 2)));
+        // processes
+        this.setIsRm((rank < (size / 2)));
 
-		long startTime = new Date().getTime();
+		// All periodic work is driven by a timer
+		// wheel on the monotonic clock
+		long startNanos = System.nanoTime();
+		TimerWheel timers = new TimerWheel((long) (1e9d * this.getTimerTick()), TIMER_TICKS, startNanos);
 
-		mr.start();
+		this.start();
+		EventTracer tracer = this.getEventTracer(rank);
+		
+		// Stop the process when the set
+		// desired running time is over
+		TimerWheel.Timer stopTimer = timers.schedule(
+			"stop",
+			startNanos + (long) (1e9d * this.getRunningTime()),
+			new TimerWheel.Task() {
+				@Override
+				public void run(long latenessNanos) {
+					MainRunner.this.stop();
+				}
+			}
+		);
 		
 		// Determine if the current process
 		// is a replication manager or not
-		if (mr.getIsRm()) {
-			ReplicationManager rm = new ReplicationManager();
-			rm.setLogLevel(mr.getRmLogLevel());
+		if (this.getIsRm()) {
+			final ReplicationManager rm = new ReplicationManager(comm);
+			rm.setLogLevel(this.getRmLogLevel());
+			rm.setCodec(this.getCodec(), this.getMaxMessageSize());
+			rm.setStateTransfer(this.getStateThreshold(), this.getStateChunkSize(), this.getStateWindow());
+			rm.setQueryCacheSize(this.getQueryCacheSize());
+			rm.setEventTracer(tracer);
+			MetricsCsvWriter csv = this.exposeMetrics(rank, "ReplicationManager", rm.getMetrics(), timers, startNanos);
 			
-			while (mr.isRunning()) {
-				long currentTime = new Date().getTime();
-				long timeDifference = currentTime - startTime;
-				
-				// If the current running time exceeds
-				// the set desired running time, stop
-				// the process
-				if (timeDifference > (1000.0d * mr.getRunningTime())) {
-					mr.stop();
+			// Rebuild the state of the RM from its
+			// write-ahead log before doing anything
+			WriteAheadLog wal = this.getWriteAheadLog(rank);
+			if (wal != null) {
+				rm.recover(wal);
+			}
+			
+			// Send a gossip message at the defined
+			// desired time for sending gossip messages
+			TimerWheel.Timer gossipTimer = timers.schedulePeriodic(
+				"gossip",
+				(long) (1e9d * this.getGossipTime()),
+				new TimerWheel.Task() {
+					@Override
+					public void run(long latenessNanos) {
+						rm.sendGossip();
+					}
+				}
+			);
+			
+			// Take snapshots at the defined desired time,
+			// so restarting only replays the log since
+			// the last one
+			TimerWheel.Timer snapshotTimer = null;
+			if (wal != null && this.getSnapshotTime() > 0) {
+				snapshotTimer = timers.schedulePeriodic(
+					"snapshot",
+					(long) (1e9d * this.getSnapshotTime()),
+					new TimerWheel.Task() {
+						@Override
+						public void run(long latenessNanos) {
+							rm.takeSnapshot();
+						}
+					}
+				);
+			}
+			
+			// The RM is driven by arriving messages and
+			// the timers, it backs off when idle
+			// instead of spinning
+			Backoff backoff = new Backoff((long) (1e9d * this.getMaxIdleTime()));
+			while (this.isRunning()) {
+				long nowNanos = System.nanoTime();
+				timers.expire(nowNanos);
+				if (!this.isRunning()) {
+					break;
 				}
+				rm.publishMetrics(nowNanos);
 				
-				// If the current running time matches the
-				// defined desired time for sending gossip
-				// messages, send a gossip message
-				if ((timeDifference % (1000.0d * mr.getGossipTime())) == 0 ) {
-					rm.sendGossip();
+				// Listening/Processing loop
+				// when nothing other has to be done
+				if (rm.processMessages() > 0) {
+					backoff.reset();
 				}
 				else {
-					// Listening/Processing loop
-					// when nothing other has to be done
-					rm.listenToGossip();
-					rm.listenToUpdates();
-					rm.listenToQueries();
-					rm.processQueuedQueries();
+					backoff.idle(timers.nanosToNextTick(System.nanoTime()));
 				}
 			}
 			
 			// After stopping, output the executed
-			// messages
+			// messages and how punctual the timers were
+			rm.closeLog();
 			rm.printExecutedMessages();
+			this.closeMetrics(csv);
+			if (snapshotTimer != null) {
+				this.printTimers(rank, gossipTimer, snapshotTimer, stopTimer);
+			}
+			else {
+				this.printTimers(rank, gossipTimer, stopTimer);
+			}
 		} else {
-			Frontend fe = new Frontend();
-			fe.setLogLevel(mr.getFeLogLevel());
+			final Frontend fe = new Frontend(comm);
+			fe.setLogLevel(this.getFeLogLevel());
+			fe.setCodec(this.getCodec(), this.getMaxMessageSize());
+			fe.setBatching(this.getBatchSize(), (long) (1e9d * this.getBatchLinger()));
+			fe.setReplicaSelection(this.getReplicaSelection(), this.isReplicaSelectionSticky());
+			fe.setHedging(this.getHedgingPercentile(), (long) (1e9d * this.getHedgingMinDelay()));
+			fe.setEventTracer(tracer);
+			MetricsCsvWriter csv = this.exposeMetrics(rank, "Frontend", fe.getMetrics(), timers, startNanos);
 			
-			while (mr.isRunning()) {
-				long currentTime = new Date().getTime();
-				long timeDifference = currentTime - startTime;
-				
-				// If the current running time exceeds
-				// the set desired running time, stop
-				// the process.. yes, this is the same code
-				// as above.. this should be generalized..
-				// but you know how things work :)
-				if (timeDifference > (1000.0d * mr.getRunningTime())) {
-					mr.stop();
-				}
-				
-				// If the current running time matches the
-				// defined desired time for performing an update,
-				// perform an update
-				if ((timeDifference % (1000.0d * mr.getUpdateTime())) == 0 ) {
-					// We randomly either perform an update
-					// or send a query
-					if (Math.random() < 0.5d) {
-						/*
-						 * TODO
-						 * Change randomly between:
-						 *   - postMessage
-						 *   - updateMessage
-						 *   - deleteMessage
+			// Either the workload sends the requests or
+			// the FE performs an update at the defined
+			// desired time for performing an update
+			final Workload workload = this.getWorkload(fe, rank);
+			TimerWheel.Timer updateTimer = null;
+			if (workload != null) {
+				workload.start(System.nanoTime());
+			}
+			else {
+				updateTimer = timers.schedulePeriodic(
+					"update",
+					(long) (1e9d * this.getUpdateTime()),
+					new TimerWheel.Task() {
+						private Random					random		= new Random();
+						private ArrayList<ActionMessage>	posted		= new ArrayList<ActionMessage>(); // Not deleted yet
+						private int						number		= 0; // Of the posted and updated messages
+						
+						@Override
+						public void run(long latenessNanos) {
+							// We randomly either perform an update
+							// or send a query
+							if (random.nextBoolean()) {
+								this.update();
+							}
+							else {
+								fe.query();
+							}
+						}
+						
+						/**
+						 * Randomly posts, updates or deletes a
+						 * message, the latter two one of the
+						 * posted messages.
 						 */
-						fe.postMessage(
-							String.format(
-								"This is some nice message :D number %d",
-								fe.getSentMessages().size()
-							)
-						);
-					}
-					else {
-						fe.query();
+						private void update() {
+							int operation = posted.isEmpty() ? 0 : random.nextInt(3);
+							if (operation == 0) {
+								posted.add(
+									fe.postMessage(
+										String.format(
+											"This is some nice message :D number %d",
+											number++
+										)
+									)
+								);
+							}
+							else if (operation == 1) {
+								fe.updateMessage(
+									posted.get(random.nextInt(posted.size())),
+									String.format(
+										"This is some updated message :D number %d",
+										number++
+									)
+								);
+							}
+							else {
+								fe.deleteMessage(posted.remove(random.nextInt(posted.size())));
+							}
+						}
 					}
+				);
+			}
+			
+			// The FE backs off when idle
+			// instead of spinning as well
+			Backoff backoff = new Backoff((long) (1e9d * this.getMaxIdleTime()));
+			while (this.isRunning()) {
+				long nowNanos = System.nanoTime();
+				timers.expire(nowNanos);
+				fe.publishMetrics(nowNanos);
+				
+				int work = fe.listenToUpdateAnswers() + fe.listenToQueryAnswers();
+				long idleNanos = timers.nanosToNextTick(nowNanos);
+				if (workload != null && this.isRunning()) {
+					work += workload.issue(nowNanos);
+					idleNanos = Math.min(idleNanos, workload.nanosToNextIssue(nowNanos));
 				}
 				
-				fe.listenToUpdateAnswers();
-				fe.listenToQueryAnswers();
+				// Send the batches of updates which
+				// waited long enough and hedge the
+				// queries which did
+				work += fe.flushBatches(System.nanoTime());
+				work += fe.hedgeQueries(System.nanoTime());
+				idleNanos = Math.min(idleNanos, fe.nanosToNextFlush(System.nanoTime()));
+				idleNanos = Math.min(idleNanos, fe.nanosToNextHedge(System.nanoTime()));
+				if (work > 0) {
+					backoff.reset();
+				}
+				else {
+					backoff.idle(idleNanos);
+				}
 			}
 			
 			// After stopping, output the sent
-			// messages
+			// messages and how punctual the timers were
 			fe.printSentMessages();
+			this.closeMetrics(csv);
+			if (workload != null) {
+				workload.printSummary(System.nanoTime());
+				this.printTimers(rank, stopTimer);
+			}
+			else {
+				this.printTimers(rank, updateTimer, stopTimer);
+			}
 		}
-     
-        MPI.Finalize();
-    }
+		this.dumpTrace(rank, tracer);
+	}
+
+	/**
+	 * Prints how many times the given timers
+	 * fired and how late they were.
+	 * 
+	 * @param rank		the rank of the current process
+	 * @param timers	the timers to print
+	 */
+	private void printTimers(int rank, TimerWheel.Timer... timers) {
+		for (TimerWheel.Timer timer : timers) {
+			System.out.println(
+				String.format(
+					"%s %d: %s", this.isRM ? "RM" : "FE", rank, timer
+				)
+			);
+		}
+	}
 
 	/**
 	 * Searches for 
@@ -356,9 +1050,52 @@ class MainRunner
 			this.runningTime = Double.valueOf(prop.getProperty("runningTime", String.valueOf(MainRunner.RUNNING_TIME)));
 			this.gossipTime = Double.valueOf(prop.getProperty("gossipTime", String.valueOf(MainRunner.GOSSIP_TIME)));
 			this.updateTime = Double.valueOf(prop.getProperty("updateTime", String.valueOf(MainRunner.UPDATE_TIME)));
+			this.maxIdleTime = Double.valueOf(prop.getProperty("maxIdleTime", String.valueOf(MainRunner.MAX_IDLE_TIME)));
+			this.timerTick = Double.valueOf(prop.getProperty("timerTick", String.valueOf(MainRunner.TIMER_TICK)));
 			
 			this.setRmLogLevel(Level.toLevel(prop.getProperty("replication_manager.log_level", MainRunner.RM_LOG_LEVEL.toString())));
 			this.setFeLogLevel(Level.toLevel(prop.getProperty("frontend.log_level", MainRunner.FE_LOG_LEVEL.toString())));
+			
+			this.codec = Wire.Codec.valueOf(prop.getProperty("codec", MainRunner.CODEC.toString()).toUpperCase());
+			this.maxMessageSize = Integer.valueOf(prop.getProperty("codec.max_message_size", String.valueOf(MainRunner.MAX_MESSAGE_SIZE)));
+			this.batchSize = Integer.valueOf(prop.getProperty("batch.size", String.valueOf(MainRunner.BATCH_SIZE)));
+			this.batchLinger = Double.valueOf(prop.getProperty("batch.linger", String.valueOf(MainRunner.BATCH_LINGER)));
+			this.replicaSelection = ReplicaSelector.Policy.valueOf(prop.getProperty("replica_selection", MainRunner.REPLICA_SELECTION.toString()).trim().toUpperCase());
+			this.replicaSelectionSticky = Boolean.valueOf(prop.getProperty("replica_selection.sticky", String.valueOf(MainRunner.REPLICA_SELECTION_STICKY)).trim());
+			this.hedgingPercentile = Double.valueOf(prop.getProperty("hedging.percentile", String.valueOf(MainRunner.HEDGING_PERCENTILE)));
+			this.hedgingMinDelay = Double.valueOf(prop.getProperty("hedging.min_delay", String.valueOf(MainRunner.HEDGING_MIN_DELAY)));
+			
+			this.communicatorType = CommunicatorType.valueOf(prop.getProperty("communicator", MainRunner.COMMUNICATOR.toString()).toUpperCase());
+			this.loopbackSize = Integer.valueOf(prop.getProperty("communicator.loopback.size", String.valueOf(MainRunner.LOOPBACK_SIZE)));
+			this.socketPeers = prop.getProperty("communicator.socket.peers", MainRunner.SOCKET_PEERS);
+			
+			this.walDirectory = prop.getProperty("wal.directory", MainRunner.WAL_DIRECTORY).trim();
+			this.walSegmentSize = Integer.valueOf(prop.getProperty("wal.segment_size", String.valueOf(MainRunner.WAL_SEGMENT_SIZE)));
+			this.walSyncInterval = Double.valueOf(prop.getProperty("wal.sync_interval", String.valueOf(MainRunner.WAL_SYNC_INTERVAL)));
+			this.walSyncBatch = Integer.valueOf(prop.getProperty("wal.sync_batch", String.valueOf(MainRunner.WAL_SYNC_BATCH)));
+			this.snapshotTime = Double.valueOf(prop.getProperty("snapshotTime", String.valueOf(MainRunner.SNAPSHOT_TIME)));
+			
+			this.stateThreshold = Integer.valueOf(prop.getProperty("state_transfer.threshold", String.valueOf(MainRunner.STATE_THRESHOLD)));
+			this.stateChunkSize = Integer.valueOf(prop.getProperty("state_transfer.chunk_size", String.valueOf(MainRunner.STATE_CHUNK_SIZE)));
+			this.stateWindow = Integer.valueOf(prop.getProperty("state_transfer.window", String.valueOf(MainRunner.STATE_WINDOW)));
+			
+			this.queryCacheSize = Integer.valueOf(prop.getProperty("query_cache.size", String.valueOf(MainRunner.QUERY_CACHE_SIZE)));
+			
+			this.traceDirectory = prop.getProperty("trace.directory", MainRunner.TRACE_DIRECTORY).trim();
+			this.traceCapacity = Integer.valueOf(prop.getProperty("trace.capacity", String.valueOf(MainRunner.TRACE_CAPACITY)));
+			
+			this.metricsJmx = Boolean.valueOf(prop.getProperty("metrics.jmx", String.valueOf(MainRunner.METRICS_JMX)).trim());
+			this.metricsCsvDirectory = prop.getProperty("metrics.csv.directory", MainRunner.METRICS_CSV_DIRECTORY).trim();
+			this.metricsCsvInterval = Double.valueOf(prop.getProperty("metrics.csv.interval", String.valueOf(MainRunner.METRICS_CSV_INTERVAL)));
+			
+			this.workloadRate = Double.valueOf(prop.getProperty("workload.rate", String.valueOf(MainRunner.WORKLOAD_RATE)));
+			this.workloadClients = Integer.valueOf(prop.getProperty("workload.clients", String.valueOf(MainRunner.WORKLOAD_CLIENTS)));
+			this.workloadMixRead = Integer.valueOf(prop.getProperty("workload.mix.read", String.valueOf(MainRunner.WORKLOAD_MIX_READ)));
+			this.workloadMixWrite = Integer.valueOf(prop.getProperty("workload.mix.write", String.valueOf(MainRunner.WORKLOAD_MIX_WRITE)));
+			this.workloadMixUpdate = Integer.valueOf(prop.getProperty("workload.mix.update", String.valueOf(MainRunner.WORKLOAD_MIX_UPDATE)));
+			this.workloadMixDelete = Integer.valueOf(prop.getProperty("workload.mix.delete", String.valueOf(MainRunner.WORKLOAD_MIX_DELETE)));
+			this.workloadPayloadSize = Integer.valueOf(prop.getProperty("workload.payload.size", String.valueOf(MainRunner.WORKLOAD_PAYLOAD_SIZE)));
+			this.workloadPayloadDistribution = Workload.PayloadDistribution.valueOf(prop.getProperty("workload.payload.distribution", MainRunner.WORKLOAD_PAYLOAD_DISTRIBUTION.toString()).trim().toUpperCase());
 
 		} catch (IOException ex) {
 			// Fall back when reading the MainRunner.CONFIG-FILE
@@ -368,9 +1105,52 @@ class MainRunner
 			this.runningTime = RUNNING_TIME;
 			this.gossipTime = GOSSIP_TIME;
 			this.updateTime = UPDATE_TIME;
+			this.maxIdleTime = MAX_IDLE_TIME;
+			this.timerTick = TIMER_TICK;
 			
 			this.setRmLogLevel(RM_LOG_LEVEL);
 			this.setFeLogLevel(FE_LOG_LEVEL);
+			
+			this.codec = CODEC;
+			this.maxMessageSize = MAX_MESSAGE_SIZE;
+			this.batchSize = BATCH_SIZE;
+			this.batchLinger = BATCH_LINGER;
+			this.replicaSelection = REPLICA_SELECTION;
+			this.replicaSelectionSticky = REPLICA_SELECTION_STICKY;
+			this.hedgingPercentile = HEDGING_PERCENTILE;
+			this.hedgingMinDelay = HEDGING_MIN_DELAY;
+			
+			this.communicatorType = COMMUNICATOR;
+			this.loopbackSize = LOOPBACK_SIZE;
+			this.socketPeers = SOCKET_PEERS;
+			
+			this.walDirectory = WAL_DIRECTORY;
+			this.walSegmentSize = WAL_SEGMENT_SIZE;
+			this.walSyncInterval = WAL_SYNC_INTERVAL;
+			this.walSyncBatch = WAL_SYNC_BATCH;
+			this.snapshotTime = SNAPSHOT_TIME;
+			
+			this.stateThreshold = STATE_THRESHOLD;
+			this.stateChunkSize = STATE_CHUNK_SIZE;
+			this.stateWindow = STATE_WINDOW;
+			
+			this.queryCacheSize = QUERY_CACHE_SIZE;
+			
+			this.traceDirectory = TRACE_DIRECTORY;
+			this.traceCapacity = TRACE_CAPACITY;
+			
+			this.metricsJmx = METRICS_JMX;
+			this.metricsCsvDirectory = METRICS_CSV_DIRECTORY;
+			this.metricsCsvInterval = METRICS_CSV_INTERVAL;
+			
+			this.workloadRate = WORKLOAD_RATE;
+			this.workloadClients = WORKLOAD_CLIENTS;
+			this.workloadMixRead = WORKLOAD_MIX_READ;
+			this.workloadMixWrite = WORKLOAD_MIX_WRITE;
+			this.workloadMixUpdate = WORKLOAD_MIX_UPDATE;
+			this.workloadMixDelete = WORKLOAD_MIX_DELETE;
+			this.workloadPayloadSize = WORKLOAD_PAYLOAD_SIZE;
+			this.workloadPayloadDistribution = WORKLOAD_PAYLOAD_DISTRIBUTION;
 		}
 	}
 }
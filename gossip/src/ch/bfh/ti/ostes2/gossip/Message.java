@@ -1,9 +1,9 @@
 /*
  * Message.java
  * 
- * 1.0
+ * 1.1
  * 
- * 2014-01-22
+ * 2026-10-18
  *
  * The MIT License (MIT)
 * 
@@ -54,12 +54,12 @@ public interface Message {
 	 * 
 	 * @return			the time stamp of the {@link Message}
 	 */
-	public int[] getTimestamp();
+	public VectorClock getTimestamp();
 	
 	/**
 	 * Sets the time stamp for the current {@link Message}.
 	 * 
 	 * @param timestamp	the time stamp of the message
 	 */
-	public void setTimestamp(int timestamp[]);
+	public void setTimestamp(VectorClock timestamp);
 }
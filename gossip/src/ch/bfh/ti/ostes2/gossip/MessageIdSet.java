@@ -0,0 +1,302 @@
+/*
+ * MessageIdSet.java
+ * 
+ * 1.2
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * A set of {@link Message}-IDs which allows checking
+ * for membership in constant time.
+ *
+ * The IDs are not stored as {@link UUID} objects
+ * but as two primitive longs (the most and the least
+ * significant bits) within an open-addressing hash
+ * table using linear probing. This keeps the memory
+ * footprint at 17 bytes per slot and avoids following
+ * references when probing.
+ *
+ * @author sosterwalder
+ *
+ */
+public class MessageIdSet {
+	private static final int	DEFAULT_CAPACITY	= 64;
+	private static final float	LOAD_FACTOR			= 0.5f;
+
+	private long[]				mostSigBits			= null;
+	private long[]				leastSigBits		= null;
+	private boolean[]			used				= null;
+	private int					size				= 0;
+	private int					resizeThreshold		= 0;
+
+	/**
+	 * Constructor
+	 */
+	public MessageIdSet() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param expectedSize	the number of IDs which are
+	 * 						expected to be stored
+	 */
+	public MessageIdSet(int expectedSize) {
+		this.allocate(tableSizeFor((int) (expectedSize / LOAD_FACTOR)));
+	}
+
+	/**
+	 * Returns the number of IDs within
+	 * the {@link MessageIdSet}.
+	 * 
+	 * @return		the number of stored IDs
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if the given ID is contained
+	 * within the {@link MessageIdSet}.
+	 * 
+	 * @param id		the ID to check
+	 * @return			true if the ID is contained,
+	 * 					false if not
+	 */
+	public boolean contains(UUID id) {
+		return this.contains(id.getMostSignificantBits(), id.getLeastSignificantBits());
+	}
+
+	/**
+	 * Checks if the ID given by its most and
+	 * least significant bits is contained within
+	 * the {@link MessageIdSet}.
+	 * 
+	 * @param msb		the most significant bits of the ID
+	 * @param lsb		the least significant bits of the ID
+	 * @return			true if the ID is contained,
+	 * 					false if not
+	 */
+	public boolean contains(long msb, long lsb) {
+		return this.indexOf(msb, lsb) >= 0;
+	}
+
+	/**
+	 * Adds the given ID to the {@link MessageIdSet}.
+	 * 
+	 * @param id		the ID to add
+	 * @return			true if the ID was added,
+	 * 					false if it was already contained
+	 */
+	public boolean add(UUID id) {
+		return this.add(id.getMostSignificantBits(), id.getLeastSignificantBits());
+	}
+
+	/**
+	 * Adds the ID given by its most and least
+	 * significant bits to the {@link MessageIdSet}.
+	 * 
+	 * @param msb		the most significant bits of the ID
+	 * @param lsb		the least significant bits of the ID
+	 * @return			true if the ID was added,
+	 * 					false if it was already contained
+	 */
+	public boolean add(long msb, long lsb) {
+		int mask = used.length - 1;
+		int slot = hash(msb, lsb) & mask;
+
+		while (used[slot]) {
+			if (mostSigBits[slot] == msb && leastSigBits[slot] == lsb) {
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		used[slot] = true;
+		mostSigBits[slot] = msb;
+		leastSigBits[slot] = lsb;
+
+		if (++size > resizeThreshold) {
+			this.rehash(used.length << 1);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Removes the given ID from the {@link MessageIdSet}.
+	 * 
+	 * @param id		the ID to remove
+	 * @return			true if the ID was removed,
+	 * 					false if it was not contained
+	 */
+	public boolean remove(UUID id) {
+		int slot = this.indexOf(id.getMostSignificantBits(), id.getLeastSignificantBits());
+		if (slot < 0) {
+			return false;
+		}
+
+		// Shift back following entries of the same
+		// probe sequence so that no tombstones are needed
+		int mask = used.length - 1;
+		int gap = slot;
+		int next = (gap + 1) & mask;
+		while (used[next]) {
+			int home = hash(mostSigBits[next], leastSigBits[next]) & mask;
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				mostSigBits[gap] = mostSigBits[next];
+				leastSigBits[gap] = leastSigBits[next];
+				used[gap] = true;
+				gap = next;
+			}
+			next = (next + 1) & mask;
+		}
+		used[gap] = false;
+		size--;
+
+		return true;
+	}
+
+	/**
+	 * Returns all IDs within the {@link MessageIdSet},
+	 * each as its most followed by its least
+	 * significant bits, in no particular order.
+	 *
+	 * @return			the bits of the IDs, two
+	 * 					longs per ID
+	 */
+	public long[] toArray() {
+		long[] ids = new long[size * 2];
+		int next = 0;
+		for (int i = 0; i < used.length; i++) {
+			if (used[i]) {
+				ids[next++] = mostSigBits[i];
+				ids[next++] = leastSigBits[i];
+			}
+		}
+		return ids;
+	}
+
+	/**
+	 * Removes all IDs from the {@link MessageIdSet}.
+	 */
+	public void clear() {
+		Arrays.fill(used, false);
+		size = 0;
+	}
+
+	/**
+	 * Returns the slot of the given ID or
+	 * -1 if it is not contained.
+	 * 
+	 * @param msb		the most significant bits of the ID
+	 * @param lsb		the least significant bits of the ID
+	 * @return			the slot of the ID or -1
+	 */
+	private int indexOf(long msb, long lsb) {
+		int mask = used.length - 1;
+		int slot = hash(msb, lsb) & mask;
+
+		while (used[slot]) {
+			if (mostSigBits[slot] == msb && leastSigBits[slot] == lsb) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Re-inserts all IDs into a table
+	 * of the given capacity.
+	 * 
+	 * @param capacity		the new capacity, a power of two
+	 */
+	private void rehash(int capacity) {
+		long[] oldMostSigBits = mostSigBits;
+		long[] oldLeastSigBits = leastSigBits;
+		boolean[] oldUsed = used;
+
+		this.allocate(capacity);
+		size = 0;
+
+		for (int i = 0; i < oldUsed.length; i++) {
+			if (oldUsed[i]) {
+				this.add(oldMostSigBits[i], oldLeastSigBits[i]);
+			}
+		}
+	}
+
+	/**
+	 * Allocates empty tables of the given capacity.
+	 * 
+	 * @param capacity		the capacity, a power of two
+	 */
+	private void allocate(int capacity) {
+		mostSigBits = new long[capacity];
+		leastSigBits = new long[capacity];
+		used = new boolean[capacity];
+		resizeThreshold = (int) (capacity * LOAD_FACTOR);
+	}
+
+	/**
+	 * Spreads the bits of the ID as random
+	 * UUIDs keep fixed version and variant bits.
+	 * 
+	 * @param msb		the most significant bits of the ID
+	 * @param lsb		the least significant bits of the ID
+	 * @return			the hash of the ID
+	 */
+	private static int hash(long msb, long lsb) {
+		long h = msb * 0x9E3779B97F4A7C15L ^ lsb;
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		return (int) h;
+	}
+
+	/**
+	 * Returns the smallest power of two
+	 * which is greater or equal than the given value.
+	 * 
+	 * @param value		the minimal capacity
+	 * @return			the table size
+	 */
+	private static int tableSizeFor(int value) {
+		int capacity = DEFAULT_CAPACITY;
+		while (capacity < value) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+}
@@ -0,0 +1,392 @@
+/*
+ * MessageIndex.java
+ * 
+ * 1.0
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Secondary indexes over the {@link ActionMessage}s of a
+ * {@link ValueStore}, so the newest messages of all users
+ * or of a single user are found without scanning the store.
+ * 
+ * Every inserted message gets the next number of a sequence,
+ * i.e. its apply time on this replica. Replacing a message
+ * keeps its number. The indexes are
+ * 
+ * 	by time		- a skip list of the messages by their number,
+ * 				  the newest k are found in O(log n + k)
+ * 	by user		- an open-addressing hash table with linear
+ * 				  probing from the primitive user-ID to the
+ * 				  numbers and messages of the user, sorted by
+ * 				  number, the newest k are found in O(k)
+ * 
+ * The memory needed is bounded by the stored messages: a node
+ * of the skip list and a number and a reference per message,
+ * the arrays of a user are shrunk when less than a quarter of
+ * them is used, and users without messages are removed.
+ * 
+ * Replacing or removing a message searches the messages of
+ * its user for it, which are few compared to all of them.
+ * 
+ * @author sosterwalder
+ *
+ */
+public class MessageIndex {
+	private static final int	DEFAULT_CAPACITY	= 16;
+	private static final float	LOAD_FACTOR			= 0.5f;
+	private static final int	MIN_USER_CAPACITY	= 4;
+
+	/**
+	 * The messages of a user, sorted
+	 * by their numbers.
+	 */
+	private static class UserMessages {
+		long[]					sequences		= new long[MIN_USER_CAPACITY];
+		ActionMessage[]			messages		= new ActionMessage[MIN_USER_CAPACITY];
+		int						size			= 0;
+	}
+
+	private ConcurrentSkipListMap<Long, ActionMessage>	byTime			= new ConcurrentSkipListMap<Long, ActionMessage>();
+	private int[]										userIds			= null;
+	private UserMessages[]								users			= null; // Null for a free slot
+	private int											userCount		= 0;
+	private int											resizeThreshold	= 0;
+	private int											size			= 0;
+	private long										nextSequence	= 0;
+
+	/**
+	 * Constructor
+	 */
+	public MessageIndex() {
+		this.allocate(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Returns the number of indexed messages.
+	 * 
+	 * @return			the number of messages
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Indexes the given, newly inserted message
+	 * as the newest one.
+	 * 
+	 * @param msg		the inserted message
+	 */
+	public void add(ActionMessage msg) {
+		long sequence = nextSequence++;
+		byTime.put(sequence, msg);
+		insert(this.getOrCreate(msg.getUserId()), sequence, msg);
+		size++;
+	}
+
+	/**
+	 * Replaces the given indexed message by its
+	 * changed copy, which keeps the place of the
+	 * message and may belong to another user.
+	 * 
+	 * @param old		the indexed message
+	 * @param msg		the changed copy
+	 */
+	public void replace(ActionMessage old, ActionMessage msg) {
+		int slot = this.indexOf(old.getUserId());
+		UserMessages user = this.getIndexed(slot, old);
+		int index = find(user, old);
+		long sequence = user.sequences[index];
+		byTime.put(sequence, msg);
+
+		if (old.getUserId() == msg.getUserId()) {
+			user.messages[index] = msg;
+		}
+		else {
+			this.removeAt(slot, index);
+			insert(this.getOrCreate(msg.getUserId()), sequence, msg);
+		}
+	}
+
+	/**
+	 * Removes the given indexed message.
+	 * 
+	 * @param old		the indexed message
+	 */
+	public void remove(ActionMessage old) {
+		int slot = this.indexOf(old.getUserId());
+		UserMessages user = this.getIndexed(slot, old);
+		int index = find(user, old);
+		byTime.remove(user.sequences[index]);
+		this.removeAt(slot, index);
+		size--;
+	}
+
+	/**
+	 * Returns the newest messages of all users.
+	 * 
+	 * @param limit		the maximal number of messages
+	 * @return			the messages, newest first
+	 */
+	public ArrayList<ActionMessage> getLatest(int limit) {
+		ArrayList<ActionMessage> latest = new ArrayList<ActionMessage>(Math.min(limit, size));
+		Iterator<ActionMessage> newest = byTime.descendingMap().values().iterator();
+		while (latest.size() < limit && newest.hasNext()) {
+			latest.add(newest.next());
+		}
+		return latest;
+	}
+
+	/**
+	 * Returns the newest messages of the given user.
+	 * 
+	 * @param userId	the ID of the user
+	 * @param limit		the maximal number of messages
+	 * @return			the messages, newest first
+	 */
+	public ArrayList<ActionMessage> getLatestOfUser(int userId, int limit) {
+		int slot = this.indexOf(userId);
+		if (slot < 0) {
+			return new ArrayList<ActionMessage>(0);
+		}
+
+		UserMessages user = users[slot];
+		ArrayList<ActionMessage> latest = new ArrayList<ActionMessage>(Math.min(limit, user.size));
+		for (int i = user.size - 1; i >= 0 && latest.size() < limit; i--) {
+			latest.add(user.messages[i]);
+		}
+		return latest;
+	}
+
+	/**
+	 * Returns the messages of the user in the given
+	 * slot, which the given message has to be
+	 * indexed for.
+	 * 
+	 * @param slot		the slot of the user
+	 * @param msg		the indexed message
+	 * @return			the messages of the user
+	 */
+	private UserMessages getIndexed(int slot, ActionMessage msg) {
+		if (slot < 0) {
+			throw new IllegalStateException("Message " + msg.getId() + " is not indexed");
+		}
+		return users[slot];
+	}
+
+	/**
+	 * Returns the index of the given message within
+	 * the messages of its user, searching from the
+	 * newest one.
+	 * 
+	 * @param user		the messages of the user
+	 * @param msg		the message to find
+	 * @return			the index of the message
+	 */
+	private static int find(UserMessages user, ActionMessage msg) {
+		for (int i = user.size - 1; i >= 0; i--) {
+			if (user.messages[i] == msg) {
+				return i;
+			}
+		}
+		throw new IllegalStateException("Message " + msg.getId() + " is not indexed");
+	}
+
+	/**
+	 * Inserts the given message into the messages
+	 * of a user at the place of its number.
+	 * 
+	 * @param user		the messages of the user
+	 * @param sequence	the number of the message
+	 * @param msg		the message
+	 */
+	private static void insert(UserMessages user, long sequence, ActionMessage msg) {
+		if (user.size == user.sequences.length) {
+			user.sequences = Arrays.copyOf(user.sequences, user.size << 1);
+			user.messages = Arrays.copyOf(user.messages, user.size << 1);
+		}
+
+		// Mostly the newest one, so it is appended
+		int index = user.size;
+		if (index > 0 && user.sequences[index - 1] > sequence) {
+			index = -Arrays.binarySearch(user.sequences, 0, user.size, sequence) - 1;
+			System.arraycopy(user.sequences, index, user.sequences, index + 1, user.size - index);
+			System.arraycopy(user.messages, index, user.messages, index + 1, user.size - index);
+		}
+		user.sequences[index] = sequence;
+		user.messages[index] = msg;
+		user.size++;
+	}
+
+	/**
+	 * Removes the message at the given index from
+	 * the messages of the user in the given slot,
+	 * and the user if it has no messages left.
+	 * 
+	 * @param slot		the slot of the user
+	 * @param index		the index of the message
+	 */
+	private void removeAt(int slot, int index) {
+		UserMessages user = users[slot];
+		System.arraycopy(user.sequences, index + 1, user.sequences, index, user.size - index - 1);
+		System.arraycopy(user.messages, index + 1, user.messages, index, user.size - index - 1);
+		user.messages[--user.size] = null;
+
+		if (user.size == 0) {
+			this.removeUser(slot);
+		}
+		else if (user.sequences.length > MIN_USER_CAPACITY && user.size < user.sequences.length >> 2) {
+			user.sequences = Arrays.copyOf(user.sequences, user.sequences.length >> 1);
+			user.messages = Arrays.copyOf(user.messages, user.messages.length >> 1);
+		}
+	}
+
+	/**
+	 * Returns the messages of the given
+	 * user, adding the user if necessary.
+	 * 
+	 * @param userId	the ID of the user
+	 * @return			the messages of the user
+	 */
+	private UserMessages getOrCreate(int userId) {
+		int mask = users.length - 1;
+		int slot = hash(userId) & mask;
+
+		while (users[slot] != null) {
+			if (userIds[slot] == userId) {
+				return users[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		UserMessages user = new UserMessages();
+		userIds[slot] = userId;
+		users[slot] = user;
+
+		if (++userCount > resizeThreshold) {
+			this.rehash(users.length << 1);
+		}
+		return user;
+	}
+
+	/**
+	 * Returns the slot of the given
+	 * user or -1 if it has no messages.
+	 * 
+	 * @param userId	the ID of the user
+	 * @return			the slot of the user or -1
+	 */
+	private int indexOf(int userId) {
+		int mask = users.length - 1;
+		int slot = hash(userId) & mask;
+
+		while (users[slot] != null) {
+			if (userIds[slot] == userId) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Removes the user in the given slot.
+	 * 
+	 * @param slot		the slot of the user
+	 */
+	private void removeUser(int slot) {
+		// Shift back following entries of the same
+		// probe sequence so that no tombstones are needed
+		int mask = users.length - 1;
+		int gap = slot;
+		int next = (gap + 1) & mask;
+		while (users[next] != null) {
+			int home = hash(userIds[next]) & mask;
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				userIds[gap] = userIds[next];
+				users[gap] = users[next];
+				gap = next;
+			}
+			next = (next + 1) & mask;
+		}
+		users[gap] = null;
+		userCount--;
+	}
+
+	/**
+	 * Re-inserts all users into a table
+	 * of the given capacity.
+	 * 
+	 * @param capacity		the new capacity, a power of two
+	 */
+	private void rehash(int capacity) {
+		int[] oldUserIds = userIds;
+		UserMessages[] oldUsers = users;
+
+		this.allocate(capacity);
+		int mask = capacity - 1;
+		for (int i = 0; i < oldUsers.length; i++) {
+			if (oldUsers[i] != null) {
+				int slot = hash(oldUserIds[i]) & mask;
+				while (users[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				userIds[slot] = oldUserIds[i];
+				users[slot] = oldUsers[i];
+			}
+		}
+	}
+
+	/**
+	 * Allocates empty tables of the given capacity.
+	 * 
+	 * @param capacity		the capacity, a power of two
+	 */
+	private void allocate(int capacity) {
+		userIds = new int[capacity];
+		users = new UserMessages[capacity];
+		resizeThreshold = (int) (capacity * LOAD_FACTOR);
+	}
+
+	/**
+	 * Spreads the bits of the user-ID, which
+	 * are mostly small, consecutive numbers.
+	 * 
+	 * @param userId	the ID of the user
+	 * @return			the hash of the ID
+	 */
+	private static int hash(int userId) {
+		int h = userId * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
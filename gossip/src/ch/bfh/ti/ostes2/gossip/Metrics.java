@@ -0,0 +1,360 @@
+/*
+ * Metrics.java
+ * 
+ * 1.1
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A registry of the metrics of a {@link ReplicationManager}
+ * or a {@link Frontend}: counters, gauges, values and
+ * histograms, each registered by a unique name.
+ * 
+ * The metrics are updated by the thread of the process
+ * only and may be read by other threads, e.g. by JMX
+ * using {@link MetricsMBean}, so updating a metric costs
+ * no more than a volatile write. Readers see consistent
+ * single values, the values of a histogram may be off
+ * by the updates happening while reading them.
+ * 
+ * The state of the process, e.g. the size of a buffer,
+ * is not safe to read by other threads. The process
+ * publishes it as {@link Value}s instead of reading
+ * it by a {@link Gauge}.
+ * 
+ * @author sosterwalder
+ *
+ */
+public class Metrics {
+
+	/**
+	 * A value computed when reading it, by the
+	 * reading thread, so it may only read fields
+	 * which are safe to read by other threads.
+	 */
+	public interface Gauge {
+		/**
+		 * Returns the current value.
+		 * 
+		 * @return		the value
+		 */
+		long getValue();
+	}
+
+	/**
+	 * A monotonically increasing count.
+	 */
+	public static class Counter {
+		private volatile long	count	= 0;
+
+		/**
+		 * Increases the count by one.
+		 */
+		public void increment() {
+			count++;
+		}
+
+		/**
+		 * Increases the count by the given value.
+		 * 
+		 * @param value		the value to add
+		 */
+		public void add(long value) {
+			count += value;
+		}
+
+		/**
+		 * Returns the count.
+		 * 
+		 * @return		the count
+		 */
+		public long getCount() {
+			return count;
+		}
+	}
+
+	/**
+	 * A value published by the thread of the
+	 * process, e.g. the size of a buffer.
+	 */
+	public static class Value implements Gauge {
+		private volatile long	value	= 0;
+
+		/**
+		 * Publishes the given value.
+		 * 
+		 * @param value		the current value
+		 */
+		public void set(long value) {
+			this.value = value;
+		}
+
+		/* (non-Javadoc)
+		 * @see ch.bfh.ti.ostes2.gossip.Metrics.Gauge#getValue()
+		 */
+		@Override
+		public long getValue() {
+			return value;
+		}
+	}
+
+	/**
+	 * A distribution of non-negative values, e.g.
+	 * latencies in nanoseconds, using buckets of
+	 * powers of two: bucket i holds the values
+	 * from 2^(i-1) to below 2^i. Quantiles are
+	 * estimated as the
+	 * upper bound of their bucket, so they are
+	 * off by at most a factor of two.
+	 */
+	public static class Histogram {
+		private final long[]	buckets	= new long[64];
+		private volatile long	count	= 0;
+		private long			sum		= 0;
+		private long			max		= 0;
+
+		/**
+		 * Records the given value.
+		 * 
+		 * @param value		the value, negative
+		 * 					values count as 0
+		 */
+		public void record(long value) {
+			value = Math.max(0, value);
+			buckets[64 - Long.numberOfLeadingZeros(value)]++;
+			sum += value;
+			max = Math.max(max, value);
+			count++;
+		}
+
+		/**
+		 * Returns the number of recorded values.
+		 * 
+		 * @return		the count
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * Returns the mean of the recorded values.
+		 * 
+		 * @return		the mean, 0 if there are none
+		 */
+		public long getMean() {
+			long count = this.count;
+			return count == 0 ? 0 : sum / count;
+		}
+
+		/**
+		 * Returns the largest recorded value.
+		 * 
+		 * @return		the maximum, 0 if there are none
+		 */
+		public long getMax() {
+			return max;
+		}
+
+		/**
+		 * Returns the estimated quantile.
+		 * 
+		 * @param quantile		the quantile, e.g. 0.99
+		 * @return				the estimate, 0 if there
+		 * 						are no values
+		 */
+		public long getQuantile(double quantile) {
+			long count = this.count;
+			if (count == 0) {
+				return 0;
+			}
+
+			long rank = (long) Math.ceil(quantile * count);
+			long seen = 0;
+			for (int i = 0; i < buckets.length; i++) {
+				seen += buckets[i];
+				if (seen >= rank) {
+					return Math.min(max, i == 0 ? 0 : (1L << i) - 1);
+				}
+			}
+			return max;
+		}
+	}
+
+	private String						name		= null;
+	private Map<String, Object>			metrics		= new LinkedHashMap<String, Object>();
+
+	/**
+	 * Constructor
+	 * 
+	 * @param name			the name of the process,
+	 * 						e.g. "RM 0"
+	 */
+	public Metrics(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Returns the name of the process.
+	 * 
+	 * @return		the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Registers a new counter.
+	 * 
+	 * @param name		the unique name of the counter
+	 * @return			the counter
+	 */
+	public Counter counter(String name) {
+		Counter counter = new Counter();
+		this.register(name, counter);
+		return counter;
+	}
+
+	/**
+	 * Registers the given gauge.
+	 * 
+	 * @param name		the unique name of the gauge
+	 * @param gauge		the gauge
+	 */
+	public void gauge(String name, Gauge gauge) {
+		this.register(name, gauge);
+	}
+
+	/**
+	 * Registers a new value.
+	 * 
+	 * @param name		the unique name of the value
+	 * @return			the value
+	 */
+	public Value value(String name) {
+		Value value = new Value();
+		this.register(name, value);
+		return value;
+	}
+
+	/**
+	 * Registers a new histogram.
+	 * 
+	 * @param name		the unique name of the histogram
+	 * @return			the histogram
+	 */
+	public Histogram histogram(String name) {
+		Histogram histogram = new Histogram();
+		this.register(name, histogram);
+		return histogram;
+	}
+
+	/**
+	 * Returns the names of the single values of all
+	 * metrics, a histogram has the values count, mean,
+	 * p50, p99 and max.
+	 * 
+	 * @return			the names, in the order of
+	 * 					registration
+	 */
+	public synchronized List<String> getNames() {
+		ArrayList<String> names = new ArrayList<String>();
+		for (Map.Entry<String, Object> metric : metrics.entrySet()) {
+			if (metric.getValue() instanceof Histogram) {
+				names.add(metric.getKey() + ".count");
+				names.add(metric.getKey() + ".mean");
+				names.add(metric.getKey() + ".p50");
+				names.add(metric.getKey() + ".p99");
+				names.add(metric.getKey() + ".max");
+			}
+			else {
+				names.add(metric.getKey());
+			}
+		}
+		return Collections.unmodifiableList(names);
+	}
+
+	/**
+	 * Returns the current single values of all metrics,
+	 * in the order of getNames().
+	 * 
+	 * @return			the values
+	 */
+	public synchronized long[] getValues() {
+		long[] values = new long[this.getNames().size()];
+		int i = 0;
+		for (Object metric : metrics.values()) {
+			if (metric instanceof Counter) {
+				values[i++] = ((Counter) metric).getCount();
+			}
+			else if (metric instanceof Gauge) {
+				values[i++] = ((Gauge) metric).getValue();
+			}
+			else {
+				Histogram histogram = (Histogram) metric;
+				values[i++] = histogram.getCount();
+				values[i++] = histogram.getMean();
+				values[i++] = histogram.getQuantile(0.5d);
+				values[i++] = histogram.getQuantile(0.99d);
+				values[i++] = histogram.getMax();
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Returns the current single value with
+	 * the given name, as named by getNames().
+	 * 
+	 * @param name		the name of the value
+	 * @return			the value or null if
+	 * 					there is none
+	 */
+	public synchronized Long getValue(String name) {
+		int index = this.getNames().indexOf(name);
+		return index < 0 ? null : Long.valueOf(this.getValues()[index]);
+	}
+
+	/**
+	 * Registers the given metric.
+	 * 
+	 * @param name		the unique name of the metric
+	 * @param metric	the metric
+	 */
+	private synchronized void register(String name, Object metric) {
+		if (metrics.containsKey(name)) {
+			throw new IllegalArgumentException("Metric " + name + " is registered already");
+		}
+		metrics.put(name, metric);
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * MetricsCsvWriter.java
+ * 
+ * 1.0
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes the values of {@link Metrics} periodically as
+ * rows to a CSV file. The first column holds the time
+ * since the start of the process in milliseconds, the
+ * other ones the values as named by the header.
+ * 
+ * @author sosterwalder
+ *
+ */
+public class MetricsCsvWriter {
+	private Metrics				metrics		= null;
+	private BufferedWriter		writer		= null;
+	private long				startNanos	= 0;
+	private int					columns		= 0;
+
+	/**
+	 * Constructor, creates the file
+	 * and writes the header.
+	 * 
+	 * @param file			the file to write
+	 * @param metrics		the metrics to write
+	 * @param startNanos	the start of the process
+	 * @throws IOException
+	 */
+	public MetricsCsvWriter(File file, Metrics metrics, long startNanos) throws IOException {
+		this.metrics = metrics;
+		this.startNanos = startNanos;
+
+		List<String> names = metrics.getNames();
+		columns = names.size();
+		writer = new BufferedWriter(new FileWriter(file));
+		writer.write("time_ms");
+		for (String name : names) {
+			writer.write(',');
+			writer.write(name);
+		}
+		writer.newLine();
+		writer.flush();
+	}
+
+	/**
+	 * Writes a row holding the current values.
+	 * Metrics registered after the header are
+	 * not written.
+	 * 
+	 * @param nowNanos		the current time
+	 * @throws IOException
+	 */
+	public void write(long nowNanos) throws IOException {
+		long[] values = metrics.getValues();
+		writer.write(String.valueOf((nowNanos - startNanos) / 1000000));
+		for (int i = 0; i < columns; i++) {
+			writer.write(',');
+			writer.write(String.valueOf(values[i]));
+		}
+		writer.newLine();
+		writer.flush();
+	}
+
+	/**
+	 * Closes the file.
+	 * 
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		writer.close();
+	}
+}
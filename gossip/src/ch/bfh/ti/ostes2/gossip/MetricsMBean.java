@@ -0,0 +1,160 @@
+/*
+ * MetricsMBean.java
+ * 
+ * 1.0
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ObjectName;
+
+/**
+ * Exposes {@link Metrics} by JMX, e.g. for jconsole,
+ * every single value of the metrics as a read-only
+ * attribute of type long.
+ * 
+ * @author sosterwalder
+ *
+ */
+public class MetricsMBean implements DynamicMBean {
+	public static final String	DOMAIN		= "ch.bfh.ti.ostes2.gossip";
+
+	private Metrics				metrics		= null;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param metrics		the metrics to expose
+	 */
+	public MetricsMBean(Metrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Registers the given metrics with the platform
+	 * MBean server as ch.bfh.ti.ostes2.gossip:type=type,rank=rank.
+	 * 
+	 * @param metrics		the metrics to expose
+	 * @param type			the type of the process,
+	 * 						e.g. ReplicationManager
+	 * @param rank			the rank of the process
+	 * @return				the name of the registered MBean
+	 * @throws JMException
+	 */
+	public static ObjectName register(Metrics metrics, String type, int rank) throws JMException {
+		ObjectName name = new ObjectName(String.format("%s:type=%s,rank=%d", DOMAIN, type, rank));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(metrics), name);
+		return name;
+	}
+
+	/* (non-Javadoc)
+	 * @see javax.management.DynamicMBean#getAttribute(java.lang.String)
+	 */
+	@Override
+	public Object getAttribute(String attribute) throws AttributeNotFoundException {
+		Long value = metrics.getValue(attribute);
+		if (value == null) {
+			throw new AttributeNotFoundException(attribute);
+		}
+		return value;
+	}
+
+	/* (non-Javadoc)
+	 * @see javax.management.DynamicMBean#setAttribute(javax.management.Attribute)
+	 */
+	@Override
+	public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+		throw new AttributeNotFoundException("The metrics are read-only: " + attribute.getName());
+	}
+
+	/* (non-Javadoc)
+	 * @see javax.management.DynamicMBean#getAttributes(java.lang.String[])
+	 */
+	@Override
+	public AttributeList getAttributes(String[] attributes) {
+		// Read all values at once, so
+		// they belong together
+		List<String> names = metrics.getNames();
+		long[] values = metrics.getValues();
+
+		AttributeList list = new AttributeList();
+		for (String attribute : attributes) {
+			int index = names.indexOf(attribute);
+			if (index >= 0) {
+				list.add(new Attribute(attribute, Long.valueOf(values[index])));
+			}
+		}
+		return list;
+	}
+
+	/* (non-Javadoc)
+	 * @see javax.management.DynamicMBean#setAttributes(javax.management.AttributeList)
+	 */
+	@Override
+	public AttributeList setAttributes(AttributeList attributes) {
+		return new AttributeList();
+	}
+
+	/* (non-Javadoc)
+	 * @see javax.management.DynamicMBean#invoke(java.lang.String, java.lang.Object[], java.lang.String[])
+	 */
+	@Override
+	public Object invoke(String actionName, Object[] params, String[] signature) {
+		throw new UnsupportedOperationException("No operations: " + actionName);
+	}
+
+	/* (non-Javadoc)
+	 * @see javax.management.DynamicMBean#getMBeanInfo()
+	 */
+	@Override
+	public MBeanInfo getMBeanInfo() {
+		List<String> names = metrics.getNames();
+		MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[names.size()];
+		for (int i = 0; i < attributes.length; i++) {
+			attributes[i] = new MBeanAttributeInfo(names.get(i), "long", names.get(i), true, false, false);
+		}
+		return new MBeanInfo(
+			this.getClass().getName(),
+			"Metrics of " + metrics.getName(),
+			attributes,
+			null,
+			new MBeanOperationInfo[0],
+			null
+		);
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * MpiCommunicator.java
+ * 
+ * 1.0
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import p2pmpi.mpi.IntraComm;
+import p2pmpi.mpi.MPI;
+import p2pmpi.mpi.Status;
+
+/**
+ * This class implements the {@link Communicator}
+ * using a P2P-MPI communicator, usually MPI.COMM_WORLD.
+ * 
+ * @author sosterwalder
+ *
+ */
+public class MpiCommunicator implements Communicator {
+	private IntraComm					comm		= null;
+	private p2pmpi.mpi.Request[]		scratch		= new p2pmpi.mpi.Request[0]; // For Testany()
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param comm		the P2P-MPI communicator
+	 */
+	public MpiCommunicator(IntraComm comm) {
+		this.comm = comm;
+	}
+	
+	/* (non-Javadoc)
+	 * @see ch.bfh.ti.ostes2.gossip.Communicator#Rank()
+	 */
+	@Override
+	public int Rank() {
+		return comm.Rank();
+	}
+	
+	/* (non-Javadoc)
+	 * @see ch.bfh.ti.ostes2.gossip.Communicator#Size()
+	 */
+	@Override
+	public int Size() {
+		return comm.Size();
+	}
+	
+	/* (non-Javadoc)
+	 * @see ch.bfh.ti.ostes2.gossip.Communicator#Isend(java.lang.Object, int, int, ch.bfh.ti.ostes2.gossip.Communicator.Datatype, int, int)
+	 */
+	@Override
+	public Request Isend(Object buffer, int offset, int count, Datatype datatype, int destination, int tag) {
+		return new MpiRequest(comm.Isend(buffer, offset, count, toMpi(datatype), destination, tag));
+	}
+	
+	/* (non-Javadoc)
+	 * @see ch.bfh.ti.ostes2.gossip.Communicator#Irecv(java.lang.Object, int, int, ch.bfh.ti.ostes2.gossip.Communicator.Datatype, int, int)
+	 */
+	@Override
+	public Request Irecv(Object buffer, int offset, int count, Datatype datatype, int source, int tag) {
+		return new MpiRequest(comm.Irecv(buffer, offset, count, toMpi(datatype), source, tag));
+	}
+	
+	/* (non-Javadoc)
+	 * @see ch.bfh.ti.ostes2.gossip.Communicator#Testany(ch.bfh.ti.ostes2.gossip.Communicator.Request[])
+	 */
+	@Override
+	public int Testany(Request[] requests) {
+		if (scratch.length != requests.length) {
+			scratch = new p2pmpi.mpi.Request[requests.length];
+		}
+		for (int i = 0; i < requests.length; i++) {
+			scratch[i] = ((MpiRequest) requests[i]).request;
+		}
+		
+		Status status = p2pmpi.mpi.Request.Testany(scratch);
+		return status == null ? -1 : status.index;
+	}
+	
+	/**
+	 * Returns the P2P-MPI datatype
+	 * of the given datatype.
+	 * 
+	 * @param datatype		the datatype
+	 * @return				the P2P-MPI datatype
+	 */
+	private static p2pmpi.mpi.Datatype toMpi(Datatype datatype) {
+		return datatype == Datatype.BYTE ? MPI.BYTE : MPI.OBJECT;
+	}
+	
+	/**
+	 * A request wrapping a P2P-MPI request.
+	 */
+	private static class MpiRequest implements Request {
+		private p2pmpi.mpi.Request request = null;
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param request		the P2P-MPI request
+		 */
+		MpiRequest(p2pmpi.mpi.Request request) {
+			this.request = request;
+		}
+		
+		/* (non-Javadoc)
+		 * @see ch.bfh.ti.ostes2.gossip.Communicator.Request#Test()
+		 */
+		@Override
+		public boolean Test() {
+			return request.Test() != null;
+		}
+		
+		/* (non-Javadoc)
+		 * @see ch.bfh.ti.ostes2.gossip.Communicator.Request#Wait()
+		 */
+		@Override
+		public void Wait() {
+			request.Wait();
+		}
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ * QueryCache.java
+ * 
+ * 1.1
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Caches the results of the {@link QueryMessage}s executed
+ * by a {@link ReplicationManager}, so repeated queries, e.g.
+ * of the newest messages, are answered without searching
+ * the value store again.
+ * 
+ * The results are valid for the valueTS they got found at
+ * only. Every applied update changes the value store, so
+ * the {@link ReplicationManager} invalidates the whole
+ * cache then. Between two updates, the cache holds the
+ * results of at most the given number of queries, the
+ * least recently used ones get evicted.
+ * 
+ * The cached results are shared between the answers and
+ * must not be changed.
+ * 
+ * @author sosterwalder
+ *
+ */
+public class QueryCache {
+
+	/**
+	 * The parameters of a query, which
+	 * its results are cached by.
+	 */
+	private static class Key {
+		QueryMessage.Kind				kind		= null;
+		UUID							targetId	= null;
+		int								userId		= 0;
+		String							text		= null;
+		int								limit		= 0;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param query		the query
+		 */
+		Key(QueryMessage query) {
+			this.kind = query.getKind();
+			this.targetId = query.getTargetId();
+			this.userId = query.getUserId();
+			this.text = query.getText();
+			this.limit = query.getLimit();
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+			int hash = kind.hashCode();
+			hash = 31 * hash + (targetId == null ? 0 : targetId.hashCode());
+			hash = 31 * hash + userId;
+			hash = 31 * hash + (text == null ? 0 : text.hashCode());
+			return 31 * hash + limit;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return kind == other.kind
+				&& (targetId == null ? other.targetId == null : targetId.equals(other.targetId))
+				&& userId == other.userId
+				&& (text == null ? other.text == null : text.equals(other.text))
+				&& limit == other.limit;
+		}
+	}
+
+	private LinkedHashMap<Key, ArrayList<ActionMessage>>	entries		= null;
+	private int												capacity	= 0;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param capacity		the maximal number of cached
+	 * 						queries, 0 disables the cache
+	 */
+	public QueryCache(final int capacity) {
+		this.capacity = capacity;
+		// In access order, so the eldest
+		// entry is the least recently used
+		this.entries = new LinkedHashMap<Key, ArrayList<ActionMessage>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, ArrayList<ActionMessage>> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached results of the given query.
+	 * 
+	 * @param query		the query
+	 * @return			the results or null if
+	 * 					they are not cached
+	 */
+	public ArrayList<ActionMessage> get(QueryMessage query) {
+		if (entries.isEmpty()) {
+			return null;
+		}
+		return entries.get(new Key(query));
+	}
+
+	/**
+	 * Caches the results of the given query,
+	 * found at the current valueTS.
+	 * 
+	 * @param query		the query
+	 * @param results	the results
+	 */
+	public void put(QueryMessage query, ArrayList<ActionMessage> results) {
+		if (capacity > 0) {
+			entries.put(new Key(query), results);
+		}
+	}
+
+	/**
+	 * Drops all the cached results, e.g. when
+	 * the valueTS advanced.
+	 */
+	public void invalidate() {
+		if (!entries.isEmpty()) {
+			entries.clear();
+		}
+	}
+
+	/**
+	 * Returns the number of cached queries.
+	 * 
+	 * @return			the number of queries
+	 */
+	public int size() {
+		return entries.size();
+	}
+}
@@ -1,9 +1,9 @@
 /*
  * QueryMessage.java
  * 
- * 1.1
+ * 1.6
  * 
- * 2014-01-22
+ * 2026-10-18
  *
  * The MIT License (MIT)
 * 
@@ -31,20 +31,70 @@
 package ch.bfh.ti.ostes2.gossip;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.UUID;
 
 /**
  * This class acts as container for query messages
  * between a {@link Frontend} and a {@link ReplicationManager}.
  * 
+ * A query asks for the {@link ActionMessage}s of the
+ * value store according to its kind, the answer holds
+ * them as its results, newest first. The stored
+ * messages must not be changed by the receiver.
+ * 
  * @author sosterwalder
  *
  */
 public class QueryMessage implements Serializable, Message {
+	/**
+	 * The kinds of queries.
+	 * 
+	 * 	TIMESTAMP	- no messages, only the valueTS
+	 * 	BY_ID		- the message with the target ID
+	 * 	BY_USER		- the newest messages of the user
+	 * 	LATEST		- the newest messages of all users
+	 * 	SEARCH		- the newest messages containing all
+	 * 				  the terms of the text
+	 * 	PREFIX		- like SEARCH, the last term of the
+	 * 				  text is a prefix of the terms
+	 */
+	public enum Kind {
+		TIMESTAMP, BY_ID, BY_USER, LATEST, SEARCH, PREFIX
+	}
+	
+	// Maximal number of messages asked for,
+	// so an answer fits into a message
+	public static final int MAX_LIMIT = 100;
+	
 	private static final long serialVersionUID = -5430283984414519557L;
-	private  UUID id = UUID.randomUUID();
-	private int timestamp[] = null;
+	private UUID id = null;
+	private VectorClock timestamp = null;
 	private int frontendId = Integer.MAX_VALUE;
+	private Kind kind = Kind.TIMESTAMP;
+	private UUID targetId = null; // Only for BY_ID
+	private int userId = Integer.MAX_VALUE; // Only for BY_USER
+	private String text = null; // Only for SEARCH and PREFIX
+	private int limit = 0; // Not for TIMESTAMP and BY_ID
+	private UUID requestId = null; // Only set for answers
+	private ArrayList<ActionMessage> results = null; // Only set for answers
+
+	/**
+	 * Constructor
+	 */
+	public QueryMessage() {
+		this(UUID.randomUUID());
+	}
+	
+	/**
+	 * Constructor for an existing {@link QueryMessage},
+	 * e.g. when decoding it.
+	 * 
+	 * @param id		the unique ID of the message
+	 */
+	QueryMessage(UUID id) {
+		this.id = id;
+	}
 
 	/* (non-Javadoc)
 	 * @see ch.bfh.ti.ostes2.gossip.Message#getId()
@@ -58,15 +108,15 @@ public class QueryMessage implements Serializable, Message {
 	 * @see ch.bfh.ti.ostes2.gossip.Message#getTimestamp()
 	 */
 	@Override
-	public int[] getTimestamp() {
+	public VectorClock getTimestamp() {
 		return timestamp;
 	}
 
 	/* (non-Javadoc)
-	 * @see ch.bfh.ti.ostes2.gossip.Message#setTimestamp(int[])
+	 * @see ch.bfh.ti.ostes2.gossip.Message#setTimestamp(ch.bfh.ti.ostes2.gossip.VectorClock)
 	 */
 	@Override
-	public void setTimestamp(int[] timestamp) {
+	public void setTimestamp(VectorClock timestamp) {
 		this.timestamp = timestamp;
 	}
 
@@ -87,4 +137,145 @@ public class QueryMessage implements Serializable, Message {
 	public void setFrontendId(int frontendId) {
 		this.frontendId = frontendId;
 	}
+
+	/**
+	 * Returns the ID of the query this
+	 * {@link QueryMessage} answers.
+	 * 
+	 * @return		the ID of the query or null
+	 * 				if this is no answer
+	 */
+	public UUID getRequestId() {
+		return requestId;
+	}
+
+	/**
+	 * Sets the ID of the query this
+	 * {@link QueryMessage} answers.
+	 * 
+	 * @param requestId	the ID of the query
+	 */
+	public void setRequestId(UUID requestId) {
+		this.requestId = requestId;
+	}
+
+	/**
+	 * Returns the kind of this {@link QueryMessage}.
+	 * 
+	 * @return		the kind
+	 */
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * Sets the kind of this {@link QueryMessage}.
+	 * 
+	 * @param kind	the kind
+	 */
+	public void setKind(Kind kind) {
+		this.kind = kind;
+	}
+
+	/**
+	 * Returns the ID of the message
+	 * asked for by a BY_ID query.
+	 * 
+	 * @return		the ID of the message
+	 */
+	public UUID getTargetId() {
+		return targetId;
+	}
+
+	/**
+	 * Sets the ID of the message
+	 * asked for by a BY_ID query.
+	 * 
+	 * @param targetId	the ID of the message
+	 */
+	public void setTargetId(UUID targetId) {
+		this.targetId = targetId;
+	}
+
+	/**
+	 * Returns the ID of the user whose
+	 * messages a BY_USER query asks for.
+	 * 
+	 * @return		the ID of the user
+	 */
+	public int getUserId() {
+		return userId;
+	}
+
+	/**
+	 * Sets the ID of the user whose
+	 * messages a BY_USER query asks for.
+	 * 
+	 * @param userId	the ID of the user
+	 */
+	public void setUserId(int userId) {
+		this.userId = userId;
+	}
+
+	/**
+	 * Returns the text a SEARCH or
+	 * PREFIX query searches for.
+	 * 
+	 * @return		the text
+	 */
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * Sets the text a SEARCH or
+	 * PREFIX query searches for.
+	 * 
+	 * @param text	the text
+	 */
+	public void setText(String text) {
+		this.text = text;
+	}
+
+	/**
+	 * Returns the maximal number of messages
+	 * a BY_USER, LATEST or search query asks for.
+	 * 
+	 * @return		the maximal number of messages
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Sets the maximal number of messages
+	 * a BY_USER, LATEST or search query asks for.
+	 * 
+	 * @param limit		the maximal number of
+	 * 					messages, at most MAX_LIMIT
+	 */
+	public void setLimit(int limit) {
+		this.limit = limit;
+	}
+
+	/**
+	 * Returns the messages found
+	 * for the answered query.
+	 * 
+	 * @return		the messages, newest first, or
+	 * 				null for a TIMESTAMP query
+	 */
+	public ArrayList<ActionMessage> getResults() {
+		return results;
+	}
+
+	/**
+	 * Sets the messages found
+	 * for the answered query.
+	 * 
+	 * @param results	the messages, newest first
+	 */
+	public void setResults(ArrayList<ActionMessage> results) {
+		this.results = results;
+	}
 }
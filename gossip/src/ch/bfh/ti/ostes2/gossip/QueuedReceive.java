@@ -0,0 +1,196 @@
+/*
+ * QueuedReceive.java
+ * 
+ * 1.0
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A receive of a {@link Communicator} which delivers
+ * its messages into a queue per sending process and
+ * tag, e.g. the {@link LoopbackCommunicator} or the
+ * {@link SocketCommunicator}. The receive completes
+ * as soon as a message is in its queue.
+ * 
+ * The messages in the queues are packed using pack():
+ * BYTE buffers are copied and OBJECT buffers are
+ * serialized, so sending and receiving processes
+ * never share any objects.
+ * 
+ * @author sosterwalder
+ *
+ */
+class QueuedReceive implements Communicator.Request {
+	private Queue<byte[]>					queue		= null;
+	private Object							buffer		= null;
+	private int								offset		= 0;
+	private int								count		= 0;
+	private Communicator.Datatype			datatype	= null;
+	private boolean							completed	= false;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param queue			the queue to receive from
+	 * @param buffer		the buffer to receive into
+	 * @param offset		the offset within the buffer
+	 * @param count			the maximal number of elements
+	 * @param datatype		the type of the buffer
+	 */
+	QueuedReceive(Queue<byte[]> queue, Object buffer, int offset, int count, Communicator.Datatype datatype) {
+		this.queue = queue;
+		this.buffer = buffer;
+		this.offset = offset;
+		this.count = count;
+		this.datatype = datatype;
+	}
+
+	/**
+	 * Packs the given elements of the
+	 * given buffer for sending.
+	 * 
+	 * @param buffer		the buffer to send
+	 * @param offset		the offset within the buffer
+	 * @param count			the number of elements to send
+	 * @param datatype		the type of the buffer
+	 * @return				the packed elements
+	 */
+	static byte[] pack(Object buffer, int offset, int count, Communicator.Datatype datatype) {
+		if (datatype == Communicator.Datatype.BYTE) {
+			return Arrays.copyOfRange((byte[]) buffer, offset, offset + count);
+		}
+
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			ObjectOutputStream out = new ObjectOutputStream(bytes);
+			out.writeObject(Arrays.copyOfRange((Object[]) buffer, offset, offset + count));
+			out.close();
+			return bytes.toByteArray();
+		}
+		catch (IOException ex) {
+			throw new IllegalArgumentException("Could not serialize buffer", ex);
+		}
+	}
+
+	/**
+	 * Makes progress on the communication before
+	 * the queue gets checked, e.g. by reading from
+	 * the network. Does nothing by default.
+	 */
+	protected void progress() {
+	}
+
+	/* (non-Javadoc)
+	 * @see ch.bfh.ti.ostes2.gossip.Communicator.Request#Test()
+	 */
+	@Override
+	public boolean Test() {
+		if (completed) {
+			return true;
+		}
+
+		this.progress();
+		return this.testQueue();
+	}
+
+	/* (non-Javadoc)
+	 * @see ch.bfh.ti.ostes2.gossip.Communicator.Request#Wait()
+	 */
+	@Override
+	public void Wait() {
+		while (!this.Test()) {
+			LockSupport.parkNanos(Backoff.MIN_PARK_NANOS);
+		}
+	}
+
+	/**
+	 * Checks the queue without making progress
+	 * on the communication and unpacks the next
+	 * message into the buffer, if there is one.
+	 * 
+	 * @return		true if the receive completed,
+	 * 				otherwise false
+	 */
+	boolean testQueue() {
+		if (completed) {
+			return true;
+		}
+
+		byte[] packed = queue.poll();
+		if (packed == null) {
+			return false;
+		}
+
+		Object received = packed;
+		if (datatype == Communicator.Datatype.OBJECT) {
+			received = unpack(packed);
+		}
+
+		int length = Array.getLength(received);
+		if (length > count) {
+			throw new IllegalStateException(
+				String.format(
+					"Message of %d elements truncated, receive buffer holds %d", length, count
+				)
+			);
+		}
+		System.arraycopy(received, 0, buffer, offset, length);
+
+		completed = true;
+		return true;
+	}
+
+	/**
+	 * Deserializes the given packed objects.
+	 * 
+	 * @param packed		the serialized objects
+	 * @return				the objects
+	 */
+	private static Object[] unpack(byte[] packed) {
+		try {
+			ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(packed));
+			return (Object[]) in.readObject();
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Could not deserialize buffer", ex);
+		}
+		catch (ClassNotFoundException ex) {
+			throw new IllegalStateException("Could not deserialize buffer", ex);
+		}
+	}
+}
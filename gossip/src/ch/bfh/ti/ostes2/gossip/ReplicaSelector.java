@@ -0,0 +1,311 @@
+/*
+ * ReplicaSelector.java
+ * 
+ * 1.1
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.util.Random;
+
+/**
+ * Picks the {@link ReplicationManager} a {@link Frontend}
+ * sends its next request to.
+ * 
+ * For every replication manager the selector keeps a moving
+ * average of the latency of its answers, the number of its
+ * outstanding requests and the last valueTS it advertised
+ * by answering a query, whose own component is advanced by
+ * the answers to updates as well. A request can be answered
+ * immediately by the replication managers whose advertised
+ * valueTS is not behind the time stamp of the request. Only
+ * the replication managers which are the least behind are
+ * taken into account, i.e. the ones which can answer
+ * immediately if there are any. Among them, a replication
+ * manager is picked according to the policy:
+ * 
+ * 	RANDOM			- any of them, uniformly
+ * 	LEAST_LATENCY	- the one with the lowest expected latency,
+ * 					  i.e. the average latency weighted by the
+ * 					  number of outstanding requests
+ * 	POWER_OF_TWO	- the one with the lower expected latency
+ * 					  of two picked randomly, which spreads the
+ * 					  load better than always taking the best
+ * 
+ * Replication managers without any answer yet are expected to
+ * be fast, so each of them gets tried. With session affinity
+ * (sticky), the replication manager picked last is kept as
+ * long as it is among them, so a client reads its own
+ * writes without waiting.
+ * 
+ * A selector is used by a single thread only.
+ * 
+ * @author sosterwalder
+ *
+ */
+public class ReplicaSelector {
+	/**
+	 * The policies for picking a
+	 * {@link ReplicationManager}.
+	 */
+	public enum Policy {
+		RANDOM, LEAST_LATENCY, POWER_OF_TWO
+	}
+
+	// Weight of a new sample within the moving average of the latency
+	public static final double		LATENCY_WEIGHT		= 0.2d;
+
+	private Policy					policy				= Policy.POWER_OF_TWO;
+	private boolean					sticky				= false;
+	private Random					random				= null;
+	private double[]				latencies			= null; // Average in nanoseconds, 0 if unknown
+	private int[]					outstanding			= null;
+	private VectorClock[]			timestamps			= null; // Last advertised valueTS
+	private int[]					candidates			= null;
+	private int						last				= -1;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param replicaManagers	the number of replication managers,
+	 * 							they are referred to by their index
+	 * @param policy			the policy for picking one
+	 * @param sticky			true to keep the replication manager
+	 * 							picked last, if possible
+	 * @param random			the random numbers to use
+	 */
+	public ReplicaSelector(int replicaManagers, Policy policy, boolean sticky, Random random) {
+		this.policy = policy;
+		this.sticky = sticky;
+		this.random = random;
+		latencies = new double[replicaManagers];
+		outstanding = new int[replicaManagers];
+		timestamps = new VectorClock[replicaManagers];
+		for (int i = 0; i < replicaManagers; i++) {
+			timestamps[i] = new VectorClock(replicaManagers);
+		}
+		candidates = new int[replicaManagers];
+	}
+
+	/**
+	 * Picks the {@link ReplicationManager} for a request
+	 * with the given time stamp.
+	 * 
+	 * @param timestamp		the time stamp of the request, null
+	 * 						if any replication manager can
+	 * 						answer it immediately
+	 * @return				the index of the replication manager
+	 */
+	public int select(VectorClock timestamp) {
+		last = this.select(timestamp, -1);
+		return last;
+	}
+
+	/**
+	 * Picks a {@link ReplicationManager} other than the given
+	 * one for a request with the given time stamp, e.g. for
+	 * hedging a request. The replication manager picked last
+	 * is neither kept nor changed.
+	 * 
+	 * @param timestamp		the time stamp of the request, null
+	 * 						if any replication manager can
+	 * 						answer it immediately
+	 * @param excluded		the index of the replication manager
+	 * 						not to pick, -1 for none
+	 * @return				the index of the replication manager,
+	 * 						-1 if there is no other one
+	 */
+	public int select(VectorClock timestamp, int excluded) {
+		int count = 0;
+		long minLag = Long.MAX_VALUE;
+		for (int i = 0; i < timestamps.length; i++) {
+			if (i == excluded) {
+				continue;
+			}
+			long lag = timestamp == null ? 0 : this.getLag(i, timestamp);
+			if (lag < minLag) {
+				minLag = lag;
+				count = 0;
+			}
+			if (lag == minLag) {
+				candidates[count++] = i;
+			}
+		}
+		if (count == 0) {
+			return -1;
+		}
+
+		if (sticky && excluded < 0 && last >= 0) {
+			for (int i = 0; i < count; i++) {
+				if (candidates[i] == last) {
+					return last;
+				}
+			}
+		}
+
+		int selected = 0;
+		switch (policy) {
+		case LEAST_LATENCY:
+			// Start at a random candidate, so
+			// ties do not always go to the first
+			int offset = random.nextInt(count);
+			selected = candidates[offset];
+			for (int i = 1; i < count; i++) {
+				int candidate = candidates[(offset + i) % count];
+				if (this.getExpectedLatency(candidate) < this.getExpectedLatency(selected)) {
+					selected = candidate;
+				}
+			}
+			break;
+
+		case POWER_OF_TWO:
+			int first = candidates[random.nextInt(count)];
+			int second = candidates[random.nextInt(count)];
+			selected = this.getExpectedLatency(second) < this.getExpectedLatency(first) ? second : first;
+			break;
+
+		default:
+			selected = candidates[random.nextInt(count)];
+			break;
+		}
+		return selected;
+	}
+
+	/**
+	 * Tells that a request got sent to the
+	 * given {@link ReplicationManager}.
+	 * 
+	 * @param index		the index of the replication manager
+	 */
+	public void sent(int index) {
+		outstanding[index]++;
+	}
+
+	/**
+	 * Tells that a request got answered by the
+	 * given {@link ReplicationManager}.
+	 * 
+	 * @param index			the index of the replication manager
+	 * @param latencyNanos	the time from sending the request
+	 * 						to receiving its answer
+	 */
+	public void answered(int index, long latencyNanos) {
+		outstanding[index] = Math.max(0, outstanding[index] - 1);
+		if (latencies[index] == 0) {
+			latencies[index] = Math.max(1, latencyNanos);
+		}
+		else {
+			latencies[index] += LATENCY_WEIGHT * (latencyNanos - latencies[index]);
+		}
+	}
+
+	/**
+	 * Tells that the answer to a request sent to the given
+	 * {@link ReplicationManager} is not needed anymore,
+	 * e.g. as another one answered it first.
+	 * 
+	 * @param index		the index of the replication manager
+	 */
+	public void cancelled(int index) {
+		outstanding[index] = Math.max(0, outstanding[index] - 1);
+	}
+
+	/**
+	 * Tells the valueTS the given {@link ReplicationManager}
+	 * advertised by answering a query.
+	 * 
+	 * @param index			the index of the replication manager
+	 * @param timestamp		the advertised valueTS
+	 */
+	public void advertised(int index, VectorClock timestamp) {
+		timestamps[index].merge(timestamp);
+	}
+
+	/**
+	 * Tells the time stamp the given {@link ReplicationManager}
+	 * assigned to an update. Its own component is reached
+	 * by its valueTS as soon as it applied the update.
+	 * 
+	 * @param index			the index of the replication manager
+	 * @param timestamp		the time stamp of the update
+	 */
+	public void acknowledged(int index, VectorClock timestamp) {
+		timestamps[index].set(index, Math.max(timestamps[index].get(index), timestamp.get(index)));
+	}
+
+	/**
+	 * Returns the average latency of the answers
+	 * of the given {@link ReplicationManager}.
+	 * 
+	 * @param index		the index of the replication manager
+	 * @return			the latency in nanoseconds, 0
+	 * 					if there was no answer yet
+	 */
+	public long getLatency(int index) {
+		return (long) latencies[index];
+	}
+
+	/**
+	 * Returns the number of outstanding requests
+	 * of the given {@link ReplicationManager}.
+	 * 
+	 * @param index		the index of the replication manager
+	 * @return			the number of requests
+	 */
+	public int getOutstanding(int index) {
+		return outstanding[index];
+	}
+
+	/**
+	 * Returns how many updates the given {@link ReplicationManager}
+	 * is behind the given time stamp, as far as known.
+	 * 
+	 * @param index			the index of the replication manager
+	 * @param timestamp		the time stamp of the request
+	 * @return				the number of missing updates,
+	 * 						0 if it can answer immediately
+	 */
+	private long getLag(int index, VectorClock timestamp) {
+		long lag = 0;
+		for (int i = 0; i < timestamp.size(); i++) {
+			lag += Math.max(0, timestamp.get(i) - timestamps[index].get(i));
+		}
+		return lag;
+	}
+
+	/**
+	 * Returns the latency expected for a new request
+	 * to the given {@link ReplicationManager}, as it
+	 * queues behind the outstanding ones.
+	 * 
+	 * @param index		the index of the replication manager
+	 * @return			the expected latency in nanoseconds
+	 */
+	private double getExpectedLatency(int index) {
+		return latencies[index] * (outstanding[index] + 1);
+	}
+}
@@ -1,9 +1,9 @@
 /*
  * ReplicationManager.java
  * 
- * 3.5
+ * 3.27
  * 
- * 2014-01-22
+ * 2026-10-18
  *
  * The MIT License (MIT)
 * 
@@ -30,17 +30,21 @@
 
 package ch.bfh.ti.ostes2.gossip;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
-import p2pmpi.mpi.MPI;
-import p2pmpi.mpi.IntraComm;
-import p2pmpi.mpi.Request;
 import p2pmpi.p2p.message.UpdateMessage;
 
 import org.apache.log4j.ConsoleAppender;
@@ -62,39 +66,103 @@ import org.apache.log4j.SimpleLayout;
  *
  */
 public class ReplicationManager {
+	// Time after which a requested state transfer
+	// without any arrived chunk is given up
+	public static final long			STATE_TIMEOUT		= 10000000000L;
+	// Time between two publications of
+	// the metrics in nanoseconds
+	public static final long			METRICS_INTERVAL	= 10000000L;
 	
 	private Logger 						logger 				= null;	
-	private IntraComm 					comm 				= null;
+	private Communicator				comm 				= null;
 	private int							size 				= 0;
 	private int 						rank 				= 0;
-	private int[] 						replicaTimestamp 	= null; // Also known as replicaTS
-	private int[] 						messageTimestamp 	= null; // Also known as valueTS 
+	private VectorClock					replicaTimestamp 	= null; // Also known as replicaTS
+	private VectorClock					messageTimestamp 	= null; // Also known as valueTS 
+	private VectorClock[]				timestampTable		= null; // Last known replicaTS of every RM
+	private VectorClock					discardedTimestamp	= null; // Updates up to here got cleaned
+	private VectorClock					minimalTimestamp	= null; // Scratch space for cleaning
 	private int[] 						neighbourIds 		= null;
 	private int[] 						frontendIds			= null;
-	private GossipMessage[] 			gossipBuffer 		= null;
-	private Request[]					gossipRequests 		= null;
-	private ActionMessage[]				updateBuffer 		= null;
-	private Request[]					updateRequests 		= null;
-	private QueryMessage[]				queryBuffer 		= null;
-	private Request[]					queryRequests		= null;
+	private Wire						wire				= null;
+	private Mailbox[]					gossipMailboxes		= null;
+	private Mailbox[]					updateMailboxes		= null;
+	private Mailbox[]					queryMailboxes		= null;
+	private Mailbox[]					mailboxes			= null; // All of the above
+	private Communicator.Request[]		requests			= null; // Receives of the above
+	private Communicator.Request[]		rotatedRequests		= null; // The above from nextMailbox on
+	private int							nextMailbox			= 0; // Tested first by processMessages()
 	private ArrayList<ActionMessage>	executedCalls 		= null;
 	private ArrayList<LogRecord>		updateLog 			= null;
-	private Map<UUID, ActionMessage>	messages 			= null;
-	private LinkedList<QueryMessage>	pendingQueries		= null;
+	private MessageIdSet				executedIds			= null; // Index over executedCalls
+	private MessageIdSet				scheduledIds		= null; // Index over updateLog
+	private MessageIdSet				cleanedIds			= null; // Executed updates cleaned from updateLog
+	private ValueStore					messages 			= null;
+	private QueryCache					queryCache			= null; // Results at the current valueTS
+	private HoldBackQueue<QueryMessage>	pendingQueries		= null; // Queries waiting for the valueTS
+	private HoldBackQueue<LogRecord>	pendingUpdates		= null; // Updates waiting for the valueTS
+	private WriteAheadLog				wal					= null; // Optional
+	private ArrayList<Message>			unsyncedAnswers		= null; // Answers waiting for a sync of the WAL
+	private ArrayList<Integer>			unsyncedFrontends	= null; // Receivers of the above
+	private ExecutorService				snapshotWriter		= null; // Writes snapshots in the background
+	private Snapshot					snapshot			= null; // The snapshot being written
+	private Future<Long>					snapshotWritten		= null; // Its size when written
+	private Mailbox[]					stateMailboxes		= null;
+	private int							stateThreshold		= 0; // Lag in updates, 0 disables transfers
+	private int							stateChunkSize		= 1000; // Messages and records per chunk
+	private int							stateWindow			= 4; // Chunks being sent at once
+	private ArrayDeque<Integer>			stateRequests		= null; // RMs waiting for a transfer
+	private StateTransfer				outgoingState		= null; // The transfer being sent
+	private ValueStore					outgoingStore		= null; // The store frozen for it
+	private ArrayDeque<Communicator.Request>	stateSends		= null; // Its chunks being sent
+	private int							stateSource			= -1; // RM a transfer is requested from
+	private ArrayList<StateMessage>		incomingState		= null; // The chunks received from it
+	private long						stateNanos			= 0; // When the last of them arrived
+	private EventTracer					tracer				= EventTracer.DISABLED;
+	private Metrics						metrics				= null;
+	private Metrics.Counter				updatesReceived		= null;
+	private Metrics.Counter				batchesReceived		= null;
+	private Metrics.Counter				updatesApplied		= null;
+	private Metrics.Counter				gossipSent			= null;
+	private Metrics.Counter				gossipReceived		= null;
+	private Metrics.Counter				gossipBytesSent		= null;
+	private Metrics.Value				gossipBytesReceived	= null;
+	private Metrics.Counter				recordsMerged		= null;
+	private Metrics.Counter				queriesReceived		= null;
+	private Metrics.Counter				queryCacheHits		= null;
+	private Metrics.Counter				queryCacheMisses	= null;
+	private Metrics.Value				queryCacheSize		= null;
+	private Metrics.Value				updateLogSize		= null;
+	private Metrics.Value				executedSize		= null;
+	private Metrics.Value				valuesSize			= null;
+	private Metrics.Value				valuesTerms			= null;
+	private Metrics.Value				updatesPending		= null;
+	private Metrics.Value				queriesPending		= null;
+	private Metrics.Value				valueLag			= null;
+	private Metrics.Value[]				peerLags			= null; // By index of the neighbour
+	private Metrics.Value[]				peerGossipAges		= null; // By index of the neighbour
+	private Metrics.Histogram			queryWait			= null; // In nanoseconds
+	private HashMap<UUID, Long>			queryArrivals		= null; // Arrival of the queued queries
+	private long[]						gossipArrivals		= null; // Arrival of the last gossip of every RM
+	private long						metricsNanos		= 0; // When the metrics were published
 	
 	/**
 	 * Constructor
+	 * 
+	 * @param comm		the communicator of the process
 	 */
-	public ReplicationManager() {
-		this.setupLogger();
-		
-		comm = MPI.COMM_WORLD;
+	public ReplicationManager(Communicator comm) {
+		this.comm = comm;
 		size = comm.Size();
 		rank = comm.Rank();
+		this.setupLogger();
+		
+		wire = new Wire(comm);
 		frontendIds = new int[1];
 		this.initializeNeighbours();
 		this.initializeFrontends();
 		this.initializeBuffers();
+		this.initializeMetrics();
 		
 		logger.info(
 			String.format(
@@ -118,51 +186,414 @@ public class ReplicationManager {
 		);
 	}
 	
+	/**
+	 * Sets the codec used for communicating with
+	 * other {@link ReplicationManager}s and {@link Frontend}s.
+	 * 
+	 * @param codec				the codec to use
+	 * @param maxMessageSize	the maximal size of an encoded message
+	 */
+	public void setCodec(Wire.Codec codec, int maxMessageSize) {
+		wire.setCodec(codec, maxMessageSize);
+		logger.info(
+			String.format(
+				"RM %d: Set codec to %s", rank, codec.toString()
+			)
+		);
+	}
+	
+	/**
+	 * Returns the {@link Metrics} of this
+	 * {@link ReplicationManager}.
+	 * 
+	 * @return			the metrics
+	 */
+	public Metrics getMetrics() {
+		return metrics;
+	}
+	
+	/**
+	 * Sets the {@link EventTracer} which records
+	 * the protocol events of this {@link ReplicationManager}.
+	 * 
+	 * @param tracer		the tracer to use
+	 */
+	public void setEventTracer(EventTracer tracer) {
+		this.tracer = tracer;
+	}
+	
+	/**
+	 * Configures the transfers of the whole state which
+	 * bootstrap a {@link ReplicationManager} that joined late
+	 * or fell far behind, instead of gossiping every update
+	 * to it on its own.
+	 * 
+	 * @param threshold		the number of updates a neighbor
+	 * 						has to be ahead for requesting
+	 * 						its state, 0 disables transfers
+	 * @param chunkSize		the maximal number of messages and
+	 * 						records sent within one chunk
+	 * @param window		the maximal number of chunks being
+	 * 						sent at once
+	 */
+	public void setStateTransfer(int threshold, int chunkSize, int window) {
+		stateThreshold = threshold;
+		stateChunkSize = chunkSize;
+		stateWindow = Math.max(1, window);
+		logger.info(
+			String.format(
+				"RM %d: Set state transfer threshold to %d updates, chunk size to %d, window to %d", rank, threshold, chunkSize, stateWindow
+			)
+		);
+	}
+	
+	/**
+	 * Sets the number of queries whose results are
+	 * cached between two applied updates.
+	 * 
+	 * @param size			the number of queries,
+	 * 						0 disables the cache
+	 */
+	public void setQueryCacheSize(int size) {
+		queryCache = new QueryCache(Math.max(0, size));
+		logger.info(
+			String.format(
+				"RM %d: Set query cache size to %d", rank, size
+			)
+		);
+	}
+	
+	/**
+	 * Rebuilds the update-log, the executed calls, the
+	 * messages and the time stamps from the newest
+	 * {@link Snapshot} and the given {@link WriteAheadLog}
+	 * and writes everything which happens from now on
+	 * to the log.
+	 * 
+	 * Only the segments of the log not covered by the
+	 * snapshot get replayed. Applied updates get applied
+	 * again in the order of the log, updates which were
+	 * not applied yet wait until they get stable as usual.
+	 * Answers to updates are held back until their records
+	 * are synced to the disk.
+	 * 
+	 * @param wal			the write-ahead log to use
+	 * @return				the number of replayed entries
+	 * @throws IOException
+	 */
+	public long recover(WriteAheadLog wal) throws IOException {
+		long startNanos = System.nanoTime();
+		final Map<UUID, LogRecord> unappliedRecords = new HashMap<UUID, LogRecord>();
+		
+		Snapshot latest = Snapshot.readLatest(wal.getDirectory());
+		if (latest != null) {
+			this.restore(latest, unappliedRecords);
+		}
+		
+		// Nothing gets written to the
+		// log while replaying it
+		long entries = wal.recover(
+			new WriteAheadLog.Replay() {
+				@Override
+				public void record(LogRecord record) {
+					UUID id = record.getMessage().getId();
+					if (!isScheduled(id) && !hasBeenExecuted(id)) {
+						updateLog.add(record);
+						scheduledIds.add(id);
+						unappliedRecords.put(id, record);
+					}
+					replicaTimestamp.merge(record.getTimestamp());
+				}
+				
+				@Override
+				public void apply(UUID messageId) {
+					LogRecord record = unappliedRecords.remove(messageId);
+					if (record != null) {
+						applyMessage(record);
+					}
+				}
+				
+				@Override
+				public void replicaTimestamp(VectorClock timestamp) {
+					replicaTimestamp.merge(timestamp);
+				}
+			},
+			latest == null ? 0 : latest.getSegment()
+		);
+		this.wal = wal;
+		
+		for (LogRecord record : unappliedRecords.values()) {
+			this.pendingUpdates.add(record, this.messageTimestamp);
+		}
+		this.applyStableUpdates();
+		
+		logger.info(
+			String.format(
+				"RM %d: Recovered %d messages from snapshot and %d entries from log in %d ms. Update-log: %d, executed: %d, replicaTS: %s, valueTS: %s", rank, latest == null ? 0 : latest.getMessages().size(), entries, (System.nanoTime() - startNanos) / 1000000, this.updateLog.size(), this.executedCalls.size(), this.replicaTimestamp, this.messageTimestamp
+			)
+		);
+		return entries;
+	}
+	
+	/**
+	 * Restores the state from the given {@link Snapshot}.
+	 * 
+	 * @param snapshot			the snapshot to restore
+	 * @param unappliedRecords	receives the records of
+	 * 							the update-log which are
+	 * 							not executed yet
+	 */
+	private void restore(Snapshot snapshot, Map<UUID, LogRecord> unappliedRecords) {
+		for (ActionMessage msg : snapshot.getMessages()) {
+			this.messages.put(msg);
+		}
+		
+		LogRecord[] records = snapshot.getRecords();
+		for (int i = 0; i < records.length; i++) {
+			UUID id = records[i].getMessage().getId();
+			this.updateLog.add(records[i]);
+			this.scheduledIds.add(id);
+			if (snapshot.getExecuted()[i]) {
+				this.executedCalls.add((ActionMessage) records[i].getMessage());
+				this.executedIds.add(id);
+			}
+			else {
+				unappliedRecords.put(id, records[i]);
+			}
+		}
+		
+		long[] cleaned = snapshot.getCleanedIds();
+		for (int i = 0; i < cleaned.length; i += 2) {
+			this.cleanedIds.add(cleaned[i], cleaned[i + 1]);
+		}
+		
+		this.messageTimestamp.set(snapshot.getValueTimestamp());
+		this.replicaTimestamp.set(snapshot.getReplicaTimestamp());
+		this.discardedTimestamp.set(snapshot.getDiscardedTimestamp());
+	}
+	
+	/**
+	 * Takes a {@link Snapshot} of the messages, the
+	 * update-log and the time stamps and writes it in
+	 * the background, unless the {@link WriteAheadLog}
+	 * is disabled or a snapshot is still being written.
+	 * 
+	 * The log continues with a new segment, the ones
+	 * before are covered by the snapshot and get deleted
+	 * as soon as it is written. The messages are not
+	 * copied, the value store is frozen instead. Only
+	 * the update-log, which gets cleaned regularly,
+	 * is copied.
+	 * 
+	 * @return			true if a snapshot was taken,
+	 * 					otherwise false
+	 */
+	public boolean takeSnapshot() {
+		// The value store may be frozen
+		// for a state transfer as well
+		if (wal == null || snapshot != null || this.messages.isFrozen()) {
+			return false;
+		}
+		
+		// Everything the snapshot covers has to be
+		// within the segments before the new one
+		this.syncLog();
+		int segment = wal.startSegment();
+		snapshot = this.freezeState(segment);
+		
+		if (snapshotWriter == null) {
+			snapshotWriter = Executors.newSingleThreadExecutor(
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, String.format("rm-%d-snapshot", rank));
+						thread.setDaemon(true);
+						return thread;
+					}
+				}
+			);
+		}
+		final Snapshot written = snapshot;
+		final File directory = wal.getDirectory();
+		snapshotWritten = snapshotWriter.submit(
+			new Callable<Long>() {
+				@Override
+				public Long call() throws IOException {
+					return written.writeTo(directory);
+				}
+			}
+		);
+		
+		logger.info(
+			String.format(
+				"RM %d: Taking snapshot of %d messages and %d records up to segment %d.", rank, snapshot.getMessages().size(), snapshot.getRecords().length, segment
+			)
+		);
+		return true;
+	}
+	
+	/**
+	 * Freezes the value store and takes a {@link Snapshot}
+	 * of the messages, the update-log and the time stamps.
+	 * Only the update-log gets copied.
+	 * 
+	 * @param segment	the first segment of the {@link WriteAheadLog}
+	 * 					not covered by the snapshot
+	 * @return			the snapshot
+	 */
+	private Snapshot freezeState(int segment) {
+		LogRecord[] records = this.updateLog.toArray(new LogRecord[this.updateLog.size()]);
+		boolean[] executed = new boolean[records.length];
+		for (int i = 0; i < records.length; i++) {
+			executed[i] = hasBeenExecuted(records[i].getMessage().getId());
+		}
+		return new Snapshot(
+			segment,
+			this.messageTimestamp.copy(),
+			this.replicaTimestamp.copy(),
+			this.discardedTimestamp.copy(),
+			this.messages.freeze().values(),
+			records,
+			executed,
+			this.cleanedIds.toArray()
+		);
+	}
+	
+	/**
+	 * Finishes the {@link Snapshot} being written, if it is
+	 * written by now: the value store gets thawed and the
+	 * segments of the {@link WriteAheadLog} covered by the
+	 * snapshot get deleted.
+	 * 
+	 * @param wait		true for waiting until the
+	 * 					snapshot is written
+	 */
+	private void finishSnapshot(boolean wait) {
+		if (snapshot == null || (!wait && !snapshotWritten.isDone())) {
+			return;
+		}
+		
+		try {
+			long size = snapshotWritten.get();
+			int deleted = wal.truncate(snapshot.getSegment());
+			logger.info(
+				String.format(
+					"RM %d: Wrote snapshot of %d bytes, deleted %d segments of the log.", rank, size, deleted
+				)
+			);
+		}
+		catch (ExecutionException ex) {
+			// The log stays complete, the
+			// next snapshot may succeed
+			logger.error(
+				String.format(
+					"RM %d: Could not write snapshot: %s", rank, ex.getCause()
+				)
+			);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			this.messages.thaw();
+			snapshot = null;
+			snapshotWritten = null;
+		}
+	}
+	
+	/**
+	 * Syncs the {@link WriteAheadLog} (if there is one)
+	 * and sends the answers to updates which waited
+	 * for their records to be synced.
+	 */
+	public void syncLog() {
+		if (wal == null) {
+			return;
+		}
+		
+		wal.sync();
+		for (int i = 0; i < this.unsyncedAnswers.size(); i++) {
+			wire.send(this.unsyncedAnswers.get(i), this.unsyncedFrontends.get(i), Utils.UPDATE_TAG);
+		}
+		this.unsyncedAnswers.clear();
+		this.unsyncedFrontends.clear();
+	}
+	
+	/**
+	 * Syncs and closes the {@link WriteAheadLog}
+	 * (if there is one).
+	 */
+	public void closeLog() {
+		if (wal == null) {
+			return;
+		}
+		
+		this.finishSnapshot(true);
+		if (snapshotWriter != null) {
+			snapshotWriter.shutdown();
+		}
+		this.syncLog();
+		wal.close();
+		logger.info(
+			String.format(
+				"RM %d: Closed write-ahead log. Appended %d entries using %d syncs.", rank, wal.getAppended(), wal.getSyncs()
+			)
+		);
+	}
+	
 	/**
 	 * Listens to all available {@link ReplicationManager} neighbors
 	 * for gossip messages using the GOSSIP-tag from {@link Utils}.
 	 */
 	public void listenToGossip() {
+		if (gossipMailboxes == null) {
+			gossipMailboxes = this.openMailboxes(neighbourIds, Utils.GOSSIP_TAG);
+		}
+		
 		for (int neighbour = 0; neighbour < neighbourIds.length; neighbour++) {
-			// If there's no message yet for
-			// current neighbor
-			if (gossipRequests[neighbour] == null) {
-				// Set up new buffer for reception
-				gossipRequests[neighbour] = comm.Irecv(gossipBuffer, 0, 1, MPI.OBJECT, neighbourIds[neighbour], Utils.GOSSIP_TAG);
-				logger.trace(
-					String.format(
-						"RM %d: Listening to RM %d", rank, neighbourIds[neighbour]
-					)
-				);
+			GossipMessage msg = (GossipMessage) gossipMailboxes[neighbour].poll();
+			// There seems to be a gossip message from current
+			// neighbor
+			if (msg != null) {
+				receiveGossip(neighbour, msg);
 			}
 			else {
-				// There seems to be a gossip message from current
-				// neighbor
-				if (gossipRequests[neighbour].Test() != null) {
-					logger.info(
-						String.format(
-							"RM %d: Got gossip from RM %d", rank, neighbourIds[neighbour]
-						)
-					);
-					
-					// Process the gossip message
-					processGossip(neighbour);
-					
-					// Reinitialize communication
-					gossipRequests[neighbour] = comm.Irecv(gossipBuffer, 0, 1, MPI.OBJECT, neighbourIds[neighbour], Utils.GOSSIP_TAG);
-				}
-				else {
+				if (logger.isTraceEnabled()) {
 					logger.trace(
 						String.format(
 							"RM %d: Still listening to RM %d", rank, neighbourIds[neighbour]
 						)
 					);
 				}
-				
 			}
 		}
 	}
 
+	/**
+	 * Handles a gossip message which arrived
+	 * from the given neighbor.
+	 * 
+	 * @param neighbour		the neighbor which the
+	 * 						gossip message is
+	 * 						received from
+	 * @param msg			the received gossip message
+	 */
+	private void receiveGossip(int neighbour, GossipMessage msg) {
+		tracer.record(EventTracer.Event.GOSSIP_RECEIVED, neighbourIds[neighbour], msg.getId(), msg.getLogRecords() == null ? 0 : msg.getLogRecords().size());
+		gossipReceived.increment();
+		gossipArrivals[neighbourIds[neighbour]] = System.nanoTime();
+		if (logger.isInfoEnabled()) {
+			logger.info(
+				String.format(
+					"RM %d: Got gossip from RM %d", rank, neighbourIds[neighbour]
+				)
+			);
+		}
+		
+		// Process the gossip message
+		processGossip(neighbour, msg);
+	}
+
 	/**
 	 * Processes the received gossip message from
 	 * given neighbor.
@@ -172,75 +603,374 @@ public class ReplicationManager {
 	 * log when they are not already scheduled or
 	 * even executed.
 	 * 
-	 * Applies the stable updates and (would) clean
-	 * the update log (this is not implemented yet).
+	 * Remembers the replica time stamp of the
+	 * neighbor, applies the stable updates and
+	 * cleans the update log.
 	 * 
 	 * @param neighbour		the neighbor which the
 	 * 						gossip message is
 	 * 						received from
+	 * @param gossip		the received gossip message
 	 */
-	private void processGossip(int neighbour) {
+	void processGossip(int neighbour, GossipMessage gossip) {
+		// Far behind the neighbor, get its whole state
+		// instead of applying its updates one by one
+		long lag = getLag(this.replicaTimestamp, gossip.getTimestamp());
+		if (this.stateThreshold > 0 && lag >= this.stateThreshold) {
+			this.requestState(neighbour, lag);
+		}
+		
 		boolean updatesHaveBeenMerged = false;
-		for (int i = 0; i < gossipBuffer[0].getLogRecords().size(); i++) {
-			LogRecord msg = gossipBuffer[0].getLogRecords().get(i);
+		for (int i = 0; i < gossip.getLogRecords().size(); i++) {
+			LogRecord msg = gossip.getLogRecords().get(i);
+			// Skip updates which are known to all RMs
+			// and therefore got cleaned already
+			if (msg.getTimestamp().isSmallerOrEqualThan(this.discardedTimestamp)) {
+				continue;
+			}
 			//Check if already in log or executed
 			if (!isScheduled(msg.getMessage().getId()) && !hasBeenExecuted(msg.getMessage().getId())) {
 				this.updateLog.add(msg);
-				updatesHaveBeenMerged = true;
+				this.scheduledIds.add(msg.getMessage().getId());
+				if (this.wal != null) {
+					this.wal.appendRecord(msg);
+				}
+				updatesHaveBeenMerged |= this.pendingUpdates.add(msg, this.messageTimestamp);
+				recordsMerged.increment();
 				
-				logger.debug(
-					String.format(
-						"RM %d: Added Message %s to update-log", rank, msg.getMessage().getId()
-					)
-				);
+				if (logger.isDebugEnabled()) {
+					logger.debug(
+						String.format(
+							"RM %d: Added Message %s to update-log", rank, msg.getMessage().getId()
+						)
+					);
+				}
 			}
 		}
 		
+		// Remember the replicaTS of the neighbor
+		if (this.timestampTable[neighbourIds[neighbour]] == null) {
+			this.timestampTable[neighbourIds[neighbour]] = gossip.getTimestamp().copy();
+		}
+		else {
+			this.timestampTable[neighbourIds[neighbour]].set(gossip.getTimestamp());
+		}
+		
 		// Merge time stamps
-		this.replicaTimestamp = Utils.mergeTimestamps(this.replicaTimestamp, gossipBuffer[0].getTimestamp());
-		logger.debug(
-			String.format(
-				"RM %d: Merged time stamp from RM %d. ReplicaTS: %s", rank, neighbourIds[neighbour], Arrays.toString(this.replicaTimestamp)
-			)
-		);
+		if (this.replicaTimestamp.merge(gossip.getTimestamp()) && this.wal != null) {
+			this.wal.appendReplicaTimestamp(this.replicaTimestamp);
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug(
+				String.format(
+					"RM %d: Merged time stamp from RM %d. ReplicaTS: %s", rank, neighbourIds[neighbour], this.replicaTimestamp
+				)
+			);
+		}
 		
 		if (updatesHaveBeenMerged) {
-			// Process 'stable' updates
+			// Process updates which got 'stable'
 			this.applyStableUpdates();
-			
-			// Clean log
-			this.cleanUpdateLog();
 		}
+		
+		// Clean log, the time stamp table
+		// changed in any case
+		this.cleanUpdateLog();
 	}
 
+	/**
+	 * Returns how many updates the given time stamp
+	 * is behind the other given time stamp, summed
+	 * up over all components.
+	 * 
+	 * @param timestamp		the time stamp which is behind
+	 * @param ahead			the time stamp which is ahead
+	 * @return				the number of updates missing
+	 */
+	private static long getLag(VectorClock timestamp, VectorClock ahead) {
+		long lag = 0;
+		for (int i = 0; i < ahead.size(); i++) {
+			lag += Math.max(0, ahead.get(i) - timestamp.get(i));
+		}
+		return lag;
+	}
+	
+	/**
+	 * Requests the whole state from the given neighbor,
+	 * unless a transfer is requested already. A request
+	 * without any arrived chunk for STATE_TIMEOUT is
+	 * given up, so another one can be sent.
+	 * 
+	 * @param neighbour		the neighbor to request
+	 * 						the state from
+	 * @param lag			the number of updates the
+	 * 						neighbor is ahead
+	 */
+	private void requestState(int neighbour, long lag) {
+		if (this.stateSource >= 0 && System.nanoTime() - this.stateNanos < STATE_TIMEOUT) {
+			return;
+		}
+		if (this.stateSource >= 0) {
+			logger.warn(
+				String.format(
+					"RM %d: Gave up state transfer from RM %d after %d chunks.", rank, this.stateSource, this.incomingState.size()
+				)
+			);
+		}
+		
+		this.stateSource = neighbourIds[neighbour];
+		this.stateNanos = System.nanoTime();
+		this.incomingState.clear();
+		
+		StateMessage msg = new StateMessage();
+		msg.setKind(StateMessage.Kind.REQUEST);
+		msg.setTimestamp(this.replicaTimestamp.copy());
+		wire.send(msg, this.stateSource, Utils.STATE_TAG);
+		tracer.record(EventTracer.Event.STATE_REQUESTED, this.stateSource, msg.getId(), (int) Math.min(Integer.MAX_VALUE, lag));
+		logger.info(
+			String.format(
+				"RM %d: Requesting state from RM %d. ReplicaTS: %s", rank, this.stateSource, this.replicaTimestamp
+			)
+		);
+	}
+	
+	/**
+	 * Handles a state message which arrived from the
+	 * given neighbor: requests are queued until the
+	 * state can be sent, chunks are collected until
+	 * the last one arrives and the state gets installed.
+	 * 
+	 * @param neighbour		the neighbor which the
+	 * 						state message is
+	 * 						received from
+	 * @param msg			the received state message
+	 */
+	private void receiveState(int neighbour, StateMessage msg) {
+		int source = neighbourIds[neighbour];
+		if (msg.getKind() == StateMessage.Kind.REQUEST) {
+			boolean sending = this.outgoingState != null && this.outgoingState.getDestination() == source;
+			if (!sending && !this.stateRequests.contains(source)) {
+				this.stateRequests.add(source);
+			}
+			logger.info(
+				String.format(
+					"RM %d: Got state request from RM %d. Its replicaTS: %s", rank, source, msg.getTimestamp()
+				)
+			);
+			return;
+		}
+		
+		// Chunks arrive in order, anything else
+		// belongs to a transfer given up already
+		if (source != this.stateSource || msg.getSequence() != this.incomingState.size()) {
+			logger.warn(
+				String.format(
+					"RM %d: Dropped unexpected state chunk %d from RM %d.", rank, msg.getSequence(), source
+				)
+			);
+			return;
+		}
+		this.incomingState.add(msg);
+		this.stateNanos = System.nanoTime();
+		
+		if (msg.isLast()) {
+			Snapshot state = StateTransfer.assemble(this.incomingState);
+			this.stateSource = -1;
+			this.incomingState.clear();
+			this.installState(source, state);
+		}
+	}
+	
+	/**
+	 * Continues sending the state to the {@link ReplicationManager}s
+	 * which requested it, one after another. The value store
+	 * stays frozen during a transfer. At most the configured
+	 * window of chunks is being sent at once, so a transfer
+	 * is as fast as the link allows without holding up the
+	 * usual work of this {@link ReplicationManager}.
+	 * 
+	 * @return		the number of sent chunks
+	 */
+	private int continueStateTransfer() {
+		while (!this.stateSends.isEmpty() && this.stateSends.peek().Test()) {
+			this.stateSends.poll();
+		}
+		
+		if (this.outgoingState == null) {
+			// Wait for a snapshot being written
+			if (this.stateRequests.isEmpty() || this.messages.isFrozen()) {
+				return 0;
+			}
+			this.outgoingStore = this.messages;
+			this.outgoingState = new StateTransfer(this.freezeState(0), this.stateRequests.poll(), this.stateChunkSize);
+			logger.info(
+				String.format(
+					"RM %d: Sending state of %d messages and %d records to RM %d. ValueTS: %s", rank, this.outgoingState.getSnapshot().getMessages().size(), this.outgoingState.getSnapshot().getRecords().length, this.outgoingState.getDestination(), this.outgoingState.getSnapshot().getValueTimestamp()
+				)
+			);
+		}
+		
+		int sent = 0;
+		while (sent < this.stateWindow && this.stateSends.size() < this.stateWindow && this.outgoingState.hasNext()) {
+			this.stateSends.add(wire.send(this.outgoingState.nextChunk(), this.outgoingState.getDestination(), Utils.STATE_TAG));
+			sent++;
+		}
+		
+		if (!this.outgoingState.hasNext()) {
+			// The chunks hold their messages
+			// from now on, the store may change
+			this.outgoingStore.thaw();
+			tracer.record(EventTracer.Event.STATE_SENT, this.outgoingState.getDestination(), null, this.outgoingState.getChunks());
+			logger.info(
+				String.format(
+					"RM %d: Sent state to RM %d in %d chunks.", rank, this.outgoingState.getDestination(), this.outgoingState.getChunks()
+				)
+			);
+			this.outgoingStore = null;
+			this.outgoingState = null;
+		}
+		return sent;
+	}
+	
+	/**
+	 * Installs the state transferred from the given
+	 * {@link ReplicationManager}, replacing the messages,
+	 * the update-log, the executed calls and the valueTS.
+	 * 
+	 * Own records which are not covered by the transferred
+	 * state are kept and applied again as soon as they
+	 * get stable. With a {@link WriteAheadLog}, a
+	 * {@link Snapshot} of the installed state is taken
+	 * right away, the log does not cover it otherwise.
+	 * 
+	 * @param source		the rank of the sending
+	 * 						{@link ReplicationManager}
+	 * @param state			the transferred state
+	 */
+	private void installState(int source, Snapshot state) {
+		long startNanos = System.nanoTime();
+		this.finishSnapshot(true);
+		
+		ArrayList<LogRecord> ownRecords = this.updateLog;
+		VectorClock ownReplicaTimestamp = this.replicaTimestamp.copy();
+		this.messages = new ValueStore();
+		this.queryCache.invalidate();
+		this.executedCalls = new ArrayList<ActionMessage>();
+		this.updateLog = new ArrayList<LogRecord>();
+		this.executedIds = new MessageIdSet();
+		this.scheduledIds = new MessageIdSet();
+		this.pendingUpdates = this.createPendingUpdates();
+		
+		Map<UUID, LogRecord> unappliedRecords = new HashMap<UUID, LogRecord>();
+		this.restore(state, unappliedRecords);
+		this.replicaTimestamp.merge(ownReplicaTimestamp);
+		
+		int kept = 0;
+		for (LogRecord record : ownRecords) {
+			UUID id = record.getMessage().getId();
+			if (record.getTimestamp().isSmallerOrEqualThan(this.discardedTimestamp) || isScheduled(id) || hasBeenExecuted(id)) {
+				continue;
+			}
+			this.updateLog.add(record);
+			this.scheduledIds.add(id);
+			unappliedRecords.put(id, record);
+			kept++;
+		}
+		
+		for (LogRecord record : unappliedRecords.values()) {
+			this.pendingUpdates.add(record, this.messageTimestamp);
+		}
+		this.applyStableUpdates();
+		this.pendingQueries.release(this.messageTimestamp);
+		
+		if (this.wal != null) {
+			this.wal.appendReplicaTimestamp(this.replicaTimestamp);
+			this.takeSnapshot();
+		}
+		tracer.record(EventTracer.Event.STATE_INSTALLED, source, null, state.getMessages().size());
+		
+		logger.info(
+			String.format(
+				"RM %d: Installed state of %d messages and %d records from RM %d in %d ms, kept %d own records. ValueTS: %s", rank, state.getMessages().size(), state.getRecords().length, source, (System.nanoTime() - startNanos) / 1000000, kept, this.messageTimestamp
+			)
+		);
+	}
+	
 	/**
 	 * Sends gossip messages to other, adjacent
 	 * {@link ReplicationManager}s.
 	 * 
 	 * This principally tells them which messages 
 	 * the current {@link ReplicationManager} knows
-	 * and has in its buffer so that they can be shared. 
+	 * and has in its buffer so that they can be shared.
+	 * 
+	 * Each neighbor gets only the records which
+	 * it is missing according to its last replicaTS
+	 * known from the time stamp table.
 	 */
 	public void sendGossip() {		
 		// Increase own replicaTS
-		replicaTimestamp[this.rank] += 1;
+		replicaTimestamp.increment(this.rank);
 		
-		// Set up message
-		GossipMessage[] msg = new GossipMessage[1];
-		msg[0] = new GossipMessage();
-		msg[0].setTimestamp(this.replicaTimestamp);
-		msg[0].setLogRecords(this.updateLog);
+		// Own records must not be known to other
+		// RMs before they survive a restart, the
+		// replicaTS would go back otherwise
+		if (this.wal != null) {
+			this.wal.appendReplicaTimestamp(this.replicaTimestamp);
+			this.syncLog();
+		}
 		
 		// Spread to all neighbors
 		for (int neighbour = 0; neighbour < neighbourIds.length; neighbour++) {
-			comm.Isend(msg, 0, msg.length, MPI.OBJECT, neighbourIds[neighbour], Utils.GOSSIP_TAG);
-			logger.info(
-				String.format(
-					"RM %d: Sending gossip to RM %d. ReplicaTS: %s", rank, neighbourIds[neighbour], Arrays.toString(replicaTimestamp)
-				)
-			);
+			// Set up message
+			GossipMessage msg = new GossipMessage();
+			msg.setTimestamp(this.replicaTimestamp.copy());
+			msg.setLogRecords(this.getMissingRecords(neighbourIds[neighbour]));
+			
+			long bytesSent = wire.getBytesSent();
+			wire.send(msg, neighbourIds[neighbour], Utils.GOSSIP_TAG);
+			tracer.record(EventTracer.Event.GOSSIP_SENT, neighbourIds[neighbour], msg.getId(), msg.getLogRecords().size());
+			gossipSent.increment();
+			gossipBytesSent.add(wire.getBytesSent() - bytesSent);
+			if (logger.isInfoEnabled()) {
+				logger.info(
+					String.format(
+						"RM %d: Sending gossip to RM %d. Records: %d of %d. ReplicaTS: %s", rank, neighbourIds[neighbour], msg.getLogRecords().size(), this.updateLog.size(), replicaTimestamp
+					)
+				);
+			}
+		}
+		
+	}
+	
+	/**
+	 * Returns the records of the update-log
+	 * the given {@link ReplicationManager} does
+	 * not hold yet. These are the records whose
+	 * time stamp is not smaller or equal than
+	 * the last replicaTS it sent.
+	 * 
+	 * @param replicationManagerId	the id of the receiving
+	 * 								{@link ReplicationManager}
+	 * @return						the missing records
+	 */
+	private ArrayList<LogRecord> getMissingRecords(int replicationManagerId) {
+		VectorClock acknowledgedTimestamp = this.timestampTable[replicationManagerId];
+		
+		// Nothing known about the neighbor yet,
+		// so it gets everything
+		if (acknowledgedTimestamp == null) {
+			return new ArrayList<LogRecord>(this.updateLog);
+		}
+		
+		ArrayList<LogRecord> missingRecords = new ArrayList<LogRecord>();
+		for (LogRecord record : this.updateLog) {
+			if (!record.getTimestamp().isSmallerOrEqualThan(acknowledgedTimestamp)) {
+				missingRecords.add(record);
+			}
 		}
 		
+		return missingRecords;
 	}
 	
 	/**
@@ -249,53 +979,64 @@ public class ReplicationManager {
 	 * the UPATE-tag from {@link Utils}.
 	 */
 	public void listenToUpdates() {
+		if (updateMailboxes == null) {
+			updateMailboxes = this.openMailboxes(frontendIds, Utils.UPDATE_TAG);
+		}
+		
 		for (int frontendId = 0; frontendId < frontendIds.length; frontendId++) {
-			// If there's update from 
-			// current front end yet
-			if (updateRequests[frontendId] == null) {
-				// Set up new buffer for reception
-				updateRequests[frontendId] = comm.Irecv(updateBuffer, 0, 1, MPI.OBJECT, frontendIds[frontendId], Utils.UPDATE_TAG);
-				logger.trace(
-					String.format(
-						"RM %d: Listening to FE %d", rank, frontendIds[frontendId]
-					)
-				);
+			Message msg = updateMailboxes[frontendId].poll();
+			// There seems to be an update or a batch
+			// of them from the current front end
+			if (msg instanceof BatchMessage) {
+				receiveBatch(frontendId, (BatchMessage) msg);
+			}
+			else if (msg != null) {
+				receiveUpdate(frontendId, (ActionMessage) msg);
 			}
 			else {
-				// There seems to be an update from the current front end
-				if (updateRequests[frontendId].Test() != null) {
-					logger.info(
-						String.format(
-							"RM %d: Got update from FE %d. Message-ID: %s.", rank, frontendIds[frontendId], updateBuffer[0].getId()
-						)
-					);
-					
-					// Try to perform the update
-					int[] ts = tryPerformUpdate(updateBuffer[0]);
-					if (ts != null) {
-						// If it is possible to perform the
-						// update perform it actually
-						performUpdate(frontendId, ts);
-					}
-					else {
-						logger.debug(
-							String.format(
-								"RM %d: Update from FE %d already performed. Doing nothing.", rank, frontendIds[frontendId]
-							)
-						);
-					}
-					
-					// Re-initialize listening to updates
-					updateRequests[frontendId] = comm.Irecv(updateBuffer, 0, 1, MPI.OBJECT, frontendIds[frontendId], Utils.UPDATE_TAG);
-				}
-				else {
+				if (logger.isTraceEnabled()) {
 					logger.trace(
 						String.format(
 							"RM %d: Still listening to FE %d", rank, frontendIds[frontendId]
 						)
 					);
 				}
-				
+			}
+		}
+	}
+
+	/**
+	 * Handles an update message which arrived
+	 * from the given {@link Frontend}.
+	 * 
+	 * @param frontendId		the id of the sender {@link Frontend}
+	 * @param msg				the received update
+	 */
+	private void receiveUpdate(int frontendId, ActionMessage msg) {
+		tracer.record(EventTracer.Event.UPDATE_RECEIVED, frontendIds[frontendId], msg.getId(), 0);
+		updatesReceived.increment();
+		if (logger.isInfoEnabled()) {
+			logger.info(
+				String.format(
+					"RM %d: Got update from FE %d. Message-ID: %s.", rank, frontendIds[frontendId], msg.getId()
+				)
+			);
+		}
+		
+		// Try to perform the update
+		VectorClock ts = tryPerformUpdate(msg);
+		if (ts != null) {
+			// If it is possible to perform the
+			// update perform it actually
+			performUpdate(frontendId, ts, msg);
+		}
+		else {
+			if (logger.isDebugEnabled()) {
+				logger.debug(
+					String.format(
+						"RM %d: Update from FE %d already performed. Doing nothing.", rank, frontendIds[frontendId]
+					)
+				);
 			}
 		}
 	}
@@ -306,99 +1047,287 @@ public class ReplicationManager {
 	 * 
 	 * @param frontendId		the id of the sender {@link Frontend}
 	 * @param timeStamp			the merged time stamp
+	 * @param update			the received update
 	 */
-	private void performUpdate(int frontendId, int[] timeStamp) {
+	private void performUpdate(int frontendId, VectorClock timeStamp, ActionMessage update) {
 		// Set up message and inform front end
 		// about the performing of the update
-		ActionMessage[] msg = new ActionMessage[1];
-		msg[0] = new ActionMessage();
-		msg[0].setTimestamp(timeStamp);
-		comm.Isend(msg, 0, msg.length, MPI.OBJECT, frontendIds[frontendId], Utils.UPDATE_TAG);
+		// The answer waits for the next sync
+		// of the write-ahead log, if there is one
+		ActionMessage msg = new ActionMessage();
+		msg.setTimestamp(timeStamp);
+		msg.setRequestId(update.getId());
+		this.sendUpdateAnswer(frontendId, msg);
+		tracer.record(EventTracer.Event.UPDATE_ANSWERED, frontendIds[frontendId], update.getId(), timeStamp.get(this.rank));
 		
-		logger.info(
-			String.format(
-				"RM %d: Got update, informed FE %d: %s", rank, frontendIds[frontendId], Arrays.toString(msg[0].getTimestamp())
-			)
-		);
+		if (logger.isInfoEnabled()) {
+			logger.info(
+				String.format(
+					"RM %d: Got update, informed FE %d: %s", rank, frontendIds[frontendId], msg.getTimestamp()
+				)
+			);
+		}
 		
-		// Check if the update is executable right now
-		if (Utils.isSmallerOrEqualThan(updateBuffer[0].getTimestamp(), this.messageTimestamp)) {
-			// Only perform the update if it
-			// hasn't already been performed
-			if (!hasBeenExecuted(updateBuffer[0].getId())) {
-				this.applyMessage(updateBuffer[0]);
-			}
-			else {
-				logger.trace(
+		// Check if the update is executable right now,
+		// it got held back by tryPerformUpdate otherwise
+		if (update.getTimestamp().isSmallerOrEqualThan(this.messageTimestamp)) {
+			this.applyStableUpdates();
+		}
+		else {
+			if (logger.isDebugEnabled()) {
+				logger.debug(
 					String.format(
-						"RM %d: Update already executed. Message-ID: %s.", rank, updateBuffer[0].getId()
+						"RM %d: Can't execute update: u.prev > valueTS. Message-ID: %s.", rank, update.getId()
 					)
 				);
 			}
 		}
-		else {
-			logger.debug(
+	}
+	
+	/**
+	 * Handles a batch of update messages which
+	 * arrived from the given {@link Frontend}.
+	 * 
+	 * The updates get consecutive time stamps in the
+	 * order of the batch, their records are appended to
+	 * the write-ahead log as a single entry and their
+	 * answers are sent back as a single {@link BatchMessage}.
+	 * Updates which were performed already get no answer,
+	 * just like single ones.
+	 * 
+	 * @param frontendId		the id of the sender {@link Frontend}
+	 * @param batch				the received batch
+	 */
+	private void receiveBatch(int frontendId, BatchMessage batch) {
+		batchesReceived.increment();
+		ArrayList<ActionMessage> updates = batch.getMessages();
+		if (logger.isInfoEnabled()) {
+			logger.info(
+				String.format(
+					"RM %d: Got batch of %d updates from FE %d. Message-ID: %s.", rank, updates.size(), frontendIds[frontendId], batch.getId()
+				)
+			);
+		}
+		
+		ArrayList<LogRecord> records = new ArrayList<LogRecord>(updates.size());
+		ArrayList<ActionMessage> answers = new ArrayList<ActionMessage>(updates.size());
+		VectorClock mergedTimestamp = new VectorClock(this.replicaTimestamp.size());
+		boolean executable = false;
+		for (ActionMessage update : updates) {
+			tracer.record(EventTracer.Event.UPDATE_RECEIVED, frontendIds[frontendId], update.getId(), 0);
+			updatesReceived.increment();
+			
+			LogRecord record = this.scheduleUpdate(update);
+			if (record == null) {
+				if (logger.isDebugEnabled()) {
+					logger.debug(
+						String.format(
+							"RM %d: Update %s from FE %d already performed. Doing nothing.", rank, update.getId(), frontendIds[frontendId]
+						)
+					);
+				}
+				continue;
+			}
+			records.add(record);
+			
+			ActionMessage answer = new ActionMessage();
+			answer.setTimestamp(record.getTimestamp());
+			answer.setRequestId(update.getId());
+			answers.add(answer);
+			mergedTimestamp.merge(record.getTimestamp());
+			tracer.record(EventTracer.Event.UPDATE_ANSWERED, frontendIds[frontendId], update.getId(), record.getTimestamp().get(this.rank));
+			
+			// Held back updates wait for the valueTS anyway
+			executable |= update.getTimestamp().isSmallerOrEqualThan(this.messageTimestamp);
+		}
+		if (records.isEmpty()) {
+			return;
+		}
+		
+		if (this.wal != null) {
+			this.wal.appendRecords(records);
+		}
+		BatchMessage msg = new BatchMessage();
+		msg.setTimestamp(mergedTimestamp);
+		msg.setMessages(answers);
+		this.sendUpdateAnswer(frontendId, msg);
+		
+		if (logger.isInfoEnabled()) {
+			logger.info(
+				String.format(
+					"RM %d: Got batch, informed FE %d about %d updates: %s", rank, frontendIds[frontendId], answers.size(), mergedTimestamp
+				)
+			);
+		}
+		
+		if (executable) {
+			this.applyStableUpdates();
+		}
+	}
+	
+	/**
+	 * Sends the given answer to an update or to a batch
+	 * of updates to the given {@link Frontend}. The answer
+	 * waits for the next sync of the write-ahead log, if
+	 * there is one.
+	 * 
+	 * @param frontendId		the id of the receiving {@link Frontend}
+	 * @param answer			the answer
+	 */
+	private void sendUpdateAnswer(int frontendId, Message answer) {
+		if (this.wal != null) {
+			this.unsyncedAnswers.add(answer);
+			this.unsyncedFrontends.add(frontendIds[frontendId]);
+		}
+		else {
+			wire.send(answer, frontendIds[frontendId], Utils.UPDATE_TAG);
+		}
+	}
+	
+	/**
+	 * Listens to all available {@link Frontend}s for
+	 * possible query messages using
+	 * the QUERY-tag from {@link Utils}.
+	 */
+	public void listenToQueries() {
+		if (queryMailboxes == null) {
+			queryMailboxes = this.openMailboxes(frontendIds, Utils.QUERY_TAG);
+		}
+		
+		for (int frontendId = 0; frontendId < frontendIds.length; frontendId++) {
+			QueryMessage msg = (QueryMessage) queryMailboxes[frontendId].poll();
+			// There seems to be a query from the current
+			// front end
+			if (msg != null) {
+				receiveQuery(frontendId, msg);
+			}
+			else {
+				if (logger.isTraceEnabled()) {
+					logger.trace(
+						String.format(
+							"RM %d: Still listening to FE %d", rank, frontendIds[frontendId]
+						)
+					);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Handles a query message which arrived
+	 * from the given {@link Frontend}.
+	 * 
+	 * @param frontendId		the id of the sender {@link Frontend}
+	 * @param msg				the received query
+	 */
+	private void receiveQuery(int frontendId, QueryMessage msg) {
+		tracer.record(EventTracer.Event.QUERY_RECEIVED, frontendIds[frontendId], msg.getId(), 0);
+		queriesReceived.increment();
+		if (logger.isInfoEnabled()) {
+			logger.info(
 				String.format(
-					"RM %d: Can't execute update: u.prev > valueTS. Message-ID: %s.", rank, updateBuffer[0].getId()
+					"RM %d: Got query from FE %d. Message-ID: %s.", rank, frontendIds[frontendId], msg.getId()
 				)
 			);
 		}
+		
+		// Process the query
+		processQuery(msg);
 	}
 	
 	/**
-	 * Listens to all available {@link Frontend}s for
-	 * possible query messages using
-	 * the QUERY-tag from {@link Utils}.
+	 * Processes all messages which arrived from
+	 * {@link ReplicationManager} neighbors and {@link Frontend}s,
+	 * followed by the queries which got executable and
+	 * the next chunks of a state transfer.
+	 * 
+	 * Instead of testing the receive of every
+	 * {@link Mailbox} on its own, all posted receives
+	 * are tested at once using Testany(),
+	 * so a call without any arrived message costs
+	 * a single test.
+	 * 
+	 * Testany() returns the first completed receive,
+	 * so the receives are tested round-robin, starting
+	 * after the mailbox served last. Thus a busy mailbox,
+	 * e.g. of gossip or updates, cannot starve the ones
+	 * after it, e.g. of queries. At most as many messages
+	 * as there are mailboxes are processed per call, so
+	 * the caller gets back in time for sending gossip.
+	 * 
+	 * @return		the number of processed messages and
+	 * 				sent chunks, 0 if nothing happened
 	 */
-	public void listenToQueries() {
-		for (int frontendId = 0; frontendId < frontendIds.length; frontendId++) {
-			// If there's no query for
-			// current front end yet
-			if (queryRequests[frontendId] == null) {
-				// Set up new buffer for reception
-				queryRequests[frontendId] = comm.Irecv(queryBuffer, 0, 1, MPI.OBJECT, frontendIds[frontendId], Utils.QUERY_TAG);
-				logger.trace(
-					String.format(
-						"RM %d: Listening to FE %d", rank, frontendIds[frontendId]
-					)
-				);
+	public int processMessages() {
+		if (mailboxes == null) {
+			this.openAllMailboxes();
+		}
+		
+		int processed = 0;
+		int index = -1;
+		while (processed < mailboxes.length && (index = this.testMailboxes()) >= 0) {
+			Message msg = mailboxes[index].receive();
+			requests[index] = mailboxes[index].getRequest();
+			nextMailbox = (index + 1) % mailboxes.length;
+			processed++;
+			
+			// The mailboxes are ordered by gossip,
+			// updates, queries and states
+			if (index < gossipMailboxes.length) {
+				receiveGossip(index, (GossipMessage) msg);
+				continue;
 			}
-			else {
-				// There seems to be a query from the current
-				// front end
-				if (queryRequests[frontendId].Test() != null) {
-					logger.info(
-						String.format(
-							"RM %d: Got query from FE %d. Message-ID: %s.", rank, frontendIds[frontendId], queryBuffer[0].getId()
-						)
-					);
-					
-					// Process the query
-					processQuery(queryBuffer[0]);
-
-					// Re-initialize listening to query messages
-					queryRequests[frontendId] = comm.Irecv(queryBuffer, 0, 1, MPI.OBJECT, frontendIds[frontendId], Utils.QUERY_TAG);
+			index -= gossipMailboxes.length;
+			if (index < updateMailboxes.length) {
+				if (msg instanceof BatchMessage) {
+					receiveBatch(index, (BatchMessage) msg);
 				}
 				else {
-					logger.trace(
-						String.format(
-							"RM %d: Still listening to FE %d", rank, frontendIds[frontendId]
-						)
-					);
+					receiveUpdate(index, (ActionMessage) msg);
 				}
-				
+				continue;
+			}
+			index -= updateMailboxes.length;
+			if (index < queryMailboxes.length) {
+				receiveQuery(index, (QueryMessage) msg);
+				continue;
 			}
+			index -= queryMailboxes.length;
+			receiveState(index, (StateMessage) msg);
 		}
+		
+		this.processQueuedQueries();
+		processed += this.continueStateTransfer();
+		
+		// Group commit of everything written
+		// to the write-ahead log so far
+		if (this.wal != null && this.wal.isSyncDue(System.nanoTime())) {
+			this.syncLog();
+		}
+		this.finishSnapshot(false);
+		return processed;
 	}
 	
 	/**
 	 * Processes queued queries
 	 * (if there are any) as soon
 	 * as they get executable.
+	 * 
+	 * Only queries released by a change of
+	 * the valueTS are touched, queries which
+	 * still wait are not looked at.
 	 */
 	public void processQueuedQueries() {
-		for (QueryMessage msg : this.pendingQueries) {
-			processQuery(msg);
+		QueryMessage msg = null;
+		while ((msg = this.pendingQueries.poll()) != null) {
+			this.executeQuery(msg);
+			if (logger.isDebugEnabled()) {
+				logger.debug(
+					String.format(
+						"RM %d: Removed query %s from queue.", rank, msg.getId()
+					)
+				);
+			}
 		}
 	}
 	
@@ -410,11 +1339,13 @@ public class ReplicationManager {
 	public void printExecutedMessages() {
 
 		for (ActionMessage msg : this.executedCalls) {
-			logger.debug(
-				String.format(
-					"RM %d - executed messages:	TS: %s; UUID: %s", rank, Arrays.toString(msg.getTimestamp()), msg.getId()
-				)
-			);		
+			if (logger.isDebugEnabled()) {
+				logger.debug(
+					String.format(
+						"RM %d - executed messages:	TS: %s; UUID: %s", rank, msg.getTimestamp(), msg.getId()
+					)
+				);		
+			}
 		}
 	}
 
@@ -423,59 +1354,110 @@ public class ReplicationManager {
 	 * 
 	 * The query message gets then executed when
 	 * the time stamp of the query-message is smaller
-	 * or equal than the current own time stamp. 
+	 * or equal than the current own time stamp,
+	 * otherwise it gets queued until the valueTS
+	 * has caught up.
 	 * 
 	 * @param msg		the query-message to execute
 	 */
 	private void processQuery(QueryMessage msg) {
 		// Execute query only if the current own time stamp
 		// is smaller or equal than the messages time stamp
-		if (Utils.isSmallerOrEqualThan(msg.getTimestamp(), this.messageTimestamp)) {
-			// TODO: Execute query
-			
-			// Inform FE about execution
-			QueryMessage[] answer = new QueryMessage[1];
-			answer[0] = new QueryMessage();
-			answer[0].setTimestamp(this.messageTimestamp);
-			comm.Isend(answer, 0, answer.length, MPI.OBJECT, msg.getFrontendId(), Utils.QUERY_TAG);
-			
-			logger.info(
-				String.format(
-					"RM %d: Made query, informed FE %d: %s", rank, msg.getFrontendId(), Arrays.toString(answer[0].getTimestamp())
-				)
-			);
-			
-			// Remove query from pending queries (if
-			// it was pending)
-			int msgIndex = this.pendingQueries.indexOf(msg); 
-			if (msgIndex > -1 ) {
-				this.pendingQueries.remove(msgIndex);
-				logger.debug(
-					String.format(
-						"RM %d: Removed query %s from queue.", rank, msg.getId()
-					)
-				);
-			}
+		if (msg.getTimestamp().isSmallerOrEqualThan(this.messageTimestamp)) {
+			this.executeQuery(msg);
 		}
 		else {
 			// Query not ready yet, queue it
-			// if not already queued
-			if (this.pendingQueries.indexOf(msg) == -1 ) {
-				this.pendingQueries.add(msg);
-				
+			this.pendingQueries.add(msg, this.messageTimestamp);
+			this.queryArrivals.put(msg.getId(), System.nanoTime());
+			tracer.record(EventTracer.Event.QUERY_QUEUED, msg.getFrontendId(), msg.getId(), this.pendingQueries.getWaiting());
+			
+			if (logger.isInfoEnabled()) {
 				logger.info(
 					String.format(
 						"RM %d: Not ready for query %s yet. Queued.", rank, msg.getId()
 					)
 				);
 			}
+		}
+	}
+	
+	/**
+	 * Executes the given query message
+	 * and informs the FE about it.
+	 * 
+	 * @param msg		the query-message to execute
+	 */
+	private void executeQuery(QueryMessage msg) {
+		// Repeated queries between two updates
+		// get the same results from the cache
+		ArrayList<ActionMessage> results = null;
+		if (msg.getKind() != QueryMessage.Kind.TIMESTAMP) {
+			results = this.queryCache.get(msg);
+			if (results != null) {
+				queryCacheHits.increment();
+			}
 			else {
-				logger.trace(
-					String.format(
-						"RM %d: Still not ready for query %s yet. Waiting.", rank, msg.getId()
-					)
-				);
+				results = this.findMessages(msg);
+				this.queryCache.put(msg, results);
+				queryCacheMisses.increment();
+			}
+		}
+		
+		// Inform FE about execution
+		QueryMessage answer = new QueryMessage();
+		answer.setTimestamp(this.messageTimestamp.copy());
+		answer.setRequestId(msg.getId());
+		answer.setKind(msg.getKind());
+		answer.setTargetId(msg.getTargetId());
+		answer.setUserId(msg.getUserId());
+		answer.setText(msg.getText());
+		answer.setLimit(msg.getLimit());
+		answer.setResults(results);
+		wire.send(answer, msg.getFrontendId(), Utils.QUERY_TAG);
+		tracer.record(EventTracer.Event.QUERY_EXECUTED, msg.getFrontendId(), msg.getId(), results == null ? 0 : results.size());
+		Long arrival = this.queryArrivals.remove(msg.getId());
+		queryWait.record(arrival == null ? 0 : System.nanoTime() - arrival);
+		
+		if (logger.isInfoEnabled()) {
+			logger.info(
+				String.format(
+					"RM %d: Made query, informed FE %d: %s", rank, msg.getFrontendId(), answer.getTimestamp()
+				)
+			);
+		}
+	}
+	
+	/**
+	 * Finds the messages the given query asks
+	 * for using the indexes of the value store.
+	 * 
+	 * @param msg		the query-message
+	 * @return			the messages, newest first
+	 */
+	private ArrayList<ActionMessage> findMessages(QueryMessage msg) {
+		int limit = Math.min(msg.getLimit(), QueryMessage.MAX_LIMIT);
+		switch (msg.getKind()) {
+		case BY_ID:
+			ArrayList<ActionMessage> results = new ArrayList<ActionMessage>(1);
+			ActionMessage found = this.messages.get(msg.getTargetId());
+			if (found != null) {
+				results.add(found);
 			}
+			return results;
+		
+		case BY_USER:
+			return this.messages.getLatestOfUser(msg.getUserId(), limit);
+		
+		case LATEST:
+			return this.messages.getLatest(limit);
+		
+		case SEARCH:
+		case PREFIX:
+			return this.messages.search(msg.getText(), msg.getKind() == QueryMessage.Kind.PREFIX, limit);
+		
+		default:
+			return new ArrayList<ActionMessage>(0);
 		}
 	}
 	
@@ -488,7 +1470,9 @@ public class ReplicationManager {
 		SimpleLayout layout = new SimpleLayout();
 	    ConsoleAppender consoleAppender = new ConsoleAppender( layout );
 		
-	    logger = LogManager.getLogger(ReplicationManager.class.getName());
+	    // One logger per RM, several of them
+	    // may run within the same JVM
+	    logger = LogManager.getLogger(ReplicationManager.class.getName() + "." + rank);
 		logger.addAppender(consoleAppender);
 	    logger.setLevel(Level.INFO);
 	}
@@ -507,7 +1491,7 @@ public class ReplicationManager {
 		neighbourIds = new int[(size / 2) - 1];
 		for (int i = 0; i < neighbourIds.length; i++) {
 			if (i >= rank) {
-				neighbourIds[i] = rank + 1;
+				neighbourIds[i] = i + 1;
 			}
 			else {
 				neighbourIds[i] = i;
@@ -553,41 +1537,222 @@ public class ReplicationManager {
 	 * Initializes all the needed buffers.
 	 */
 	private void initializeBuffers() {
-		replicaTimestamp = new int[size /2];
-		messageTimestamp = new int[size / 2];
-		gossipRequests = new Request[neighbourIds.length];
-		gossipBuffer = new GossipMessage[neighbourIds.length];
-		updateRequests = new Request[frontendIds.length];
-		updateBuffer = new ActionMessage[frontendIds.length];
-		queryRequests = new Request[frontendIds.length];
-		queryBuffer = new QueryMessage[frontendIds.length];
+		replicaTimestamp = new VectorClock(size / 2);
+		messageTimestamp = new VectorClock(size / 2);
+		timestampTable = new VectorClock[size / 2];
+		discardedTimestamp = new VectorClock(size / 2);
+		minimalTimestamp = new VectorClock(size / 2);
 		executedCalls = new ArrayList<ActionMessage>();
 		updateLog = new ArrayList<LogRecord>();
-		messages = new HashMap<UUID, ActionMessage>();
-		pendingQueries = new LinkedList<QueryMessage>();
+		executedIds = new MessageIdSet();
+		scheduledIds = new MessageIdSet();
+		cleanedIds = new MessageIdSet();
+		messages = new ValueStore();
+		queryCache = new QueryCache(0);
+		unsyncedAnswers = new ArrayList<Message>();
+		unsyncedFrontends = new ArrayList<Integer>();
+		stateRequests = new ArrayDeque<Integer>();
+		stateSends = new ArrayDeque<Communicator.Request>();
+		incomingState = new ArrayList<StateMessage>();
+		pendingQueries = new HoldBackQueue<QueryMessage>(size / 2, null) {
+			@Override
+			protected VectorClock getDependency(QueryMessage query) {
+				return query.getTimestamp();
+			}
+		};
+		pendingUpdates = this.createPendingUpdates();
+	}
+	
+	/**
+	 * Creates the queue of updates waiting
+	 * for the valueTS.
+	 * 
+	 * @return		the empty queue
+	 */
+	private HoldBackQueue<LogRecord> createPendingUpdates() {
+		// Stable updates are applied in the
+		// (total) order of the log records
+		Comparator<LogRecord> applyOrder = new Comparator<LogRecord>() {
+			@Override
+			public int compare(LogRecord recordOne, LogRecord recordTwo) {
+				return recordOne.compareTo(recordTwo);
+			}
+		};
+		return new HoldBackQueue<LogRecord>(size / 2, applyOrder) {
+			@Override
+			protected VectorClock getDependency(LogRecord record) {
+				return record.getMessage().getTimestamp();
+			}
+		};
+	}
+	
+	
+	/**
+	 * Registers the metrics. They are read by
+	 * other threads as well, e.g. by JMX, so the
+	 * state of the RM is published as values by
+	 * publishMetrics() instead of being read by
+	 * gauges.
+	 */
+	private void initializeMetrics() {
+		metrics = new Metrics(String.format("RM %d", rank));
+		queryArrivals = new HashMap<UUID, Long>();
+		gossipArrivals = new long[size / 2];
+		metricsNanos = System.nanoTime() - METRICS_INTERVAL;
+		
+		updatesReceived = metrics.counter("updates.received");
+		batchesReceived = metrics.counter("batches.received");
+		updatesApplied = metrics.counter("updates.applied");
+		gossipSent = metrics.counter("gossip.sent");
+		gossipReceived = metrics.counter("gossip.received");
+		gossipBytesSent = metrics.counter("gossip.bytes_sent");
+		gossipBytesReceived = metrics.value("gossip.bytes_received");
+		recordsMerged = metrics.counter("records.merged");
+		queriesReceived = metrics.counter("queries.received");
+		queryWait = metrics.histogram("queries.wait_ns");
+		queryCacheHits = metrics.counter("query_cache.hits");
+		queryCacheMisses = metrics.counter("query_cache.misses");
+		queryCacheSize = metrics.value("query_cache.size");
+		
+		updateLogSize = metrics.value("update_log.size");
+		executedSize = metrics.value("executed.size");
+		valuesSize = metrics.value("values.size");
+		valuesTerms = metrics.value("values.terms");
+		updatesPending = metrics.value("updates.pending");
+		queriesPending = metrics.value("queries.pending");
+		// How many known updates are not applied yet
+		valueLag = metrics.value("value.lag");
+		
+		// How stale every neighbor is: how many updates
+		// it misses as far as known and how long ago
+		// its last gossip arrived, -1 if unknown
+		peerLags = new Metrics.Value[neighbourIds.length];
+		peerGossipAges = new Metrics.Value[neighbourIds.length];
+		for (int neighbour = 0; neighbour < neighbourIds.length; neighbour++) {
+			peerLags[neighbour] = metrics.value(String.format("peer.%d.lag", neighbourIds[neighbour]));
+			peerGossipAges[neighbour] = metrics.value(String.format("peer.%d.gossip_age_ms", neighbourIds[neighbour]));
+		}
+	}
+	
+	/**
+	 * Publishes the state of the RM read by the
+	 * {@link Metrics}, at most every METRICS_INTERVAL.
+	 * Called by the thread of the RM, so the state
+	 * is never read by other threads.
+	 * 
+	 * @param nowNanos		the current time
+	 */
+	public void publishMetrics(long nowNanos) {
+		if (nowNanos - metricsNanos < METRICS_INTERVAL) {
+			return;
+		}
+		metricsNanos = nowNanos;
+		
+		long bytes = 0;
+		for (int i = 0; gossipMailboxes != null && i < gossipMailboxes.length; i++) {
+			bytes += gossipMailboxes[i].getBytesReceived();
+		}
+		gossipBytesReceived.set(bytes);
+		queryCacheSize.set(queryCache.size());
+		updateLogSize.set(updateLog.size());
+		executedSize.set(executedCalls.size());
+		valuesSize.set(messages.size());
+		valuesTerms.set(messages.getTermCount());
+		updatesPending.set(pendingUpdates.getWaiting() + pendingUpdates.getReady());
+		queriesPending.set(pendingQueries.getWaiting() + pendingQueries.getReady());
+		valueLag.set(getLag(messageTimestamp, replicaTimestamp));
+		
+		for (int neighbour = 0; neighbour < neighbourIds.length; neighbour++) {
+			VectorClock acknowledged = timestampTable[neighbourIds[neighbour]];
+			peerLags[neighbour].set(acknowledged == null ? -1 : getLag(acknowledged, replicaTimestamp));
+			long arrival = gossipArrivals[neighbourIds[neighbour]];
+			peerGossipAges[neighbour].set(arrival == 0 ? -1 : (nowNanos - arrival) / 1000000);
+		}
+	}
+	
+	/**
+	 * Opens a {@link Mailbox} for each of the
+	 * given processes using the given tag.
+	 * The mailboxes are opened lazily so that
+	 * the codec can be set after construction.
+	 * 
+	 * @param sources		the ranks of the sending processes
+	 * @param tag			the tag from {@link Utils}
+	 * @return				the mailboxes, in the order
+	 * 						of the given ranks
+	 */
+	private Mailbox[] openMailboxes(int[] sources, int tag) {
+		Mailbox[] mailboxes = new Mailbox[sources.length];
+		for (int i = 0; i < sources.length; i++) {
+			mailboxes[i] = wire.open(sources[i], tag);
+		}
+		return mailboxes;
+	}
+	
+	/**
+	 * Opens the {@link Mailbox}es for gossip,
+	 * updates, queries and states (unless this happened
+	 * already) and collects them, together with
+	 * their posted receives, so that they can
+	 * be tested at once.
+	 */
+	private void openAllMailboxes() {
+		if (gossipMailboxes == null) {
+			gossipMailboxes = this.openMailboxes(neighbourIds, Utils.GOSSIP_TAG);
+		}
+		if (updateMailboxes == null) {
+			updateMailboxes = this.openMailboxes(frontendIds, Utils.UPDATE_TAG);
+		}
+		if (queryMailboxes == null) {
+			queryMailboxes = this.openMailboxes(frontendIds, Utils.QUERY_TAG);
+		}
+		if (stateMailboxes == null) {
+			stateMailboxes = this.openMailboxes(neighbourIds, Utils.STATE_TAG);
+		}
+		
+		mailboxes = new Mailbox[gossipMailboxes.length + updateMailboxes.length + queryMailboxes.length + stateMailboxes.length];
+		System.arraycopy(gossipMailboxes, 0, mailboxes, 0, gossipMailboxes.length);
+		System.arraycopy(updateMailboxes, 0, mailboxes, gossipMailboxes.length, updateMailboxes.length);
+		System.arraycopy(queryMailboxes, 0, mailboxes, gossipMailboxes.length + updateMailboxes.length, queryMailboxes.length);
+		System.arraycopy(stateMailboxes, 0, mailboxes, mailboxes.length - stateMailboxes.length, stateMailboxes.length);
+		
+		requests = new Communicator.Request[mailboxes.length];
+		rotatedRequests = new Communicator.Request[mailboxes.length];
+		for (int i = 0; i < mailboxes.length; i++) {
+			requests[i] = mailboxes[i].getRequest();
+		}
 	}
 	
+	/**
+	 * Tests the receives of all mailboxes at once,
+	 * starting with the one of nextMailbox.
+	 * 
+	 * @return		the index of a mailbox which
+	 * 				received a message or -1
+	 */
+	private int testMailboxes() {
+		int tail = requests.length - nextMailbox;
+		System.arraycopy(requests, nextMailbox, rotatedRequests, 0, tail);
+		System.arraycopy(requests, 0, rotatedRequests, tail, nextMailbox);
+		
+		int index = comm.Testany(rotatedRequests);
+		return index < 0 ? -1 : (index + nextMailbox) % requests.length;
+	}
 	
 	/**
 	 * Helper method to check if the
 	 * message with the given ID is yet
 	 * scheduled within to update-log.
 	 * 
+	 * Uses the index over the update-log
+	 * instead of scanning the log itself.
+	 * 
 	 * @param messageId			the id of the message to check
 	 * @return					true if the message is scheduled,
 	 * 							false if not
 	 */
-	private boolean isScheduled(UUID messageId) {
-		boolean isScheduled = false;
-		
-		for (LogRecord msg : this.updateLog) {
-			if (msg.getMessage().getId().compareTo(messageId) == 0) {
-				isScheduled = true;
-				break;
-			}
-		}
-		
-		return isScheduled;
+	boolean isScheduled(UUID messageId) {
+		return this.scheduledIds.contains(messageId);
 	}
 	
 	/**
@@ -595,21 +1760,17 @@ public class ReplicationManager {
 	 * message with the given ID was yet
 	 * executed.
 	 * 
+	 * Uses the index over the executed
+	 * calls instead of scanning them, and
+	 * the IDs of the executed updates which
+	 * got cleaned from the update-log.
+	 * 
 	 * @param messageId			the id of the message to check
 	 * @return					true if the message was executed,
 	 * 							false if not
 	 */
-	private boolean hasBeenExecuted(UUID messageId) {
-		boolean hasBeenExecuted = false;
-		
-		for (ActionMessage msg : this.executedCalls) {
-			if (msg.getId().compareTo(messageId) == 0) {
-				hasBeenExecuted = true;
-				break;
-			}
-		}
-		
-		return hasBeenExecuted;
+	boolean hasBeenExecuted(UUID messageId) {
+		return this.executedIds.contains(messageId) || this.cleanedIds.contains(messageId);
 	}
 	
 	/**
@@ -627,18 +1788,43 @@ public class ReplicationManager {
 	 *						null
 	 * 						
 	 */
-	private int[] tryPerformUpdate(ActionMessage msg) {		
-		if (!hasBeenExecuted(msg.getId())) {
-			replicaTimestamp[this.rank] += 1;
+	private VectorClock tryPerformUpdate(ActionMessage msg) {		
+		LogRecord logRecord = this.scheduleUpdate(msg);
+		if (logRecord == null) {
+			return null;
+		}
+		
+		if (this.wal != null) {
+			this.wal.appendRecord(logRecord);
+		}
+		return logRecord.getTimestamp();
+	}
+	
+	/**
+	 * Assigns the next unique time stamp to an update
+	 * and inserts it into the update-log, if it was not
+	 * scheduled or executed already. Appending it to the
+	 * write-ahead log is left to the caller.
+	 * 
+	 * @param msg		the update-message
+	 * @return			the record of the update within the
+	 * 					update-log or null if the update
+	 * 					was already scheduled or executed
+	 */
+	private LogRecord scheduleUpdate(ActionMessage msg) {
+		if (!isScheduled(msg.getId()) && !hasBeenExecuted(msg.getId())) {
+			replicaTimestamp.increment(this.rank);
 			
 			// Build new time stamp based on the message time stamp
-			int[] ts = Arrays.copyOf(msg.getTimestamp(), msg.getTimestamp().length);
-			ts[this.rank] = replicaTimestamp[this.rank];
-			logger.info(
-				String.format(
-					"RM %d: Set new unique TS %s for update.", rank, Arrays.toString(ts)
-				)
-			);
+			VectorClock ts = msg.getTimestamp().copy();
+			ts.set(this.rank, replicaTimestamp.get(this.rank));
+			if (logger.isInfoEnabled()) {
+				logger.info(
+					String.format(
+						"RM %d: Set new unique TS %s for update.", rank, ts
+					)
+				);
+			}
 			
 			// Add the update to the message log
 			LogRecord logRecord = new LogRecord();
@@ -646,8 +1832,10 @@ public class ReplicationManager {
 			logRecord.setTimestamp(ts);
 			logRecord.setMessage(msg);
 			this.updateLog.add(logRecord);
+			this.scheduledIds.add(msg.getId());
+			this.pendingUpdates.add(logRecord, this.messageTimestamp);
 			
-			return ts;
+			return logRecord;
 		}
 		
 		// Return n
@@ -655,76 +1843,120 @@ public class ReplicationManager {
 	}
 	
 	/**
-	 * Apply the given message according
-	 * to its operation.
+	 * Apply the message of the given record
+	 * according to its operation.
 	 * 
-	 * @param msg		the message to apply
+	 * @param record	the record of the message to apply
 	 */
-	private void applyMessage(ActionMessage msg) {
+	void applyMessage(LogRecord record) {
+		ActionMessage msg = (ActionMessage) record.getMessage();
 		switch (msg.getOperation()) {
 		case INSERT:
-			this.messages.put(msg.getId(), msg);
-			logger.info(
-				String.format(
-					"RM %d: Inserted Message (ID %s) to Value-Log.", rank, msg.getId()
-				)
-			);
+			this.messages.put(msg);
+			if (logger.isInfoEnabled()) {
+				logger.info(
+					String.format(
+						"RM %d: Inserted Message (ID %s) to Value-Log.", rank, msg.getId()
+					)
+				);
+			}
 			break;
 		
 		case UPDATE:
-			//TODO: Error handling
-			ActionMessage updatedMessage = this.messages.get(msg.getId());
-			updatedMessage.udpate(msg);
-			this.messages.put(msg.getId(), updatedMessage);
+			// The target is gone if it got deleted
+			// concurrently, the update is void then
+			ActionMessage target = this.messages.get(msg.getTargetId());
+			if (target != null) {
+				// Stored messages are not changed, a
+				// snapshot may be reading them
+				ActionMessage updatedMessage = target.copy();
+				updatedMessage.udpate(msg);
+				this.messages.put(updatedMessage);
+			}
 			
-			logger.info(
-				String.format(
-					"RM %d: Trying to update Message-ID: %s.", rank, msg.getId()
-				)
-			);
+			if (logger.isInfoEnabled()) {
+				logger.info(
+					String.format(
+						"RM %d: %s Message-ID: %s.", rank, target != null ? "Updated" : "Nothing to update for", msg.getTargetId()
+					)
+				);
+			}
 			break;
 			
 		case DELETE:
-			//TODO: Error handling
-			this.messages.remove(msg.getId());
+			ActionMessage deletedMessage = this.messages.remove(msg.getTargetId());
 			
-			logger.info(
-				String.format(
-					"RM %d: Trying to delete Message-ID: %s.", rank, msg.getId()
-				)
-			);
+			if (logger.isInfoEnabled()) {
+				logger.info(
+					String.format(
+						"RM %d: %s Message-ID: %s.", rank, deletedMessage != null ? "Deleted" : "Nothing to delete for", msg.getTargetId()
+					)
+				);
+			}
 			break;
 		}
 		
+		// The results of queries are not
+		// valid for the new valueTS anymore
+		this.queryCache.invalidate();
+		
 		// Add the message to the call log
 		this.executedCalls.add(msg);
+		this.executedIds.add(msg.getId());
+		tracer.record(EventTracer.Event.UPDATE_APPLIED, record.getReplicationManagerId(), msg.getId(), this.messages.size());
+		updatesApplied.increment();
+		if (this.wal != null) {
+			this.wal.appendApply(msg.getId());
+		}
 		
-		int[] oldMessageTimestamp = Arrays.copyOf(this.messageTimestamp, this.messageTimestamp.length);
-		int[] newMessageTimestamp = Utils.getMaximizedTimestamp(this.messageTimestamp, msg.getTimestamp());
-		
-		// Set the new message time stamp (valueTS)
-		this.messageTimestamp = Arrays.copyOf(newMessageTimestamp, newMessageTimestamp.length);
+		// Set the new message time stamp (valueTS) and
+		// release the updates and queries waiting for it
+		if (this.messageTimestamp.merge(record.getTimestamp())) {
+			this.pendingUpdates.release(this.messageTimestamp);
+			this.pendingQueries.release(this.messageTimestamp);
+		}
 		
-		logger.info(
-			String.format(
-				"RM %d: Set new valueTS: %s. Based on old valueTS %s and u.TS %s", rank, Arrays.toString(this.messageTimestamp), Arrays.toString(oldMessageTimestamp), Arrays.toString(msg.getTimestamp())
-			)
-		);
+		if (logger.isInfoEnabled()) {
+			logger.info(
+				String.format(
+					"RM %d: Set new valueTS: %s. Based on r.TS %s", rank, this.messageTimestamp, record.getTimestamp()
+				)
+			);
+		}
 	}
 
 	/**
 	 * Applies stable updates from within
 	 * the update-log.
+	 * 
+	 * An update is stable as soon as its prev
+	 * time stamp is smaller or equal than the
+	 * valueTS. Updates wait in the pending updates
+	 * until then and are released when applying
+	 * another update advances the valueTS, so only
+	 * updates which got stable are looked at.
+	 * Stable updates are applied in the order of
+	 * {@link LogRecord}, which respects their causal
+	 * order and is the same on every
+	 * {@link ReplicationManager}.
 	 */
 	private void applyStableUpdates() {
-		// Get stable updates
-		ArrayList<LogRecord> stableUpdates = new ArrayList<LogRecord>(this.updateLog);
-		// Sort them
-		Collections.sort(stableUpdates);
-		
-		// Apply them
-		for (LogRecord stableUpdate : stableUpdates) {
-			this.applyMessage((ActionMessage) stableUpdate.getMessage());
+		LogRecord stableUpdate = null;
+		while ((stableUpdate = this.pendingUpdates.poll()) != null) {
+			// Only apply the update if it
+			// hasn't already been applied
+			if (!hasBeenExecuted(stableUpdate.getMessage().getId())) {
+				this.applyMessage(stableUpdate);
+			}
+			else {
+				if (logger.isTraceEnabled()) {
+					logger.trace(
+						String.format(
+							"RM %d: Update already executed. Message-ID: %s.", rank, stableUpdate.getMessage().getId()
+						)
+					);
+				}
+			}
 		}
 	}
 	
@@ -733,22 +1965,78 @@ public class ReplicationManager {
 	 * from the update-log as soon as
 	 * no other {@link ReplicationManager} needs
 	 * them anymore.
+	 * 
+	 * An update is not needed anymore when
+	 * its time stamp is smaller or equal than
+	 * the (component-wise) minimum of the replicaTS
+	 * of all {@link ReplicationManager}s, as
+	 * known from the time stamp table. Nothing
+	 * gets removed as long as not all
+	 * {@link ReplicationManager}s sent gossip.
 	 */
 	private void cleanUpdateLog() {
-		/*
-		 * TODO: Implement
-		 * 
-		 * Requirement: MessageTimestamps from all neighbors.
-		 * 
-		 * List<int[]> collectedMessageTimestamps;
-		 * int[] minimalTimestamp = Utils.getMinimalTimestamp(collectedMessageTimestamps);
-		 * 
-		 * for (LogRecord msg : updateLog) {
-		 *     if (Utils.isSmallerOrEqualThan(msg.getTimestamp(), minimalTimestamp) {
-		 *         updateLog.remove(msg.getTimestamp());
-		 *     }
-		 * } 
-		 * 
-		 */
-	}
-}
+		minimalTimestamp.set(this.replicaTimestamp);
+		for (int i = 0; i < this.timestampTable.length; i++) {
+			if (i == this.rank) {
+				continue;
+			}
+			if (this.timestampTable[i] == null) {
+				if (logger.isTraceEnabled()) {
+					logger.trace(
+						String.format(
+							"RM %d: No replicaTS known from RM %d yet. Not cleaning.", rank, i
+						)
+					);
+				}
+				return;
+			}
+			minimalTimestamp.min(this.timestampTable[i]);
+		}
+		
+		// Keep only the records not every RM has
+		// seen or which were not executed here yet
+		MessageIdSet discardedIds = new MessageIdSet();
+		ArrayList<LogRecord> retainedRecords = new ArrayList<LogRecord>(this.updateLog.size());
+		for (LogRecord record : this.updateLog) {
+			UUID id = record.getMessage().getId();
+			if (record.getTimestamp().isSmallerOrEqualThan(minimalTimestamp) && hasBeenExecuted(id)) {
+				this.scheduledIds.remove(id);
+				discardedIds.add(id);
+			}
+			else {
+				retainedRecords.add(record);
+			}
+		}
+		
+		if (discardedIds.size() == 0) {
+			return;
+		}
+		this.updateLog = retainedRecords;
+		
+		// The corresponding calls are not needed anymore
+		// either. Gossip skips such updates by the
+		// discardedTS, but a FE may send one again,
+		// so only their IDs are kept
+		ArrayList<ActionMessage> retainedCalls = new ArrayList<ActionMessage>(this.executedCalls.size());
+		for (ActionMessage call : this.executedCalls) {
+			if (discardedIds.contains(call.getId())) {
+				this.executedIds.remove(call.getId());
+				this.cleanedIds.add(call.getId());
+			}
+			else {
+				retainedCalls.add(call);
+			}
+		}
+		this.executedCalls = retainedCalls;
+		this.discardedTimestamp.merge(minimalTimestamp);
+		tracer.record(EventTracer.Event.LOG_CLEANED, -1, null, discardedIds.size());
+		
+		if (logger.isDebugEnabled()) {
+			logger.debug(
+				String.format(
+					"RM %d: Cleaned %d updates from update-log. Remaining: %d. Cleaned up to %s.", rank, discardedIds.size(), this.updateLog.size(), minimalTimestamp
+				)
+			);
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,461 @@
+/*
+ * Snapshot.java
+ * 
+ * 1.1
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A snapshot of the state of a {@link ReplicationManager}:
+ * its value store, the records of its update-log (which
+ * of them are executed) and its time stamps. The snapshot
+ * covers all entries of the {@link WriteAheadLog} within
+ * the segments before the one it names, these segments
+ * can be deleted as soon as the snapshot is written.
+ * 
+ * A snapshot gets written into the directory of the log
+ * as snapshot-[segment].snap, first to a temporary file
+ * which is renamed after syncing it. The file looks
+ * as follows:
+ * 
+ * 	[magic][version][segment][valueTS][replicaTS][discardedTS]
+ * 	[number of messages]([length][message])*
+ * 	[number of records]([executed][length][record])*
+ * 	[number of cleaned IDs]([msb][lsb])*
+ * 	[crc: 8 bytes]
+ * 
+ * where messages and records are encoded by the
+ * {@link WireCodec} and the CRC32 covers everything
+ * before it. The cleaned IDs are the executed updates
+ * which got removed from the update-log, so that they
+ * are not applied again. Snapshots of version 1 have
+ * none. Only the newest snapshot is kept.
+ * 
+ * @author sosterwalder
+ *
+ */
+public class Snapshot {
+	public static final int					MAGIC					= 0x534e4150; // "SNAP"
+	public static final int					VERSION					= 2;
+
+	private static final String				SNAPSHOT_PREFIX			= "snapshot-";
+	private static final String				SNAPSHOT_SUFFIX			= ".snap";
+	private static final String				TEMPORARY_SUFFIX		= ".tmp";
+	private static final int				BUFFER_SIZE				= 64 * 1024;
+
+	private int								segment					= 0;
+	private VectorClock						valueTimestamp			= null;
+	private VectorClock						replicaTimestamp		= null;
+	private VectorClock						discardedTimestamp		= null;
+	private Collection<ActionMessage>		messages				= null;
+	private LogRecord[]						records					= null;
+	private boolean[]						executed				= null;
+	private long[]							cleanedIds				= null;
+
+	/**
+	 * Constructor
+	 * 
+	 * The given objects must not be changed
+	 * while the snapshot gets written.
+	 * 
+	 * @param segment				the first segment of the
+	 * 								{@link WriteAheadLog} not
+	 * 								covered by the snapshot
+	 * @param valueTimestamp		the valueTS
+	 * @param replicaTimestamp		the replicaTS
+	 * @param discardedTimestamp	the time stamp up to which
+	 * 								updates got cleaned
+	 * @param messages				the messages of the value store
+	 * @param records				the records of the update-log
+	 * @param executed				whether the records are executed,
+	 * 								in the order of the records
+	 * @param cleanedIds			the IDs of the executed updates
+	 * 								cleaned from the update-log, as
+	 * 								returned by {@link MessageIdSet#toArray()}
+	 */
+	public Snapshot(int segment, VectorClock valueTimestamp, VectorClock replicaTimestamp, VectorClock discardedTimestamp,
+			Collection<ActionMessage> messages, LogRecord[] records, boolean[] executed, long[] cleanedIds) {
+		this.segment = segment;
+		this.valueTimestamp = valueTimestamp;
+		this.replicaTimestamp = replicaTimestamp;
+		this.discardedTimestamp = discardedTimestamp;
+		this.messages = messages;
+		this.records = records;
+		this.executed = executed;
+		this.cleanedIds = cleanedIds;
+	}
+
+	/**
+	 * Returns the first segment of the {@link WriteAheadLog}
+	 * which is not covered by the snapshot.
+	 * 
+	 * @return		the index of the segment
+	 */
+	public int getSegment() {
+		return segment;
+	}
+
+	/**
+	 * Returns the valueTS.
+	 * 
+	 * @return		the valueTS
+	 */
+	public VectorClock getValueTimestamp() {
+		return valueTimestamp;
+	}
+
+	/**
+	 * Returns the replicaTS.
+	 * 
+	 * @return		the replicaTS
+	 */
+	public VectorClock getReplicaTimestamp() {
+		return replicaTimestamp;
+	}
+
+	/**
+	 * Returns the time stamp up to
+	 * which updates got cleaned.
+	 * 
+	 * @return		the time stamp
+	 */
+	public VectorClock getDiscardedTimestamp() {
+		return discardedTimestamp;
+	}
+
+	/**
+	 * Returns the messages of the value store.
+	 * 
+	 * @return		the messages
+	 */
+	public Collection<ActionMessage> getMessages() {
+		return messages;
+	}
+
+	/**
+	 * Returns the records of the update-log.
+	 * 
+	 * @return		the records
+	 */
+	public LogRecord[] getRecords() {
+		return records;
+	}
+
+	/**
+	 * Returns whether the records are executed,
+	 * in the order of the records.
+	 * 
+	 * @return		true for every executed record
+	 */
+	public boolean[] getExecuted() {
+		return executed;
+	}
+
+	/**
+	 * Returns the IDs of the executed updates
+	 * cleaned from the update-log.
+	 * 
+	 * @return		the bits of the IDs, two
+	 * 				longs per ID
+	 */
+	public long[] getCleanedIds() {
+		return cleanedIds;
+	}
+
+	/**
+	 * Writes the snapshot into the given directory
+	 * and deletes the older snapshots afterwards.
+	 * 
+	 * @param directory		the directory of the
+	 * 						{@link WriteAheadLog}
+	 * @return				the size of the snapshot
+	 * 						in bytes
+	 * @throws IOException
+	 */
+	public long writeTo(File directory) throws IOException {
+		File file = new File(directory, String.format("%s%08d%s", SNAPSHOT_PREFIX, segment, SNAPSHOT_SUFFIX));
+		File temporary = new File(directory, file.getName() + TEMPORARY_SUFFIX);
+
+		// The CRC gets calculated over the
+		// buffered blocks, not per byte
+		FileOutputStream fileOut = new FileOutputStream(temporary);
+		CheckedOutputStream checkedOut = new CheckedOutputStream(fileOut, new CRC32());
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(checkedOut, BUFFER_SIZE));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(segment);
+			writeTimestamp(out, valueTimestamp);
+			writeTimestamp(out, replicaTimestamp);
+			writeTimestamp(out, discardedTimestamp);
+
+			out.writeInt(messages.size());
+			for (ActionMessage msg : messages) {
+				writeBytes(out, WireCodec.encodeMessage(msg));
+			}
+
+			out.writeInt(records.length);
+			for (int i = 0; i < records.length; i++) {
+				out.writeBoolean(executed[i]);
+				writeBytes(out, WireCodec.encodeRecord(records[i]));
+			}
+
+			out.writeInt(cleanedIds.length / 2);
+			for (long bits : cleanedIds) {
+				out.writeLong(bits);
+			}
+
+			out.flush();
+			out.writeLong(checkedOut.getChecksum().getValue());
+			out.flush();
+			fileOut.getFD().sync();
+		} finally {
+			out.close();
+		}
+
+		if (!temporary.renameTo(file)) {
+			throw new IOException("Could not rename snapshot " + temporary + " to " + file);
+		}
+
+		// The new snapshot replaces the older ones
+		for (File older : listSnapshots(directory)) {
+			if (!older.getName().equals(file.getName())) {
+				older.delete();
+			}
+		}
+		return file.length();
+	}
+
+	/**
+	 * Reads the newest snapshot within the given
+	 * directory. Snapshots which can not be read
+	 * completely or whose CRC does not match
+	 * are skipped.
+	 * 
+	 * @param directory		the directory of the
+	 * 						{@link WriteAheadLog}
+	 * @return				the snapshot or null
+	 * 						if there is none
+	 */
+	public static Snapshot readLatest(File directory) {
+		File[] files = listSnapshots(directory);
+		for (int i = files.length - 1; i >= 0; i--) {
+			try {
+				return read(files[i]);
+			}
+			catch (IOException ex) {
+				// Try the next older one
+			}
+			catch (RuntimeException ex) {
+				// Try the next older one
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Reads the snapshot from the given file. The file
+	 * gets mapped and its CRC checked first, so corrupt
+	 * snapshots are not parsed at all.
+	 * 
+	 * @param file			the file to read
+	 * @return				the snapshot
+	 * @throws IOException
+	 */
+	private static Snapshot read(File file) throws IOException {
+		MappedByteBuffer in = null;
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			in = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+		} finally {
+			// The mapping stays valid
+			raf.close();
+		}
+		if (in.limit() < 8) {
+			throw new IOException("Truncated snapshot: " + file);
+		}
+
+		CRC32 crc = new CRC32();
+		byte[] block = new byte[BUFFER_SIZE];
+		ByteBuffer content = in.duplicate();
+		content.limit(in.limit() - 8);
+		while (content.hasRemaining()) {
+			int length = Math.min(block.length, content.remaining());
+			content.get(block, 0, length);
+			crc.update(block, 0, length);
+		}
+		if (in.getLong(in.limit() - 8) != crc.getValue()) {
+			throw new IOException("Corrupt snapshot: " + file);
+		}
+
+		int magic = in.getInt();
+		int version = in.getInt();
+		if (magic != MAGIC || version < 1 || version > VERSION) {
+			throw new IOException("Not a snapshot: " + file);
+		}
+		int segment = in.getInt();
+		VectorClock valueTimestamp = readTimestamp(in);
+		VectorClock replicaTimestamp = readTimestamp(in);
+		VectorClock discardedTimestamp = readTimestamp(in);
+
+		int messageCount = readCount(in);
+		ArrayList<ActionMessage> messages = new ArrayList<ActionMessage>(messageCount);
+		for (int i = 0; i < messageCount; i++) {
+			messages.add((ActionMessage) WireCodec.decodeMessage(readBytes(in)));
+		}
+
+		int recordCount = readCount(in);
+		LogRecord[] records = new LogRecord[recordCount];
+		boolean[] executed = new boolean[recordCount];
+		for (int i = 0; i < recordCount; i++) {
+			executed[i] = in.get() != 0;
+			records[i] = WireCodec.decodeRecord(readBytes(in));
+		}
+
+		long[] cleanedIds = new long[version < 2 ? 0 : readCount(in) * 2];
+		for (int i = 0; i < cleanedIds.length; i++) {
+			cleanedIds[i] = in.getLong();
+		}
+
+		return new Snapshot(segment, valueTimestamp, replicaTimestamp, discardedTimestamp, messages, records, executed, cleanedIds);
+	}
+
+	/**
+	 * Returns the snapshot files within the given
+	 * directory, ordered by their segments.
+	 * 
+	 * @param directory		the directory
+	 * @return				the snapshot files
+	 */
+	private static File[] listSnapshots(File directory) {
+		File[] files = directory.listFiles(
+			new FilenameFilter() {
+				@Override
+				public boolean accept(File dir, String name) {
+					return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+				}
+			}
+		);
+		if (files == null) {
+			return new File[0];
+		}
+
+		// The segments are zero-padded
+		Arrays.sort(files);
+		return files;
+	}
+
+	/**
+	 * Writes the given time stamp as
+	 * length followed by its components.
+	 * 
+	 * @param out			the stream to write to
+	 * @param timestamp		the time stamp
+	 * @throws IOException
+	 */
+	private static void writeTimestamp(DataOutputStream out, VectorClock timestamp) throws IOException {
+		out.writeInt(timestamp.size());
+		for (int i = 0; i < timestamp.size(); i++) {
+			out.writeInt(timestamp.get(i));
+		}
+	}
+
+	/**
+	 * Reads a time stamp written by
+	 * writeTimestamp().
+	 * 
+	 * @param in			the buffer to read from
+	 * @return				the time stamp
+	 * @throws IOException
+	 */
+	private static VectorClock readTimestamp(ByteBuffer in) throws IOException {
+		VectorClock timestamp = new VectorClock(readCount(in));
+		for (int i = 0; i < timestamp.size(); i++) {
+			timestamp.set(i, in.getInt());
+		}
+		return timestamp;
+	}
+
+	/**
+	 * Writes the given bytes prefixed
+	 * by their length.
+	 * 
+	 * @param out			the stream to write to
+	 * @param bytes			the bytes
+	 * @throws IOException
+	 */
+	private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Reads bytes written by writeBytes().
+	 * 
+	 * @param in			the buffer to read from
+	 * @return				the bytes
+	 * @throws IOException
+	 */
+	private static byte[] readBytes(ByteBuffer in) throws IOException {
+		byte[] bytes = new byte[readCount(in)];
+		in.get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Reads a count or a length and checks
+	 * that it fits into the rest of the buffer.
+	 * 
+	 * @param in			the buffer to read from
+	 * @return				the count
+	 * @throws IOException
+	 */
+	private static int readCount(ByteBuffer in) throws IOException {
+		int count = in.getInt();
+		if (count < 0 || count > in.remaining()) {
+			throw new IOException("Invalid count " + count + " within snapshot");
+		}
+		return count;
+	}
+}
@@ -0,0 +1,775 @@
+/*
+ * SocketCommunicator.java
+ * 
+ * 1.1
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+
+/**
+ * This class implements the {@link Communicator} on
+ * top of TCP connections, so every process runs within
+ * its own JVM without P2P-MPI, e.g. on localhost.
+ * 
+ * Every process listens on its own address from the
+ * list of peers and connects to another process the
+ * first time it sends to it. A connection transports
+ * the messages of one direction only: first a hello,
+ * then a frame per message:
+ * 
+ * 	[rank: 4 bytes][incarnation: 8 bytes][first sequence: 8 bytes]
+ * 	[length: 4 bytes][tag: 4 bytes][payload: length bytes]
+ * 
+ * Every frame to a process has the next sequence number,
+ * starting at the first sequence of the hello. In the
+ * other direction, the receiving process acknowledges
+ * the frames it got by the sequence it expects next:
+ * 
+ * 	[next sequence: 8 bytes]
+ * 
+ * All channels are non-blocking and served by a single
+ * selector, there is no additional thread. Progress is
+ * made whenever a request gets tested, so the process
+ * has to test its requests regularly, as the
+ * {@link ReplicationManager} and the {@link Frontend} do.
+ * Pending frames of a connection are written using
+ * gathering writes, incoming frames are read into a
+ * direct buffer per connection. The frames are written
+ * from heap buffers, as they are kept until acknowledged
+ * and allocating a direct buffer per frame costs more
+ * than the copy into the temporary direct buffer of the
+ * JDK a write of a heap buffer makes.
+ * 
+ * A send completes as soon as its frame is written, but
+ * the frame is kept until it got acknowledged. A connection
+ * which fails gets re-established and all frames which
+ * were not acknowledged yet are sent again, including
+ * the ones written to the failed connection already. The
+ * receiving process drops the frames it got before by
+ * their sequence, so no frame is lost or duplicated as long
+ * as both processes keep running. The incarnation, chosen
+ * randomly per process, tells a restarted sending process
+ * apart, whose frames start over. Frames written to a
+ * restarted receiving process before it failed are lost.
+ * 
+ * Wildcards for the source or tag of a receive are
+ * not supported and the class is not thread-safe.
+ * 
+ * @author sosterwalder
+ *
+ */
+public class SocketCommunicator implements Communicator {
+	public static final int						HEADER_SIZE			= 8;
+	public static final int						HELLO_SIZE			= 20;
+	public static final int						ACK_SIZE			= 8;
+	public static final int						READ_BUFFER_SIZE	= 64 * 1024;
+	public static final int						MAX_GATHER			= 64;
+	public static final long					RECONNECT_NANOS		= 100L * 1000L * 1000L;
+
+	private int									rank				= 0;
+	private InetSocketAddress[]					peers				= null;
+	private Selector							selector			= null;
+	private ServerSocketChannel					server				= null;
+	private Connection[]						connections			= null; // Outgoing, per destination
+	private Map<Long, Queue<byte[]>>			inbox				= null; // Per source and tag
+	private long								incarnation			= 0;
+	private long[]								incarnations		= null; // Of the sending processes
+	private long[]								received			= null; // Next sequence per source
+	private ByteBuffer[]						gather				= new ByteBuffer[MAX_GATHER];
+
+	/**
+	 * Constructor
+	 * 
+	 * Starts listening on the address
+	 * of the given rank.
+	 * 
+	 * @param rank		the rank of the process
+	 * @param peers		the addresses of all processes,
+	 * 					indexed by their ranks
+	 * @throws IOException
+	 */
+	public SocketCommunicator(int rank, InetSocketAddress[] peers) throws IOException {
+		if (rank < 0 || rank >= peers.length) {
+			throw new IllegalArgumentException(
+				String.format(
+					"Rank %d has no address, %d peers known", rank, peers.length
+				)
+			);
+		}
+
+		this.rank = rank;
+		this.peers = peers;
+		this.connections = new Connection[peers.length];
+		this.inbox = new HashMap<Long, Queue<byte[]>>();
+		this.incarnation = new Random().nextLong();
+		this.incarnations = new long[peers.length];
+		this.received = new long[peers.length];
+
+		selector = Selector.open();
+		server = ServerSocketChannel.open();
+		server.configureBlocking(false);
+		server.socket().setReuseAddress(true);
+		server.socket().bind(peers[rank]);
+		server.register(selector, SelectionKey.OP_ACCEPT);
+	}
+
+	/**
+	 * Parses a comma separated list of
+	 * peers in the form host:port.
+	 * 
+	 * E.g.: localhost:7000, localhost:7001
+	 * 
+	 * @param peerList		the list of peers
+	 * @return				the addresses of the peers
+	 */
+	public static InetSocketAddress[] parsePeers(String peerList) {
+		String[] entries = peerList.split(",");
+		InetSocketAddress[] peers = new InetSocketAddress[entries.length];
+		for (int i = 0; i < entries.length; i++) {
+			String entry = entries[i].trim();
+			int colon = entry.lastIndexOf(':');
+			if (colon < 1) {
+				throw new IllegalArgumentException(
+					String.format(
+						"Invalid peer %s, expected host:port", entry
+					)
+				);
+			}
+			peers[i] = new InetSocketAddress(entry.substring(0, colon), Integer.parseInt(entry.substring(colon + 1)));
+		}
+		return peers;
+	}
+
+	/* (non-Javadoc)
+	 * @see ch.bfh.ti.ostes2.gossip.Communicator#Rank()
+	 */
+	@Override
+	public int Rank() {
+		return rank;
+	}
+
+	/* (non-Javadoc)
+	 * @see ch.bfh.ti.ostes2.gossip.Communicator#Size()
+	 */
+	@Override
+	public int Size() {
+		return peers.length;
+	}
+
+	/* (non-Javadoc)
+	 * @see ch.bfh.ti.ostes2.gossip.Communicator#Isend(java.lang.Object, int, int, ch.bfh.ti.ostes2.gossip.Communicator.Datatype, int, int)
+	 */
+	@Override
+	public Request Isend(Object buffer, int offset, int count, Datatype datatype, int destination, int tag) {
+		byte[] payload = QueuedReceive.pack(buffer, offset, count, datatype);
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(payload.length);
+		header.putInt(tag);
+		header.flip();
+
+		Connection connection = this.connection(destination);
+		Send send = new Send(header, ByteBuffer.wrap(payload), connection.nextSequence++);
+		connection.pending.add(send);
+		this.flush(connection);
+		return send;
+	}
+
+	/* (non-Javadoc)
+	 * @see ch.bfh.ti.ostes2.gossip.Communicator#Irecv(java.lang.Object, int, int, ch.bfh.ti.ostes2.gossip.Communicator.Datatype, int, int)
+	 */
+	@Override
+	public Request Irecv(Object buffer, int offset, int count, Datatype datatype, int source, int tag) {
+		return new QueuedReceive(this.queue(source, tag), buffer, offset, count, datatype) {
+			@Override
+			protected void progress() {
+				SocketCommunicator.this.progress();
+			}
+		};
+	}
+
+	/* (non-Javadoc)
+	 * @see ch.bfh.ti.ostes2.gossip.Communicator#Testany(ch.bfh.ti.ostes2.gossip.Communicator.Request[])
+	 */
+	@Override
+	public int Testany(Request[] requests) {
+		// Make progress once for all requests
+		this.progress();
+
+		for (int i = 0; i < requests.length; i++) {
+			Request request = requests[i];
+			boolean completed = request instanceof QueuedReceive
+				? ((QueuedReceive) request).testQueue()
+				: request.Test();
+			if (completed) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Closes all connections and
+	 * stops listening.
+	 */
+	public void close() {
+		for (Connection connection : connections) {
+			if (connection != null) {
+				closeQuietly(connection.channel);
+			}
+		}
+		for (SelectionKey key : selector.keys()) {
+			closeQuietly(key.channel());
+		}
+		closeQuietly(selector);
+	}
+
+	/**
+	 * Accepts new connections, reads arrived
+	 * frames, writes pending frames and
+	 * re-establishes failed connections.
+	 */
+	private void progress() {
+		try {
+			selector.selectNow();
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Selecting channels failed", ex);
+		}
+
+		Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+		while (keys.hasNext()) {
+			SelectionKey key = keys.next();
+			keys.remove();
+			if (!key.isValid()) {
+				continue;
+			}
+
+			if (key.isAcceptable()) {
+				this.accept();
+			}
+			else if (key.attachment() instanceof Incoming) {
+				Incoming incoming = (Incoming) key.attachment();
+				if (key.isReadable()) {
+					this.read(key, incoming);
+				}
+				if (key.isValid() && key.isWritable()) {
+					this.acknowledge(key, incoming);
+				}
+			}
+			else {
+				Connection connection = (Connection) key.attachment();
+				if (key.isConnectable()) {
+					this.finishConnect(connection);
+					continue;
+				}
+				if (key.isReadable()) {
+					this.readAcknowledgements(connection);
+				}
+				if (key.isValid() && key.isWritable()) {
+					this.flush(connection);
+				}
+			}
+		}
+
+		// Re-establish failed connections with
+		// pending or unacknowledged frames
+		long now = System.nanoTime();
+		for (Connection connection : connections) {
+			if (connection != null && connection.channel == null
+				&& !(connection.pending.isEmpty() && connection.unacknowledged.isEmpty())
+				&& now - connection.retryAt >= 0) {
+				this.connect(connection);
+			}
+		}
+	}
+
+	/**
+	 * Returns the outgoing connection to the given
+	 * process, starts connecting if there is none.
+	 * 
+	 * @param destination	the rank of the receiving process
+	 * @return				the connection
+	 */
+	private Connection connection(int destination) {
+		if (destination < 0 || destination >= peers.length) {
+			throw new IllegalArgumentException(
+				String.format(
+					"Invalid destination %d, %d peers known", destination, peers.length
+				)
+			);
+		}
+
+		if (connections[destination] == null) {
+			connections[destination] = new Connection(destination);
+			this.connect(connections[destination]);
+		}
+		return connections[destination];
+	}
+
+	/**
+	 * Starts connecting the given connection.
+	 * Frames which were not acknowledged, even
+	 * if written to the failed connection, get
+	 * sent again on the new connection.
+	 * 
+	 * @param connection	the connection
+	 */
+	private void connect(Connection connection) {
+		while (!connection.unacknowledged.isEmpty()) {
+			connection.pending.addFirst(connection.unacknowledged.pollLast());
+		}
+		for (Send send : connection.pending) {
+			send.header.rewind();
+			send.payload.rewind();
+		}
+		connection.acknowledgement.clear();
+
+		ByteBuffer hello = ByteBuffer.allocate(HELLO_SIZE);
+		hello.putInt(rank);
+		hello.putLong(incarnation);
+		hello.putLong(connection.pending.isEmpty() ? connection.nextSequence : connection.pending.peek().sequence);
+		hello.flip();
+		connection.hello = hello;
+
+		try {
+			SocketChannel channel = SocketChannel.open();
+			channel.configureBlocking(false);
+			channel.socket().setTcpNoDelay(true);
+			connection.channel = channel;
+			if (channel.connect(peers[connection.destination])) {
+				channel.register(selector, 0, connection);
+				connection.connected = true;
+				this.flush(connection);
+			}
+			else {
+				channel.register(selector, SelectionKey.OP_CONNECT, connection);
+			}
+		}
+		catch (IOException ex) {
+			this.fail(connection);
+		}
+	}
+
+	/**
+	 * Finishes connecting the given connection
+	 * and writes its pending frames.
+	 * 
+	 * @param connection	the connection
+	 */
+	private void finishConnect(Connection connection) {
+		try {
+			if (!connection.channel.finishConnect()) {
+				return;
+			}
+			connection.connected = true;
+			this.flush(connection);
+		}
+		catch (IOException ex) {
+			// The process may not listen yet
+			this.fail(connection);
+		}
+	}
+
+	/**
+	 * Writes as many pending frames of the
+	 * given connection as possible, using
+	 * a gathering write.
+	 * 
+	 * @param connection	the connection
+	 */
+	private void flush(Connection connection) {
+		if (!connection.connected) {
+			return;
+		}
+
+		try {
+			while (connection.hello.hasRemaining() || !connection.pending.isEmpty()) {
+				int length = 0;
+				if (connection.hello.hasRemaining()) {
+					gather[length++] = connection.hello;
+				}
+				for (Send send : connection.pending) {
+					if (length + 2 > MAX_GATHER) {
+						break;
+					}
+					gather[length++] = send.header;
+					gather[length++] = send.payload;
+				}
+
+				long written = connection.channel.write(gather, 0, length);
+				for (int i = 0; i < length; i++) {
+					gather[i] = null;
+				}
+
+				// Keep the completely written frames
+				// until they get acknowledged
+				while (!connection.pending.isEmpty() && connection.pending.peek().isWritten()) {
+					Send send = connection.pending.poll();
+					send.completed = true;
+					connection.unacknowledged.add(send);
+				}
+
+				if (written == 0) {
+					break;
+				}
+			}
+
+			// Get notified of acknowledgements and as
+			// soon as the channel is writable again
+			int interest = connection.pending.isEmpty() ? 0 : SelectionKey.OP_WRITE;
+			connection.channel.keyFor(selector).interestOps(SelectionKey.OP_READ | interest);
+		}
+		catch (IOException ex) {
+			this.fail(connection);
+		}
+	}
+
+	/**
+	 * Reads the acknowledgements of the given
+	 * connection and drops the acknowledged frames.
+	 * 
+	 * @param connection	the connection
+	 */
+	private void readAcknowledgements(Connection connection) {
+		try {
+			ByteBuffer acknowledgement = connection.acknowledgement;
+			int read;
+			while ((read = connection.channel.read(acknowledgement)) > 0) {
+				if (acknowledgement.hasRemaining()) {
+					continue;
+				}
+				acknowledgement.flip();
+				long next = acknowledgement.getLong();
+				acknowledgement.clear();
+				while (!connection.unacknowledged.isEmpty() && connection.unacknowledged.peek().sequence < next) {
+					connection.unacknowledged.poll();
+				}
+			}
+			if (read < 0) {
+				this.fail(connection);
+			}
+		}
+		catch (IOException ex) {
+			this.fail(connection);
+		}
+	}
+
+	/**
+	 * Closes the failed channel of the given
+	 * connection, it gets re-established later
+	 * on if there are pending or unacknowledged
+	 * frames.
+	 * 
+	 * @param connection	the connection
+	 */
+	private void fail(Connection connection) {
+		closeQuietly(connection.channel);
+		connection.channel = null;
+		connection.connected = false;
+		connection.retryAt = System.nanoTime() + RECONNECT_NANOS;
+	}
+
+	/**
+	 * Accepts a new incoming connection.
+	 */
+	private void accept() {
+		try {
+			SocketChannel channel = server.accept();
+			if (channel == null) {
+				return;
+			}
+			channel.configureBlocking(false);
+			channel.socket().setTcpNoDelay(true);
+			channel.register(selector, SelectionKey.OP_READ, new Incoming());
+		}
+		catch (IOException ex) {
+			// The connecting process retries
+		}
+	}
+
+	/**
+	 * Reads from the given incoming connection
+	 * and puts the complete frames into the inbox.
+	 * 
+	 * @param key			the key of the connection
+	 * @param incoming		the connection
+	 */
+	private void read(SelectionKey key, Incoming incoming) {
+		try {
+			int read = ((SocketChannel) key.channel()).read(incoming.buffer);
+			if (read < 0) {
+				key.cancel();
+				closeQuietly(key.channel());
+				return;
+			}
+		}
+		catch (IOException ex) {
+			key.cancel();
+			closeQuietly(key.channel());
+			return;
+		}
+
+		ByteBuffer buffer = incoming.buffer;
+		buffer.flip();
+
+		// The hello tells the sending process
+		// and the sequence of its first frame
+		if (incoming.source < 0) {
+			if (buffer.remaining() < HELLO_SIZE) {
+				buffer.compact();
+				return;
+			}
+			int source = buffer.getInt();
+			long sourceIncarnation = buffer.getLong();
+			incoming.next = buffer.getLong();
+			if (source < 0 || source >= peers.length) {
+				key.cancel();
+				closeQuietly(key.channel());
+				return;
+			}
+			incoming.source = source;
+			if (incarnations[source] != sourceIncarnation || received[source] < incoming.next) {
+				// A restarted process, or one
+				// which sent the frames before
+				// to a restarted process
+				incarnations[source] = sourceIncarnation;
+				received[source] = incoming.next;
+			}
+		}
+
+		while (buffer.remaining() >= HEADER_SIZE) {
+			int length = buffer.getInt(buffer.position());
+			if (buffer.remaining() < HEADER_SIZE + length) {
+				// Grow the buffer for frames
+				// which do not fit into it
+				if (HEADER_SIZE + length > buffer.capacity()) {
+					ByteBuffer larger = ByteBuffer.allocateDirect(HEADER_SIZE + length);
+					larger.put(buffer);
+					incoming.buffer = larger;
+					this.acknowledge(key, incoming);
+					return;
+				}
+				break;
+			}
+
+			buffer.getInt();
+			int tag = buffer.getInt();
+			if (incoming.next++ < received[incoming.source]) {
+				// Got it before the connection
+				// failed, drop it
+				buffer.position(buffer.position() + length);
+				continue;
+			}
+			byte[] payload = new byte[length];
+			buffer.get(payload);
+			this.queue(incoming.source, tag).add(payload);
+			received[incoming.source]++;
+		}
+
+		buffer.compact();
+		this.acknowledge(key, incoming);
+	}
+
+	/**
+	 * Acknowledges the frames received from the
+	 * sending process of the given incoming
+	 * connection, unless they are already.
+	 * 
+	 * @param key			the key of the connection
+	 * @param incoming		the connection
+	 */
+	private void acknowledge(SelectionKey key, Incoming incoming) {
+		try {
+			ByteBuffer acknowledgement = incoming.acknowledgement;
+			if (!acknowledgement.hasRemaining() && incoming.acknowledged < received[incoming.source]) {
+				incoming.acknowledged = received[incoming.source];
+				acknowledgement.clear();
+				acknowledgement.putLong(incoming.acknowledged);
+				acknowledgement.flip();
+			}
+			if (acknowledgement.hasRemaining()) {
+				((SocketChannel) key.channel()).write(acknowledgement);
+			}
+
+			// Get notified as soon as the channel is
+			// writable again if not all got written
+			boolean more = acknowledgement.hasRemaining() || incoming.acknowledged < received[incoming.source];
+			key.interestOps(SelectionKey.OP_READ | (more ? SelectionKey.OP_WRITE : 0));
+		}
+		catch (IOException ex) {
+			key.cancel();
+			closeQuietly(key.channel());
+		}
+	}
+
+	/**
+	 * Returns the queue of the inbox for messages
+	 * from the given process with the given tag.
+	 * 
+	 * @param source		the rank of the sending process
+	 * @param tag			the tag
+	 * @return				the queue
+	 */
+	private Queue<byte[]> queue(int source, int tag) {
+		Long key = Long.valueOf(((long) source << 32) | (tag & 0xffffffffL));
+		Queue<byte[]> queue = inbox.get(key);
+		if (queue == null) {
+			queue = new ArrayDeque<byte[]>();
+			inbox.put(key, queue);
+		}
+		return queue;
+	}
+
+	/**
+	 * Closes the given resource and
+	 * ignores any failures.
+	 * 
+	 * @param closeable		the resource to close
+	 */
+	private static void closeQuietly(Closeable closeable) {
+		if (closeable == null) {
+			return;
+		}
+		try {
+			closeable.close();
+		}
+		catch (IOException ex) {
+			// Nothing left to do
+		}
+	}
+
+	/**
+	 * An outgoing connection to another process.
+	 */
+	private static class Connection {
+		private int					destination		= 0;
+		private SocketChannel		channel			= null;
+		private boolean				connected		= false;
+		private long				retryAt			= 0;
+		private ByteBuffer			hello			= null;
+		private ByteBuffer			acknowledgement	= ByteBuffer.allocate(ACK_SIZE); // Partly read
+		private long				nextSequence	= 0; // Of the next new frame
+		private ArrayDeque<Send>	pending			= new ArrayDeque<Send>();
+		private ArrayDeque<Send>	unacknowledged	= new ArrayDeque<Send>(); // Written already
+
+		/**
+		 * Constructor
+		 * 
+		 * @param destination	the rank of the receiving process
+		 */
+		Connection(int destination) {
+			this.destination = destination;
+		}
+	}
+
+	/**
+	 * An incoming connection from another process.
+	 */
+	private static class Incoming {
+		private int					source			= -1;
+		private long				next			= 0; // Sequence of the next frame
+		private long				acknowledged	= 0;
+		private ByteBuffer			buffer			= ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+		private ByteBuffer			acknowledgement	= (ByteBuffer) ByteBuffer.allocate(ACK_SIZE).flip(); // Partly written
+	}
+
+	/**
+	 * A send, which completes as soon as
+	 * its frame got written completely.
+	 */
+	private class Send implements Request {
+		private ByteBuffer			header			= null;
+		private ByteBuffer			payload			= null;
+		private long				sequence		= 0;
+		private boolean				completed		= false; // Stays, even if written again
+
+		/**
+		 * Constructor
+		 * 
+		 * @param header		the header of the frame
+		 * @param payload		the payload of the frame
+		 * @param sequence		the sequence of the frame
+		 */
+		Send(ByteBuffer header, ByteBuffer payload, long sequence) {
+			this.header = header;
+			this.payload = payload;
+			this.sequence = sequence;
+		}
+
+		/**
+		 * Checks if the frame got written completely.
+		 * 
+		 * @return		true if it got written,
+		 * 				otherwise false
+		 */
+		boolean isWritten() {
+			return !header.hasRemaining() && !payload.hasRemaining();
+		}
+
+		/* (non-Javadoc)
+		 * @see ch.bfh.ti.ostes2.gossip.Communicator.Request#Test()
+		 */
+		@Override
+		public boolean Test() {
+			if (!completed) {
+				SocketCommunicator.this.progress();
+			}
+			return completed;
+		}
+
+		/* (non-Javadoc)
+		 * @see ch.bfh.ti.ostes2.gossip.Communicator.Request#Wait()
+		 */
+		@Override
+		public void Wait() {
+			while (!this.Test()) {
+				try {
+					selector.select(1);
+				}
+				catch (IOException ex) {
+					throw new IllegalStateException("Selecting channels failed", ex);
+				}
+			}
+		}
+	}
+}
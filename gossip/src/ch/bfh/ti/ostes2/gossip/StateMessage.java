@@ -0,0 +1,266 @@
+/*
+ * StateMessage.java
+ * 
+ * 1.0
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.UUID;
+
+/**
+ * This class acts as container for messages used
+ * to transfer the state of a {@link ReplicationManager}
+ * to another one which joined late or fell far behind.
+ * 
+ * The lagging {@link ReplicationManager} sends a REQUEST,
+ * the neighbor answers with a sequence of CHUNKs, each
+ * holding a part of its messages or of its update-log.
+ * The time stamp of a chunk is the valueTS of the
+ * transferred state, the last chunk is flagged as such.
+ * 
+ * @author sosterwalder
+ *
+ */
+public class StateMessage implements Serializable, Message {
+	private static final long 		serialVersionUID = 4387119253406619382L;
+
+	/**
+	 * The kinds of state messages.
+	 */
+	public enum Kind {
+		REQUEST, CHUNK
+	}
+
+	private UUID 						id = null;
+	private VectorClock 				timestamp = null;
+	private Kind						kind = Kind.REQUEST;
+	private int							sequence = 0;
+	private boolean						last = false;
+	private VectorClock					replicaTimestamp = null;
+	private VectorClock					discardedTimestamp = null;
+	private ArrayList<ActionMessage>	messages = null;
+	private ArrayList<LogRecord>		logRecords = null;
+	private boolean[]					executed = null;
+
+	/**
+	 * Constructor
+	 */
+	public StateMessage() {
+		this(UUID.randomUUID());
+	}
+
+	/**
+	 * Constructor for an existing {@link StateMessage},
+	 * e.g. when decoding it.
+	 * 
+	 * @param id		the unique ID of the message
+	 */
+	StateMessage(UUID id) {
+		this.id = id;
+	}
+
+	/* (non-Javadoc)
+	 * @see ch.bfh.ti.ostes2.gossip.Message#getId()
+	 */
+	@Override
+	public UUID getId() {
+		return id;
+	}
+
+	/* (non-Javadoc)
+	 * @see ch.bfh.ti.ostes2.gossip.Message#getTimestamp()
+	 */
+	@Override
+	public VectorClock getTimestamp() {
+		return timestamp;
+	}
+
+	/* (non-Javadoc)
+	 * @see ch.bfh.ti.ostes2.gossip.Message#setTimestamp(ch.bfh.ti.ostes2.gossip.VectorClock)
+	 */
+	@Override
+	public void setTimestamp(VectorClock timestamp) {
+		this.timestamp = timestamp;
+	}
+
+	/**
+	 * Returns the kind of this message.
+	 * 
+	 * @return		the kind
+	 */
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * Sets the kind of this message.
+	 * 
+	 * @param kind		the kind
+	 */
+	public void setKind(Kind kind) {
+		this.kind = kind;
+	}
+
+	/**
+	 * Returns the position of this chunk
+	 * within the transfer, starting at 0.
+	 * 
+	 * @return		the sequence number
+	 */
+	public int getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Sets the position of this chunk
+	 * within the transfer.
+	 * 
+	 * @param sequence		the sequence number
+	 */
+	public void setSequence(int sequence) {
+		this.sequence = sequence;
+	}
+
+	/**
+	 * Returns if this is the last
+	 * chunk of the transfer.
+	 * 
+	 * @return		true if it is the last chunk,
+	 * 				otherwise false
+	 */
+	public boolean isLast() {
+		return last;
+	}
+
+	/**
+	 * Sets if this is the last
+	 * chunk of the transfer.
+	 * 
+	 * @param last		true for the last chunk
+	 */
+	public void setLast(boolean last) {
+		this.last = last;
+	}
+
+	/**
+	 * Returns the replicaTS of the
+	 * transferred state.
+	 * 
+	 * @return		the replicaTS
+	 */
+	public VectorClock getReplicaTimestamp() {
+		return replicaTimestamp;
+	}
+
+	/**
+	 * Sets the replicaTS of the
+	 * transferred state.
+	 * 
+	 * @param replicaTimestamp	the replicaTS
+	 */
+	public void setReplicaTimestamp(VectorClock replicaTimestamp) {
+		this.replicaTimestamp = replicaTimestamp;
+	}
+
+	/**
+	 * Returns the time stamp up to which
+	 * the update-log of the transferred
+	 * state got cleaned.
+	 * 
+	 * @return		the discarded time stamp
+	 */
+	public VectorClock getDiscardedTimestamp() {
+		return discardedTimestamp;
+	}
+
+	/**
+	 * Sets the time stamp up to which
+	 * the update-log of the transferred
+	 * state got cleaned.
+	 * 
+	 * @param discardedTimestamp	the discarded time stamp
+	 */
+	public void setDiscardedTimestamp(VectorClock discardedTimestamp) {
+		this.discardedTimestamp = discardedTimestamp;
+	}
+
+	/**
+	 * Returns the messages of the value
+	 * store within this chunk.
+	 * 
+	 * @return		the messages, may be null
+	 */
+	public ArrayList<ActionMessage> getMessages() {
+		return messages;
+	}
+
+	/**
+	 * Sets the messages of the value
+	 * store within this chunk.
+	 * 
+	 * @param messages		the messages
+	 */
+	public void setMessages(ArrayList<ActionMessage> messages) {
+		this.messages = messages;
+	}
+
+	/**
+	 * Returns the records of the update-log
+	 * within this chunk.
+	 * 
+	 * @return		the records, may be null
+	 */
+	public ArrayList<LogRecord> getLogRecords() {
+		return logRecords;
+	}
+
+	/**
+	 * Returns for every record within this
+	 * chunk if it was executed already.
+	 * 
+	 * @return		the executed flags, may be null
+	 */
+	public boolean[] getExecuted() {
+		return executed;
+	}
+
+	/**
+	 * Sets the records of the update-log within
+	 * this chunk and if they were executed.
+	 * 
+	 * @param logRecords	the records
+	 * @param executed		the executed flags, one
+	 * 						per record
+	 */
+	public void setLogRecords(ArrayList<LogRecord> logRecords, boolean[] executed) {
+		this.logRecords = logRecords;
+		this.executed = executed;
+	}
+}
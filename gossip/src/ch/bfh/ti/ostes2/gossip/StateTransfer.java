@@ -0,0 +1,196 @@
+/*
+ * StateTransfer.java
+ * 
+ * 1.1
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Splits the state of a {@link ReplicationManager}, taken
+ * as {@link Snapshot}, into {@link StateMessage} chunks for
+ * a {@link ReplicationManager} which joined late or fell
+ * far behind, and assembles the received chunks again.
+ * 
+ * The messages of the value store come first, followed by
+ * the records of the update-log. Every chunk holds at most
+ * the given number of messages and records together, so
+ * the size of a chunk stays bounded and the transfer can
+ * be interleaved with the usual work of the sender.
+ * 
+ * @author sosterwalder
+ *
+ */
+public class StateTransfer {
+	private Snapshot					snapshot	= null;
+	private int							destination	= 0;
+	private int							chunkSize	= 0;
+	private Iterator<ActionMessage>		messages	= null;
+	private int							nextRecord	= 0;
+	private int							sequence	= 0;
+	private boolean						finished	= false;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param snapshot		the state to transfer, its messages
+	 * 						must not change until the transfer
+	 * 						is finished
+	 * @param destination	the rank of the receiving
+	 * 						{@link ReplicationManager}
+	 * @param chunkSize		the maximal number of messages and
+	 * 						records per chunk
+	 */
+	public StateTransfer(Snapshot snapshot, int destination, int chunkSize) {
+		this.snapshot = snapshot;
+		this.destination = destination;
+		this.chunkSize = Math.max(1, chunkSize);
+		this.messages = snapshot.getMessages().iterator();
+	}
+
+	/**
+	 * Returns the transferred state.
+	 * 
+	 * @return		the snapshot
+	 */
+	public Snapshot getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Returns the rank of the receiving
+	 * {@link ReplicationManager}.
+	 * 
+	 * @return		the rank
+	 */
+	public int getDestination() {
+		return destination;
+	}
+
+	/**
+	 * Returns the number of chunks
+	 * built so far.
+	 * 
+	 * @return		the number of chunks
+	 */
+	public int getChunks() {
+		return sequence;
+	}
+
+	/**
+	 * Returns if there are chunks left.
+	 * 
+	 * @return		true if the last chunk was not
+	 * 				built yet, otherwise false
+	 */
+	public boolean hasNext() {
+		return !finished;
+	}
+
+	/**
+	 * Builds the next chunk. Even an empty
+	 * state is transferred as one chunk.
+	 * 
+	 * @return		the chunk
+	 */
+	public StateMessage nextChunk() {
+		if (finished) {
+			throw new IllegalStateException("The state transfer is finished already");
+		}
+
+		ArrayList<ActionMessage> chunkMessages = new ArrayList<ActionMessage>();
+		while (chunkMessages.size() < chunkSize && messages.hasNext()) {
+			chunkMessages.add(messages.next());
+		}
+
+		LogRecord[] records = snapshot.getRecords();
+		int count = Math.min(chunkSize - chunkMessages.size(), records.length - nextRecord);
+		ArrayList<LogRecord> chunkRecords = new ArrayList<LogRecord>(
+			Arrays.asList(records).subList(nextRecord, nextRecord + count)
+		);
+		boolean[] executed = Arrays.copyOfRange(snapshot.getExecuted(), nextRecord, nextRecord + count);
+		nextRecord += count;
+		finished = !messages.hasNext() && nextRecord == records.length;
+
+		StateMessage chunk = new StateMessage();
+		chunk.setKind(StateMessage.Kind.CHUNK);
+		chunk.setSequence(sequence++);
+		chunk.setLast(finished);
+		chunk.setTimestamp(snapshot.getValueTimestamp());
+		chunk.setReplicaTimestamp(snapshot.getReplicaTimestamp());
+		chunk.setDiscardedTimestamp(snapshot.getDiscardedTimestamp());
+		chunk.setMessages(chunkMessages);
+		chunk.setLogRecords(chunkRecords, executed);
+		return chunk;
+	}
+
+	/**
+	 * Assembles the given chunks, in the order of
+	 * their sequence numbers, to the transferred
+	 * state. The time stamps are the ones of the
+	 * last chunk.
+	 * 
+	 * @param chunks		all chunks of a transfer
+	 * @return				the transferred state
+	 */
+	public static Snapshot assemble(List<StateMessage> chunks) {
+		ArrayList<ActionMessage> messages = new ArrayList<ActionMessage>();
+		ArrayList<LogRecord> records = new ArrayList<LogRecord>();
+		int executedCount = 0;
+		boolean[] executed = new boolean[16];
+		for (StateMessage chunk : chunks) {
+			if (chunk.getMessages() != null) {
+				messages.addAll(chunk.getMessages());
+			}
+			if (chunk.getLogRecords() != null) {
+				records.addAll(chunk.getLogRecords());
+				if (executedCount + chunk.getExecuted().length > executed.length) {
+					executed = Arrays.copyOf(executed, Math.max(executed.length << 1, executedCount + chunk.getExecuted().length));
+				}
+				System.arraycopy(chunk.getExecuted(), 0, executed, executedCount, chunk.getExecuted().length);
+				executedCount += chunk.getExecuted().length;
+			}
+		}
+
+		StateMessage last = chunks.get(chunks.size() - 1);
+		return new Snapshot(
+			0,
+			last.getTimestamp(),
+			last.getReplicaTimestamp(),
+			last.getDiscardedTimestamp(),
+			messages,
+			records.toArray(new LogRecord[records.size()]),
+			Arrays.copyOf(executed, executedCount),
+			new long[0]
+		);
+	}
+}
@@ -0,0 +1,547 @@
+/*
+ * TextIndex.java
+ * 
+ * 1.0
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * An inverted index over the titles and bodies of the
+ * {@link ActionMessage}s of a {@link ValueStore}, for
+ * searching messages by terms and prefixes of terms.
+ * 
+ * A term is a run of letters or digits in lower case, cut
+ * after MAX_TERM_LENGTH characters. Every indexed message
+ * is a document with a number, the numbers are given in
+ * ascending order, so a newer message has a higher number.
+ * The posting list of a term holds the numbers of the
+ * documents containing it, in ascending order, in blocks of
+ * BLOCK_SIZE numbers. Within a block, every number is stored
+ * as the difference to the previous one, encoded as varint:
+ * 
+ * 	[first number][difference][difference]...
+ * 
+ * so indexing a document appends to the end of the lists.
+ * The offsets of the blocks are kept, so a list can be
+ * decoded block by block from its end, i.e. newest first.
+ * The terms are kept sorted, so the terms starting with a
+ * prefix are next to each other.
+ * 
+ * Searching decodes the posting list of the rarest term
+ * from its end only, until enough messages are found, so
+ * its cost depends on the number of messages containing
+ * that term and not on the number of messages at all.
+ * 
+ * Removing a message marks its document as removed only,
+ * the posting lists still hold its number and searching
+ * skips it. A changed message gets a new document, unless
+ * its text is the same. As soon as there are more removed
+ * documents than stored ones, the documents are numbered
+ * anew and the posting lists are re-encoded without the
+ * removed ones, so the memory needed stays bounded by the
+ * stored messages.
+ * 
+ * @author sosterwalder
+ *
+ */
+public class TextIndex {
+	public static final int		MAX_TERM_LENGTH		= 32;
+
+	private static final int	MIN_COMPACTION		= 1024; // Removed documents before compacting
+	private static final int	BLOCK_SIZE			= 128; // Numbers per block of a posting list
+
+	/**
+	 * The numbers of the documents containing
+	 * a term, delta and varint encoded in blocks.
+	 */
+	private static class PostingList {
+		byte[]					data			= new byte[8];
+		int						length			= 0; // Used bytes of data
+		int						count			= 0;
+		int						last			= 0; // Number of the last document
+		int[]					blocks			= new int[1]; // Offsets of the blocks within data
+		int						blockCount		= 0;
+
+		/**
+		 * Appends the given number, which is higher
+		 * than all numbers within the list.
+		 * 
+		 * @param document	the number of the document
+		 */
+		void add(int document) {
+			if (length + 5 > data.length) {
+				data = Arrays.copyOf(data, Math.max(data.length << 1, length + 5));
+			}
+
+			int delta = document - last;
+			if (count % BLOCK_SIZE == 0) {
+				if (blockCount == blocks.length) {
+					blocks = Arrays.copyOf(blocks, blockCount << 1);
+				}
+				blocks[blockCount++] = length;
+				delta = document;
+			}
+			while ((delta & ~0x7F) != 0) {
+				data[length++] = (byte) ((delta & 0x7F) | 0x80);
+				delta >>>= 7;
+			}
+			data[length++] = (byte) delta;
+			last = document;
+			count++;
+		}
+
+		/**
+		 * Decodes the numbers of the given block.
+		 * 
+		 * @param block		the index of the block
+		 * @param documents	receives the numbers, ascending,
+		 * 					at least BLOCK_SIZE long
+		 * @return			the number of decoded numbers
+		 */
+		int decode(int block, int[] documents) {
+			int size = block == blockCount - 1 ? count - block * BLOCK_SIZE : BLOCK_SIZE;
+			int position = blocks[block];
+			int document = 0;
+			for (int i = 0; i < size; i++) {
+				int delta = 0;
+				int shift = 0;
+				byte b;
+				do {
+					b = data[position++];
+					delta |= (b & 0x7F) << shift;
+					shift += 7;
+				} while ((b & 0x80) != 0);
+				document += delta;
+				documents[i] = document;
+			}
+			return size;
+		}
+
+		/**
+		 * Decodes the numbers of the list.
+		 * 
+		 * @return			the numbers, ascending
+		 */
+		int[] decode() {
+			int[] documents = new int[blockCount * BLOCK_SIZE];
+			int[] block = new int[BLOCK_SIZE];
+			for (int i = 0; i < blockCount; i++) {
+				System.arraycopy(block, 0, documents, i * BLOCK_SIZE, this.decode(i, block));
+			}
+			return Arrays.copyOf(documents, count);
+		}
+
+		/**
+		 * Removes all the numbers.
+		 */
+		void clear() {
+			length = 0;
+			count = 0;
+			last = 0;
+			blockCount = 0;
+		}
+	}
+
+	private TreeMap<String, PostingList>	terms			= new TreeMap<String, PostingList>();
+	private ActionMessage[]					documents		= new ActionMessage[64]; // Null if removed
+	private int								documentCount	= 0; // Next number of a document
+	private HashMap<UUID, Integer>			documentIds		= new HashMap<UUID, Integer>(); // Of the stored messages
+	private int								removed			= 0;
+
+	/**
+	 * Returns the number of indexed messages.
+	 * 
+	 * @return			the number of messages
+	 */
+	public int size() {
+		return documentIds.size();
+	}
+
+	/**
+	 * Returns the number of distinct terms.
+	 * 
+	 * @return			the number of terms
+	 */
+	public int getTermCount() {
+		return terms.size();
+	}
+
+	/**
+	 * Indexes the given, newly inserted message.
+	 * 
+	 * @param msg		the inserted message
+	 */
+	public void add(ActionMessage msg) {
+		if (documentCount == documents.length) {
+			documents = Arrays.copyOf(documents, documents.length << 1);
+		}
+		int document = documentCount++;
+		documents[document] = msg;
+		documentIds.put(msg.getId(), document);
+
+		HashSet<String> seen = new HashSet<String>();
+		this.addTerms(msg.getTitle(), document, seen);
+		this.addTerms(msg.getBody(), document, seen);
+	}
+
+	/**
+	 * Replaces the given indexed message by its changed
+	 * copy. The copy gets indexed as a new document,
+	 * unless its title and body are the same.
+	 * 
+	 * @param old		the indexed message
+	 * @param msg		the changed copy
+	 */
+	public void replace(ActionMessage old, ActionMessage msg) {
+		if (equal(old.getTitle(), msg.getTitle()) && equal(old.getBody(), msg.getBody())) {
+			documents[this.getDocument(old)] = msg;
+		}
+		else {
+			this.remove(old);
+			this.add(msg);
+		}
+	}
+
+	/**
+	 * Removes the given indexed message.
+	 * 
+	 * @param old		the indexed message
+	 */
+	public void remove(ActionMessage old) {
+		documents[this.getDocument(old)] = null;
+		documentIds.remove(old.getId());
+		removed++;
+
+		if (removed >= MIN_COMPACTION && removed > documentIds.size()) {
+			this.compact();
+		}
+	}
+
+	/**
+	 * Returns the newest messages containing all the
+	 * terms of the given text. If prefix is set, the
+	 * last term of the text matches all terms starting
+	 * with it, e.g. while the text is being typed.
+	 * 
+	 * Only the posting list of the rarest term gets
+	 * decoded, newest block first until enough messages
+	 * are found, or the ones of the prefix if they hold
+	 * less documents. The other terms are looked up within
+	 * the text of the documents found, so a search is as
+	 * fast as its rarest term is rare.
+	 * 
+	 * @param text		the text to search for
+	 * @param prefix	whether the last term
+	 * 					is a prefix
+	 * @param limit		the maximal number of messages
+	 * @return			the messages, newest first
+	 */
+	public ArrayList<ActionMessage> search(String text, boolean prefix, int limit) {
+		ArrayList<String> searched = tokenize(text);
+		ArrayList<ActionMessage> found = new ArrayList<ActionMessage>();
+		if (searched.isEmpty()) {
+			return found;
+		}
+		String searchedPrefix = prefix ? searched.remove(searched.size() - 1) : null;
+
+		// Find the rarest term
+		PostingList rarest = null;
+		String rarestTerm = null;
+		for (String term : searched) {
+			PostingList list = terms.get(term);
+			if (list == null) {
+				return found;
+			}
+			if (rarest == null || list.count < rarest.count) {
+				rarest = list;
+				rarestTerm = term;
+			}
+		}
+
+		if (searchedPrefix != null && this.isRarer(searchedPrefix, rarest)) {
+			int[] candidates = this.getPostingsOfPrefix(searchedPrefix);
+			this.collect(candidates, candidates.length, searched, null, limit, found);
+			return found;
+		}
+
+		// Its documents contain it anyway
+		searched.removeAll(Collections.singleton(rarestTerm));
+		int[] block = new int[BLOCK_SIZE];
+		for (int i = rarest.blockCount - 1; i >= 0 && found.size() < limit; i--) {
+			this.collect(block, rarest.decode(i, block), searched, searchedPrefix, limit, found);
+		}
+		return found;
+	}
+
+	/**
+	 * Adds the stored messages of the given documents
+	 * which contain the given terms and prefix to the
+	 * found ones, newest first.
+	 * 
+	 * @param candidates	the numbers of the documents,
+	 * 						ascending
+	 * @param count			the number of documents
+	 * @param searched		the terms
+	 * @param prefix		the prefix, null if none
+	 * @param limit			the maximal number of messages
+	 * @param found			receives the messages
+	 */
+	private void collect(int[] candidates, int count, ArrayList<String> searched, String prefix, int limit, ArrayList<ActionMessage> found) {
+		for (int i = count - 1; i >= 0 && found.size() < limit; i--) {
+			ActionMessage msg = documents[candidates[i]];
+			if (msg != null && contains(msg, searched, prefix)) {
+				found.add(msg);
+			}
+		}
+	}
+
+	/**
+	 * Checks if the terms starting with the given prefix
+	 * occur in less documents than the given term,
+	 * stopping as soon as they don't.
+	 * 
+	 * @param prefix	the prefix
+	 * @param term		the posting list of the
+	 * 					term, may be null
+	 * @return			true if the prefix is rarer
+	 */
+	private boolean isRarer(String prefix, PostingList term) {
+		if (term == null) {
+			return true;
+		}
+
+		long count = 0;
+		for (PostingList list : terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+			count += list.count;
+			if (count >= term.count) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if the title or the body of the given
+	 * message contain all the given terms and a term
+	 * starting with the given prefix.
+	 * 
+	 * @param msg		the message
+	 * @param searched	the terms
+	 * @param prefix	the prefix, null if none
+	 * @return			true if the message
+	 * 					contains them
+	 */
+	private static boolean contains(ActionMessage msg, ArrayList<String> searched, String prefix) {
+		if (searched.isEmpty() && prefix == null) {
+			return true;
+		}
+		HashSet<String> contained = new HashSet<String>(tokenize(msg.getTitle()));
+		contained.addAll(tokenize(msg.getBody()));
+		if (!contained.containsAll(searched)) {
+			return false;
+		}
+		if (prefix == null) {
+			return true;
+		}
+
+		for (String term : contained) {
+			if (term.startsWith(prefix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the documents containing a term
+	 * starting with the given prefix.
+	 * 
+	 * @param prefix	the prefix
+	 * @return			the numbers of the
+	 * 					documents, ascending
+	 */
+	private int[] getPostingsOfPrefix(String prefix) {
+		Map<String, PostingList> matching = terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+		if (matching.size() == 1) {
+			return matching.values().iterator().next().decode();
+		}
+
+		// Several terms may occur in the
+		// same document, remove duplicates
+		int total = 0;
+		for (PostingList list : matching.values()) {
+			total += list.count;
+		}
+		int[] postings = new int[total];
+		int count = 0;
+		for (PostingList list : matching.values()) {
+			int[] decoded = list.decode();
+			System.arraycopy(decoded, 0, postings, count, decoded.length);
+			count += decoded.length;
+		}
+		Arrays.sort(postings);
+
+		int distinct = 0;
+		for (int i = 0; i < postings.length; i++) {
+			if (distinct == 0 || postings[distinct - 1] != postings[i]) {
+				postings[distinct++] = postings[i];
+			}
+		}
+		return Arrays.copyOf(postings, distinct);
+	}
+
+	/**
+	 * Numbers the stored documents anew and removes
+	 * the removed ones from the posting lists.
+	 */
+	private void compact() {
+		int[] renumbered = new int[documentCount];
+		ActionMessage[] stored = new ActionMessage[Math.max(64, Integer.highestOneBit(Math.max(1, documentIds.size())) << 1)];
+		int count = 0;
+		for (int i = 0; i < documentCount; i++) {
+			if (documents[i] != null) {
+				stored[count] = documents[i];
+				documentIds.put(documents[i].getId(), count);
+				renumbered[i] = count++;
+			}
+			else {
+				renumbered[i] = -1;
+			}
+		}
+
+		Iterator<PostingList> lists = terms.values().iterator();
+		while (lists.hasNext()) {
+			PostingList list = lists.next();
+			int[] postings = list.decode();
+			list.clear();
+			for (int document : postings) {
+				if (renumbered[document] >= 0) {
+					list.add(renumbered[document]);
+				}
+			}
+			if (list.count == 0) {
+				lists.remove();
+			}
+			else if (list.data.length > 2 * list.length + 8) {
+				list.data = Arrays.copyOf(list.data, list.length);
+				list.blocks = Arrays.copyOf(list.blocks, list.blockCount);
+			}
+		}
+
+		documents = stored;
+		documentCount = count;
+		removed = 0;
+	}
+
+	/**
+	 * Adds the terms of the given text to
+	 * the posting lists of the given document.
+	 * 
+	 * @param text		the text
+	 * @param document	the number of the document
+	 * @param seen		the terms added already
+	 */
+	private void addTerms(String text, int document, HashSet<String> seen) {
+		for (String term : tokenize(text)) {
+			if (seen.add(term)) {
+				PostingList list = terms.get(term);
+				if (list == null) {
+					list = new PostingList();
+					terms.put(term, list);
+				}
+				list.add(document);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of the
+	 * document of the given message.
+	 * 
+	 * @param msg		the indexed message
+	 * @return			the number of its document
+	 */
+	private int getDocument(ActionMessage msg) {
+		Integer document = documentIds.get(msg.getId());
+		if (document == null) {
+			throw new IllegalStateException("Message " + msg.getId() + " is not indexed");
+		}
+		return document;
+	}
+
+	/**
+	 * Splits the given text into its terms, runs of
+	 * letters or digits in lower case, cut after
+	 * MAX_TERM_LENGTH characters.
+	 * 
+	 * @param text		the text, may be null
+	 * @return			the terms, in the order
+	 * 					of the text
+	 */
+	static ArrayList<String> tokenize(String text) {
+		ArrayList<String> tokens = new ArrayList<String>();
+		if (text == null) {
+			return tokens;
+		}
+
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			boolean inTerm = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+			if (inTerm && start < 0) {
+				start = i;
+			}
+			else if (!inTerm && start >= 0) {
+				tokens.add(text.substring(start, Math.min(i, start + MAX_TERM_LENGTH)).toLowerCase(Locale.ROOT));
+				start = -1;
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * Checks if the given strings are equal.
+	 * 
+	 * @param one		the first string, may be null
+	 * @param two		the second string, may be null
+	 * @return			true if they are equal
+	 */
+	private static boolean equal(String one, String two) {
+		return one == null ? two == null : one.equals(two);
+	}
+}
@@ -0,0 +1,389 @@
+/*
+ * TimerWheel.java
+ * 
+ * 1.0
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+/**
+ * A hashed timer wheel driving the periodic
+ * work of a process, e.g. the gossip rounds of a
+ * {@link ReplicationManager}, the updates of a
+ * {@link Frontend} or the end of the running time.
+ * 
+ * The time since the start of the wheel (as given by
+ * System.nanoTime()) is divided into ticks, each tick
+ * maps to one of the buckets of the wheel. A timer
+ * gets stored in the bucket of the tick its deadline
+ * falls into, together with the number of rounds
+ * the wheel has to turn before it is due. Scheduling
+ * and cancelling are therefore constant in time and
+ * expiring only touches the buckets of passed ticks.
+ * 
+ * Timers fire at the earliest at their deadline
+ * and at the latest one tick plus the time between
+ * two calls of expire() afterwards. The lateness of
+ * every firing gets handed to the task and is
+ * recorded within the {@link Timer}.
+ * 
+ * @author sosterwalder
+ *
+ */
+public class TimerWheel {
+	/**
+	 * The work to do when a {@link Timer} fires.
+	 */
+	public interface Task {
+		/**
+		 * Runs the task.
+		 * 
+		 * @param latenessNanos		the time in nanoseconds the
+		 * 							timer fired after its deadline
+		 */
+		void run(long latenessNanos);
+	}
+
+	/**
+	 * A timer of the {@link TimerWheel}, either firing
+	 * once or periodically at a fixed rate.
+	 */
+	public static class Timer {
+		private String		name				= null;
+		private Task		task				= null;
+		private long		deadline			= 0;
+		private long		interval			= 0; // 0 for timers firing once
+		private long		rounds				= 0;
+		private int			bucket				= 0;
+		private Timer		previous			= null;
+		private Timer		next				= null;
+		private boolean		scheduled			= false;
+		private long		fired				= 0;
+		private long		skipped				= 0;
+		private long		totalLateness		= 0;
+		private long		maxLateness			= 0;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param name			the name of the timer
+		 * @param task			the task to run
+		 * @param deadline		the first deadline in nanoseconds
+		 * @param interval		the interval in nanoseconds,
+		 * 						0 for timers firing once
+		 */
+		private Timer(String name, Task task, long deadline, long interval) {
+			this.name = name;
+			this.task = task;
+			this.deadline = deadline;
+			this.interval = interval;
+		}
+
+		/**
+		 * Returns the name of the timer.
+		 * 
+		 * @return		the name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns how many times the timer fired.
+		 * 
+		 * @return		the number of firings
+		 */
+		public long getFired() {
+			return fired;
+		}
+
+		/**
+		 * Returns how many periods of a periodic
+		 * timer got skipped because the timer
+		 * fired too late.
+		 * 
+		 * @return		the number of skipped periods
+		 */
+		public long getSkipped() {
+			return skipped;
+		}
+
+		/**
+		 * Returns the average lateness of
+		 * the firings in nanoseconds.
+		 * 
+		 * @return		the average lateness
+		 */
+		public long getAverageLateness() {
+			return fired == 0 ? 0 : totalLateness / fired;
+		}
+
+		/**
+		 * Returns the maximal lateness of
+		 * the firings in nanoseconds.
+		 * 
+		 * @return		the maximal lateness
+		 */
+		public long getMaxLateness() {
+			return maxLateness;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return String.format(
+				"Timer %s: fired %d, skipped %d, lateness avg %d us, max %d us",
+				name, fired, skipped, getAverageLateness() / 1000, maxLateness / 1000
+			);
+		}
+	}
+
+	private Timer[]			buckets			= null;
+	private int				mask			= 0;
+	private long			tickNanos		= 0;
+	private long			startNanos		= 0;
+	private long			currentTick		= 0; // The next tick to expire
+
+	/**
+	 * Constructor
+	 * 
+	 * @param tickNanos		the duration of a tick in nanoseconds
+	 * @param ticks			the number of ticks per turn of the
+	 * 						wheel, rounded up to a power of two
+	 * @param startNanos	the start of the wheel as given
+	 * 						by System.nanoTime()
+	 */
+	public TimerWheel(long tickNanos, int ticks, long startNanos) {
+		if (tickNanos <= 0 || ticks <= 0) {
+			throw new IllegalArgumentException(
+				String.format(
+					"Invalid timer wheel: tick %d ns, %d ticks", tickNanos, ticks
+				)
+			);
+		}
+
+		int size = Integer.highestOneBit(ticks);
+		if (size < ticks) {
+			size <<= 1;
+		}
+
+		this.buckets = new Timer[size];
+		this.mask = size - 1;
+		this.tickNanos = tickNanos;
+		this.startNanos = startNanos;
+	}
+
+	/**
+	 * Schedules a timer firing once
+	 * at the given deadline.
+	 * 
+	 * @param name			the name of the timer
+	 * @param deadline		the deadline as given
+	 * 						by System.nanoTime()
+	 * @param task			the task to run
+	 * @return				the timer
+	 */
+	public Timer schedule(String name, long deadline, Task task) {
+		Timer timer = new Timer(name, task, deadline, 0);
+		this.add(timer);
+		return timer;
+	}
+
+	/**
+	 * Schedules a timer firing periodically at a
+	 * fixed rate, the first time one interval after
+	 * the start of the wheel. Periods which passed
+	 * completely while the timer was late are skipped
+	 * instead of firing in a burst.
+	 * 
+	 * @param name			the name of the timer
+	 * @param interval		the interval in nanoseconds
+	 * @param task			the task to run
+	 * @return				the timer
+	 */
+	public Timer schedulePeriodic(String name, long interval, Task task) {
+		if (interval <= 0) {
+			throw new IllegalArgumentException(
+				String.format(
+					"Invalid interval of timer %s: %d ns", name, interval
+				)
+			);
+		}
+
+		Timer timer = new Timer(name, task, startNanos + interval, interval);
+		this.add(timer);
+		return timer;
+	}
+
+	/**
+	 * Cancels the given timer, it
+	 * does not fire anymore.
+	 * 
+	 * @param timer			the timer to cancel
+	 */
+	public void cancel(Timer timer) {
+		if (timer.scheduled) {
+			this.remove(timer);
+		}
+		timer.interval = 0;
+	}
+
+	/**
+	 * Fires all timers whose ticks passed.
+	 * 
+	 * @param now			the current time as given
+	 * 						by System.nanoTime()
+	 * @return				the number of fired timers
+	 */
+	public int expire(long now) {
+		long lastTick = (now - startNanos) / tickNanos;
+		int firings = 0;
+
+		// Only ticks which passed completely are
+		// expired, so no timer fires too early
+		while (currentTick < lastTick) {
+			int bucket = (int) (currentTick & mask);
+			Timer due = null;
+
+			// Collect the due timers first, periodic
+			// timers may get rescheduled into the
+			// same bucket
+			Timer timer = buckets[bucket];
+			while (timer != null) {
+				Timer next = timer.next;
+				if (timer.rounds > 0) {
+					timer.rounds--;
+				}
+				else {
+					this.remove(timer);
+					timer.next = due;
+					due = timer;
+				}
+				timer = next;
+			}
+
+			// Timers scheduled by the tasks for
+			// a passed tick go to the next one
+			currentTick++;
+
+			while (due != null) {
+				Timer next = due.next;
+				due.next = null;
+				this.fire(due, now);
+				firings++;
+				due = next;
+			}
+		}
+
+		return firings;
+	}
+
+	/**
+	 * Returns the time until the current tick
+	 * passed and expire() may fire timers again.
+	 * 
+	 * @param now			the current time as given
+	 * 						by System.nanoTime()
+	 * @return				the time in nanoseconds
+	 */
+	public long nanosToNextTick(long now) {
+		return startNanos + (currentTick + 1) * tickNanos - now;
+	}
+
+	/**
+	 * Runs the task of the given timer and
+	 * reschedules it if it is periodic.
+	 * 
+	 * @param timer			the due timer
+	 * @param now			the current time
+	 */
+	private void fire(Timer timer, long now) {
+		long lateness = now - timer.deadline;
+		timer.fired++;
+		timer.totalLateness += lateness;
+		timer.maxLateness = Math.max(timer.maxLateness, lateness);
+
+		timer.task.run(lateness);
+
+		// The task may have cancelled the timer
+		if (timer.interval > 0 && !timer.scheduled) {
+			timer.deadline += timer.interval;
+			if (timer.deadline - now <= 0) {
+				long missed = (now - timer.deadline) / timer.interval + 1;
+				timer.skipped += missed;
+				timer.deadline += missed * timer.interval;
+			}
+			this.add(timer);
+		}
+	}
+
+	/**
+	 * Adds the given timer to the bucket
+	 * of the tick of its deadline.
+	 * 
+	 * @param timer			the timer to add
+	 */
+	private void add(Timer timer) {
+		long tick = (timer.deadline - startNanos) / tickNanos;
+		if (tick < currentTick) {
+			tick = currentTick;
+		}
+
+		int bucket = (int) (tick & mask);
+		timer.rounds = (tick - currentTick) / buckets.length;
+		timer.bucket = bucket;
+		timer.previous = null;
+		timer.next = buckets[bucket];
+		if (timer.next != null) {
+			timer.next.previous = timer;
+		}
+		buckets[bucket] = timer;
+		timer.scheduled = true;
+	}
+
+	/**
+	 * Removes the given timer from its bucket.
+	 * 
+	 * @param timer			the timer to remove
+	 */
+	private void remove(Timer timer) {
+		if (timer.previous != null) {
+			timer.previous.next = timer.next;
+		}
+		else {
+			buckets[timer.bucket] = timer.next;
+		}
+		if (timer.next != null) {
+			timer.next.previous = timer.previous;
+		}
+		timer.previous = null;
+		timer.next = null;
+		timer.scheduled = false;
+	}
+}
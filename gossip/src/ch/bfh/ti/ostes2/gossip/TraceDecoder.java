@@ -0,0 +1,156 @@
+/*
+ * TraceDecoder.java
+ * 
+ * 1.0
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * Decodes the traces dumped by {@link EventTracer}s to
+ * text, one line per event. The events of all given
+ * traces are merged in the order of their (wall-clock)
+ * time, so the traces of all processes of a run give
+ * the whole course of the protocol.
+ * 
+ * Usage: TraceDecoder trace [trace ...]
+ * 
+ * @author sosterwalder
+ *
+ */
+class TraceDecoder {
+
+	/**
+	 * A decoded event.
+	 */
+	private static class Entry {
+		long	nanos	= 0; // Since the epoch
+		int		event	= 0;
+		int		rank	= 0;
+		int		peer	= 0;
+		int		value	= 0;
+		UUID	id		= null;
+	}
+
+	/**
+	 * Decodes the given traces.
+	 * 
+	 * @param args		the files of the traces
+	 * @throws IOException
+	 */
+	public static void main(String args[]) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: TraceDecoder trace [trace ...]");
+			return;
+		}
+
+		ArrayList<Entry> entries = new ArrayList<Entry>();
+		for (String file : args) {
+			long lost = read(new File(file), entries);
+			if (lost > 0) {
+				System.out.println(String.format("# %s: %d older events got overwritten", file, lost));
+			}
+		}
+
+		Collections.sort(entries, new Comparator<Entry>() {
+			@Override
+			public int compare(Entry entryOne, Entry entryTwo) {
+				return Long.compare(entryOne.nanos, entryTwo.nanos);
+			}
+		});
+
+		EventTracer.Event[] events = EventTracer.Event.values();
+		long firstNanos = entries.isEmpty() ? 0 : entries.get(0).nanos;
+		for (Entry entry : entries) {
+			System.out.println(
+				String.format(
+					"%12.3f ms  %3d  %-16s %4s %8d  %s",
+					(entry.nanos - firstNanos) / 1e6d,
+					entry.rank,
+					entry.event < events.length ? events[entry.event].toString() : String.valueOf(entry.event),
+					entry.peer < 0 ? "-" : String.valueOf(entry.peer),
+					entry.value,
+					entry.id == null ? "-" : entry.id.toString()
+				)
+			);
+		}
+	}
+
+	/**
+	 * Reads the events of the given trace.
+	 * 
+	 * @param file			the file of the trace
+	 * @param entries		receives the events
+	 * @return				the number of overwritten events
+	 * @throws IOException
+	 */
+	private static long read(File file, ArrayList<Entry> entries) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			if (in.readInt() != EventTracer.MAGIC || in.readInt() != EventTracer.VERSION) {
+				throw new IOException("Not a trace: " + file);
+			}
+			in.readInt(); // The rank, every record holds it
+			int count = in.readInt();
+			long recorded = in.readLong();
+			long startMillis = in.readLong();
+			long startNanos = in.readLong();
+
+			// The monotonic time is converted to wall-clock
+			// time for merging the traces of several JVMs
+			long offsetNanos = startMillis * 1000000L - startNanos;
+			for (int i = 0; i < count; i++) {
+				Entry entry = new Entry();
+				entry.nanos = in.readLong() + offsetNanos;
+				entry.event = in.readInt();
+				entry.rank = in.readInt();
+				entry.peer = in.readInt();
+				entry.value = in.readInt();
+				long mostSigBits = in.readLong();
+				long leastSigBits = in.readLong();
+				if (mostSigBits != 0 || leastSigBits != 0) {
+					entry.id = new UUID(mostSigBits, leastSigBits);
+				}
+				entries.add(entry);
+			}
+			return recorded - count;
+		}
+		finally {
+			in.close();
+		}
+	}
+}
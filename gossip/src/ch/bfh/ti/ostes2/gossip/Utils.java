@@ -1,9 +1,9 @@
 /*
  * utils.java
  * 
- * 2.4
+ * 2.6
  * 
- * 2014-01-22
+ * 2026-10-18
  *
  * The MIT License (MIT)
 * 
@@ -31,11 +31,12 @@
 package ch.bfh.ti.ostes2.gossip;
 
 /**
- * A class providing various
- * helper functions for time stamps
- * as well as definitions of tags
+ * A class providing definitions of tags
  * used for communication of {@link Message}s.
  * 
+ * The helper functions for time stamps
+ * moved to {@link VectorClock}.
+ * 
  * @author sosterwalder
  *
  */
@@ -43,128 +44,5 @@ public final class Utils {
 	public final static int QUERY_TAG = 900;
 	public final static int UPDATE_TAG = 901;
 	public final static int GOSSIP_TAG = 902;
-	
-	/**
-	 * Checks if the first provided time stamp
-	 * is smaller or equal as the second provided 
-	 * time stamp, assuming that the time stamps have the
-	 * same length.
-	 * 
-	 * E.g.: 	ts1: [2, 3]
-	 *			ts2: [5, 1]
-	 *			=> res: false (3 > 1)
-	 * 
-	 * @param timestampOne		the target time stamp
-	 * @param timestampTwo		the source time stamp
-	 * @return					true if timestampOne
-	 * 							is smaller or equal,
-	 * 							otherwise false
-	 */
-	public final static boolean isSmallerOrEqualThan(int[] timestampOne, int[] timestampTwo) {
-		boolean isSmallerOrEqualThan = true;
-		
-		assert(timestampOne.length == timestampTwo.length);
-		
-		for (int i = 0; i < timestampOne.length; i++) {
-			if (timestampOne[i] > timestampTwo[i]) {
-				isSmallerOrEqualThan = false;
-			}
-		}
-		
-		return isSmallerOrEqualThan;
-	}
-	
-	/**
-	 * Returns the (component-wise) maximum 
-	 * of two given time stamps,
-	 * assuming that the time stamps have the
-	 * same length. 
-	 * 
-	 * E.g.: 	ts1: [2, 3]
-	 *			ts2: [5, 1]
-	 *			=> res: [5, 3]
-	 * 
-	 * @param timestampOne
-	 * @param timestampTwo
-	 * @return		the maximum out of the
-	 * 				two time stamps
-	 */
-	public final static int[] getMaximizedTimestamp(int[] timestampOne, int[] timestampTwo) {
-		assert(timestampOne.length == timestampTwo.length);
-		
-		int[] maximizedTimestamp = new int[timestampOne.length];
-		
-		for (int i = 0; i < timestampOne.length; i++) {
-			if (timestampOne[i] > timestampTwo[i]) {
-				maximizedTimestamp[i] = timestampOne[i];
-			}
-			else {
-				maximizedTimestamp[i] = timestampTwo[i];
-			}
-		}
-		
-		return maximizedTimestamp;
-	}
-	
-	/**
-	 * Returns the (component-wise) minimum 
-	 * of two given time stamps, assuming that the time stamps have the
-	 * same length.
-	 * 
-	 * E.g.: 	ts1: [2, 3]
-	 *			ts2: [5, 1]
-	 *			=> res: [2, 1]
-	 * 
-	 * @param timestampOne
-	 * @param timestampTwo
-	 * @return		the minimum out of the
-	 * 				two time stamps
-	 */
-	public final static int[] getMinimizedTimestamp(int[] timestampOne, int[] timestampTwo) {
-		assert(timestampOne.length == timestampTwo.length);
-		
-		int[] minimizedTimestamp = new int[timestampOne.length];
-		
-		for (int i = 0; i < timestampOne.length; i++) {
-			if (timestampOne[i] < timestampTwo[i]) {
-				minimizedTimestamp[i] = timestampOne[i];
-			}
-			else {
-				minimizedTimestamp[i] = timestampTwo[i];
-			}
-		}
-		
-		return minimizedTimestamp;
-	}
-	
-	/**
-	 * Merges two given time stamps to their
-	 * maximal value, assuming that the time stamps have the
-	 * same length.
-	 * 
-	 * E.g.: 	ts1: [2, 3]
-	 *			ts2: [5, 1]
-	 *			=> res: [5, 3]
-	 * 
-	 * @param timestampOne
-	 * @param timestampTwo
-	 * @return		the maximum out of the
-	 * 				two time stamps
-	 */
-	public final static int[] mergeTimestamps(int[] timestampOne, int[] timestampTwo) {		
-		assert(timestampOne.length == timestampTwo.length);
-		
-		int[] mergedTimestamps = new int[timestampOne.length];
-		
-		for (int i = 0; i < timestampOne.length; i++) {
-			if (timestampOne[i] >= timestampTwo[i]) {
-				mergedTimestamps[i] = timestampOne[i];
-			}
-			else {
-				mergedTimestamps[i] = timestampTwo[i];
-			}
-		}
-		
-		return mergedTimestamps;
-	}
-}
+	public final static int STATE_TAG = 903;
+}
\ No newline at end of file
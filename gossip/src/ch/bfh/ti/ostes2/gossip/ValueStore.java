@@ -0,0 +1,241 @@
+/*
+ * ValueStore.java
+ * 
+ * 1.3
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The value store of a {@link ReplicationManager}, holding
+ * the current {@link ActionMessage}s by their IDs.
+ * 
+ * The store can be frozen for taking a {@link Snapshot}
+ * in the background: the map of messages stays unchanged
+ * from then on and can be read by another thread, while
+ * changes go to a separate map of changes. Thawing the
+ * store merges the changes back, so the work done while
+ * the store is frozen is proportional to the changes
+ * only and not to the size of the store (copy-on-write).
+ * 
+ * The stored messages must not be changed, a changed
+ * message gets stored as a copy.
+ * 
+ * The messages are kept in the order they got inserted,
+ * replacing a message keeps its place. A {@link MessageIndex}
+ * finds the newest messages of all users or of a user, a
+ * {@link TextIndex} the messages containing some terms. They
+ * always reflect the current messages, frozen or not.
+ * 
+ * @author sosterwalder
+ *
+ */
+public class ValueStore {
+	// Marks a removed message within the changes
+	private static final ActionMessage			REMOVED		= new ActionMessage(new UUID(0, 0));
+
+	private LinkedHashMap<UUID, ActionMessage>	messages	= new LinkedHashMap<UUID, ActionMessage>();
+	private LinkedHashMap<UUID, ActionMessage>	changes		= null; // Only while frozen
+	private int									size		= 0;
+	private MessageIndex						index		= new MessageIndex();
+	private TextIndex							text		= new TextIndex();
+
+	/**
+	 * Returns the message with the given ID.
+	 * 
+	 * @param id		the ID of the message
+	 * @return			the message or null if
+	 * 					there is none
+	 */
+	public ActionMessage get(UUID id) {
+		if (changes != null) {
+			ActionMessage changed = changes.get(id);
+			if (changed != null) {
+				return changed == REMOVED ? null : changed;
+			}
+		}
+		return messages.get(id);
+	}
+
+	/**
+	 * Stores the given message by its ID,
+	 * replacing an existing one.
+	 * 
+	 * @param msg		the message to store
+	 */
+	public void put(ActionMessage msg) {
+		ActionMessage old = this.get(msg.getId());
+		if (old == null) {
+			index.add(msg);
+			text.add(msg);
+			size++;
+		}
+		else {
+			index.replace(old, msg);
+			text.replace(old, msg);
+		}
+
+		if (changes != null) {
+			changes.put(msg.getId(), msg);
+		}
+		else {
+			messages.put(msg.getId(), msg);
+		}
+	}
+
+	/**
+	 * Removes the message with the given ID.
+	 * 
+	 * @param id		the ID of the message
+	 * @return			the removed message or
+	 * 					null if there was none
+	 */
+	public ActionMessage remove(UUID id) {
+		ActionMessage removed = this.get(id);
+		if (removed == null) {
+			return null;
+		}
+		index.remove(removed);
+		text.remove(removed);
+		size--;
+
+		if (changes != null) {
+			changes.put(id, REMOVED);
+		}
+		else {
+			messages.remove(id);
+		}
+		return removed;
+	}
+
+	/**
+	 * Returns the newest messages of all users.
+	 * 
+	 * @param limit		the maximal number of messages
+	 * @return			the messages, newest first
+	 */
+	public ArrayList<ActionMessage> getLatest(int limit) {
+		return index.getLatest(limit);
+	}
+
+	/**
+	 * Returns the newest messages of the given user.
+	 * 
+	 * @param userId	the ID of the user
+	 * @param limit		the maximal number of messages
+	 * @return			the messages, newest first
+	 */
+	public ArrayList<ActionMessage> getLatestOfUser(int userId, int limit) {
+		return index.getLatestOfUser(userId, limit);
+	}
+
+	/**
+	 * Returns the newest messages whose title or
+	 * body contain all the terms of the given text.
+	 * 
+	 * @param text		the text to search for
+	 * @param prefix	whether the last term of
+	 * 					the text is a prefix
+	 * @param limit		the maximal number of messages
+	 * @return			the messages, newest first
+	 */
+	public ArrayList<ActionMessage> search(String text, boolean prefix, int limit) {
+		return this.text.search(text, prefix, limit);
+	}
+
+	/**
+	 * Returns the number of distinct terms
+	 * within the stored messages.
+	 * 
+	 * @return			the number of terms
+	 */
+	public int getTermCount() {
+		return text.getTermCount();
+	}
+
+	/**
+	 * Returns the number of stored messages.
+	 * 
+	 * @return			the number of messages
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns if the store is frozen.
+	 * 
+	 * @return			true if the store is
+	 * 					frozen, otherwise false
+	 */
+	public boolean isFrozen() {
+		return changes != null;
+	}
+
+	/**
+	 * Freezes the store. The returned map does
+	 * not change until the store gets thawed
+	 * and may be read by another thread.
+	 * 
+	 * @return			the messages at the time
+	 * 					of freezing
+	 */
+	public Map<UUID, ActionMessage> freeze() {
+		if (changes != null) {
+			throw new IllegalStateException("The value store is frozen already");
+		}
+		changes = new LinkedHashMap<UUID, ActionMessage>();
+		return Collections.unmodifiableMap(messages);
+	}
+
+	/**
+	 * Thaws the store by merging the changes
+	 * made while it was frozen. The map returned
+	 * by freeze() must not be read anymore.
+	 */
+	public void thaw() {
+		if (changes == null) {
+			return;
+		}
+
+		for (Map.Entry<UUID, ActionMessage> change : changes.entrySet()) {
+			if (change.getValue() == REMOVED) {
+				messages.remove(change.getKey());
+			}
+			else {
+				messages.put(change.getKey(), change.getValue());
+			}
+		}
+		changes = null;
+	}
+}
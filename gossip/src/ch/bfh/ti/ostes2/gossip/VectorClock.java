@@ -0,0 +1,300 @@
+/*
+ * VectorClock.java
+ * 
+ * 1.1
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * This class represents a vector time stamp as used
+ * by {@link ReplicationManager}s, {@link Frontend}s and
+ * {@link Message}s, e.g. the replicaTS or the valueTS.
+ * 
+ * All operations combining two time stamps work
+ * in place on the current {@link VectorClock} and
+ * do not allocate, assuming that both time stamps
+ * have the same length. Use copy() when a time stamp
+ * has to be kept while the original moves on, e.g.
+ * when handing it to a {@link Message}.
+ * 
+ * @author sosterwalder
+ *
+ */
+public class VectorClock implements Serializable {
+	/**
+	 * The causal relation between two time stamps.
+	 */
+	public enum Ordering {
+		BEFORE, AFTER, CONCURRENT, EQUAL
+	}
+
+	private static final long serialVersionUID = 3326102545871462717L;
+	private int[] components = null;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param size		the number of components,
+	 * 					all of them start at 0
+	 */
+	public VectorClock(int size) {
+		this.components = new int[size];
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param components	the components of the time stamp,
+	 * 						they get copied
+	 */
+	public VectorClock(int[] components) {
+		this.components = Arrays.copyOf(components, components.length);
+	}
+
+	/**
+	 * Returns a copy of the {@link VectorClock}.
+	 * 
+	 * @return			the copy
+	 */
+	public VectorClock copy() {
+		return new VectorClock(components);
+	}
+
+	/**
+	 * Returns the number of components.
+	 * 
+	 * @return			the number of components
+	 */
+	public int size() {
+		return components.length;
+	}
+
+	/**
+	 * Returns the component with the given index.
+	 * 
+	 * @param index		the index of the component
+	 * @return			the value of the component
+	 */
+	public int get(int index) {
+		return components[index];
+	}
+
+	/**
+	 * Sets the component with the given index.
+	 * 
+	 * @param index		the index of the component
+	 * @param value		the new value of the component
+	 */
+	public void set(int index, int value) {
+		components[index] = value;
+	}
+
+	/**
+	 * Increases the component with the given index by one.
+	 * 
+	 * @param index		the index of the component
+	 * @return			the new value of the component
+	 */
+	public int increment(int index) {
+		return ++components[index];
+	}
+
+	/**
+	 * Sets all components to the ones of
+	 * the given time stamp.
+	 * 
+	 * @param other		the time stamp to take over
+	 */
+	public void set(VectorClock other) {
+		assert(components.length == other.components.length);
+		System.arraycopy(other.components, 0, components, 0, components.length);
+	}
+
+	/**
+	 * Merges the given time stamp into this one
+	 * by taking the (component-wise) maximum.
+	 * 
+	 * E.g.: 	this:  [2, 3]
+	 *			other: [5, 1]
+	 *			=> this: [5, 3]
+	 * 
+	 * @param other		the time stamp to merge
+	 * @return			true if a component changed,
+	 * 					otherwise false
+	 */
+	public boolean merge(VectorClock other) {
+		assert(components.length == other.components.length);
+
+		boolean changed = false;
+		for (int i = 0; i < components.length; i++) {
+			if (other.components[i] > components[i]) {
+				components[i] = other.components[i];
+				changed = true;
+			}
+		}
+
+		return changed;
+	}
+
+	/**
+	 * Reduces this time stamp to the (component-wise)
+	 * minimum of itself and the given time stamp.
+	 * 
+	 * E.g.: 	this:  [2, 3]
+	 *			other: [5, 1]
+	 *			=> this: [2, 1]
+	 * 
+	 * @param other		the time stamp to compare with
+	 */
+	public void min(VectorClock other) {
+		assert(components.length == other.components.length);
+
+		for (int i = 0; i < components.length; i++) {
+			if (other.components[i] < components[i]) {
+				components[i] = other.components[i];
+			}
+		}
+	}
+
+	/**
+	 * Checks if this time stamp is smaller or equal
+	 * than the given one in every component.
+	 * Returns as soon as a larger component is found.
+	 * 
+	 * E.g.: 	this:  [2, 3]
+	 *			other: [5, 1]
+	 *			=> res: false (3 > 1)
+	 * 
+	 * @param other		the time stamp to compare with
+	 * @return			true if this time stamp is
+	 * 					smaller or equal, otherwise false
+	 */
+	public boolean isSmallerOrEqualThan(VectorClock other) {
+		assert(components.length == other.components.length);
+
+		for (int i = 0; i < components.length; i++) {
+			if (components[i] > other.components[i]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns the index of the first component
+	 * which is larger than the one of the given
+	 * time stamp.
+	 * 
+	 * E.g.: 	this:  [2, 3]
+	 *			other: [5, 1]
+	 *			=> res: 1 (3 > 1)
+	 * 
+	 * @param other		the time stamp to compare with
+	 * @return			the index of the first larger component
+	 * 					or -1 if this time stamp is smaller or
+	 * 					equal than the other one
+	 */
+	public int firstLargerComponent(VectorClock other) {
+		assert(components.length == other.components.length);
+
+		for (int i = 0; i < components.length; i++) {
+			if (components[i] > other.components[i]) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Compares this time stamp causally with
+	 * the given one.
+	 * 
+	 * @param other		the time stamp to compare with
+	 * @return			BEFORE if this time stamp happened
+	 * 					before the other one, AFTER if it
+	 * 					happened after it, EQUAL if both are
+	 * 					the same and CONCURRENT otherwise
+	 */
+	public Ordering compare(VectorClock other) {
+		assert(components.length == other.components.length);
+
+		boolean smaller = false;
+		boolean larger = false;
+		for (int i = 0; i < components.length; i++) {
+			if (components[i] < other.components[i]) {
+				smaller = true;
+			}
+			else if (components[i] > other.components[i]) {
+				larger = true;
+			}
+			if (smaller && larger) {
+				return Ordering.CONCURRENT;
+			}
+		}
+
+		if (smaller) {
+			return Ordering.BEFORE;
+		}
+		if (larger) {
+			return Ordering.AFTER;
+		}
+		return Ordering.EQUAL;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof VectorClock)) {
+			return false;
+		}
+		return Arrays.equals(components, ((VectorClock) obj).components);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(components);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return Arrays.toString(components);
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ * Wire.java
+ * 
+ * 1.2
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+/**
+ * This class sends {@link Message}s to other
+ * processes and opens {@link Mailbox}es to receive
+ * them, using one of the available codecs:
+ * 
+ * 	JAVA	- the messages are sent as OBJECT, they get
+ * 			  serialized using Java serialization
+ * 	BINARY	- the messages are encoded using the {@link WireCodec}
+ * 			  and sent as BYTE buffers
+ * 
+ * All processes have to use the same codec.
+ * 
+ * @author sosterwalder
+ * 
+ */
+public class Wire {
+	public enum Codec {
+		JAVA, BINARY
+	}
+
+	public static final int		DEFAULT_MAX_MESSAGE_SIZE	= 1024 * 1024;
+
+	private Communicator		comm						= null;
+	private Codec				codec						= Codec.JAVA;
+	private int					maxMessageSize				= DEFAULT_MAX_MESSAGE_SIZE;
+	private volatile long		bytesSent					= 0;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param comm		the communicator to send
+	 * 					and receive with
+	 */
+	public Wire(Communicator comm) {
+		this.comm = comm;
+	}
+
+	/**
+	 * Returns the codec used for
+	 * sending and receiving.
+	 * 
+	 * @return			the codec
+	 */
+	public Codec getCodec() {
+		return codec;
+	}
+
+	/**
+	 * Sets the codec used for sending and
+	 * receiving. This has to happen before
+	 * any {@link Mailbox} gets opened.
+	 * 
+	 * @param codec				the codec to use
+	 * @param maxMessageSize	the maximal size of an encoded
+	 * 							message in bytes, this is the size
+	 * 							of the receive buffers for
+	 * 							the BINARY codec
+	 */
+	public void setCodec(Codec codec, int maxMessageSize) {
+		this.codec = codec;
+		this.maxMessageSize = maxMessageSize;
+	}
+
+	/**
+	 * Sends the given {@link Message} to the
+	 * given process using the given tag.
+	 * 
+	 * @param msg			the message to send
+	 * @param destination	the rank of the receiving process
+	 * @param tag			the tag from {@link Utils}
+	 * @return				the request of the send
+	 */
+	public Communicator.Request send(Message msg, int destination, int tag) {
+		if (codec == Codec.BINARY) {
+			byte[] frame = WireCodec.encode(msg);
+			if (frame.length > maxMessageSize) {
+				throw new IllegalArgumentException(
+					String.format(
+						"Message %s has %d bytes, maximal message size is %d", msg.getId(), frame.length, maxMessageSize
+					)
+				);
+			}
+			bytesSent += frame.length;
+			return comm.Isend(frame, 0, frame.length, Communicator.Datatype.BYTE, destination, tag);
+		}
+
+		Object[] buffer = new Object[] { msg };
+		return comm.Isend(buffer, 0, buffer.length, Communicator.Datatype.OBJECT, destination, tag);
+	}
+
+	/**
+	 * Returns the number of bytes sent so far. Only
+	 * the BINARY codec knows the size of a message,
+	 * nothing gets counted for the JAVA codec.
+	 * 
+	 * @return				the number of sent bytes
+	 */
+	public long getBytesSent() {
+		return bytesSent;
+	}
+
+	/**
+	 * Opens a {@link Mailbox} for receiving {@link Message}s
+	 * from the given process using the given tag.
+	 * 
+	 * @param source		the rank of the sending process
+	 * @param tag			the tag from {@link Utils}
+	 * @return				the mailbox
+	 */
+	public Mailbox open(int source, int tag) {
+		return new Mailbox(comm, source, tag, codec, maxMessageSize);
+	}
+}
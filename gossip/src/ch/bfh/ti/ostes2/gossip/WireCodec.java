@@ -0,0 +1,703 @@
+/*
+ * WireCodec.java
+ * 
+ * 1.10
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A hand-written binary codec for {@link Message}s
+ * which replaces the Java serialization done by
+ * P2P-MPI for MPI.OBJECT when sending MPI.BYTE buffers.
+ * 
+ * A frame looks as follows:
+ * 
+ * 	[length: 4 bytes][kind: 1 byte][payload]
+ * 
+ * where the length covers the kind and the payload.
+ * Within the payload, integers and time stamps are
+ * encoded as (unsigned) varints, {@link UUID}s as two
+ * longs and strings as length-prefixed UTF-8. A length
+ * of 0 denotes null, otherwise the length is stored
+ * increased by one.
+ * 
+ * @author sosterwalder
+ *
+ */
+public final class WireCodec {
+	public final static int HEADER_SIZE = 4;
+
+	private final static byte KIND_ACTION = 1;
+	private final static byte KIND_QUERY = 2;
+	private final static byte KIND_GOSSIP = 3;
+	private final static byte KIND_STATE = 4;
+	private final static byte KIND_BATCH = 5;
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+
+	private byte[]	buffer = null;
+	private int		position = 0;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param buffer	the buffer to read from
+	 * 					or to write to
+	 * @param position	the position to start at
+	 */
+	private WireCodec(byte[] buffer, int position) {
+		this.buffer = buffer;
+		this.position = position;
+	}
+
+	/**
+	 * Encodes the given {@link Message} to a frame.
+	 * 
+	 * @param msg		the message to encode
+	 * @return			the frame, exactly as long
+	 * 					as needed
+	 */
+	public static byte[] encode(Message msg) {
+		WireCodec codec = new WireCodec(new byte[256], HEADER_SIZE);
+		codec.writeMessage(msg);
+
+		int length = codec.position - HEADER_SIZE;
+		codec.position = 0;
+		codec.writeFixedInt(length);
+
+		byte[] frame = new byte[HEADER_SIZE + length];
+		System.arraycopy(codec.buffer, 0, frame, 0, frame.length);
+		return frame;
+	}
+
+	/**
+	 * Decodes the frame at the start of the
+	 * given buffer to a {@link Message}.
+	 * 
+	 * @param buffer	the buffer holding the frame,
+	 * 					it may be longer than the frame
+	 * @return			the decoded message
+	 */
+	public static Message decode(byte[] buffer) {
+		WireCodec codec = new WireCodec(buffer, 0);
+		int length = codec.readFixedInt();
+		if (length <= 0 || length > buffer.length - HEADER_SIZE) {
+			throw new IllegalArgumentException(
+				String.format("Invalid frame length %d for buffer of %d bytes", length, buffer.length)
+			);
+		}
+		return codec.readMessage();
+	}
+
+	/**
+	 * Returns the size of the frame at the
+	 * start of the given buffer.
+	 * 
+	 * @param buffer	the buffer holding the frame
+	 * @return			the size of the frame in bytes,
+	 * 					including the header
+	 */
+	public static int getFrameSize(byte[] buffer) {
+		return HEADER_SIZE + new WireCodec(buffer, 0).readFixedInt();
+	}
+
+	/**
+	 * Encodes the given {@link LogRecord} without
+	 * a header, e.g. for the {@link WriteAheadLog}.
+	 * 
+	 * @param record	the record to encode
+	 * @return			the encoded record, exactly
+	 * 					as long as needed
+	 */
+	public static byte[] encodeRecord(LogRecord record) {
+		WireCodec codec = new WireCodec(new byte[256], 0);
+		codec.writeRecord(record);
+		return Arrays.copyOf(codec.buffer, codec.position);
+	}
+
+	/**
+	 * Decodes a {@link LogRecord} encoded
+	 * by encodeRecord().
+	 * 
+	 * @param buffer	the encoded record
+	 * @return			the decoded record
+	 */
+	public static LogRecord decodeRecord(byte[] buffer) {
+		return new WireCodec(buffer, 0).readRecord();
+	}
+
+	/**
+	 * Encodes the given {@link LogRecord}s without
+	 * a header, e.g. for the {@link WriteAheadLog}.
+	 * 
+	 * @param records	the records to encode
+	 * @return			the encoded records, exactly
+	 * 					as long as needed
+	 */
+	public static byte[] encodeRecords(List<LogRecord> records) {
+		WireCodec codec = new WireCodec(new byte[256 * records.size()], 0);
+		codec.writeVarint(records.size());
+		for (int i = 0; i < records.size(); i++) {
+			codec.writeRecord(records.get(i));
+		}
+		return Arrays.copyOf(codec.buffer, codec.position);
+	}
+
+	/**
+	 * Decodes the {@link LogRecord}s encoded
+	 * by encodeRecords().
+	 * 
+	 * @param buffer	the encoded records
+	 * @return			the decoded records
+	 */
+	public static ArrayList<LogRecord> decodeRecords(byte[] buffer) {
+		WireCodec codec = new WireCodec(buffer, 0);
+		int count = codec.readVarint();
+		ArrayList<LogRecord> records = new ArrayList<LogRecord>(count);
+		for (int i = 0; i < count; i++) {
+			records.add(codec.readRecord());
+		}
+		return records;
+	}
+
+	/**
+	 * Encodes the given {@link Message} without
+	 * a header, e.g. for a {@link Snapshot}.
+	 * 
+	 * @param msg		the message to encode
+	 * @return			the encoded message, exactly
+	 * 					as long as needed
+	 */
+	public static byte[] encodeMessage(Message msg) {
+		WireCodec codec = new WireCodec(new byte[256], 0);
+		codec.writeMessage(msg);
+		return Arrays.copyOf(codec.buffer, codec.position);
+	}
+
+	/**
+	 * Decodes a {@link Message} encoded
+	 * by encodeMessage().
+	 * 
+	 * @param buffer	the encoded message
+	 * @return			the decoded message
+	 */
+	public static Message decodeMessage(byte[] buffer) {
+		return new WireCodec(buffer, 0).readMessage();
+	}
+
+	/**
+	 * Writes the given {@link LogRecord}.
+	 * 
+	 * @param record	the record to write
+	 */
+	private void writeRecord(LogRecord record) {
+		this.writeVarint(record.getReplicationManagerId());
+		this.writeTimestamp(record.getTimestamp());
+		this.writeMessage(record.getMessage());
+	}
+
+	/**
+	 * Reads a {@link LogRecord} written
+	 * by writeRecord().
+	 * 
+	 * @return			the record read
+	 */
+	private LogRecord readRecord() {
+		LogRecord record = new LogRecord();
+		record.setReplicationManagerId(this.readVarint());
+		record.setTimestamp(this.readTimestamp());
+		record.setMessage(this.readMessage());
+		return record;
+	}
+
+	/**
+	 * Writes the kind and the content of the
+	 * given {@link Message}.
+	 * 
+	 * @param msg		the message to write
+	 */
+	private void writeMessage(Message msg) {
+		if (msg instanceof ActionMessage) {
+			ActionMessage action = (ActionMessage) msg;
+			this.writeByte(KIND_ACTION);
+			this.writeId(action.getId());
+			this.writeTimestamp(action.getTimestamp());
+			this.writeVarint(action.getUserId());
+			this.writeString(action.getTitle());
+			this.writeString(action.getBody());
+			this.writeVarint(action.getOperation() == null ? 0 : action.getOperation().ordinal() + 1);
+			// Only an UPDATE or DELETE has a target
+			// other than itself
+			if (action.getOperation() == ActionMessage.Operation.UPDATE || action.getOperation() == ActionMessage.Operation.DELETE) {
+				this.writeId(action.getTargetId());
+			}
+			// Only an answer, which has no operation,
+			// refers to a request
+			else if (action.getOperation() == null) {
+				this.writeOptionalId(action.getRequestId());
+			}
+		}
+		else if (msg instanceof QueryMessage) {
+			QueryMessage query = (QueryMessage) msg;
+			this.writeByte(KIND_QUERY);
+			this.writeId(query.getId());
+			this.writeTimestamp(query.getTimestamp());
+			this.writeVarint(query.getFrontendId());
+			this.writeOptionalId(query.getRequestId());
+			this.writeVarint(query.getKind().ordinal());
+			if (query.getKind() == QueryMessage.Kind.BY_ID) {
+				this.writeId(query.getTargetId());
+			}
+			else if (query.getKind() == QueryMessage.Kind.BY_USER) {
+				this.writeVarint(query.getUserId());
+			}
+			else if (query.getKind() == QueryMessage.Kind.SEARCH || query.getKind() == QueryMessage.Kind.PREFIX) {
+				this.writeString(query.getText());
+			}
+			this.writeVarint(query.getLimit());
+
+			ArrayList<ActionMessage> results = query.getResults();
+			this.writeVarint(results == null ? 0 : results.size() + 1);
+			if (results != null) {
+				for (ActionMessage action : results) {
+					this.writeMessage(action);
+				}
+			}
+		}
+		else if (msg instanceof GossipMessage) {
+			GossipMessage gossip = (GossipMessage) msg;
+			this.writeByte(KIND_GOSSIP);
+			this.writeId(gossip.getId());
+			this.writeTimestamp(gossip.getTimestamp());
+
+			ArrayList<LogRecord> records = gossip.getLogRecords();
+			this.writeVarint(records == null ? 0 : records.size() + 1);
+			if (records != null) {
+				for (LogRecord record : records) {
+					this.writeRecord(record);
+				}
+			}
+		}
+		else if (msg instanceof StateMessage) {
+			StateMessage state = (StateMessage) msg;
+			this.writeByte(KIND_STATE);
+			this.writeId(state.getId());
+			this.writeTimestamp(state.getTimestamp());
+			this.writeVarint(state.getKind().ordinal());
+			this.writeVarint(state.getSequence());
+			this.writeByte(state.isLast() ? (byte) 1 : (byte) 0);
+			this.writeTimestamp(state.getReplicaTimestamp());
+			this.writeTimestamp(state.getDiscardedTimestamp());
+
+			ArrayList<ActionMessage> messages = state.getMessages();
+			this.writeVarint(messages == null ? 0 : messages.size() + 1);
+			if (messages != null) {
+				for (ActionMessage action : messages) {
+					this.writeMessage(action);
+				}
+			}
+
+			ArrayList<LogRecord> records = state.getLogRecords();
+			this.writeVarint(records == null ? 0 : records.size() + 1);
+			if (records != null) {
+				for (int i = 0; i < records.size(); i++) {
+					this.writeRecord(records.get(i));
+					this.writeByte(state.getExecuted()[i] ? (byte) 1 : (byte) 0);
+				}
+			}
+		}
+		else if (msg instanceof BatchMessage) {
+			BatchMessage batch = (BatchMessage) msg;
+			this.writeByte(KIND_BATCH);
+			this.writeId(batch.getId());
+			this.writeTimestamp(batch.getTimestamp());
+
+			ArrayList<ActionMessage> messages = batch.getMessages();
+			this.writeVarint(messages == null ? 0 : messages.size() + 1);
+			if (messages != null) {
+				for (ActionMessage action : messages) {
+					this.writeMessage(action);
+				}
+			}
+		}
+		else {
+			throw new IllegalArgumentException("Unknown message type " + msg.getClass().getName());
+		}
+	}
+
+	/**
+	 * Reads the kind and the content of
+	 * a {@link Message}.
+	 * 
+	 * @return			the message read
+	 */
+	private Message readMessage() {
+		byte kind = this.readByte();
+		switch (kind) {
+		case KIND_ACTION:
+			ActionMessage action = new ActionMessage(this.readId());
+			action.setTimestamp(this.readTimestamp());
+			action.setUserId(this.readVarint());
+			action.setTitle(this.readString());
+			action.setBody(this.readString());
+			int operation = this.readVarint();
+			action.setOperation(operation == 0 ? null : ActionMessage.Operation.values()[operation - 1]);
+			if (action.getOperation() == ActionMessage.Operation.UPDATE || action.getOperation() == ActionMessage.Operation.DELETE) {
+				action.setTargetId(this.readId());
+			}
+			else if (action.getOperation() == null) {
+				action.setRequestId(this.readOptionalId());
+			}
+			return action;
+
+		case KIND_QUERY:
+			QueryMessage query = new QueryMessage(this.readId());
+			query.setTimestamp(this.readTimestamp());
+			query.setFrontendId(this.readVarint());
+			query.setRequestId(this.readOptionalId());
+			query.setKind(QueryMessage.Kind.values()[this.readVarint()]);
+			if (query.getKind() == QueryMessage.Kind.BY_ID) {
+				query.setTargetId(this.readId());
+			}
+			else if (query.getKind() == QueryMessage.Kind.BY_USER) {
+				query.setUserId(this.readVarint());
+			}
+			else if (query.getKind() == QueryMessage.Kind.SEARCH || query.getKind() == QueryMessage.Kind.PREFIX) {
+				query.setText(this.readString());
+			}
+			query.setLimit(this.readVarint());
+
+			int results = this.readVarint();
+			if (results > 0) {
+				ArrayList<ActionMessage> found = new ArrayList<ActionMessage>(results - 1);
+				for (int i = 0; i < results - 1; i++) {
+					found.add((ActionMessage) this.readMessage());
+				}
+				query.setResults(found);
+			}
+			return query;
+
+		case KIND_GOSSIP:
+			GossipMessage gossip = new GossipMessage(this.readId());
+			gossip.setTimestamp(this.readTimestamp());
+
+			int records = this.readVarint();
+			if (records > 0) {
+				ArrayList<LogRecord> logRecords = new ArrayList<LogRecord>(records - 1);
+				for (int i = 0; i < records - 1; i++) {
+					logRecords.add(this.readRecord());
+				}
+				gossip.setLogRecords(logRecords);
+			}
+			return gossip;
+
+		case KIND_STATE:
+			StateMessage state = new StateMessage(this.readId());
+			state.setTimestamp(this.readTimestamp());
+			state.setKind(StateMessage.Kind.values()[this.readVarint()]);
+			state.setSequence(this.readVarint());
+			state.setLast(this.readByte() != 0);
+			state.setReplicaTimestamp(this.readTimestamp());
+			state.setDiscardedTimestamp(this.readTimestamp());
+
+			int messages = this.readVarint();
+			if (messages > 0) {
+				ArrayList<ActionMessage> actions = new ArrayList<ActionMessage>(messages - 1);
+				for (int i = 0; i < messages - 1; i++) {
+					actions.add((ActionMessage) this.readMessage());
+				}
+				state.setMessages(actions);
+			}
+
+			int stateRecords = this.readVarint();
+			if (stateRecords > 0) {
+				ArrayList<LogRecord> logRecords = new ArrayList<LogRecord>(stateRecords - 1);
+				boolean[] executed = new boolean[stateRecords - 1];
+				for (int i = 0; i < executed.length; i++) {
+					logRecords.add(this.readRecord());
+					executed[i] = this.readByte() != 0;
+				}
+				state.setLogRecords(logRecords, executed);
+			}
+			return state;
+
+		case KIND_BATCH:
+			BatchMessage batch = new BatchMessage(this.readId());
+			batch.setTimestamp(this.readTimestamp());
+
+			int batched = this.readVarint();
+			if (batched > 0) {
+				ArrayList<ActionMessage> actions = new ArrayList<ActionMessage>(batched - 1);
+				for (int i = 0; i < batched - 1; i++) {
+					actions.add((ActionMessage) this.readMessage());
+				}
+				batch.setMessages(actions);
+			}
+			return batch;
+
+		default:
+			throw new IllegalArgumentException("Unknown message kind " + kind);
+		}
+	}
+
+	/**
+	 * Writes the given ID as two longs.
+	 * 
+	 * @param id		the ID to write
+	 */
+	private void writeId(UUID id) {
+		this.writeLong(id.getMostSignificantBits());
+		this.writeLong(id.getLeastSignificantBits());
+	}
+
+	/**
+	 * Reads an ID from two longs.
+	 * 
+	 * @return			the ID read
+	 */
+	private UUID readId() {
+		long mostSigBits = this.readLong();
+		long leastSigBits = this.readLong();
+		return new UUID(mostSigBits, leastSigBits);
+	}
+
+	/**
+	 * Writes the given ID preceded by a
+	 * byte telling if there is one.
+	 * 
+	 * @param id		the ID to write, may be null
+	 */
+	private void writeOptionalId(UUID id) {
+		this.writeByte(id == null ? (byte) 0 : (byte) 1);
+		if (id != null) {
+			this.writeId(id);
+		}
+	}
+
+	/**
+	 * Reads an ID written by
+	 * writeOptionalId().
+	 * 
+	 * @return			the ID read, may be null
+	 */
+	private UUID readOptionalId() {
+		return this.readByte() == 0 ? null : this.readId();
+	}
+
+	/**
+	 * Writes the given time stamp as
+	 * length followed by its components.
+	 * 
+	 * @param timestamp	the time stamp to write, may be null
+	 */
+	private void writeTimestamp(VectorClock timestamp) {
+		if (timestamp == null) {
+			this.writeVarint(0);
+			return;
+		}
+		this.writeVarint(timestamp.size() + 1);
+		for (int i = 0; i < timestamp.size(); i++) {
+			this.writeVarint(timestamp.get(i));
+		}
+	}
+
+	/**
+	 * Reads a time stamp written by
+	 * writeTimestamp().
+	 * 
+	 * @return			the time stamp read, may be null
+	 */
+	private VectorClock readTimestamp() {
+		int length = this.readVarint();
+		if (length == 0) {
+			return null;
+		}
+		VectorClock timestamp = new VectorClock(length - 1);
+		for (int i = 0; i < timestamp.size(); i++) {
+			timestamp.set(i, this.readVarint());
+		}
+		return timestamp;
+	}
+
+	/**
+	 * Writes the given string as length-
+	 * prefixed UTF-8.
+	 * 
+	 * @param value		the string to write, may be null
+	 */
+	private void writeString(String value) {
+		if (value == null) {
+			this.writeVarint(0);
+			return;
+		}
+		byte[] bytes = value.getBytes(UTF8);
+		this.writeVarint(bytes.length + 1);
+		this.ensureCapacity(bytes.length);
+		System.arraycopy(bytes, 0, buffer, position, bytes.length);
+		position += bytes.length;
+	}
+
+	/**
+	 * Reads a string written by
+	 * writeString().
+	 * 
+	 * @return			the string read, may be null
+	 */
+	private String readString() {
+		int length = this.readVarint();
+		if (length == 0) {
+			return null;
+		}
+		String value = new String(buffer, position, length - 1, UTF8);
+		position += length - 1;
+		return value;
+	}
+
+	/**
+	 * Writes the given value as unsigned varint,
+	 * using 7 bits per byte and the highest bit
+	 * as continuation flag.
+	 * 
+	 * @param value		the value to write
+	 */
+	private void writeVarint(int value) {
+		this.ensureCapacity(5);
+		while ((value & ~0x7F) != 0) {
+			buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buffer[position++] = (byte) value;
+	}
+
+	/**
+	 * Reads an unsigned varint.
+	 * 
+	 * @return			the value read
+	 */
+	private int readVarint() {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			byte b = buffer[position++];
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed varint");
+	}
+
+	/**
+	 * Writes the given value as eight
+	 * bytes, most significant first.
+	 * 
+	 * @param value		the value to write
+	 */
+	private void writeLong(long value) {
+		this.ensureCapacity(8);
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			buffer[position++] = (byte) (value >>> shift);
+		}
+	}
+
+	/**
+	 * Reads a long written by writeLong().
+	 * 
+	 * @return			the value read
+	 */
+	private long readLong() {
+		long value = 0;
+		for (int i = 0; i < 8; i++) {
+			value = (value << 8) | (buffer[position++] & 0xFF);
+		}
+		return value;
+	}
+
+	/**
+	 * Writes the given value as four
+	 * bytes, most significant first.
+	 * 
+	 * @param value		the value to write
+	 */
+	private void writeFixedInt(int value) {
+		buffer[position++] = (byte) (value >>> 24);
+		buffer[position++] = (byte) (value >>> 16);
+		buffer[position++] = (byte) (value >>> 8);
+		buffer[position++] = (byte) value;
+	}
+
+	/**
+	 * Reads an int written by writeFixedInt().
+	 * 
+	 * @return			the value read
+	 */
+	private int readFixedInt() {
+		return ((buffer[position++] & 0xFF) << 24)
+			| ((buffer[position++] & 0xFF) << 16)
+			| ((buffer[position++] & 0xFF) << 8)
+			| (buffer[position++] & 0xFF);
+	}
+
+	/**
+	 * Writes a single byte.
+	 * 
+	 * @param value		the value to write
+	 */
+	private void writeByte(byte value) {
+		this.ensureCapacity(1);
+		buffer[position++] = value;
+	}
+
+	/**
+	 * Reads a single byte.
+	 * 
+	 * @return			the value read
+	 */
+	private byte readByte() {
+		return buffer[position++];
+	}
+
+	/**
+	 * Grows the buffer so that the given
+	 * number of bytes fit behind the
+	 * current position.
+	 * 
+	 * @param bytes		the number of bytes to write
+	 */
+	private void ensureCapacity(int bytes) {
+		if (position + bytes > buffer.length) {
+			byte[] grown = new byte[Math.max(buffer.length << 1, position + bytes)];
+			System.arraycopy(buffer, 0, grown, 0, position);
+			buffer = grown;
+		}
+	}
+}
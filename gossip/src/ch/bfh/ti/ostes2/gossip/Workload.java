@@ -0,0 +1,437 @@
+/*
+ * Workload.java
+ * 
+ * 1.2
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Generates a workload for a {@link Frontend}: a number of
+ * simulated clients sending a mix of reads (queries), writes
+ * (posts), updates and deletes at a target rate, with bodies
+ * of a configurable size distribution.
+ * 
+ * The workload is open-loop: every client sends according
+ * to its own schedule of Poisson arrivals, no matter whether
+ * its previous requests got answered. The latency of a
+ * request is measured from the time it was scheduled for,
+ * not from when it actually got sent, so a stalled sender
+ * shows up in the latencies instead of hiding them
+ * (coordinated omission). The latencies are recorded per
+ * operation in {@link LatencyHistogram}s.
+ * 
+ * A client only updates and deletes its own messages
+ * which got answered already, so the target has been
+ * inserted before by causality.
+ * 
+ * A read queries either the newest messages of all users
+ * (the feed), the newest messages of the client, the
+ * messages containing the ID of the client (a search) or
+ * one message of the client.
+ * 
+ * @author sosterwalder
+ *
+ */
+public class Workload implements Frontend.AnswerListener {
+	// Number of messages a read of a feed asks for
+	public static final int FEED_SIZE = 20;
+
+	/**
+	 * The operations of the workload.
+	 */
+	public enum Operation {
+		READ, WRITE, UPDATE, DELETE
+	}
+
+	/**
+	 * The distributions of the size of the bodies.
+	 * 
+	 * 	FIXED		- always the configured size
+	 * 	UNIFORM		- uniform between 0 and twice the size
+	 * 	EXPONENTIAL	- exponential with the size as mean
+	 */
+	public enum PayloadDistribution {
+		FIXED, UNIFORM, EXPONENTIAL
+	}
+
+	/**
+	 * A simulated client.
+	 */
+	private static class Client {
+		int							userId		= 0;
+		long						nextNanos	= 0; // When to send the next request
+		ArrayList<ActionMessage>	messages	= new ArrayList<ActionMessage>(); // Answered, not deleted posts
+	}
+
+	/**
+	 * A request waiting for its answer.
+	 */
+	private static class Request {
+		Operation					operation	= null;
+		Client						client		= null;
+		long						nanos		= 0; // When it was scheduled for
+	}
+
+	private Frontend						fe					= null;
+	private int								rank				= 0;
+	private double							rate				= 0; // Per second
+	private Client[]						clients				= null;
+	private int[]							mix					= { 50, 30, 15, 5 }; // Weights by operation
+	private int								payloadSize			= 0;
+	private PayloadDistribution				distribution		= PayloadDistribution.FIXED;
+	private int								maxPayloadSize		= Integer.MAX_VALUE;
+	private char[]							payload				= new char[0];
+	private Random							random				= null;
+	private HashMap<UUID, Request>			requests			= null; // Unanswered, by message ID
+	private long[]							sent				= null; // By operation
+	private LatencyHistogram[]				latencies			= null; // By operation, in nanoseconds
+	private long							startNanos			= 0;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param fe			the frontend to send with
+	 * @param rank			the rank of the frontend
+	 * @param rate			the target number of requests
+	 * 						per second, of all clients
+	 * @param clients		the number of clients
+	 */
+	public Workload(Frontend fe, int rank, double rate, int clients) {
+		this.fe = fe;
+		this.rank = rank;
+		this.rate = rate;
+		this.random = new Random(rank);
+		this.requests = new HashMap<UUID, Request>();
+		this.sent = new long[Operation.values().length];
+		this.latencies = new LatencyHistogram[Operation.values().length];
+		for (int i = 0; i < latencies.length; i++) {
+			latencies[i] = new LatencyHistogram();
+		}
+
+		this.clients = new Client[Math.max(1, clients)];
+		for (int i = 0; i < this.clients.length; i++) {
+			this.clients[i] = new Client();
+			this.clients[i].userId = rank * this.clients.length + i;
+		}
+	}
+
+	/**
+	 * Sets the mix of the operations as weights, e.g.
+	 * 50, 30, 15, 5 for 50% reads and 5% deletes. An
+	 * update or delete of a client without any message
+	 * is sent as write.
+	 * 
+	 * @param read			the weight of reads
+	 * @param write			the weight of writes
+	 * @param update		the weight of updates
+	 * @param delete		the weight of deletes
+	 */
+	public void setMix(int read, int write, int update, int delete) {
+		if (read < 0 || write < 0 || update < 0 || delete < 0 || read + write + update + delete == 0) {
+			throw new IllegalArgumentException(
+				String.format("Invalid mix %d, %d, %d, %d", read, write, update, delete)
+			);
+		}
+		this.mix = new int[] { read, write, update, delete };
+	}
+
+	/**
+	 * Sets the size of the bodies of
+	 * written and updated messages.
+	 * 
+	 * @param size			the size in characters
+	 * @param distribution	the distribution of the size
+	 * @param maxSize		the maximal size, e.g. to
+	 * 						fit the maximal message size
+	 */
+	public void setPayload(int size, PayloadDistribution distribution, int maxSize) {
+		this.payloadSize = size;
+		this.distribution = distribution;
+		this.maxPayloadSize = maxSize;
+	}
+
+	/**
+	 * Starts the workload, the first requests
+	 * of the clients are scheduled from now on.
+	 * 
+	 * @param nowNanos		the current time
+	 */
+	public void start(long nowNanos) {
+		this.startNanos = nowNanos;
+		for (Client client : clients) {
+			client.nextNanos = nowNanos + this.nextInterval();
+		}
+		fe.setAnswerListener(this);
+	}
+
+	/**
+	 * Sends the requests of all clients which
+	 * are due, including the ones which should
+	 * have been sent already.
+	 * 
+	 * @param nowNanos		the current time
+	 * @return				the number of sent requests
+	 */
+	public int issue(long nowNanos) {
+		int issued = 0;
+		for (Client client : clients) {
+			while (client.nextNanos <= nowNanos) {
+				this.send(client, client.nextNanos);
+				client.nextNanos += this.nextInterval();
+				issued++;
+			}
+		}
+		return issued;
+	}
+
+	/**
+	 * Returns the time until the next
+	 * request is due.
+	 * 
+	 * @param nowNanos		the current time
+	 * @return				the time in nanoseconds,
+	 * 						0 if one is due already
+	 */
+	public long nanosToNextIssue(long nowNanos) {
+		long next = Long.MAX_VALUE;
+		for (Client client : clients) {
+			next = Math.min(next, client.nextNanos);
+		}
+		return Math.max(0, next - nowNanos);
+	}
+
+	/* (non-Javadoc)
+	 * @see ch.bfh.ti.ostes2.gossip.Frontend.AnswerListener#answered(ch.bfh.ti.ostes2.gossip.Message, ch.bfh.ti.ostes2.gossip.Message)
+	 */
+	@Override
+	public void answered(Message request, Message answer) {
+		Request pending = requests.remove(request.getId());
+		if (pending == null) {
+			return;
+		}
+
+		latencies[pending.operation.ordinal()].record(System.nanoTime() - pending.nanos);
+		if (pending.operation == Operation.WRITE) {
+			pending.client.messages.add((ActionMessage) request);
+		}
+	}
+
+	/**
+	 * Prints the number of sent and answered requests,
+	 * the throughput and the latencies (p50, p99, p999
+	 * and max) per operation and of all of them.
+	 * 
+	 * @param nowNanos		the current time
+	 */
+	public void printSummary(long nowNanos) {
+		double seconds = (nowNanos - startNanos) / 1e9d;
+		System.out.println(
+			String.format(
+				"FE %d: Workload of %.0f requests/s by %d clients during %.1f s, %d requests unanswered",
+				rank, rate, clients.length, seconds, requests.size()
+			)
+		);
+
+		LatencyHistogram total = new LatencyHistogram();
+		long totalSent = 0;
+		for (Operation operation : Operation.values()) {
+			LatencyHistogram histogram = latencies[operation.ordinal()];
+			this.printLatencies(operation.toString(), sent[operation.ordinal()], histogram, seconds);
+			total.add(histogram);
+			totalSent += sent[operation.ordinal()];
+		}
+		this.printLatencies("ALL", totalSent, total, seconds);
+	}
+
+	/**
+	 * Prints a line of the summary.
+	 * 
+	 * @param name			the name of the operation
+	 * @param sent			the number of sent requests
+	 * @param histogram		the latencies of the answered ones
+	 * @param seconds		the duration of the workload
+	 */
+	private void printLatencies(String name, long sent, LatencyHistogram histogram, double seconds) {
+		System.out.println(
+			String.format(
+				"FE %d: %-6s sent %8d, answered %8d, %9.1f/s, latency p50 %8.3f ms, p99 %8.3f ms, p999 %8.3f ms, max %8.3f ms",
+				rank,
+				name,
+				sent,
+				histogram.getCount(),
+				seconds > 0 ? histogram.getCount() / seconds : 0,
+				histogram.getValueAtPercentile(50.0d) / 1e6d,
+				histogram.getValueAtPercentile(99.0d) / 1e6d,
+				histogram.getValueAtPercentile(99.9d) / 1e6d,
+				histogram.getMax() / 1e6d
+			)
+		);
+	}
+
+	/**
+	 * Sends a request of the given client.
+	 * 
+	 * @param client		the client
+	 * @param nanos			the time the request
+	 * 						is scheduled for
+	 */
+	private void send(Client client, long nanos) {
+		Operation operation = this.nextOperation();
+		if ((operation == Operation.UPDATE || operation == Operation.DELETE) && client.messages.isEmpty()) {
+			operation = Operation.WRITE;
+		}
+
+		Message msg = null;
+		switch (operation) {
+		case READ:
+			msg = this.query(client);
+			break;
+
+		case WRITE:
+			msg = fe.postMessage(client.userId, String.format("Workload client %d", client.userId), this.nextPayload());
+			break;
+
+		case UPDATE:
+			ActionMessage target = client.messages.get(random.nextInt(client.messages.size()));
+			msg = fe.updateMessage(target, target.getTitle(), this.nextPayload());
+			break;
+
+		case DELETE:
+			// Neither updated nor deleted again
+			int index = random.nextInt(client.messages.size());
+			ActionMessage deleted = client.messages.get(index);
+			client.messages.set(index, client.messages.get(client.messages.size() - 1));
+			client.messages.remove(client.messages.size() - 1);
+			msg = fe.deleteMessage(deleted);
+			break;
+		}
+
+		Request request = new Request();
+		request.operation = operation;
+		request.client = client;
+		request.nanos = nanos;
+		requests.put(msg.getId(), request);
+		sent[operation.ordinal()]++;
+	}
+
+	/**
+	 * Sends a read of the given client: half of the
+	 * reads are of the feed, the others of the newest
+	 * messages of the client, a search for them by the
+	 * title or of one of them.
+	 * 
+	 * @param client		the client
+	 * @return				the sent query
+	 */
+	private QueryMessage query(Client client) {
+		int pick = random.nextInt(6);
+		if (pick == 0 && !client.messages.isEmpty()) {
+			return fe.queryMessage(client.messages.get(random.nextInt(client.messages.size())).getId());
+		}
+		else if (pick <= 1) {
+			return fe.queryMessagesOfUser(client.userId, FEED_SIZE);
+		}
+		else if (pick == 2) {
+			return fe.searchMessages(String.format("client %d", client.userId), false, FEED_SIZE);
+		}
+		return fe.queryLatestMessages(FEED_SIZE);
+	}
+
+	/**
+	 * Picks the next operation according to the mix.
+	 * 
+	 * @return				the operation
+	 */
+	private Operation nextOperation() {
+		int total = 0;
+		for (int weight : mix) {
+			total += weight;
+		}
+
+		int pick = random.nextInt(total);
+		for (int i = 0; i < mix.length; i++) {
+			if (pick < mix[i]) {
+				return Operation.values()[i];
+			}
+			pick -= mix[i];
+		}
+		return Operation.READ;
+	}
+
+	/**
+	 * Returns the time until the next request of a
+	 * client, exponentially distributed so the
+	 * requests of every client are Poisson arrivals.
+	 * 
+	 * @return				the time in nanoseconds
+	 */
+	private long nextInterval() {
+		double clientRate = rate / clients.length;
+		return (long) (-Math.log(1.0d - random.nextDouble()) / clientRate * 1e9d);
+	}
+
+	/**
+	 * Returns a body of a size according
+	 * to the payload distribution.
+	 * 
+	 * @return				the body
+	 */
+	private String nextPayload() {
+		int size = payloadSize;
+		switch (distribution) {
+		case FIXED:
+			break;
+
+		case UNIFORM:
+			size = random.nextInt(2 * payloadSize + 1);
+			break;
+
+		case EXPONENTIAL:
+			size = (int) Math.min(Integer.MAX_VALUE, -Math.log(1.0d - random.nextDouble()) * payloadSize);
+			break;
+		}
+		size = Math.min(size, maxPayloadSize);
+
+		// The characters are generated once
+		// and shared by all bodies
+		if (size > payload.length) {
+			char[] grown = new char[Math.max(size, 2 * payload.length)];
+			System.arraycopy(payload, 0, grown, 0, payload.length);
+			for (int i = payload.length; i < grown.length; i++) {
+				grown[i] = (char) ('a' + random.nextInt(26));
+			}
+			payload = grown;
+		}
+		return new String(payload, 0, size);
+	}
+}
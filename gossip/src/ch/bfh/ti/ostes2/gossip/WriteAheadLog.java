@@ -0,0 +1,594 @@
+/*
+ * WriteAheadLog.java
+ * 
+ * 1.2
+ * 
+ * 2026-10-18
+ *
+ * The MIT License (MIT)
+* 
+* Copyright (c) 2014 Sven Osterwalder
+* 
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+* 
+* The above copyright notice and this permission notice shall be included in all
+* copies or substantial portions of the Software.
+* 
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+* SOFTWARE.
+*/
+
+package ch.bfh.ti.ostes2.gossip;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only write-ahead log of a {@link ReplicationManager},
+ * so it can rebuild its update-log, its executed calls, its
+ * messages and its time stamps after a restart without
+ * fetching the whole history by gossip again.
+ * 
+ * The log consists of segment files of a fixed size
+ * within its own directory, each of them memory-mapped.
+ * An entry looks as follows:
+ * 
+ * 	[length: 4 bytes][crc: 4 bytes][type: 1 byte][payload]
+ * 
+ * where the length covers the type and the payload and the
+ * CRC32 is calculated over them as well. The rest of a segment
+ * is filled with zeros, a length of 0 ends the segment.
+ * The following entries exist:
+ * 
+ * 	RECORD				- a {@link LogRecord} added to the update-log,
+ * 						  encoded by the {@link WireCodec}
+ * 	APPLY				- the ID of an applied {@link ActionMessage}
+ * 	REPLICA_TIMESTAMP	- the replicaTS after it changed
+ * 	RECORDS				- several {@link LogRecord}s added to the
+ * 						  update-log at once, e.g. for a batch of
+ * 						  updates, so they get recovered all or none
+ * 
+ * Appending only writes to the mapped segment. Syncing
+ * the segment to the disk is done for a group of entries
+ * at once (group commit), as soon as either the given
+ * number of entries or the given time since the first
+ * entry of the group is reached. Entries which did not
+ * reach the disk may get lost, entries which got torn are
+ * detected by their CRC when recovering and cut off.
+ * 
+ * @author sosterwalder
+ *
+ */
+public class WriteAheadLog {
+	/**
+	 * Receives the entries of the
+	 * {@link WriteAheadLog} when recovering.
+	 */
+	public interface Replay {
+		/**
+		 * A {@link LogRecord} got added
+		 * to the update-log.
+		 * 
+		 * @param record		the record
+		 */
+		void record(LogRecord record);
+
+		/**
+		 * The {@link ActionMessage} with the
+		 * given ID got applied.
+		 * 
+		 * @param messageId		the ID of the message
+		 */
+		void apply(UUID messageId);
+
+		/**
+		 * The replicaTS changed.
+		 * 
+		 * @param timestamp		the new replicaTS
+		 */
+		void replicaTimestamp(VectorClock timestamp);
+	}
+
+	public static final byte				RECORD					= 1;
+	public static final byte				APPLY					= 2;
+	public static final byte				REPLICA_TIMESTAMP		= 3;
+	public static final byte				RECORDS					= 4;
+	public static final int					ENTRY_HEADER_SIZE		= 9;
+	public static final int					DEFAULT_SEGMENT_SIZE	= 64 * 1024 * 1024;
+
+	private static final String				SEGMENT_PREFIX			= "segment-";
+	private static final String				SEGMENT_SUFFIX			= ".wal";
+
+	private File							directory				= null;
+	private int								segmentSize				= DEFAULT_SEGMENT_SIZE;
+	private long							syncIntervalNanos		= 0;
+	private int								syncBatch				= 1;
+	private MappedByteBuffer				segment					= null; // The segment appended to
+	private int								segmentIndex			= -1;
+	private CRC32							crc						= new CRC32();
+	private ByteBuffer						scratch					= ByteBuffer.allocate(64);
+	private int								unsynced				= 0;
+	private long							firstUnsyncedNanos		= 0;
+	private long							appended				= 0;
+	private long							syncs					= 0;
+
+	/**
+	 * Constructor
+	 * 
+	 * The log has to be recovered before
+	 * anything can be appended.
+	 * 
+	 * @param directory				the directory of the segments,
+	 * 								gets created if needed
+	 * @param segmentSize			the size of a segment in bytes
+	 * @param syncIntervalNanos		the maximal time in nanoseconds
+	 * 								an entry waits for a sync
+	 * @param syncBatch				the number of entries after which
+	 * 								a sync is done in any case
+	 */
+	public WriteAheadLog(File directory, int segmentSize, long syncIntervalNanos, int syncBatch) {
+		if (segmentSize <= ENTRY_HEADER_SIZE || syncBatch <= 0) {
+			throw new IllegalArgumentException(
+				String.format(
+					"Invalid write-ahead log: segments of %d bytes, sync batch of %d", segmentSize, syncBatch
+				)
+			);
+		}
+
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.syncIntervalNanos = syncIntervalNanos;
+		this.syncBatch = syncBatch;
+	}
+
+	/**
+	 * Returns the directory of the segments.
+	 * 
+	 * @return		the directory
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Returns the number of entries
+	 * appended since the recovery.
+	 * 
+	 * @return		the number of entries
+	 */
+	public long getAppended() {
+		return appended;
+	}
+
+	/**
+	 * Returns the number of syncs
+	 * since the recovery.
+	 * 
+	 * @return		the number of syncs
+	 */
+	public long getSyncs() {
+		return syncs;
+	}
+
+	/**
+	 * Returns if there are entries
+	 * which are not synced yet.
+	 * 
+	 * @return		true if there are unsynced
+	 * 				entries, otherwise false
+	 */
+	public boolean hasUnsynced() {
+		return unsynced > 0;
+	}
+
+	/**
+	 * Reads all entries of the segments in their order and
+	 * hands them to the given replay. Stops at the first
+	 * torn or corrupt entry, it and everything behind it
+	 * gets removed. Appending continues behind the last
+	 * valid entry afterwards.
+	 * 
+	 * @param replay		the replay receiving the entries,
+	 * 						may be null
+	 * @return				the number of valid entries
+	 * @throws IOException
+	 */
+	public long recover(Replay replay) throws IOException {
+		return this.recover(replay, 0);
+	}
+
+	/**
+	 * Reads all entries of the segments starting at the
+	 * given one, e.g. the first one not covered by a
+	 * {@link Snapshot}, like recover(). The segments
+	 * before it get deleted.
+	 * 
+	 * @param replay		the replay receiving the entries,
+	 * 						may be null
+	 * @param firstSegment	the index of the first segment
+	 * @return				the number of valid entries
+	 * @throws IOException
+	 */
+	public long recover(Replay replay, int firstSegment) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Could not create directory " + directory);
+		}
+
+		File[] files = this.listSegments();
+		long entries = 0;
+		boolean corrupt = false;
+		segmentIndex = firstSegment - 1;
+		for (int i = 0; i < files.length; i++) {
+			if (corrupt || indexOf(files[i]) < firstSegment) {
+				// Entries behind a corrupt entry are not
+				// valid either, the ones before the first
+				// segment are not needed anymore
+				if (!files[i].delete()) {
+					throw new IOException("Could not delete segment " + files[i]);
+				}
+				continue;
+			}
+
+			MappedByteBuffer buffer = map(files[i], files[i].length());
+			int valid = 0;
+			while (buffer.remaining() >= ENTRY_HEADER_SIZE) {
+				int start = buffer.position();
+				int length = buffer.getInt();
+				if (length == 0) {
+					// End of the segment
+					buffer.position(start);
+					break;
+				}
+				if (length < 0 || length > buffer.remaining() - 4) {
+					corrupt = true;
+					buffer.position(start);
+					break;
+				}
+
+				int checksum = buffer.getInt();
+				byte[] entry = new byte[length];
+				buffer.get(entry);
+				crc.reset();
+				crc.update(entry, 0, length);
+				if ((int) crc.getValue() != checksum) {
+					corrupt = true;
+					buffer.position(start);
+					break;
+				}
+
+				if (replay != null) {
+					this.dispatch(entry, replay);
+				}
+				valid++;
+			}
+			entries += valid;
+
+			if (corrupt) {
+				// Wipe the corrupt part so that no
+				// old bytes show up behind new entries
+				int end = buffer.position();
+				byte[] zeros = new byte[4096];
+				while (buffer.hasRemaining()) {
+					buffer.put(zeros, 0, Math.min(zeros.length, buffer.remaining()));
+				}
+				buffer.force();
+				buffer.position(end);
+			}
+
+			segment = buffer;
+			segmentIndex = indexOf(files[i]);
+		}
+
+		if (segment == null) {
+			this.roll();
+		}
+
+		unsynced = 0;
+		appended = 0;
+		syncs = 0;
+		return entries;
+	}
+
+	/**
+	 * Appends a RECORD entry for the given
+	 * {@link LogRecord}.
+	 * 
+	 * @param record		the record added to the update-log
+	 */
+	public void appendRecord(LogRecord record) {
+		this.append(RECORD, WireCodec.encodeRecord(record));
+	}
+
+	/**
+	 * Appends a single RECORDS entry for
+	 * the given {@link LogRecord}s.
+	 * 
+	 * @param records		the records added to the update-log
+	 */
+	public void appendRecords(List<LogRecord> records) {
+		this.append(RECORDS, WireCodec.encodeRecords(records));
+	}
+
+	/**
+	 * Appends an APPLY entry for the
+	 * given message ID.
+	 * 
+	 * @param messageId		the ID of the applied message
+	 */
+	public void appendApply(UUID messageId) {
+		scratch.clear();
+		scratch.putLong(messageId.getMostSignificantBits());
+		scratch.putLong(messageId.getLeastSignificantBits());
+		this.append(APPLY, Arrays.copyOf(scratch.array(), scratch.position()));
+	}
+
+	/**
+	 * Appends a REPLICA_TIMESTAMP entry
+	 * for the given replicaTS.
+	 * 
+	 * @param timestamp		the replicaTS
+	 */
+	public void appendReplicaTimestamp(VectorClock timestamp) {
+		ByteBuffer payload = ByteBuffer.allocate(4 + 4 * timestamp.size());
+		payload.putInt(timestamp.size());
+		for (int i = 0; i < timestamp.size(); i++) {
+			payload.putInt(timestamp.get(i));
+		}
+		this.append(REPLICA_TIMESTAMP, payload.array());
+	}
+
+	/**
+	 * Tells whether the unsynced entries should
+	 * be synced now, because either there are
+	 * enough of them or the first of them
+	 * waited long enough.
+	 * 
+	 * @param now			the current time as given
+	 * 						by System.nanoTime()
+	 * @return				true if a sync is due,
+	 * 						otherwise false
+	 */
+	public boolean isSyncDue(long now) {
+		return unsynced > 0 && (unsynced >= syncBatch || now - firstUnsyncedNanos >= syncIntervalNanos);
+	}
+
+	/**
+	 * Syncs all appended entries to the disk.
+	 */
+	public void sync() {
+		if (unsynced == 0) {
+			return;
+		}
+		segment.force();
+		unsynced = 0;
+		syncs++;
+	}
+
+	/**
+	 * Syncs the current segment and continues with
+	 * a new one, e.g. when taking a {@link Snapshot}.
+	 * 
+	 * @return				the index of the new segment
+	 */
+	public int startSegment() {
+		try {
+			this.roll();
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Could not continue with a new segment", ex);
+		}
+		unsynced = 0;
+		return segmentIndex;
+	}
+
+	/**
+	 * Deletes the segments before the given one,
+	 * e.g. as they are covered by a {@link Snapshot}.
+	 * 
+	 * @param firstSegment	the index of the first
+	 * 						segment to keep
+	 * @return				the number of deleted segments
+	 */
+	public int truncate(int firstSegment) {
+		int deleted = 0;
+		for (File file : this.listSegments()) {
+			int index = indexOf(file);
+			if (index < firstSegment && index != segmentIndex && file.delete()) {
+				deleted++;
+			}
+		}
+		return deleted;
+	}
+
+	/**
+	 * Syncs all appended entries. The segments
+	 * stay mapped until they get collected.
+	 */
+	public void close() {
+		this.sync();
+	}
+
+	/**
+	 * Appends an entry of the given type
+	 * with the given payload.
+	 * 
+	 * @param type			the type of the entry
+	 * @param payload		the payload of the entry
+	 */
+	private void append(byte type, byte[] payload) {
+		if (segment == null) {
+			throw new IllegalStateException("The write-ahead log has not been recovered");
+		}
+
+		int length = 1 + payload.length;
+		if (ENTRY_HEADER_SIZE - 1 + length > segmentSize) {
+			throw new IllegalArgumentException(
+				String.format(
+					"Entry of %d bytes does not fit into a segment of %d bytes", length, segmentSize
+				)
+			);
+		}
+		if (ENTRY_HEADER_SIZE - 1 + length > segment.remaining()) {
+			try {
+				this.roll();
+			}
+			catch (IOException ex) {
+				throw new IllegalStateException("Could not continue with a new segment", ex);
+			}
+		}
+
+		crc.reset();
+		crc.update(type);
+		crc.update(payload, 0, payload.length);
+
+		segment.putInt(length);
+		segment.putInt((int) crc.getValue());
+		segment.put(type);
+		segment.put(payload);
+
+		if (unsynced == 0) {
+			firstUnsyncedNanos = System.nanoTime();
+		}
+		unsynced++;
+		appended++;
+	}
+
+	/**
+	 * Hands the given entry to the given replay.
+	 * 
+	 * @param entry			the type and the payload
+	 * 						of the entry
+	 * @param replay		the replay
+	 */
+	private void dispatch(byte[] entry, Replay replay) {
+		ByteBuffer payload = ByteBuffer.wrap(entry, 1, entry.length - 1);
+		switch (entry[0]) {
+		case RECORD:
+			replay.record(WireCodec.decodeRecord(Arrays.copyOfRange(entry, 1, entry.length)));
+			break;
+
+		case APPLY:
+			long mostSigBits = payload.getLong();
+			long leastSigBits = payload.getLong();
+			replay.apply(new UUID(mostSigBits, leastSigBits));
+			break;
+
+		case REPLICA_TIMESTAMP:
+			VectorClock timestamp = new VectorClock(payload.getInt());
+			for (int i = 0; i < timestamp.size(); i++) {
+				timestamp.set(i, payload.getInt());
+			}
+			replay.replicaTimestamp(timestamp);
+			break;
+
+		case RECORDS:
+			for (LogRecord record : WireCodec.decodeRecords(Arrays.copyOfRange(entry, 1, entry.length))) {
+				replay.record(record);
+			}
+			break;
+
+		default:
+			throw new IllegalStateException("Unknown entry type " + entry[0]);
+		}
+	}
+
+	/**
+	 * Syncs the current segment and
+	 * continues with a new one.
+	 * 
+	 * @throws IOException
+	 */
+	private void roll() throws IOException {
+		if (segment != null) {
+			segment.force();
+		}
+
+		segmentIndex++;
+		File file = new File(directory, String.format("%s%08d%s", SEGMENT_PREFIX, segmentIndex, SEGMENT_SUFFIX));
+		segment = map(file, segmentSize);
+	}
+
+	/**
+	 * Returns the segment files of the
+	 * log, ordered by their index.
+	 * 
+	 * @return		the segment files
+	 */
+	private File[] listSegments() {
+		File[] files = directory.listFiles(
+			new FilenameFilter() {
+				@Override
+				public boolean accept(File dir, String name) {
+					return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+				}
+			}
+		);
+		if (files == null) {
+			return new File[0];
+		}
+
+		// The indices are zero-padded
+		Arrays.sort(files);
+		ArrayList<File> segments = new ArrayList<File>(files.length);
+		for (File file : files) {
+			if (file.length() > 0) {
+				segments.add(file);
+			}
+		}
+		return segments.toArray(new File[segments.size()]);
+	}
+
+	/**
+	 * Returns the index of the given segment file.
+	 * 
+	 * @param file		the segment file
+	 * @return			the index
+	 */
+	private static int indexOf(File file) {
+		String name = file.getName();
+		return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+	}
+
+	/**
+	 * Maps the given file with the given size
+	 * for reading and writing. The file gets
+	 * created and grown if needed.
+	 * 
+	 * @param file		the file to map
+	 * @param size		the size to map
+	 * @return			the mapped file
+	 * @throws IOException
+	 */
+	private static MappedByteBuffer map(File file, long size) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			if (raf.length() < size) {
+				raf.setLength(size);
+			}
+			return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+		} finally {
+			// The mapping stays valid
+			raf.close();
+		}
+	}
+}
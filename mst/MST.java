@@ -3,7 +3,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 
 import p2pmpi.mpi.MPI;
-import p2pmpi.mpi.Request;
+import ch.bfh.ti.ostes2.gossip.Communicator;
+import ch.bfh.ti.ostes2.gossip.Communicator.Request;
+import ch.bfh.ti.ostes2.gossip.LoopbackCommunicator;
+import ch.bfh.ti.ostes2.gossip.MpiCommunicator;
 
 public class MST {
 	
@@ -41,7 +44,9 @@ public class MST {
 			return output.toString();
 		}
 	}
-	static int rank, size;
+	// per process, so several processes can run within one JVM
+	Communicator comm;
+	int rank, size;
 	// message types
 	static final int IS_CANDIDATE=0;
 	static final int IS_LEADER=1;	
@@ -105,10 +110,16 @@ public class MST {
 		{new E(11,10,11),new E(11,7,14)},  	// 11
 		*/		
 	}; 							
-	static E[] neighbors;
-	static E[] mst;
+	E[] neighbors;
+	E[] mst;
 	
-	public static int findLeader() throws Exception {
+	MST(Communicator comm) {
+		this.comm = comm;
+		size = comm.Size();
+		rank = comm.Rank();
+	}
+	
+	public int findLeader() throws Exception {
 		int currentLeader = rank;
 		
 		// we find our neighbors in incList:
@@ -151,11 +162,11 @@ public class MST {
 			sendBuf[nb].leader = rank;
 			sendBuf[nb].type = IS_LEADER;
 			sendBuf[nb].edge = neighbors[minimalWeightedEdge];
-			MPI.COMM_WORLD.Isend(
+			comm.Isend(
 				sendBuf,
 				nb,
 				1,
-				MPI.OBJECT,
+				Communicator.Datatype.OBJECT,
 				neighbors[nb].to, // Destination
 				0
 			);
@@ -164,13 +175,13 @@ public class MST {
 		// we start to listen to all neighbors
 		for (int nb = 0; nb < deg; nb++) {
 			System.out.println(rank + ": Listening to neighbour " + neighbors[nb].to);
-			reqs[nb] = MPI.COMM_WORLD.Irecv(
+			reqs[nb] = comm.Irecv(
 				recBuf,
 				nb,
 				1,
-				MPI.OBJECT,
+				Communicator.Datatype.OBJECT,
 				neighbors[nb].to, // Source 
-				MPI.ANY_TAG
+				0 // All messages are sent with tag 0
 			);
 		}
 		
@@ -180,7 +191,7 @@ public class MST {
 			// Poll all neighbors:
 			for (int nb = 0; nb < deg; nb++) {				
 				if (!hasGotMsg[nb]) {
-					if (reqs[nb].Test() != null) {
+					if (reqs[nb].Test()) {
 						System.out.println(rank + ": Got response from neighbour " + neighbors[nb].to);
 						//System.out.println(rank + ": " + recBuf[nb].toString());
 						hasGotMsg[nb] = true;
@@ -240,11 +251,11 @@ public class MST {
 						sendBuf[nb].leader = rank;
 						sendBuf[nb].type = IS_LEADER;
 						sendBuf[nb].edge = neighbors[minimalWeightedEdge];
-						MPI.COMM_WORLD.Isend(
+						comm.Isend(
 							sendBuf,
 							nb,
 							1,
-							MPI.OBJECT,
+							Communicator.Datatype.OBJECT,
 							neighbors[nb].to, // Destination
 							0
 						);
@@ -255,11 +266,11 @@ public class MST {
 					
 					for (int nb = 0; nb < deg; nb++) {
 						System.out.println(rank + ": Sending already connected edge " + sendBuf[nb].edge.toString() + " to neighbour {" + neighbors[nb].to + "}" );
-						MPI.COMM_WORLD.Isend(
+						comm.Isend(
 							sendBuf,
 							nb,
 							1,
-							MPI.OBJECT,
+							Communicator.Datatype.OBJECT,
 							neighbors[nb].to, // Destination
 							0
 						);
@@ -269,11 +280,11 @@ public class MST {
 				System.out.println(rank + ": No new edges found");
 				for (int nb = 0; nb < deg; nb++) {
 					System.out.println(rank + ": Sending already connected edge " + sendBuf[nb].edge.toString() + " to neighbour {" + neighbors[nb].to + "}" );
-					MPI.COMM_WORLD.Isend(
+					comm.Isend(
 						sendBuf,
 						nb,
 						1,
-						MPI.OBJECT,
+						Communicator.Datatype.OBJECT,
 						neighbors[nb].to, // Destination
 						0
 					);
@@ -293,18 +304,18 @@ public class MST {
 			sendBuf[missingNb].leader = rank;
 			sendBuf[missingNb].type = IS_LEADER;
 			sendBuf[missingNb].edge = neighbors[minimalWeightedEdge];
-			Request rr =MPI.COMM_WORLD.Isend(
+			Request rr =comm.Isend(
 					sendBuf,
 					missingNb,
 					1,
-					MPI.OBJECT,
+					Communicator.Datatype.OBJECT,
 					neighbors[missingNb].to, // Destination
 					0
 					);
 			rr.Wait(); 
 			
 			do{ 
-				if (reqs[missingNb].Test()!=null){
+				if (reqs[missingNb].Test()){
 					m = m + 1;
 					
 					// Get connected neighbour
@@ -347,11 +358,11 @@ public class MST {
 									sendBuf[nb].leader = rank;
 									sendBuf[nb].type = IS_LEADER;
 									sendBuf[nb].edge = neighbors[minimalWeightedEdge];
-									MPI.COMM_WORLD.Isend(
+									comm.Isend(
 										sendBuf,
 										nb,
 										1,
-										MPI.OBJECT,
+										Communicator.Datatype.OBJECT,
 										neighbors[nb].to, // Destination
 										0
 									);
@@ -364,11 +375,11 @@ public class MST {
 							for (int nb = 0; nb < deg; nb++) {
 								if (nb != missingNb) {
 									System.out.println(rank + ": Sending already connected edge " + sendBuf[nb].edge.toString() + " to neighbour {" + neighbors[nb].to + "}" );
-									MPI.COMM_WORLD.Isend(
+									comm.Isend(
 										sendBuf,
 										nb,
 										1,
-										MPI.OBJECT,
+										Communicator.Datatype.OBJECT,
 										neighbors[nb].to, // Destination
 										0
 									);
@@ -380,11 +391,11 @@ public class MST {
 						for (int nb = 0; nb < deg; nb++) {
 							if (nb != missingNb) {
 								System.out.println(rank + ": Sending already connected edge " + sendBuf[nb].edge.toString() + " to neighbour {" + neighbors[nb].to + "}" );
-								MPI.COMM_WORLD.Isend(
+								comm.Isend(
 									sendBuf,
 									nb,
 									1,
-									MPI.OBJECT,
+									Communicator.Datatype.OBJECT,
 									neighbors[nb].to, // Destination
 									0
 								);
@@ -404,21 +415,48 @@ public class MST {
 	}
 
 	
-	public static void main(String[] args) throws Exception {
-		MPI.Init(args);
-		size = MPI.COMM_WORLD.Size();
-		rank = MPI.COMM_WORLD.Rank();
-		neighbors = incList[rank]; // our neighbors in the tree graph
-		
+	public void run() throws Exception {
 		if (size != incList.length) {
 			System.out.println("run with -n "+ incList.length);
 		}
 		else {
+			neighbors = incList[rank]; // our neighbors in the tree graph
 			int leader = findLeader();
 			System.out.println("******rank "+rank+", leader: "+leader);
 		}
+	}
+	
+	public static void main(String[] args) throws Exception {
+		// "loopback" runs all processes as threads
+		// within this JVM, without P2P-MPI
+		if (args.length > 0 && args[0].equals("loopback")) {
+			runLoopback(incList.length);
+			return;
+		}
 		
+		MPI.Init(args);
+		new MST(new MpiCommunicator(MPI.COMM_WORLD)).run();
 		MPI.Finalize();
 	}
+	
+	static void runLoopback(int size) throws InterruptedException {
+		LoopbackCommunicator[] comms = LoopbackCommunicator.create(size);
+		Thread[] threads = new Thread[size];
+		for (int i = 0; i < size; i++) {
+			final Communicator comm = comms[i];
+			threads[i] = new Thread(new Runnable() {
+				public void run() {
+					try {
+						new MST(comm).run();
+					} catch (Exception e) {
+						e.printStackTrace();
+					}
+				}
+			}, "rank-" + i);
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+	}
 }
- 
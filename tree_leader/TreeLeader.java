@@ -3,11 +3,16 @@ import java.util.ArrayList;
 import java.util.List;
 
 import p2pmpi.mpi.MPI;
-import p2pmpi.mpi.Request;
+import ch.bfh.ti.ostes2.gossip.Communicator;
+import ch.bfh.ti.ostes2.gossip.Communicator.Request;
+import ch.bfh.ti.ostes2.gossip.LoopbackCommunicator;
+import ch.bfh.ti.ostes2.gossip.MpiCommunicator;
 
 public class TreeLeader {
-	static int rank;
-	static int size;
+	// Per process, so several processes can run within one JVM
+	private Communicator comm;
+	private int rank;
+	private int size;
 	
 	static final int TIME_TO_WAIT = 10;
 	
@@ -20,7 +25,10 @@ public class TreeLeader {
 	private List<Vertice> mVertices;
 	
 	
-	public TreeLeader() {
+	public TreeLeader(Communicator comm) {
+		this.comm = comm;
+		size = comm.Size();
+		rank = comm.Rank();
 		mVertices = new ArrayList<Vertice>();
 		
 		for (int i = 0; i < VERTICES; i++) {
@@ -108,11 +116,11 @@ public class TreeLeader {
 		
 		// Listen to all neighbors
 		for (int neighbour = 0; neighbour < numberOfNeighbours; neighbour++) {
-			requests[neighbour] = MPI.COMM_WORLD.Irecv(
+			requests[neighbour] = comm.Irecv(
 				messageBuffer,
 				0,
 				1,
-				MPI.OBJECT,
+				Communicator.Datatype.OBJECT,
 				neighbours.get(neighbour).getId(), // Source
 				0
 			);
@@ -139,7 +147,7 @@ public class TreeLeader {
 				);
 				
 				if (!currentMessage.isMessageReceived) {
-					if (requests[neighbour].Test() != null) {
+					if (requests[neighbour].Test()) {
 						currentMessage = new Message();
 						currentMessage.isMessageReceived = true;
 						currentMessage.rank = neighbours.get(neighbour).getId();
@@ -201,11 +209,11 @@ public class TreeLeader {
 				finalMessage.rank = neighbours.get(neighbour).getId();
 				finalMessage.isMessageReceived = false;
 				
-				MPI.COMM_WORLD.Isend(
-					finalMessage,
+				comm.Isend(
+					new Message[] { finalMessage },
 					0,
 					1,
-					MPI.OBJECT,
+					Communicator.Datatype.OBJECT,
 					neighbours.get(neighbour).getId(),  // Destination
 					0
 				); 
@@ -248,18 +256,18 @@ public class TreeLeader {
 			message.rank = neighbours.get(missingNeighbour - 1).getId();
 			message.isMessageReceived = false;
 			
-			Request request = MPI.COMM_WORLD.Isend(
-				message,
+			Request request = comm.Isend(
+				new Message[] { message },
 				0,
 				1,
-				MPI.OBJECT,
+				Communicator.Datatype.OBJECT,
 				neighbours.get(missingNeighbour - 1).getId(), // Destination
 				0
 			);
 			request.Wait();
 			
 			do {
-				if (requests[missingNeighbour].Test() != null) {
+				if (requests[missingNeighbour].Test()) {
 					numberOfProcessedNeighbours++;
 					
 					if (currentMessage.messageType == 0) {
@@ -288,11 +296,11 @@ public class TreeLeader {
 						leaderMessage.rank = neighbours.get(neighbour).getId();
 						leaderMessage.isMessageReceived = false;
 						
-						Request leaderRequest = MPI.COMM_WORLD.Isend(
-							message,
+						Request leaderRequest = comm.Isend(
+							new Message[] { message },
 							0,
 							1,
-							MPI.OBJECT,
+							Communicator.Datatype.OBJECT,
 							neighbours.get(neighbour).getId(), // Destination
 							0
 						);
@@ -312,16 +320,10 @@ public class TreeLeader {
 		return currentLeader;
 	}
 
-	public static void main(String[] args) {
-		MPI.Init(args);
-		size = MPI.COMM_WORLD.Size();
-		rank = MPI.COMM_WORLD.Rank();
-		
-		TreeLeader treeLeader = new TreeLeader();
-		
+	public void run() {
 		if (size != VERTICES) System.out.println("run with -n "+ VERTICES);
 		else {
-			int leader = treeLeader.findLeader();
+			int leader = findLeader();
 			System.out.println(
 				String.format(
 					"Rank {%d} elected leader {%d}",
@@ -330,6 +332,35 @@ public class TreeLeader {
 				)
 			);
 		}
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		// "loopback" runs all processes as threads
+		// within this JVM, without P2P-MPI
+		if (args.length > 0 && args[0].equals("loopback")) {
+			runLoopback(VERTICES);
+			return;
+		}
+		
+		MPI.Init(args);
+		new TreeLeader(new MpiCommunicator(MPI.COMM_WORLD)).run();
 		MPI.Finalize();
 	}
+	
+	static void runLoopback(int size) throws InterruptedException {
+		LoopbackCommunicator[] comms = LoopbackCommunicator.create(size);
+		Thread[] threads = new Thread[size];
+		for (int i = 0; i < size; i++) {
+			final Communicator comm = comms[i];
+			threads[i] = new Thread(new Runnable() {
+				public void run() {
+					new TreeLeader(comm).run();
+				}
+			}, "rank-" + i);
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+	}
 }
@@ -1,9 +1,14 @@
 import p2pmpi.mpi.MPI;
-import p2pmpi.mpi.Request;
+import ch.bfh.ti.ostes2.gossip.Communicator;
+import ch.bfh.ti.ostes2.gossip.Communicator.Request;
+import ch.bfh.ti.ostes2.gossip.LoopbackCommunicator;
+import ch.bfh.ti.ostes2.gossip.MpiCommunicator;
 
 public class TreeLeaderFoos {
 
-	static int rank, size;
+	// per process, so several processes can run within one JVM
+	Communicator comm;
+	int rank, size;
 	// message types
 	static final int IS_CANDIDATE=0;
 	static final int IS_LEADER=1;	
@@ -29,10 +34,16 @@ public class TreeLeaderFoos {
 		{6},  		// 7
 		{3},  		// 8
 		{5}}; 		// 9
-	static int [] neighbours;		
+	int [] neighbours;		
 	static int timeCap = 10;  
 	
-	public static int findLeader(){
+	TreeLeaderFoos(Communicator comm) {
+		this.comm = comm;
+		size = comm.Size();
+		rank = comm.Rank();
+	}
+	
+	public int findLeader(){
 		int currentLeader = rank;
 		// we find our neighbours in incList:
 		int deg = neighbours.length;
@@ -46,15 +57,19 @@ public class TreeLeaderFoos {
 		int m = 0; // count for the successfull reads
 		int [][] recBuf=null;
 		recBuf = new int [deg][2];
+		// the int[] messages are sent as objects,
+		// received into a box per neighbour
+		Object [][] recBox = new Object [deg][1];
 		// we start to listen to all neighbours
 		for (int nb=0; nb<deg;nb++){
-			reqs[nb] = MPI.COMM_WORLD.Irecv(recBuf[nb],0, 2, MPI.INT,neighbours[nb],0);
+			reqs[nb] = comm.Irecv(recBox[nb],0, 1, Communicator.Datatype.OBJECT,neighbours[nb],0);
 		}
 		do {
 			// poll all neighbours nb:
 			for (int nb=0; nb<deg;nb++){
 				if ( ! hasGotMsg[nb]){ 
-					if (reqs[nb].Test() != null){
+					if (reqs[nb].Test()){
+						recBuf[nb] = (int []) recBox[nb][0];
 						hasGotMsg[nb] = true;
 						m++;
 						if (currentLeader > recBuf[nb][1]){
@@ -78,7 +93,7 @@ public class TreeLeaderFoos {
 				int [] sendBuf = new int[2];
 				sendBuf[0] = IS_LEADER;
 				sendBuf[1] = currentLeader;
-				MPI.COMM_WORLD.Isend(sendBuf,0, 2, MPI.INT,neighbours[nb],0);
+				comm.Isend(new Object [] {sendBuf},0, 1, Communicator.Datatype.OBJECT,neighbours[nb],0);
 			}
 		}
 		else {
@@ -91,11 +106,12 @@ public class TreeLeaderFoos {
 			int  [] sendBuf = new int[2];
 			sendBuf[0] = IS_CANDIDATE;
 			sendBuf[1] = currentLeader;				
-			Request rr =MPI.COMM_WORLD.Isend(sendBuf,0, 2, MPI.INT,neighbours[nb],0);
+			Request rr =comm.Isend(new Object [] {sendBuf},0, 1, Communicator.Datatype.OBJECT,neighbours[nb],0);
 			rr.Wait();
 			// now we wait for the  msg on  link 'i'
 			do{ 
-				if (reqs[nb].Test()!=null){
+				if (reqs[nb].Test()){
+					recBuf[nb] = (int []) recBox[nb][0];
 					m=m+1;
 					if (recBuf[nb][0]==IS_CANDIDATE){
 						// we got a candidate msg so we find out the leader 
@@ -117,7 +133,7 @@ public class TreeLeaderFoos {
 							int [] sndBuf = new int[2];
 							sndBuf[0] = IS_LEADER;
 							sndBuf[1] = currentLeader;
-							rr = MPI.COMM_WORLD.Isend(sndBuf,0, 2, MPI.INT,neighbours[k],0);
+							rr = comm.Isend(new Object [] {sndBuf},0, 1, Communicator.Datatype.OBJECT,neighbours[k],0);
 							rr.Wait();
 						}
 					}						
@@ -133,16 +149,39 @@ public class TreeLeaderFoos {
 		return currentLeader;
 	}
 
-	public static void main(String[] args) {
-		MPI.Init(args);
-		size = MPI.COMM_WORLD.Size();
-		rank = MPI.COMM_WORLD.Rank();
-		neighbours = incList[rank]; // our neighbours in the tree graph
+	public void run(){
 		if (size != N) System.out.println("run with -n "+N);
 		else {
+			neighbours = incList[rank]; // our neighbours in the tree graph
 			int leader = findLeader();
 			System.out.println("******rank "+rank+", leader: "+leader);
 		}
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		// "loopback" runs all processes as threads
+		// within this JVM, without P2P-MPI
+		if (args.length > 0 && args[0].equals("loopback")) {
+			runLoopback(N);
+			return;
+		}
+		MPI.Init(args);
+		new TreeLeaderFoos(new MpiCommunicator(MPI.COMM_WORLD)).run();
 		MPI.Finalize();
 	}
+	
+	static void runLoopback(int size) throws InterruptedException {
+		LoopbackCommunicator[] comms = LoopbackCommunicator.create(size);
+		Thread[] threads = new Thread[size];
+		for (int i=0; i<size; i++){
+			final Communicator comm = comms[i];
+			threads[i] = new Thread(new Runnable() {
+				public void run() {
+					new TreeLeaderFoos(comm).run();
+				}
+			}, "rank-"+i);
+			threads[i].start();
+		}
+		for (Thread thread : threads) thread.join();
+	}
 }